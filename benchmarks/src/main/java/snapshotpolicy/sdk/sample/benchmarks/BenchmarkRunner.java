@@ -0,0 +1,41 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks and writes the results as JSON, so that runs can be compared over time.
+ * Accepts the usual JMH command line options, e.g. a benchmark name filter, or -rf csv -rff other-file.csv to write
+ * the results elsewhere than jmh-results.json
+ */
+public class BenchmarkRunner
+{
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException
+    {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLine);
+
+        // Options set on the builder win over the parent, so the defaults are only set when -rf and -rff are not given
+        if (!commandLine.getResultFormat().hasValue())
+        {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+
+        if (!commandLine.getResult().hasValue())
+        {
+            builder.result("jmh-results.json");
+        }
+
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,99 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.benchmarks;
+
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import snapshotpolicy.sdk.sample.common.CommonSdk;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
+import snapshotpolicy.sdk.sample.common.ResourceStateCache;
+import snapshotpolicy.sdk.sample.throttling.ArmRateLimiter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of CommonSdk.getResource around the SDK call, against an in-memory client: typed dispatch through
+ * ResourceKind, the Class based overload, a 404 turned into null, and a hit in the read-through cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetResourceDispatchBenchmark
+{
+    private static final String[] VOLUME_PARAMS = {"rg1", "account1", "pool1", "volume1"};
+
+    private NetAppManagementClient existingClient;
+    private NetAppManagementClient missingClient;
+
+    @Setup
+    public void setup()
+    {
+        // Measure the sample code, not the client-side ARM request budget
+        ArmRateLimiter.setShared(ArmRateLimiter.unlimited());
+        VolumeInner volume = new VolumeInner();
+        existingClient = InMemoryClients.withGetter(args -> volume);
+        missingClient = InMemoryClients.withGetter(args ->
+        {
+            throw InMemoryClients.notFound();
+        });
+    }
+
+    @Benchmark
+    public Object typedDispatch()
+    {
+        return CommonSdk.getResource(existingClient, ResourceKind.VOLUME, VOLUME_PARAMS);
+    }
+
+    @Benchmark
+    public Object classDispatch()
+    {
+        return CommonSdk.getResource(existingClient, VOLUME_PARAMS, VolumeInner.class);
+    }
+
+    @Benchmark
+    public Object notFound()
+    {
+        return CommonSdk.getResource(missingClient, ResourceKind.VOLUME, VOLUME_PARAMS);
+    }
+
+    // Same as typedDispatch with a cache in front of the client, every call after the first one is a hit
+    @State(Scope.Benchmark)
+    public static class Cached
+    {
+        @Setup(Level.Trial)
+        public void enable()
+        {
+            CommonSdk.setResourceCache(new ResourceStateCache());
+        }
+
+        @TearDown(Level.Trial)
+        public void disable()
+        {
+            CommonSdk.setResourceCache(null);
+        }
+    }
+
+    @Benchmark
+    public Object cachedDispatch(Cached cached)
+    {
+        return CommonSdk.getResource(existingClient, ResourceKind.VOLUME, VOLUME_PARAMS);
+    }
+}
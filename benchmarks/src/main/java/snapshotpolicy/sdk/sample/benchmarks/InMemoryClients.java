@@ -0,0 +1,87 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.benchmarks;
+
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.function.Function;
+
+/**
+ * Minimal in-memory NetAppManagementClient for benchmarks. Every operation client it returns (accounts, pools,
+ * volumes, snapshots and snapshot policies) answers get calls from a function, so benchmarks measure the code of
+ * the sample and not the network. Any other call fails.
+ */
+final class InMemoryClients
+{
+    static final String SUBSCRIPTION_ID = "00000000-0000-0000-0000-000000000000";
+
+    private InMemoryClients()
+    {
+    }
+
+    /**
+     * @param getter Receives the arguments of a get call and returns the resource, or throws like the SDK would
+     * @return Client answering get calls with getter
+     */
+    static NetAppManagementClient withGetter(Function<Object[], Object> getter)
+    {
+        return proxy(NetAppManagementClient.class, (proxy, method, args) ->
+        {
+            if (method.getName().equals("getSubscriptionId"))
+            {
+                return SUBSCRIPTION_ID;
+            }
+
+            Class<?> operationsClient = method.getReturnType();
+            if (method.getName().startsWith("get") && operationsClient.isInterface())
+            {
+                return proxy(operationsClient, (operations, operation, operationArgs) ->
+                {
+                    if (operation.getName().equals("get") || operation.getName().equals("getByResourceGroup"))
+                    {
+                        return getter.apply(operationArgs);
+                    }
+
+                    throw new UnsupportedOperationException(operation.getName());
+                });
+            }
+
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    /**
+     * @return Exception recognized by CommonSdk.isNotFound, the SDK throws a ManagementException with the same message
+     */
+    static RuntimeException notFound()
+    {
+        return new RuntimeException("Status code 404, (empty body)");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler)
+    {
+        return (T) Proxy.newProxyInstance(InMemoryClients.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+        {
+            if (method.getDeclaringClass() == Object.class)
+            {
+                switch (method.getName())
+                {
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return type.getSimpleName() + "@InMemory";
+                }
+            }
+
+            return handler.invoke(proxy, method, args);
+        });
+    }
+}
@@ -0,0 +1,89 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.benchmarks;
+
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import snapshotpolicy.sdk.sample.common.CommonSdk;
+import snapshotpolicy.sdk.sample.common.ExponentialBackoffPolling;
+import snapshotpolicy.sdk.sample.common.FixedIntervalPolling;
+import snapshotpolicy.sdk.sample.common.PollingStrategy;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
+import snapshotpolicy.sdk.sample.common.VirtualPollingClock;
+import snapshotpolicy.sdk.sample.throttling.ArmRateLimiter;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of waitForNoANFResource, excluding the waiting itself: a VirtualPollingClock advances time instead of
+ * sleeping and the in-memory client reports the resource as gone after a given number of polls.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PollingOverheadBenchmark
+{
+    private static final String VOLUME_ID = "/subscriptions/00000000-0000-0000-0000-000000000000/resourceGroups/rg1/providers/"
+            + "Microsoft.NetApp/netAppAccounts/account1/capacityPools/pool1/volumes/volume1";
+
+    @Param({"1", "10"})
+    public int pollsUntilGone;
+
+    private int remainingPolls;
+    private NetAppManagementClient anfClient;
+
+    @Setup
+    public void setup()
+    {
+        // Measure the sample code, not the client-side ARM request budget
+        ArmRateLimiter.setShared(ArmRateLimiter.unlimited());
+        VolumeInner volume = new VolumeInner();
+        anfClient = InMemoryClients.withGetter(args ->
+        {
+            if (--remainingPolls <= 0)
+            {
+                throw InMemoryClients.notFound();
+            }
+
+            return volume;
+        });
+    }
+
+    @Benchmark
+    public VirtualPollingClock exponentialBackoff()
+    {
+        return waitForDeletion(new ExponentialBackoffPolling().withRandom(() -> 0.5));
+    }
+
+    @Benchmark
+    public VirtualPollingClock fixedInterval()
+    {
+        return waitForDeletion(new FixedIntervalPolling(Duration.ofSeconds(10), 100));
+    }
+
+    private VirtualPollingClock waitForDeletion(PollingStrategy strategy)
+    {
+        remainingPolls = pollsUntilGone;
+        VirtualPollingClock clock = new VirtualPollingClock();
+        CommonSdk.waitForNoANFResource(anfClient, VOLUME_ID, strategy, clock, ResourceKind.VOLUME);
+        return clock;
+    }
+}
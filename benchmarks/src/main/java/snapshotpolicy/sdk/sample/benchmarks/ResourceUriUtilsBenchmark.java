@@ -0,0 +1,140 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import snapshotpolicy.sdk.sample.common.AnfResourceId;
+import snapshotpolicy.sdk.sample.common.AnfResourceIdCache;
+import snapshotpolicy.sdk.sample.common.ResourceUriUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resource id getters across id shapes: the cached ResourceUriUtils path, an uncached AnfResourceId parse, and the
+ * string-splitting implementation ResourceUriUtils used before AnfResourceId. In the sameName shape the resource
+ * group is called "volumes", which the legacy implementation resolves as the volume name.
+ * Each invocation takes the next of distinctIds ids laid out like a large fleet, a million by default. Cycling through
+ * far more ids than the shared cache holds makes every cached lookup a miss followed by an eviction, the worst case of
+ * a fleet-wide listing; run with -p distinctIds=1000 to measure the path where every lookup hits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ResourceUriUtilsBenchmark
+{
+    private static final String SUBSCRIPTION = "/subscriptions/00000000-0000-0000-0000-000000000000";
+    private static final String LONG_NAME = "a-very-long-resource-name-used-to-measure-scanning-cost-";
+
+    @Param({"account", "snapshotPolicy", "volume", "snapshot", "sameName", "longNames"})
+    public String shape;
+
+    @Param({"1000000"})
+    public int distinctIds;
+
+    private String[] resourceIds;
+    private int next;
+
+    @Setup
+    public void setup()
+    {
+        resourceIds = new String[distinctIds];
+        for (int i = 0; i < distinctIds; i++)
+        {
+            resourceIds[i] = resourceId(shape, i);
+        }
+
+        // Every trial starts from an empty cache, whatever the previous shape left in it
+        AnfResourceIdCache.shared().clear();
+        next = 0;
+    }
+
+    @Benchmark
+    public void cachedGetters(Blackhole blackhole)
+    {
+        String resourceId = nextId();
+        blackhole.consume(ResourceUriUtils.getResourceGroup(resourceId));
+        blackhole.consume(ResourceUriUtils.getAnfAccount(resourceId));
+        blackhole.consume(ResourceUriUtils.getAnfCapacityPool(resourceId));
+        blackhole.consume(ResourceUriUtils.getAnfVolume(resourceId));
+        blackhole.consume(ResourceUriUtils.getAnfSnapshot(resourceId));
+    }
+
+    @Benchmark
+    public void uncachedParse(Blackhole blackhole)
+    {
+        AnfResourceId parsed = AnfResourceId.parse(nextId());
+        blackhole.consume(parsed.resourceGroup());
+        blackhole.consume(parsed.accountName());
+        blackhole.consume(parsed.poolName());
+        blackhole.consume(parsed.volumeName());
+        blackhole.consume(parsed.snapshotName());
+    }
+
+    @Benchmark
+    public void legacyGetters(Blackhole blackhole)
+    {
+        String resourceId = nextId();
+        blackhole.consume(LegacyResourceUriUtils.getResourceGroup(resourceId));
+        blackhole.consume(LegacyResourceUriUtils.getAnfAccount(resourceId));
+        blackhole.consume(LegacyResourceUriUtils.getAnfCapacityPool(resourceId));
+        blackhole.consume(LegacyResourceUriUtils.getAnfVolume(resourceId));
+        blackhole.consume(LegacyResourceUriUtils.getAnfSnapshot(resourceId));
+    }
+
+    @Benchmark
+    public Object segmentLookup()
+    {
+        return ResourceUriUtils.getResourceValue(nextId(), "/netAppAccounts");
+    }
+
+    // Benchmarks run on a single thread, the cursor is not shared
+    private String nextId()
+    {
+        String resourceId = resourceIds[next];
+        next = next + 1 == resourceIds.length ? 0 : next + 1;
+        return resourceId;
+    }
+
+    // Id number i of a shape: 10 resource groups of 10 accounts of 100 pools, each pool holding 100 volumes
+    private static String resourceId(String shape, int i)
+    {
+        String resourceGroup = "/resourceGroups/rg" + i / 100_000;
+        String account = "/providers/Microsoft.NetApp/netAppAccounts/account" + i / 10_000;
+        String pool = "/capacityPools/pool" + i / 100;
+        switch (shape)
+        {
+            case "account":
+                return SUBSCRIPTION + resourceGroup + "/providers/Microsoft.NetApp/netAppAccounts/account" + i;
+            case "snapshotPolicy":
+                return SUBSCRIPTION + resourceGroup + account + "/snapshotPolicies/policy" + i;
+            case "volume":
+                return SUBSCRIPTION + resourceGroup + account + pool + "/volumes/volume" + i;
+            case "snapshot":
+                return SUBSCRIPTION + resourceGroup + account + pool + "/volumes/volume" + i / 10 + "/snapshots/snapshot" + i;
+            case "sameName":
+                return SUBSCRIPTION + "/resourceGroups/volumes" + account + pool + "/volumes/volume" + i;
+            case "longNames":
+                return SUBSCRIPTION + "/resourceGroups/" + LONG_NAME + i / 100_000 + "/providers/Microsoft.NetApp/netAppAccounts/" + LONG_NAME + i / 10_000
+                        + "/capacityPools/" + LONG_NAME + i / 100 + "/volumes/" + LONG_NAME + i / 10 + "/snapshots/" + LONG_NAME + i;
+            default:
+                throw new IllegalArgumentException(shape);
+        }
+    }
+}
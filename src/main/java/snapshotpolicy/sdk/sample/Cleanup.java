@@ -6,6 +6,9 @@
 package snapshotpolicy.sdk.sample;
 
 import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import snapshotpolicy.sdk.sample.common.CommonSdk;
+import snapshotpolicy.sdk.sample.common.ResourceEvents;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
 import snapshotpolicy.sdk.sample.common.Utils;
 
 public class Cleanup
@@ -18,40 +21,19 @@ public class Cleanup
      */
     public static <T> void runCleanupTask(NetAppManagementClient anfClient, String[] params, Class<T> clazz)
     {
-        switch (clazz.getSimpleName())
-        {
-            case "VolumeInner":
-                Utils.writeConsoleMessage("Deleting Volume...");
-                anfClient.getVolumes().beginDelete(
-                        params[0],
-                        params[1],
-                        params[2],
-                        params[3]).getFinalResult();
-                break;
-
-            case "SnapshotPolicyInner":
-                Utils.writeConsoleMessage("Deleting Snapshot Policy...");
-                anfClient.getSnapshotPolicies().beginDelete(
-                        params[0],
-                        params[1],
-                        params[2]).getFinalResult();
-                break;
-
-            case "CapacityPoolInner":
-                Utils.writeConsoleMessage("Deleting Capacity Pool...");
-                anfClient.getPools().beginDelete(
-                        params[0],
-                        params[1],
-                        params[2]).getFinalResult();
-                break;
-
-            case "NetAppAccountInner":
-                Utils.writeConsoleMessage("Deleting Account...");
-                anfClient.getAccounts().beginDelete(
-                        params[0],
-                        params[1]).getFinalResult();
-                break;
+        runCleanupTask(anfClient, params, ResourceKind.of(clazz));
+    }
 
-        }
+    /**
+     * Deletes a resource and waits for the long-running operation to complete
+     * @param anfClient Azure NetApp Files Management Client
+     * @param params String array containing account name, pool name, etc, needed to delete resource
+     * @param kind Kind of the resource being deleted
+     */
+    public static <T> void runCleanupTask(NetAppManagementClient anfClient, String[] params, ResourceKind<T> kind)
+    {
+        Utils.writeConsoleMessage("Deleting " + kind.displayName() + "...");
+        CommonSdk.executeLongRunning(anfClient, kind, "delete", params, () -> kind.beginDelete(anfClient, params));
+        ResourceEvents.publishDeleted(kind, params);
     }
 }
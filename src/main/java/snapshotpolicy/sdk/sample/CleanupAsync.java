@@ -0,0 +1,48 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample;
+
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import reactor.core.publisher.Mono;
+import snapshotpolicy.sdk.sample.common.CommonSdk;
+import snapshotpolicy.sdk.sample.common.ResourceEvents;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
+import snapshotpolicy.sdk.sample.common.Utils;
+import snapshotpolicy.sdk.sample.throttling.ArmRateLimiter;
+import snapshotpolicy.sdk.sample.throttling.RequestType;
+
+// Non-blocking counterpart of Cleanup. Nothing is sent to Azure until the returned Mono is subscribed to.
+public class CleanupAsync
+{
+    /**
+     * Deletes a resource
+     * @param anfClient Azure NetApp Files Management Client
+     * @param params String array containing account name, pool name, etc, needed to delete resource
+     * @param clazz Which resource is being deleted
+     * @return Mono completing once the delete long-running operation completes
+     */
+    public static <T> Mono<Void> runCleanupTaskAsync(NetAppManagementClient anfClient, String[] params, Class<T> clazz)
+    {
+        return runCleanupTaskAsync(anfClient, params, ResourceKind.of(clazz));
+    }
+
+    /**
+     * Deletes a resource
+     * @param anfClient Azure NetApp Files Management Client
+     * @param params String array containing account name, pool name, etc, needed to delete resource
+     * @param kind Kind of the resource being deleted
+     * @return Mono completing once the delete long-running operation completes
+     */
+    public static <T> Mono<Void> runCleanupTaskAsync(NetAppManagementClient anfClient, String[] params, ResourceKind<T> kind)
+    {
+        return Mono.defer(() ->
+        {
+            Utils.writeConsoleMessage("Deleting " + kind.displayName() + "...");
+            return ArmRateLimiter.shared().executeAsync(CommonSdk.subscriptionOf(anfClient), RequestType.DELETE,
+                    () -> kind.deleteAsync(anfClient, params));
+        }).doOnSuccess(ignored -> ResourceEvents.publishDeleted(kind, params));
+    }
+}
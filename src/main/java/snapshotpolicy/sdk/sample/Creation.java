@@ -10,7 +10,18 @@ import com.azure.resourcemanager.netapp.fluent.models.CapacityPoolInner;
 import com.azure.resourcemanager.netapp.fluent.models.NetAppAccountInner;
 import com.azure.resourcemanager.netapp.fluent.models.SnapshotPolicyInner;
 import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import snapshotpolicy.sdk.sample.common.CommonSdk;
+import snapshotpolicy.sdk.sample.common.ResourceEvents;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
 import snapshotpolicy.sdk.sample.common.Utils;
+import snapshotpolicy.sdk.sample.common.WorkflowExecutors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
 
 public class Creation
 {
@@ -24,8 +35,11 @@ public class Creation
      */
     public static NetAppAccountInner createANFAccount(NetAppManagementClient anfClient, String resourceGroup, String accountName, NetAppAccountInner accountBody)
     {
-        NetAppAccountInner anfAccount = anfClient.getAccounts().beginCreateOrUpdate(resourceGroup, accountName, accountBody).getFinalResult();
-        Utils.writeSuccessMessage("Account successfully created, resourceId: " + anfAccount.id());
+        String[] params = {resourceGroup, accountName};
+        NetAppAccountInner anfAccount = CommonSdk.executeLongRunning(anfClient, ResourceKind.ACCOUNT, "create", params,
+                () -> anfClient.getAccounts().beginCreateOrUpdate(resourceGroup, accountName, accountBody));
+        Utils.writeSuccessMessage("Account successfully created", "resourceId", anfAccount.id(), "operation", "create");
+        ResourceEvents.publishUpserted(ResourceKind.ACCOUNT, params, anfAccount);
 
         return anfAccount;
     }
@@ -42,8 +56,11 @@ public class Creation
     public static SnapshotPolicyInner createSnapshotPolicy(NetAppManagementClient anfClient, String resourceGroup,
                                                            String accountName, String snapshotPolicyName, SnapshotPolicyInner policyBody)
     {
-        SnapshotPolicyInner snapshotPolicy = anfClient.getSnapshotPolicies().create(resourceGroup, accountName, snapshotPolicyName, policyBody);
-        Utils.writeSuccessMessage("Snapshot Policy successfully created, resourceId: " + snapshotPolicy.id());
+        String[] params = {resourceGroup, accountName, snapshotPolicyName};
+        SnapshotPolicyInner snapshotPolicy = CommonSdk.executeJournaled(anfClient, ResourceKind.SNAPSHOT_POLICY, "create", params,
+                () -> anfClient.getSnapshotPolicies().create(resourceGroup, accountName, snapshotPolicyName, policyBody));
+        Utils.writeSuccessMessage("Snapshot Policy successfully created", "resourceId", snapshotPolicy.id(), "operation", "create");
+        ResourceEvents.publishUpserted(ResourceKind.SNAPSHOT_POLICY, params, snapshotPolicy);
 
         return snapshotPolicy;
     }
@@ -59,8 +76,11 @@ public class Creation
      */
     public static CapacityPoolInner createCapacityPool(NetAppManagementClient anfClient, String resourceGroup, String accountName, String poolName, CapacityPoolInner poolBody)
     {
-        CapacityPoolInner capacityPool = anfClient.getPools().beginCreateOrUpdate(resourceGroup, accountName, poolName, poolBody).getFinalResult();
-        Utils.writeSuccessMessage("Capacity Pool successfully created, resourceId: " + capacityPool.id());
+        String[] params = {resourceGroup, accountName, poolName};
+        CapacityPoolInner capacityPool = CommonSdk.executeLongRunning(anfClient, ResourceKind.CAPACITY_POOL, "create", params,
+                () -> anfClient.getPools().beginCreateOrUpdate(resourceGroup, accountName, poolName, poolBody));
+        Utils.writeSuccessMessage("Capacity Pool successfully created", "resourceId", capacityPool.id(), "operation", "create");
+        ResourceEvents.publishUpserted(ResourceKind.CAPACITY_POOL, params, capacityPool);
 
         return capacityPool;
     }
@@ -77,9 +97,132 @@ public class Creation
      */
     public static VolumeInner createVolume(NetAppManagementClient anfClient, String resourceGroup, String accountName, String poolName, String volumeName, VolumeInner volumeBody)
     {
-        VolumeInner volume = anfClient.getVolumes().beginCreateOrUpdate(resourceGroup, accountName, poolName, volumeName, volumeBody).getFinalResult();
-        Utils.writeSuccessMessage("Volume successfully created, resourceId: " + volume.id());
+        String[] params = {resourceGroup, accountName, poolName, volumeName};
+        VolumeInner volume = CommonSdk.executeLongRunning(anfClient, ResourceKind.VOLUME, "create", params,
+                () -> anfClient.getVolumes().beginCreateOrUpdate(resourceGroup, accountName, poolName, volumeName, volumeBody));
+        Utils.writeSuccessMessage("Volume successfully created", "resourceId", volume.id(), "operation", "create");
+        ResourceEvents.publishUpserted(ResourceKind.VOLUME, params, volume);
 
         return volume;
     }
+
+    /**
+     * Creates several Volumes in the same Capacity Pool concurrently. At most maxConcurrency creations are in
+     * flight at any time, and a failing Volume does not prevent the remaining ones from being created.
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Name of the resource group where the Volumes will be created
+     * @param accountName Name of the Account
+     * @param poolName Name of the Capacity Pool
+     * @param volumeBodies Volume bodies used in the creation, keyed by Volume name
+     * @param maxConcurrency Maximum number of Volume creations in flight
+     * @return One result per Volume, in the iteration order of volumeBodies
+     */
+    public static List<VolumeCreationResult> createVolumes(NetAppManagementClient anfClient, String resourceGroup, String accountName, String poolName,
+                                                           Map<String, VolumeInner> volumeBodies, int maxConcurrency)
+    {
+        if (maxConcurrency < 1)
+        {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+
+        Semaphore permits = new Semaphore(maxConcurrency);
+        ExecutorService executor = WorkflowExecutors.newUnboundedExecutor();
+        List<CompletableFuture<VolumeCreationResult>> futures = new ArrayList<>(volumeBodies.size());
+        try
+        {
+            for (Map.Entry<String, VolumeInner> entry : volumeBodies.entrySet())
+            {
+                String volumeName = entry.getKey();
+                permits.acquireUninterruptibly();
+                try
+                {
+                    futures.add(CompletableFuture.supplyAsync(() ->
+                    {
+                        try
+                        {
+                            return VolumeCreationResult.success(volumeName,
+                                    createVolume(anfClient, resourceGroup, accountName, poolName, volumeName, entry.getValue()));
+                        }
+                        catch (RuntimeException e)
+                        {
+                            Utils.writeErrorMessage("An error occurred while creating volume " + volumeName + ": " + e.getMessage());
+                            return VolumeCreationResult.failure(volumeName, e);
+                        }
+                        finally
+                        {
+                            permits.release();
+                        }
+                    }, executor));
+                }
+                catch (RuntimeException e)
+                {
+                    permits.release();
+                    throw e;
+                }
+            }
+
+            List<VolumeCreationResult> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<VolumeCreationResult> future : futures)
+            {
+                results.add(future.join());
+            }
+
+            return results;
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    // Outcome of a single Volume creation within createVolumes
+    public static class VolumeCreationResult
+    {
+        private final String volumeName;
+        private final VolumeInner volume;
+        private final RuntimeException error;
+
+        private VolumeCreationResult(String volumeName, VolumeInner volume, RuntimeException error)
+        {
+            this.volumeName = volumeName;
+            this.volume = volume;
+            this.error = error;
+        }
+
+        static VolumeCreationResult success(String volumeName, VolumeInner volume)
+        {
+            return new VolumeCreationResult(volumeName, volume, null);
+        }
+
+        static VolumeCreationResult failure(String volumeName, RuntimeException error)
+        {
+            return new VolumeCreationResult(volumeName, null, error);
+        }
+
+        public boolean isSuccessful()
+        {
+            return error == null;
+        }
+
+        public String getVolumeName()
+        {
+            return volumeName;
+        }
+
+        /**
+         * @return The created Volume, or null if the creation failed
+         */
+        public VolumeInner getVolume()
+        {
+            return volume;
+        }
+
+        /**
+         * @return The error that made the creation fail, typically an AzureException, or null on success
+         */
+        public RuntimeException getError()
+        {
+            return error;
+        }
+    }
 }
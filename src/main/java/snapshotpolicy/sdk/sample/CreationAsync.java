@@ -0,0 +1,120 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample;
+
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import com.azure.resourcemanager.netapp.fluent.models.CapacityPoolInner;
+import com.azure.resourcemanager.netapp.fluent.models.NetAppAccountInner;
+import com.azure.resourcemanager.netapp.fluent.models.SnapshotPolicyInner;
+import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import reactor.core.publisher.Mono;
+import snapshotpolicy.sdk.sample.common.CommonSdk;
+import snapshotpolicy.sdk.sample.common.ResourceEvents;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
+import snapshotpolicy.sdk.sample.common.Utils;
+import snapshotpolicy.sdk.sample.throttling.ArmRateLimiter;
+import snapshotpolicy.sdk.sample.throttling.RequestType;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+// Non-blocking counterparts of Creation. Nothing is sent to Azure until the returned Mono is subscribed to.
+public class CreationAsync
+{
+    /**
+     * Creates an ANF Account
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Name of the resource group where the Account will be created
+     * @param accountName Name of the Account being created
+     * @param accountBody The Account body used in the creation
+     * @return Mono emitting the newly created ANF Account once the long-running operation completes
+     */
+    public static Mono<NetAppAccountInner> createANFAccountAsync(NetAppManagementClient anfClient, String resourceGroup, String accountName, NetAppAccountInner accountBody)
+    {
+        return ArmRateLimiter.shared().executeAsync(CommonSdk.subscriptionOf(anfClient), RequestType.WRITE,
+                        () -> anfClient.getAccounts().createOrUpdateAsync(resourceGroup, accountName, accountBody))
+                .doOnSuccess(anfAccount ->
+                {
+                    Utils.writeSuccessMessage("Account successfully created", "resourceId", anfAccount.id(), "operation", "create");
+                    ResourceEvents.publishUpserted(ResourceKind.ACCOUNT, new String[]{resourceGroup, accountName}, anfAccount);
+                });
+    }
+
+    /**
+     * Creates a Snapshot Policy
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Name of the resource group where the Snapshot Policy will be created
+     * @param accountName Name of the Account
+     * @param snapshotPolicyName Name of the Snapshot Policy being created
+     * @param policyBody The Snapshot Policy body used in the creation
+     * @return Mono emitting the newly created Snapshot Policy
+     */
+    public static Mono<SnapshotPolicyInner> createSnapshotPolicyAsync(NetAppManagementClient anfClient, String resourceGroup,
+                                                                      String accountName, String snapshotPolicyName, SnapshotPolicyInner policyBody)
+    {
+        return ArmRateLimiter.shared().executeAsync(CommonSdk.subscriptionOf(anfClient), RequestType.WRITE,
+                        () -> anfClient.getSnapshotPolicies().createAsync(resourceGroup, accountName, snapshotPolicyName, policyBody))
+                .doOnSuccess(snapshotPolicy ->
+                {
+                    Utils.writeSuccessMessage("Snapshot Policy successfully created", "resourceId", snapshotPolicy.id(), "operation", "create");
+                    ResourceEvents.publishUpserted(ResourceKind.SNAPSHOT_POLICY, new String[]{resourceGroup, accountName, snapshotPolicyName}, snapshotPolicy);
+                });
+    }
+
+    /**
+     * Creates a Capacity Pool
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Name of the resource group where the Capacity Pool will be created
+     * @param accountName Name of the Account
+     * @param poolName Name of the Capacity Pool being created
+     * @param poolBody The Capacity Pool body used in the creation
+     * @return Mono emitting the newly created Capacity Pool once the long-running operation completes
+     */
+    public static Mono<CapacityPoolInner> createCapacityPoolAsync(NetAppManagementClient anfClient, String resourceGroup, String accountName, String poolName, CapacityPoolInner poolBody)
+    {
+        return ArmRateLimiter.shared().executeAsync(CommonSdk.subscriptionOf(anfClient), RequestType.WRITE,
+                        () -> anfClient.getPools().createOrUpdateAsync(resourceGroup, accountName, poolName, poolBody))
+                .doOnSuccess(capacityPool ->
+                {
+                    Utils.writeSuccessMessage("Capacity Pool successfully created", "resourceId", capacityPool.id(), "operation", "create");
+                    ResourceEvents.publishUpserted(ResourceKind.CAPACITY_POOL, new String[]{resourceGroup, accountName, poolName}, capacityPool);
+                });
+    }
+
+    /**
+     * Creates a Volume with an attached Snapshot Policy
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Name of the resource group where the Volume will be created
+     * @param accountName Name of the Account
+     * @param poolName Name of the Capacity Pool
+     * @param volumeName Name of the Volume being created
+     * @param volumeBody The Volume body used in the creation
+     * @return Mono emitting the newly created Volume once the long-running operation completes
+     */
+    public static Mono<VolumeInner> createVolumeAsync(NetAppManagementClient anfClient, String resourceGroup, String accountName, String poolName, String volumeName, VolumeInner volumeBody)
+    {
+        return ArmRateLimiter.shared().executeAsync(CommonSdk.subscriptionOf(anfClient), RequestType.WRITE,
+                        () -> anfClient.getVolumes().createOrUpdateAsync(resourceGroup, accountName, poolName, volumeName, volumeBody))
+                .doOnSuccess(volume ->
+                {
+                    Utils.writeSuccessMessage("Volume successfully created", "resourceId", volume.id(), "operation", "create");
+                    ResourceEvents.publishUpserted(ResourceKind.VOLUME, new String[]{resourceGroup, accountName, poolName, volumeName}, volume);
+                });
+    }
+
+    /**
+     * Subscribes to an operation and exposes it as a CompletableFuture. The operation fails with a TimeoutException
+     * if it does not complete in time, and cancelling the future cancels the underlying subscription, which stops
+     * polling the long-running operation.
+     * @param operation Any of the async operations of CreationAsync, UpdateAsync or CleanupAsync
+     * @param timeout Maximum time the operation may take
+     * @return Future completed with the result of the operation
+     */
+    public static <T> CompletableFuture<T> toFuture(Mono<T> operation, Duration timeout)
+    {
+        return operation.timeout(timeout).toFuture();
+    }
+}
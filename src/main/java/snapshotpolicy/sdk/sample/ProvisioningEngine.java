@@ -0,0 +1,228 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample;
+
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import snapshotpolicy.sdk.sample.common.Utils;
+import snapshotpolicy.sdk.sample.common.WorkflowExecutors;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+// Runs a ProvisioningPlan, executing steps whose dependencies are satisfied concurrently
+public class ProvisioningEngine
+{
+    private final NetAppManagementClient anfClient;
+    private final int parallelism;
+
+    /**
+     * @param anfClient Azure NetApp Files Management Client
+     * @param parallelism Maximum number of steps, and therefore long-running operations, in flight at once
+     */
+    public ProvisioningEngine(NetAppManagementClient anfClient, int parallelism)
+    {
+        if (parallelism < 1)
+        {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+
+        this.anfClient = anfClient;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Provisions every step of the plan. A step starts as soon as all the steps it depends on succeeded, so the
+     * wall-clock time is bound by the critical path of the plan rather than the sum of its operations. When a
+     * step fails, the steps depending on it are skipped while independent branches keep running.
+     * @param plan The plan to provision
+     * @return Provisioned resources, failures and skipped steps
+     */
+    public ProvisioningResult execute(ProvisioningPlan plan)
+    {
+        List<ProvisioningPlan.Step> ordered = topologicalOrder(plan);
+        Map<String, Object> resources = new ConcurrentHashMap<>();
+        Map<String, Throwable> failures = new ConcurrentHashMap<>();
+        Map<String, CompletableFuture<Object>> futures = new HashMap<>();
+
+        long start = System.nanoTime();
+        ExecutorService executor = WorkflowExecutors.newBoundedExecutor(Math.min(parallelism, Math.max(1, ordered.size())));
+        try
+        {
+            for (ProvisioningPlan.Step step : ordered)
+            {
+                CompletableFuture<?>[] dependencies = step.dependsOn.stream()
+                        .map(futures::get)
+                        .toArray(CompletableFuture[]::new);
+
+                CompletableFuture<Object> future = CompletableFuture.allOf(dependencies).thenApplyAsync(ignored ->
+                {
+                    try
+                    {
+                        Object resource = step.action.run(anfClient, Collections.unmodifiableMap(resources));
+                        if (resource != null)
+                        {
+                            resources.put(step.key, resource);
+                        }
+
+                        return resource;
+                    }
+                    catch (Throwable e)
+                    {
+                        // Errors too, e.g. an OutOfMemoryError or an assertion, otherwise the step would be reported as skipped
+                        failures.put(step.key, e);
+                        Utils.writeErrorMessage("Provisioning step " + step.key + " failed: " + e.getMessage());
+                        throw e;
+                    }
+                }, executor);
+
+                futures.put(step.key, future);
+            }
+
+            // Failures are recorded per step, join only waits for the whole graph to settle
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+                    .exceptionally(e -> null)
+                    .join();
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        List<String> skipped = new ArrayList<>();
+        for (ProvisioningPlan.Step step : ordered)
+        {
+            if (!resources.containsKey(step.key) && !failures.containsKey(step.key))
+            {
+                skipped.add(step.key);
+            }
+        }
+
+        return new ProvisioningResult(resources, failures, skipped, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Orders the steps so that every step comes after its dependencies (Kahn's algorithm)
+     * @param plan The plan to order
+     * @return Steps in dependency order
+     */
+    static List<ProvisioningPlan.Step> topologicalOrder(ProvisioningPlan plan)
+    {
+        Map<String, ProvisioningPlan.Step> steps = new LinkedHashMap<>();
+        for (ProvisioningPlan.Step step : plan.getSteps())
+        {
+            steps.put(step.key, step);
+        }
+
+        Map<String, Integer> pending = new HashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+        for (ProvisioningPlan.Step step : steps.values())
+        {
+            for (String dependency : step.dependsOn)
+            {
+                if (!steps.containsKey(dependency))
+                {
+                    throw new IllegalArgumentException("Step " + step.key + " depends on unknown step " + dependency);
+                }
+
+                dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(step.key);
+            }
+
+            pending.put(step.key, step.dependsOn.size());
+        }
+
+        Deque<String> ready = new ArrayDeque<>();
+        pending.forEach((key, count) ->
+        {
+            if (count == 0)
+            {
+                ready.add(key);
+            }
+        });
+
+        List<ProvisioningPlan.Step> ordered = new ArrayList<>(steps.size());
+        while (!ready.isEmpty())
+        {
+            String key = ready.poll();
+            ordered.add(steps.get(key));
+            for (String dependent : dependents.getOrDefault(key, Collections.emptyList()))
+            {
+                if (pending.merge(dependent, -1, Integer::sum) == 0)
+                {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        if (ordered.size() != steps.size())
+        {
+            throw new IllegalArgumentException("Provisioning plan contains a dependency cycle");
+        }
+
+        return ordered;
+    }
+
+    // Outcome of a provisioning run
+    public static class ProvisioningResult
+    {
+        private final Map<String, Object> resources;
+        private final Map<String, Throwable> failures;
+        private final List<String> skipped;
+        private final Duration elapsed;
+
+        ProvisioningResult(Map<String, Object> resources, Map<String, Throwable> failures, List<String> skipped, Duration elapsed)
+        {
+            this.resources = Collections.unmodifiableMap(resources);
+            this.failures = Collections.unmodifiableMap(failures);
+            this.skipped = Collections.unmodifiableList(skipped);
+            this.elapsed = elapsed;
+        }
+
+        public boolean isSuccessful()
+        {
+            return failures.isEmpty() && skipped.isEmpty();
+        }
+
+        /**
+         * @param key Step key, see the ProvisioningPlan key helpers
+         * @param clazz Expected resource type
+         * @return The provisioned resource or null if the step did not succeed
+         */
+        public <T> T getResource(String key, Class<T> clazz)
+        {
+            return clazz.cast(resources.get(key));
+        }
+
+        public Map<String, Object> getResources()
+        {
+            return resources;
+        }
+
+        public Map<String, Throwable> getFailures()
+        {
+            return failures;
+        }
+
+        public List<String> getSkipped()
+        {
+            return skipped;
+        }
+
+        public Duration getElapsed()
+        {
+            return elapsed;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample;
+
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import com.azure.resourcemanager.netapp.fluent.models.CapacityPoolInner;
+import com.azure.resourcemanager.netapp.fluent.models.NetAppAccountInner;
+import com.azure.resourcemanager.netapp.fluent.models.SnapshotPolicyInner;
+import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import com.azure.resourcemanager.netapp.models.VolumePropertiesDataProtection;
+import com.azure.resourcemanager.netapp.models.VolumeSnapshotProperties;
+import snapshotpolicy.sdk.sample.common.CommonSdk;
+import snapshotpolicy.sdk.sample.common.ModelProperties;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
+import snapshotpolicy.sdk.sample.common.Utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Declarative set of ANF resources to provision, expressed as steps with explicit dependencies
+public class ProvisioningPlan
+{
+    private final String resourceGroup;
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+
+    /**
+     * @param resourceGroup Name of the resource group where all resources of the plan will be created
+     */
+    public ProvisioningPlan(String resourceGroup)
+    {
+        this.resourceGroup = resourceGroup;
+    }
+
+    /**
+     * Adds an ANF Account, created only if it does not exist yet
+     * @param accountName Name of the Account
+     * @param accountBody The Account body used in the creation
+     * @return This plan
+     */
+    public ProvisioningPlan withAccount(String accountName, NetAppAccountInner accountBody)
+    {
+        String[] params = {resourceGroup, accountName};
+        return withStep(accountKey(accountName), Collections.emptyList(), (anfClient, results) ->
+        {
+            NetAppAccountInner account = CommonSdk.getResource(anfClient, ResourceKind.ACCOUNT, params);
+            if (account != null)
+            {
+                Utils.writeConsoleMessage("Account already exists: " + accountName);
+                return account;
+            }
+
+            return Creation.createANFAccount(anfClient, resourceGroup, accountName, accountBody);
+        });
+    }
+
+    /**
+     * Adds a Snapshot Policy, created only if it does not exist yet. Depends on its Account.
+     * @param accountName Name of the Account
+     * @param snapshotPolicyName Name of the Snapshot Policy
+     * @param policyBody The Snapshot Policy body used in the creation
+     * @return This plan
+     */
+    public ProvisioningPlan withSnapshotPolicy(String accountName, String snapshotPolicyName, SnapshotPolicyInner policyBody)
+    {
+        String[] params = {resourceGroup, accountName, snapshotPolicyName};
+        return withStep(snapshotPolicyKey(accountName, snapshotPolicyName), Collections.singletonList(accountKey(accountName)), (anfClient, results) ->
+        {
+            SnapshotPolicyInner policy = CommonSdk.getResource(anfClient, ResourceKind.SNAPSHOT_POLICY, params);
+            if (policy != null)
+            {
+                Utils.writeConsoleMessage("Snapshot Policy already exists: " + snapshotPolicyName);
+                return policy;
+            }
+
+            return Creation.createSnapshotPolicy(anfClient, resourceGroup, accountName, snapshotPolicyName, policyBody);
+        });
+    }
+
+    /**
+     * Adds a Capacity Pool, created only if it does not exist yet. Depends on its Account.
+     * @param accountName Name of the Account
+     * @param poolName Name of the Capacity Pool
+     * @param poolBody The Capacity Pool body used in the creation
+     * @return This plan
+     */
+    public ProvisioningPlan withCapacityPool(String accountName, String poolName, CapacityPoolInner poolBody)
+    {
+        String[] params = {resourceGroup, accountName, poolName};
+        return withStep(capacityPoolKey(accountName, poolName), Collections.singletonList(accountKey(accountName)), (anfClient, results) ->
+        {
+            CapacityPoolInner pool = CommonSdk.getResource(anfClient, ResourceKind.CAPACITY_POOL, params);
+            if (pool != null)
+            {
+                Utils.writeConsoleMessage("Capacity Pool already exists: " + poolName);
+                return pool;
+            }
+
+            return Creation.createCapacityPool(anfClient, resourceGroup, accountName, poolName, poolBody);
+        });
+    }
+
+    /**
+     * Adds a Volume, created only if it does not exist yet. Depends on its Capacity Pool and, when given, on the
+     * Snapshot Policy whose resource id is attached to the volume once the policy has been provisioned.
+     * @param accountName Name of the Account
+     * @param poolName Name of the Capacity Pool
+     * @param volumeName Name of the Volume
+     * @param volumeBody The Volume body used in the creation, left unchanged
+     * @param snapshotPolicyName Name of a Snapshot Policy of this plan to attach, or null
+     * @return This plan
+     */
+    public ProvisioningPlan withVolume(String accountName, String poolName, String volumeName, VolumeInner volumeBody, String snapshotPolicyName)
+    {
+        String[] params = {resourceGroup, accountName, poolName, volumeName};
+        List<String> dependsOn = new ArrayList<>();
+        dependsOn.add(capacityPoolKey(accountName, poolName));
+        if (snapshotPolicyName != null)
+        {
+            dependsOn.add(snapshotPolicyKey(accountName, snapshotPolicyName));
+        }
+
+        return withStep(volumeKey(accountName, poolName, volumeName), dependsOn, (anfClient, results) ->
+        {
+            VolumeInner volume = CommonSdk.getResource(anfClient, ResourceKind.VOLUME, params);
+            if (volume != null)
+            {
+                Utils.writeConsoleMessage("Volume already exists: " + volumeName);
+                return volume;
+            }
+
+            VolumeInner body = volumeBody;
+            if (snapshotPolicyName != null)
+            {
+                SnapshotPolicyInner policy = (SnapshotPolicyInner) results.get(snapshotPolicyKey(accountName, snapshotPolicyName));
+                VolumeSnapshotProperties snapshotProperties = new VolumeSnapshotProperties();
+                snapshotProperties.withSnapshotPolicyId(policy.id());
+
+                VolumePropertiesDataProtection dataProtection = new VolumePropertiesDataProtection();
+                dataProtection.withSnapshot(snapshotProperties);
+
+                // The caller may share one body between volumes, or reuse it, so the policy goes on a copy
+                body = ModelProperties.copyOf(volumeBody).withDataProtection(dataProtection);
+            }
+
+            return Creation.createVolume(anfClient, resourceGroup, accountName, poolName, volumeName, body);
+        });
+    }
+
+    /**
+     * Adds an arbitrary step to the plan
+     * @param key Unique key of the step
+     * @param dependsOn Keys of the steps that must complete successfully before this one starts
+     * @param action Work performed by the step, given the results of the steps completed so far
+     * @return This plan
+     */
+    public ProvisioningPlan withStep(String key, Collection<String> dependsOn, StepAction action)
+    {
+        if (steps.containsKey(key))
+        {
+            throw new IllegalArgumentException("Duplicate provisioning step: " + key);
+        }
+
+        steps.put(key, new Step(key, new ArrayList<>(dependsOn), action));
+        return this;
+    }
+
+    public String getResourceGroup()
+    {
+        return resourceGroup;
+    }
+
+    Collection<Step> getSteps()
+    {
+        return Collections.unmodifiableCollection(steps.values());
+    }
+
+    public static String accountKey(String accountName)
+    {
+        return "account/" + accountName;
+    }
+
+    public static String snapshotPolicyKey(String accountName, String snapshotPolicyName)
+    {
+        return accountKey(accountName) + "/snapshotPolicy/" + snapshotPolicyName;
+    }
+
+    public static String capacityPoolKey(String accountName, String poolName)
+    {
+        return accountKey(accountName) + "/pool/" + poolName;
+    }
+
+    public static String volumeKey(String accountName, String poolName, String volumeName)
+    {
+        return capacityPoolKey(accountName, poolName) + "/volume/" + volumeName;
+    }
+
+    // Work performed by a single step of the plan
+    @FunctionalInterface
+    public interface StepAction
+    {
+        /**
+         * @param anfClient Azure NetApp Files Management Client
+         * @param results Results of the steps that already completed, keyed by step key
+         * @return The provisioned resource
+         */
+        Object run(NetAppManagementClient anfClient, Map<String, Object> results);
+    }
+
+    static final class Step
+    {
+        final String key;
+        final List<String> dependsOn;
+        final StepAction action;
+
+        Step(String key, List<String> dependsOn, StepAction action)
+        {
+            this.key = key;
+            this.dependsOn = dependsOn;
+            this.action = action;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample;
+
+import snapshotpolicy.sdk.sample.common.WorkflowExecutors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Fans out independent per-stack workflows and joins them, in the spirit of structured concurrency
+public class StackLauncher
+{
+    /**
+     * Runs every workflow concurrently and waits for all of them. No workflow outlives this call: as soon as one
+     * fails the others are cancelled and interrupted, and the first failure is rethrown. With virtual threads
+     * enabled in WorkflowExecutors, each workflow gets its own cheap virtual thread, so blocking calls such as
+     * getFinalResult() and Utils.threadSleep do not hold on to a platform thread.
+     * @param workflows Per-stack workflows, e.g. one provisioning run per tenant
+     * @param maxConcurrency Maximum number of workflows running at the same time
+     * @return Results of the workflows, in the order they were given
+     */
+    public static <T> List<T> launch(List<Callable<T>> workflows, int maxConcurrency)
+    {
+        ExecutorService executor = WorkflowExecutors.newBoundedExecutor(Math.max(1, Math.min(maxConcurrency, workflows.size())));
+        ExecutorCompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+        List<Future<T>> futures = new ArrayList<>(workflows.size());
+        try
+        {
+            for (Callable<T> workflow : workflows)
+            {
+                futures.add(completionService.submit(workflow));
+            }
+
+            for (int i = 0; i < futures.size(); i++)
+            {
+                try
+                {
+                    completionService.take().get();
+                }
+                catch (ExecutionException e)
+                {
+                    Throwable cause = e.getCause();
+                    throw cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+                }
+            }
+
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures)
+            {
+                results.add(future.get());
+            }
+
+            return results;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+        catch (ExecutionException e)
+        {
+            // Unreachable, every future already completed successfully above
+            throw new CompletionException(e.getCause());
+        }
+        finally
+        {
+            for (Future<T> future : futures)
+            {
+                future.cancel(true);
+            }
+
+            executor.shutdownNow();
+            awaitTermination(executor);
+        }
+    }
+
+    private static void awaitTermination(ExecutorService executor)
+    {
+        try
+        {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
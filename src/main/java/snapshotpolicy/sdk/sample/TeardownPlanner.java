@@ -0,0 +1,287 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample;
+
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import snapshotpolicy.sdk.sample.common.AnfResourceId;
+import snapshotpolicy.sdk.sample.common.AnfResourceIdCache;
+import snapshotpolicy.sdk.sample.common.CommonSdk;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
+import snapshotpolicy.sdk.sample.common.Utils;
+import snapshotpolicy.sdk.sample.common.WorkflowExecutors;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Deletes a set of ANF resources level by level, in reverse dependency order:
+ * Snapshots -> Volumes -> Capacity Pools and Snapshot Policies -> Accounts
+ * Every resource of a level is deleted and confirmed gone concurrently before the next level starts. Pools and
+ * policies share a level because both only require their volumes to be gone.
+ */
+public class TeardownPlanner
+{
+    private static final List<List<ResourceKind<?>>> LEVELS = Arrays.asList(
+            Collections.singletonList(ResourceKind.SNAPSHOT),
+            Collections.singletonList(ResourceKind.VOLUME),
+            Arrays.asList(ResourceKind.CAPACITY_POOL, ResourceKind.SNAPSHOT_POLICY),
+            Collections.singletonList(ResourceKind.ACCOUNT));
+
+    private final NetAppManagementClient anfClient;
+    private final int maxWorkers;
+
+    /**
+     * @param anfClient Azure NetApp Files Management Client
+     * @param maxWorkers Maximum number of resources being deleted or confirmed at the same time
+     */
+    public TeardownPlanner(NetAppManagementClient anfClient, int maxWorkers)
+    {
+        if (maxWorkers < 1)
+        {
+            throw new IllegalArgumentException("maxWorkers must be positive");
+        }
+
+        this.anfClient = anfClient;
+        this.maxWorkers = maxWorkers;
+    }
+
+    /**
+     * Groups resources into deletion levels
+     * @param resourceIds Resource ids of every resource to delete, of any kind
+     * @return Resource ids per level, innermost level first
+     */
+    public List<List<String>> plan(Collection<String> resourceIds)
+    {
+        List<List<String>> levels = new ArrayList<>();
+        for (int i = 0; i < LEVELS.size(); i++)
+        {
+            levels.add(new ArrayList<>());
+        }
+
+        for (String resourceId : resourceIds)
+        {
+            ResourceKind<?> kind = ResourceKind.ofResourceId(AnfResourceIdCache.shared().get(resourceId));
+            for (int i = 0; i < LEVELS.size(); i++)
+            {
+                if (LEVELS.get(i).contains(kind))
+                {
+                    levels.get(i).add(resourceId);
+                }
+            }
+        }
+
+        return levels;
+    }
+
+    /**
+     * Deletes the resources. A resource is skipped when one of its descendants in the set could not be deleted,
+     * since its deletion would fail anyway. Likewise a snapshot policy is skipped when a volume still attached to it
+     * could not be deleted.
+     * @param resourceIds Resource ids of every resource to delete, of any kind
+     * @return Summary of the teardown
+     */
+    public TeardownReport execute(Collection<String> resourceIds)
+    {
+        TeardownReport report = new TeardownReport();
+        // Lowercase ids of the snapshot policies still attached to a volume that failed or was skipped
+        Set<String> policiesInUse = new HashSet<>();
+        long start = System.nanoTime();
+        ExecutorService executor = WorkflowExecutors.newBoundedExecutor(maxWorkers);
+        try
+        {
+            for (List<String> level : plan(resourceIds))
+            {
+                if (level.isEmpty())
+                {
+                    continue;
+                }
+
+                long levelStart = System.nanoTime();
+                Map<String, Future<?>> futures = new LinkedHashMap<>();
+                for (String resourceId : level)
+                {
+                    if (hasFailedDescendant(resourceId, report) || policiesInUse.contains(resourceId.toLowerCase(Locale.ROOT)))
+                    {
+                        report.skipped.add(resourceId);
+                        continue;
+                    }
+
+                    futures.put(resourceId, executor.submit(() -> delete(resourceId)));
+                }
+
+                for (Map.Entry<String, Future<?>> entry : futures.entrySet())
+                {
+                    try
+                    {
+                        entry.getValue().get();
+                        report.deleted.add(entry.getKey());
+                    }
+                    catch (ExecutionException e)
+                    {
+                        Utils.writeErrorMessage("Failed to delete " + entry.getKey() + ": " + e.getCause().getMessage());
+                        report.failed.put(entry.getKey(), e.getCause());
+                    }
+                }
+
+                for (String resourceId : level)
+                {
+                    if ((report.failed.containsKey(resourceId) || report.skipped.contains(resourceId))
+                            && ResourceKind.ofResourceId(AnfResourceIdCache.shared().get(resourceId)) == ResourceKind.VOLUME)
+                    {
+                        String policyId = attachedPolicyOf(resourceId);
+                        if (policyId != null)
+                        {
+                            policiesInUse.add(policyId.toLowerCase(Locale.ROOT));
+                        }
+                    }
+                }
+
+                report.levelDurations.add(Duration.ofNanos(System.nanoTime() - levelStart));
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        report.elapsed = Duration.ofNanos(System.nanoTime() - start);
+        return report;
+    }
+
+    private void delete(String resourceId)
+    {
+        AnfResourceId id = AnfResourceIdCache.shared().get(resourceId);
+        ResourceKind<?> kind = ResourceKind.ofResourceId(id);
+        Cleanup.runCleanupTask(anfClient, kind.paramsOf(id), kind);
+        // ARM workaround to wait for the deletion to complete, a resource still there would make its parent fail instead
+        if (!CommonSdk.waitForNoANFResource(anfClient, resourceId, kind))
+        {
+            throw new IllegalStateException(kind.displayName() + " still exists after waiting for its deletion: " + resourceId);
+        }
+
+        Utils.writeSuccessMessage(kind.displayName() + " successfully deleted: " + resourceId);
+    }
+
+    // A volume left behind keeps its snapshot policy in use, deleting the policy would fail with SnapshotPolicyInUse
+    private String attachedPolicyOf(String volumeId)
+    {
+        try
+        {
+            VolumeInner volume = CommonSdk.getResource(anfClient, ResourceKind.VOLUME,
+                    ResourceKind.VOLUME.paramsOf(AnfResourceIdCache.shared().get(volumeId)));
+            return volume != null && volume.dataProtection() != null && volume.dataProtection().snapshot() != null
+                    ? volume.dataProtection().snapshot().snapshotPolicyId()
+                    : null;
+        }
+        catch (RuntimeException e)
+        {
+            // Unknown, the policy deletion is attempted and reports its own failure
+            Utils.writeWarningMessage("Could not read the snapshot policy of " + volumeId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean hasFailedDescendant(String resourceId, TeardownReport report)
+    {
+        String prefix = resourceId.toLowerCase(Locale.ROOT) + "/";
+        for (String failed : report.failed.keySet())
+        {
+            if (failed.toLowerCase(Locale.ROOT).startsWith(prefix))
+            {
+                return true;
+            }
+        }
+
+        for (String skipped : report.skipped)
+        {
+            if (skipped.toLowerCase(Locale.ROOT).startsWith(prefix))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Summary of a teardown run
+    public static class TeardownReport
+    {
+        private final List<String> deleted = new ArrayList<>();
+        private final Map<String, Throwable> failed = new ConcurrentHashMap<>();
+        private final List<String> skipped = new ArrayList<>();
+        private final List<Duration> levelDurations = new ArrayList<>();
+        private Duration elapsed = Duration.ZERO;
+
+        public boolean isSuccessful()
+        {
+            return failed.isEmpty() && skipped.isEmpty();
+        }
+
+        public List<String> getDeleted()
+        {
+            return Collections.unmodifiableList(deleted);
+        }
+
+        public Map<String, Throwable> getFailed()
+        {
+            return Collections.unmodifiableMap(failed);
+        }
+
+        public List<String> getSkipped()
+        {
+            return Collections.unmodifiableList(skipped);
+        }
+
+        /**
+         * @return Time spent on each non-empty level, innermost level first
+         */
+        public List<Duration> getLevelDurations()
+        {
+            return Collections.unmodifiableList(levelDurations);
+        }
+
+        public Duration getElapsed()
+        {
+            return elapsed;
+        }
+
+        /**
+         * Writes the summary to the console
+         */
+        public void print()
+        {
+            Utils.writeConsoleMessage("Teardown finished in " + elapsed.getSeconds() + "s: " + deleted.size() + " deleted, "
+                    + failed.size() + " failed, " + skipped.size() + " skipped");
+            for (Map.Entry<String, Throwable> entry : failed.entrySet())
+            {
+                Utils.writeErrorMessage("Failed: " + entry.getKey() + " - " + entry.getValue().getMessage());
+            }
+
+            for (String resourceId : skipped)
+            {
+                Utils.writeWarningMessage("Skipped: " + resourceId);
+            }
+        }
+    }
+}
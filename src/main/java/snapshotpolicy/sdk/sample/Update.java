@@ -6,12 +6,27 @@
 package snapshotpolicy.sdk.sample;
 
 import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import com.azure.resourcemanager.netapp.fluent.models.CapacityPoolInner;
+import com.azure.resourcemanager.netapp.fluent.models.NetAppAccountInner;
 import com.azure.resourcemanager.netapp.fluent.models.SnapshotPolicyInner;
+import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import com.azure.resourcemanager.netapp.models.CapacityPoolPatch;
+import com.azure.resourcemanager.netapp.models.NetAppAccountPatch;
 import com.azure.resourcemanager.netapp.models.SnapshotPolicyPatch;
+import com.azure.resourcemanager.netapp.models.VolumePatch;
+import snapshotpolicy.sdk.sample.common.CommonSdk;
+import snapshotpolicy.sdk.sample.common.ResourceEvents;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
 import snapshotpolicy.sdk.sample.common.Utils;
+import snapshotpolicy.sdk.sample.policy.SnapshotPolicyDiff;
+
+import java.util.concurrent.atomic.LongAdder;
 
 public class Update
 {
+    private static final LongAdder performedWrites = new LongAdder();
+    private static final LongAdder avoidedWrites = new LongAdder();
+
     /**
      * Updates a Snapshot Policy
      * @param anfClient Azure NetApp Files Management Client
@@ -23,9 +38,118 @@ public class Update
      */
     public static SnapshotPolicyInner updateSnapshotPolicy(NetAppManagementClient anfClient, String resourceGroup, String accountName, String snapshotPolicyName, SnapshotPolicyPatch policyPatch)
     {
-        SnapshotPolicyInner snapshotPolicy = anfClient.getSnapshotPolicies().beginUpdate(resourceGroup, accountName, snapshotPolicyName, policyPatch).getFinalResult();
-        Utils.writeSuccessMessage("Snapshot Policy successfully updated");
+        String[] params = {resourceGroup, accountName, snapshotPolicyName};
+        SnapshotPolicyInner snapshotPolicy = CommonSdk.executeLongRunning(anfClient, ResourceKind.SNAPSHOT_POLICY, "update", params,
+                () -> anfClient.getSnapshotPolicies().beginUpdate(resourceGroup, accountName, snapshotPolicyName, policyPatch));
+        Utils.writeSuccessMessage("Snapshot Policy successfully updated", "resourceId", snapshotPolicy.id(), "operation", "update");
+        ResourceEvents.publishUpserted(ResourceKind.SNAPSHOT_POLICY, params, snapshotPolicy);
 
         return snapshotPolicy;
     }
+
+    /**
+     * Updates an ANF Account, properties left null in the patch keep their current value
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Name of the resource group where the Account will be updated
+     * @param accountName Name of the Account being updated
+     * @param accountPatch The Account body used in the update
+     * @return The newly updated Account
+     */
+    public static NetAppAccountInner updateANFAccount(NetAppManagementClient anfClient, String resourceGroup, String accountName, NetAppAccountPatch accountPatch)
+    {
+        String[] params = {resourceGroup, accountName};
+        NetAppAccountInner anfAccount = CommonSdk.executeLongRunning(anfClient, ResourceKind.ACCOUNT, "update", params,
+                () -> anfClient.getAccounts().beginUpdate(resourceGroup, accountName, accountPatch));
+        Utils.writeSuccessMessage("Account successfully updated", "resourceId", anfAccount.id(), "operation", "update");
+        ResourceEvents.publishUpserted(ResourceKind.ACCOUNT, params, anfAccount);
+
+        return anfAccount;
+    }
+
+    /**
+     * Updates a Capacity Pool, properties left null in the patch keep their current value
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Name of the resource group where the Capacity Pool will be updated
+     * @param accountName Name of the Account
+     * @param poolName Name of the Capacity Pool being updated
+     * @param poolPatch The Capacity Pool body used in the update
+     * @return The newly updated Capacity Pool
+     */
+    public static CapacityPoolInner updateCapacityPool(NetAppManagementClient anfClient, String resourceGroup, String accountName, String poolName, CapacityPoolPatch poolPatch)
+    {
+        String[] params = {resourceGroup, accountName, poolName};
+        CapacityPoolInner capacityPool = CommonSdk.executeLongRunning(anfClient, ResourceKind.CAPACITY_POOL, "update", params,
+                () -> anfClient.getPools().beginUpdate(resourceGroup, accountName, poolName, poolPatch));
+        Utils.writeSuccessMessage("Capacity Pool successfully updated", "resourceId", capacityPool.id(), "operation", "update");
+        ResourceEvents.publishUpserted(ResourceKind.CAPACITY_POOL, params, capacityPool);
+
+        return capacityPool;
+    }
+
+    /**
+     * Updates a Volume, properties left null in the patch keep their current value
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Name of the resource group where the Volume will be updated
+     * @param accountName Name of the Account
+     * @param poolName Name of the Capacity Pool
+     * @param volumeName Name of the Volume being updated
+     * @param volumePatch The Volume body used in the update
+     * @return The newly updated Volume
+     */
+    public static VolumeInner updateVolume(NetAppManagementClient anfClient, String resourceGroup, String accountName, String poolName, String volumeName, VolumePatch volumePatch)
+    {
+        String[] params = {resourceGroup, accountName, poolName, volumeName};
+        VolumeInner volume = CommonSdk.executeLongRunning(anfClient, ResourceKind.VOLUME, "update", params,
+                () -> anfClient.getVolumes().beginUpdate(resourceGroup, accountName, poolName, volumeName, volumePatch));
+        Utils.writeSuccessMessage("Volume successfully updated", "resourceId", volume.id(), "operation", "update");
+        ResourceEvents.publishUpserted(ResourceKind.VOLUME, params, volume);
+
+        return volume;
+    }
+
+    /**
+     * Updates a Snapshot Policy only if it differs from the desired state, sending the minimal patch computed by
+     * SnapshotPolicyDiff. No request is sent at all when the policy is already up to date.
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Name of the resource group where the Snapshot Policy will be updated
+     * @param accountName Name of the Account
+     * @param snapshotPolicyName Name of the Snapshot Policy being updated
+     * @param currentPolicy The Snapshot Policy as currently returned by the service
+     * @param desiredPolicy The desired Snapshot Policy, fields left null are not changed
+     * @return The updated Snapshot Policy, or currentPolicy itself if no update was needed, callers can tell whether
+     *         an update was sent by comparing the references
+     */
+    public static SnapshotPolicyInner updateSnapshotPolicyIfChanged(NetAppManagementClient anfClient, String resourceGroup, String accountName, String snapshotPolicyName,
+                                                                    SnapshotPolicyInner currentPolicy, SnapshotPolicyInner desiredPolicy)
+    {
+        SnapshotPolicyPatch policyPatch = SnapshotPolicyDiff.diff(currentPolicy, desiredPolicy);
+        if (policyPatch == null)
+        {
+            avoidedWrites.increment();
+            Utils.writeConsoleMessage("Snapshot Policy is already up to date, skipping update");
+            return currentPolicy;
+        }
+
+        Utils.writeConsoleMessage("Updating Snapshot Policy...");
+        SnapshotPolicyInner updatedPolicy = updateSnapshotPolicy(anfClient, resourceGroup, accountName, snapshotPolicyName, policyPatch);
+        performedWrites.increment();
+        return updatedPolicy;
+    }
+
+    /**
+     * @return Number of Snapshot Policy updates that updateSnapshotPolicyIfChanged sent and that succeeded, across
+     *         every workflow of the process
+     */
+    public static long getPerformedWrites()
+    {
+        return performedWrites.sum();
+    }
+
+    /**
+     * @return Number of Snapshot Policy updates skipped by updateSnapshotPolicyIfChanged because nothing changed
+     */
+    public static long getAvoidedWrites()
+    {
+        return avoidedWrites.sum();
+    }
 }
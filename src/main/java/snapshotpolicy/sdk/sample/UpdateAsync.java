@@ -0,0 +1,41 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample;
+
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import com.azure.resourcemanager.netapp.fluent.models.SnapshotPolicyInner;
+import com.azure.resourcemanager.netapp.models.SnapshotPolicyPatch;
+import reactor.core.publisher.Mono;
+import snapshotpolicy.sdk.sample.common.CommonSdk;
+import snapshotpolicy.sdk.sample.common.ResourceEvents;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
+import snapshotpolicy.sdk.sample.common.Utils;
+import snapshotpolicy.sdk.sample.throttling.ArmRateLimiter;
+import snapshotpolicy.sdk.sample.throttling.RequestType;
+
+// Non-blocking counterparts of Update. Nothing is sent to Azure until the returned Mono is subscribed to.
+public class UpdateAsync
+{
+    /**
+     * Updates a Snapshot Policy
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Name of the resource group where the Snapshot Policy will be updated
+     * @param accountName Name of the Account
+     * @param snapshotPolicyName Name of the Snapshot Policy being updated
+     * @param policyPatch The Snapshot Policy body used in the update
+     * @return Mono emitting the updated Snapshot Policy once the long-running operation completes
+     */
+    public static Mono<SnapshotPolicyInner> updateSnapshotPolicyAsync(NetAppManagementClient anfClient, String resourceGroup, String accountName, String snapshotPolicyName, SnapshotPolicyPatch policyPatch)
+    {
+        return ArmRateLimiter.shared().executeAsync(CommonSdk.subscriptionOf(anfClient), RequestType.WRITE,
+                        () -> anfClient.getSnapshotPolicies().updateAsync(resourceGroup, accountName, snapshotPolicyName, policyPatch))
+                .doOnSuccess(snapshotPolicy ->
+                {
+                    Utils.writeSuccessMessage("Snapshot Policy successfully updated", "resourceId", snapshotPolicy.id(), "operation", "update");
+                    ResourceEvents.publishUpserted(ResourceKind.SNAPSHOT_POLICY, new String[]{resourceGroup, accountName, snapshotPolicyName}, snapshotPolicy);
+                });
+    }
+}
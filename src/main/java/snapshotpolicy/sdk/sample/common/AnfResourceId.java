@@ -0,0 +1,198 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.common;
+
+// Immutable, parsed view over an ARM resource id of an ANF resource
+public final class AnfResourceId
+{
+    private static final int SUBSCRIPTION = 0;
+    private static final int RESOURCE_GROUP = 1;
+    private static final int ACCOUNT = 2;
+    private static final int CAPACITY_POOL = 3;
+    private static final int VOLUME = 4;
+    private static final int SNAPSHOT = 5;
+    private static final int SNAPSHOT_POLICY = 6;
+
+    // Segment names, indexed by the constants above
+    private static final String[] SEGMENT_NAMES = {
+            "subscriptions",
+            "resourceGroups",
+            "netAppAccounts",
+            "capacityPools",
+            "volumes",
+            "snapshots",
+            "snapshotPolicies"
+    };
+
+    private final String resourceId;
+
+    // Value of each segment, null when the segment is absent. Extracted once, so that the getters of an id kept in
+    // AnfResourceIdCache return the same strings on every call instead of allocating new ones.
+    private final String[] values;
+
+    private AnfResourceId(String resourceId, String[] values)
+    {
+        this.resourceId = resourceId;
+        this.values = values;
+    }
+
+    /**
+     * Tokenizes a resource id in a single pass. Segment names are matched case-insensitively and the first
+     * occurrence of each segment wins. A value is never treated as a segment name, so a resource group called
+     * "volumes" does not shadow the volume name.
+     * @param resourceId Full or partial resource id, e.g. /subscriptions/.../netAppAccounts/account1/capacityPools/pool1
+     * @return The parsed resource id, with every component null if resourceId is null or blank
+     */
+    public static AnfResourceId parse(String resourceId)
+    {
+        String[] values = new String[SEGMENT_NAMES.length];
+
+        if (resourceId == null)
+        {
+            return new AnfResourceId("", values);
+        }
+
+        int length = resourceId.length();
+        int start = 0;
+        while (start < length)
+        {
+            int end = segmentEnd(resourceId, start, length);
+            int segment = matchSegment(resourceId, start, end);
+            if (segment == -1 || end >= length)
+            {
+                start = end + 1;
+                continue;
+            }
+
+            int valueStart = end + 1;
+            int valueEnd = segmentEnd(resourceId, valueStart, length);
+            if (values[segment] == null && valueEnd > valueStart)
+            {
+                values[segment] = resourceId.substring(valueStart, valueEnd);
+            }
+
+            start = valueEnd + 1;
+        }
+
+        return new AnfResourceId(resourceId, values);
+    }
+
+    /**
+     * Finds the value following an arbitrary segment name without parsing the whole resource id
+     * @param resourceId Full or partial resource id
+     * @param segmentName Segment name to look for, with or without a leading slash
+     * @return The segment value or null if the segment is not present
+     */
+    public static String findSegmentValue(String resourceId, String segmentName)
+    {
+        if (resourceId == null || segmentName == null)
+        {
+            return null;
+        }
+
+        int nameOffset = segmentName.startsWith("/") ? 1 : 0;
+        int nameLength = segmentName.length() - nameOffset;
+        int length = resourceId.length();
+        int start = 0;
+        while (start < length)
+        {
+            int end = segmentEnd(resourceId, start, length);
+            if (end - start == nameLength
+                    && resourceId.regionMatches(true, start, segmentName, nameOffset, nameLength)
+                    && end < length)
+            {
+                int valueEnd = segmentEnd(resourceId, end + 1, length);
+                return valueEnd > end + 1 ? resourceId.substring(end + 1, valueEnd) : null;
+            }
+
+            // Skip the value of a known segment so that it is never mistaken for a segment name
+            start = matchSegment(resourceId, start, end) == -1 || end >= length
+                    ? end + 1
+                    : segmentEnd(resourceId, end + 1, length) + 1;
+        }
+
+        return null;
+    }
+
+    public String subscriptionId()
+    {
+        return value(SUBSCRIPTION);
+    }
+
+    public String resourceGroup()
+    {
+        return value(RESOURCE_GROUP);
+    }
+
+    public String accountName()
+    {
+        return value(ACCOUNT);
+    }
+
+    public String poolName()
+    {
+        return value(CAPACITY_POOL);
+    }
+
+    public String volumeName()
+    {
+        return value(VOLUME);
+    }
+
+    public String snapshotName()
+    {
+        return value(SNAPSHOT);
+    }
+
+    public String snapshotPolicyName()
+    {
+        return value(SNAPSHOT_POLICY);
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+        return other instanceof AnfResourceId && resourceId.equals(((AnfResourceId) other).resourceId);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return resourceId.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return resourceId;
+    }
+
+    private String value(int segment)
+    {
+        return values[segment];
+    }
+
+    private static int segmentEnd(String resourceId, int start, int length)
+    {
+        int end = resourceId.indexOf('/', start);
+        return end == -1 ? length : end;
+    }
+
+    private static int matchSegment(String resourceId, int start, int end)
+    {
+        int segmentLength = end - start;
+        for (int i = 0; i < SEGMENT_NAMES.length; i++)
+        {
+            String name = SEGMENT_NAMES[i];
+            if (name.length() == segmentLength && resourceId.regionMatches(true, start, name, 0, segmentLength))
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,163 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded, thread-safe LRU cache of parsed resource ids keyed by the raw id string
+public final class AnfResourceIdCache
+{
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private static final AnfResourceIdCache SHARED = new AnfResourceIdCache(DEFAULT_CAPACITY);
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache holding at most the given number of parsed ids. The capacity is split evenly across
+     * independently locked segments so concurrent lookups of different ids rarely contend.
+     * @param capacity Maximum number of entries kept in the cache
+     */
+    public AnfResourceIdCache(int capacity)
+    {
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+
+        int segmentCapacity = Math.max(1, (capacity + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++)
+        {
+            segments[i] = new Segment(segmentCapacity, evictions);
+        }
+    }
+
+    /**
+     * @return The process-wide cache consulted by ResourceUriUtils
+     */
+    public static AnfResourceIdCache shared()
+    {
+        return SHARED;
+    }
+
+    /**
+     * Returns the parsed form of a resource id, parsing and caching it on first use
+     * @param resourceId Full or partial resource id
+     * @return The cached or newly parsed resource id
+     */
+    public AnfResourceId get(String resourceId)
+    {
+        if (resourceId == null)
+        {
+            return AnfResourceId.parse(null);
+        }
+
+        Segment segment = segmentFor(resourceId);
+        AnfResourceId cached;
+        synchronized (segment)
+        {
+            cached = segment.get(resourceId);
+        }
+
+        if (cached != null)
+        {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+
+        // Parse outside the lock; a concurrent miss on the same id keeps whichever value was stored first
+        AnfResourceId parsed = AnfResourceId.parse(resourceId);
+        synchronized (segment)
+        {
+            AnfResourceId existing = segment.putIfAbsent(resourceId, parsed);
+            return existing != null ? existing : parsed;
+        }
+    }
+
+    public long hitCount()
+    {
+        return hits.sum();
+    }
+
+    public long missCount()
+    {
+        return misses.sum();
+    }
+
+    public long evictionCount()
+    {
+        return evictions.sum();
+    }
+
+    public int size()
+    {
+        int size = 0;
+        for (Segment segment : segments)
+        {
+            synchronized (segment)
+            {
+                size += segment.size();
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Removes all entries, leaving the counters untouched
+     */
+    public void clear()
+    {
+        for (Segment segment : segments)
+        {
+            synchronized (segment)
+            {
+                segment.clear();
+            }
+        }
+    }
+
+    private Segment segmentFor(String resourceId)
+    {
+        int hash = resourceId.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1)];
+    }
+
+    // Access-ordered map that evicts its least recently used entry once full
+    private static final class Segment extends LinkedHashMap<String, AnfResourceId>
+    {
+        private final int capacity;
+        private final LongAdder evictions;
+
+        Segment(int capacity, LongAdder evictions)
+        {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, AnfResourceId> eldest)
+        {
+            if (size() > capacity)
+            {
+                evictions.increment();
+                return true;
+            }
+
+            return false;
+        }
+    }
+}
@@ -5,155 +5,579 @@
 
 package snapshotpolicy.sdk.sample.common;
 
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.http.rest.PagedFlux;
+import com.azure.core.http.rest.PagedResponse;
+import com.azure.core.util.polling.LongRunningOperationStatus;
+import com.azure.core.util.polling.PollResponse;
+import com.azure.core.util.polling.SyncPoller;
 import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
-import com.azure.resourcemanager.netapp.fluent.models.CapacityPoolInner;
-import com.azure.resourcemanager.netapp.fluent.models.NetAppAccountInner;
-import com.azure.resourcemanager.netapp.fluent.models.SnapshotInner;
-import com.azure.resourcemanager.netapp.fluent.models.SnapshotPolicyInner;
-import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import snapshotpolicy.sdk.sample.journal.JournalEntry;
+import snapshotpolicy.sdk.sample.journal.OperationJournal;
+import snapshotpolicy.sdk.sample.metrics.MetricsRegistry;
+import snapshotpolicy.sdk.sample.throttling.ArmRateLimiter;
+import snapshotpolicy.sdk.sample.throttling.RequestType;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
 // Contains public methods for SDK related operations
 public class CommonSdk
 {
+    /**
+     * Default number of listed children above which existsAll stops listing and falls back to individual GETs
+     */
+    public static final int DEFAULT_LIST_THRESHOLD = 1000;
+
+    private static volatile ResourceStateCache resourceCache;
+
+    /**
+     * Places a read-through cache in front of getResource, or removes it. The cache is registered with
+     * ResourceEvents so that writes through Creation, Update and Cleanup invalidate it.
+     * @param cache The cache to use, or null to always read from the service
+     */
+    public static void setResourceCache(ResourceStateCache cache)
+    {
+        ResourceStateCache previous = resourceCache;
+        if (previous != null)
+        {
+            ResourceEvents.unregister(previous);
+        }
+
+        if (cache != null)
+        {
+            ResourceEvents.register(cache);
+        }
+
+        resourceCache = cache;
+    }
+
+    /**
+     * @return The cache in front of getResource, or null if none is configured
+     */
+    public static ResourceStateCache getResourceCache()
+    {
+        return resourceCache;
+    }
+
+    /**
+     * Sends an ARM call through the shared rate limiter and records it in the shared metrics registry. Throttled
+     * calls are retried once the Retry-After delay has elapsed, each attempt is recorded.
+     * @param anfClient Azure NetApp Files Management Client the call is made with
+     * @param kind Kind of the resource the call targets
+     * @param operation Operation name, e.g. get, list, poll, create, update or delete, see RequestType.of
+     * @param call The ARM call
+     * @return The result of the call
+     */
+    public static <T> T execute(NetAppManagementClient anfClient, ResourceKind<?> kind, String operation, Supplier<T> call)
+    {
+        return ArmRateLimiter.shared().execute(subscriptionOf(anfClient), RequestType.of(operation),
+                () -> MetricsRegistry.shared().record(kind, operation, call));
+    }
+
+    /**
+     * Sends a write through execute, recording it in the shared OperationJournal if one is configured: the intent is
+     * on disk before the request is sent, its completion or failure is recorded once known
+     * @param anfClient Azure NetApp Files Management Client the call is made with
+     * @param kind Kind of the resource the call targets
+     * @param operation Operation name, e.g. create, update or delete
+     * @param params Positional parameters of the resource, see ResourceKind
+     * @param call The ARM call
+     * @return The result of the call
+     */
+    public static <T> T executeJournaled(NetAppManagementClient anfClient, ResourceKind<?> kind, String operation, String[] params, Supplier<T> call)
+    {
+        return journaled(anfClient, kind, operation, params, entry -> execute(anfClient, kind, operation, call));
+    }
+
+    /**
+     * Sends a long-running write through execute and waits for it to complete, recording it in the shared
+     * OperationJournal if one is configured, along with the status of its poller. Only the request starting the
+     * operation is sent as a write and retried when throttled, status polls and the final result are separate reads
+     * so that a throttled poll never sends the write again.
+     * @param anfClient Azure NetApp Files Management Client the call is made with
+     * @param kind Kind of the resource the call targets
+     * @param operation Operation name, e.g. create, update or delete
+     * @param params Positional parameters of the resource, see ResourceKind
+     * @param begin Starts the long-running operation, e.g. a beginCreateOrUpdate call
+     * @return The final result of the long-running operation
+     */
+    public static <T> T executeLongRunning(NetAppManagementClient anfClient, ResourceKind<?> kind, String operation, String[] params, Supplier<SyncPoller<?, T>> begin)
+    {
+        return journaled(anfClient, kind, operation, params, entry ->
+        {
+            SyncPoller<?, T> poller = execute(anfClient, kind, operation, begin);
+            entry.accepted(LongRunningOperationStatus.IN_PROGRESS);
+            entry.progress(waitForCompletion(anfClient, kind, poller));
+            return execute(anfClient, kind, "poll", poller::getFinalResult);
+        });
+    }
+
+    // Polls a long-running operation through execute until it completes, at the interval the service asks for
+    private static LongRunningOperationStatus waitForCompletion(NetAppManagementClient anfClient, ResourceKind<?> kind, SyncPoller<?, ?> poller)
+    {
+        while (true)
+        {
+            MetricsRegistry.shared().recordPollIteration(kind);
+            PollResponse<?> response = execute(anfClient, kind, "poll", poller::poll);
+            if (response.getStatus().isComplete())
+            {
+                return response.getStatus();
+            }
+
+            PollingClock.SYSTEM.sleep(response.getRetryAfter() != null ? response.getRetryAfter() : anfClient.getDefaultPollInterval());
+        }
+    }
+
+    /**
+     * @param anfClient Azure NetApp Files Management Client
+     * @return Subscription the client sends its requests to, the key of its rate limiter budgets
+     */
+    public static String subscriptionOf(NetAppManagementClient anfClient)
+    {
+        String subscriptionId = anfClient.getSubscriptionId();
+        return subscriptionId != null ? subscriptionId : "";
+    }
+
     /**
      * Returns an ANF resource or null if it does not exist
      * @param anfClient Azure NetApp Files Management Client
-     * @param parameters List of parameters required depending on the resource type:
-     *                   Account        -> ResourceGroupName, AccountName
-     *                   Capacity Pool  -> ResourceGroupName, AccountName, PoolName
-     *                   Volume         -> ResourceGroupName, AccountName, PoolName, VolumeName
-     *                   Snapshot       -> ResourceGroupName, AccountName, PoolName, VolumeName, SnapshotName
-     * @param clazz Valid class types: NetAppAccountInner, CapacityPoolInner, VolumeInner, SnapshotInner
+     * @param parameters List of parameters required depending on the resource type, see ResourceKind
+     * @param clazz Valid class types: NetAppAccountInner, SnapshotPolicyInner, CapacityPoolInner, VolumeInner, SnapshotInner
      * @return Valid resource T
      */
     public static <T> Object getResource(NetAppManagementClient anfClient, String[] parameters, Class<T> clazz)
+    {
+        return getResource(anfClient, ResourceKind.of(clazz), parameters);
+    }
+
+    /**
+     * Returns an ANF resource or null if it does not exist. Throttled calls are retried by the rate limiter, other
+     * errors propagate so that a failed lookup is never mistaken for a missing resource.
+     * @param anfClient Azure NetApp Files Management Client
+     * @param kind Kind of the resource
+     * @param parameters List of parameters required depending on the resource type, see ResourceKind
+     * @return Valid resource T
+     */
+    public static <T> T getResource(NetAppManagementClient anfClient, ResourceKind<T> kind, String[] parameters)
     {
         try
         {
-            switch (clazz.getSimpleName())
+            ResourceStateCache cache = resourceCache;
+            return cache != null
+                    ? cache.get(kind, parameters, () -> execute(anfClient, kind, "get", () -> kind.get(anfClient, parameters)))
+                    : execute(anfClient, kind, "get", () -> kind.get(anfClient, parameters));
+        }
+        catch (RuntimeException e)
+        {
+            if (isNotFound(e))
+                return null;
+            throw e;
+        }
+    }
+
+    /**
+     * Checks which of the given resources exist, listing each parent once instead of sending one GET per resource
+     * @param anfClient Azure NetApp Files Management Client
+     * @param kind Kind of the resources
+     * @param resourceIds Resource ids of the resources to check, possibly under different parents
+     * @return The subset of resourceIds that exist
+     */
+    public static <T> Set<String> existsAll(NetAppManagementClient anfClient, ResourceKind<T> kind, Collection<String> resourceIds)
+    {
+        // Group the requested names by parent so that each parent is listed only once
+        Map<List<String>, Map<String, String>> idsByParent = new LinkedHashMap<>();
+        for (String resourceId : resourceIds)
+        {
+            String[] params = kind.paramsOf(AnfResourceIdCache.shared().get(resourceId));
+            List<String> parent = Arrays.asList(Arrays.copyOf(params, params.length - 1));
+            idsByParent.computeIfAbsent(parent, k -> new HashMap<>()).put(params[params.length - 1], resourceId);
+        }
+
+        Set<String> existing = new HashSet<>();
+        for (Map.Entry<List<String>, Map<String, String>> entry : idsByParent.entrySet())
+        {
+            Map<String, String> idsByName = entry.getValue();
+            for (String name : existsAll(anfClient, kind, entry.getKey().toArray(new String[0]), idsByName.keySet(), DEFAULT_LIST_THRESHOLD))
             {
-                case "NetAppAccountInner":
-                    return anfClient.getAccounts().getByResourceGroup(
-                            parameters[0],
-                            parameters[1]);
-
-                case "SnapshotPolicyInner":
-                    return anfClient.getSnapshotPolicies().get(
-                            parameters[0],
-                            parameters[1],
-                            parameters[2]);
-
-                case "CapacityPoolInner":
-                    return anfClient.getPools().get(
-                            parameters[0],
-                            parameters[1],
-                            parameters[2]);
-
-                case "VolumeInner":
-                    return anfClient.getVolumes().get(
-                            parameters[0],
-                            parameters[1],
-                            parameters[2],
-                            parameters[3]);
-
-                case "SnapshotInner":
-                    return anfClient.getSnapshots().get(
-                            parameters[0],
-                            parameters[1],
-                            parameters[2],
-                            parameters[3],
-                            parameters[4]);
+                existing.add(idsByName.get(name));
             }
         }
-        catch (Exception e)
+
+        return existing;
+    }
+
+    /**
+     * Checks which of the given resources exist under a single parent. The children of the parent are listed once
+     * and membership is resolved from an in-memory set. If the parent holds more than listThreshold children,
+     * listing stops early and each name is checked with an individual GET instead.
+     * @param anfClient Azure NetApp Files Management Client
+     * @param kind Kind of the resources
+     * @param parentParams Positional parameters of the kind without the trailing resource name
+     * @param names Names of the resources to check
+     * @param listThreshold Maximum number of children listed before falling back to individual GETs
+     * @return The subset of names that exist
+     */
+    public static <T> Set<String> existsAll(NetAppManagementClient anfClient, ResourceKind<T> kind, String[] parentParams, Collection<String> names, int listThreshold)
+    {
+        Set<String> existing = new HashSet<>();
+        if (names.isEmpty())
         {
-            if (e.getMessage().contains("Status code 404"))
-                return null;
-            Utils.writeWarningMessage("Error finding resource - " + e.getMessage());
+            return existing;
         }
 
-        return null;
+        Set<String> listed = new HashSet<>();
+        boolean complete;
+        try
+        {
+            complete = execute(anfClient, kind, "list", () -> listNames(anfClient, kind, parentParams, listThreshold, listed));
+        }
+        catch (RuntimeException e)
+        {
+            if (!isNotFound(e))
+                throw e;
+
+            // The parent itself does not exist, so neither do its children
+            return existing;
+        }
+
+        for (String name : names)
+        {
+            boolean exists = complete
+                    ? listed.contains(name.toLowerCase(Locale.ROOT))
+                    : execute(anfClient, kind, "get", () -> kind.exists(anfClient, withName(parentParams, name)));
+            if (exists)
+            {
+                existing.add(name);
+            }
+        }
+
+        return existing;
     }
 
     /**
-     * Method to overload function waitForNoANFResource(client, string, int, int, clazz) with default values
+     * Fetches a single page of the resources of a kind under a parent, so that callers decide when, and whether, the
+     * next page is requested. Each page is one rate-limited and recorded list call.
+     * @param anfClient Azure NetApp Files Management Client
+     * @param kind Kind of the resources
+     * @param parentParams Positional parameters of the kind without the trailing resource name, see ResourceKind.list
+     * @param continuationToken Continuation token of the previous page, or null for the first page
+     * @return The page, its continuation token is null on the last page
+     */
+    public static <T> PagedResponse<T> listPage(NetAppManagementClient anfClient, ResourceKind<T> kind, String[] parentParams, String continuationToken)
+    {
+        return execute(anfClient, kind, "list", () ->
+        {
+            PagedFlux<T> pages = kind.listAsync(anfClient, parentParams);
+            // Only request the one page, byPage would otherwise already fetch the next one
+            return (continuationToken == null ? pages.byPage() : pages.byPage(continuationToken)).take(1, true).blockFirst();
+        });
+    }
+
+    /**
+     * Waits for a deleted ANF resource to stop existing using the default adaptive polling: a fast first probe
+     * followed by exponential backoff with jitter, bounded by an overall deadline
      * @param anfClient Azure NetApp Files Management Client
      * @param resourceId Resource id of the resource that was deleted
-     * @param clazz Valid class types: NetAppAccountInner, CapacityPoolInner, VolumeInner, SnapshotInner
+     * @param clazz Valid class types: NetAppAccountInner, CapacityPoolInner, VolumeInner, SnapshotInner, SnapshotPolicyInner
+     * @return True if the resource is gone, false if polling gave up while it still existed
      */
-    public static <T> void waitForNoANFResource(NetAppManagementClient anfClient, String resourceId, Class<T> clazz)
+    public static <T> boolean waitForNoANFResource(NetAppManagementClient anfClient, String resourceId, Class<T> clazz)
     {
-        waitForNoANFResource(anfClient, resourceId, 10, 60, clazz);
+        return waitForNoANFResource(anfClient, resourceId, ResourceKind.of(clazz));
     }
 
     /**
-     * This function checks if a specific ANF resource that was recently deleted stops existing. It breaks the wait
-     * if the resource is not found anymore or if polling reached its maximum retries.
+     * Waits for a deleted ANF resource to stop existing using the default adaptive polling
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceId Resource id of the resource that was deleted
+     * @param kind Kind of the resource that was deleted
+     * @return True if the resource is gone, false if polling gave up while it still existed
+     */
+    public static <T> boolean waitForNoANFResource(NetAppManagementClient anfClient, String resourceId, ResourceKind<T> kind)
+    {
+        return waitForNoANFResource(anfClient, resourceId, new ExponentialBackoffPolling(), PollingClock.SYSTEM, kind);
+    }
+
+    /**
+     * This function checks if a specific ANF resource that was recently deleted stops existing, polling at a
+     * fixed interval. It breaks the wait if the resource is not found anymore or if polling reached its maximum retries.
      * @param anfClient Azure NetApp Files Management Client
      * @param resourceId Resource id of the resource that was deleted
      * @param intervalInSec Time in second that the function will poll to see if the resource has been deleted
      * @param retries Number of times polling will be performed
-     * @param clazz Valid class types: NetAppAccountInner, CapacityPoolInner, VolumeInner, SnapshotInner
+     * @param clazz Valid class types: NetAppAccountInner, CapacityPoolInner, VolumeInner, SnapshotInner, SnapshotPolicyInner
+     * @return True if the resource is gone, false if polling gave up while it still existed
      */
-    public static <T> void waitForNoANFResource(NetAppManagementClient anfClient, String resourceId, int intervalInSec, int retries, Class<T> clazz)
+    public static <T> boolean waitForNoANFResource(NetAppManagementClient anfClient, String resourceId, int intervalInSec, int retries, Class<T> clazz)
     {
-        for (int i = 0; i < retries; i++)
+        return waitForNoANFResource(anfClient, resourceId, new FixedIntervalPolling(Duration.ofSeconds(intervalInSec), retries), PollingClock.SYSTEM, ResourceKind.of(clazz));
+    }
+
+    /**
+     * This function checks if a specific ANF resource that was recently deleted stops existing. It breaks the wait
+     * if the resource is not found anymore, if polling reached its maximum attempts or if the strategy deadline
+     * would be exceeded. Throttled polls honor the Retry-After header returned by the service.
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceId Resource id of the resource that was deleted
+     * @param strategy Decides the delay before each poll
+     * @param clock Clock used to sleep and measure the deadline
+     * @param kind Kind of the resource that was deleted
+     * @return True if the resource is gone, false if polling gave up while it still existed
+     */
+    public static <T> boolean waitForNoANFResource(NetAppManagementClient anfClient, String resourceId, PollingStrategy strategy, PollingClock clock, ResourceKind<T> kind)
+    {
+        String[] params = kind.paramsOf(AnfResourceIdCache.shared().get(resourceId));
+        Duration deadline = strategy.deadline();
+        long start = clock.nanoTime();
+        Duration retryAfter = null;
+
+        for (int i = 0; i < strategy.maxAttempts(); i++)
         {
-            Utils.threadSleep(intervalInSec * 1000);
+            Duration delay = strategy.nextDelay(i, retryAfter);
+            if (deadline != null && clock.nanoTime() - start + delay.toNanos() > deadline.toNanos())
+            {
+                Utils.writeWarningMessage("Gave up waiting for deletion of " + resourceId + " after " + deadline.getSeconds() + "s");
+                return false;
+            }
 
+            clock.sleep(delay);
+            retryAfter = null;
+            MetricsRegistry.shared().recordPollIteration(kind);
             try
             {
-                switch (clazz.getSimpleName())
-                {
-                    case "NetAppAccountInner":
-                        NetAppAccountInner account = anfClient.getAccounts().getByResourceGroup(ResourceUriUtils.getResourceGroup(resourceId),
-                                ResourceUriUtils.getAnfAccount(resourceId));
-                        if (account == null)
-                            return;
-
-                        continue;
-
-                    case "CapacityPoolInner":
-                        CapacityPoolInner pool = anfClient.getPools().get(ResourceUriUtils.getResourceGroup(resourceId),
-                                ResourceUriUtils.getAnfAccount(resourceId),
-                                ResourceUriUtils.getAnfCapacityPool(resourceId));
-                        if (pool == null)
-                            return;
-
-                        continue;
-
-                    case "VolumeInner":
-                        VolumeInner volume = anfClient.getVolumes().get(ResourceUriUtils.getResourceGroup(resourceId),
-                                ResourceUriUtils.getAnfAccount(resourceId),
-                                ResourceUriUtils.getAnfCapacityPool(resourceId),
-                                ResourceUriUtils.getAnfVolume(resourceId));
-                        if (volume == null)
-                            return;
-
-                        continue;
-
-                    case "SnapshotInner":
-                        SnapshotInner snapshot = anfClient.getSnapshots().get(ResourceUriUtils.getResourceGroup(resourceId),
-                                ResourceUriUtils.getAnfAccount(resourceId),
-                                ResourceUriUtils.getAnfCapacityPool(resourceId),
-                                ResourceUriUtils.getAnfVolume(resourceId),
-                                ResourceUriUtils.getAnfSnapshot(resourceId));
-                        if (snapshot == null)
-                            return;
-
-                    case "SnapshotPolicyInner":
-                        SnapshotPolicyInner snapshotPolicy = anfClient.getSnapshotPolicies().get(ResourceUriUtils.getResourceGroup(resourceId),
-                                ResourceUriUtils.getAnfAccount(resourceId),
-                                ResourceUriUtils.getAnfSnapshotPolicy(resourceId));
-                        if (snapshotPolicy == null)
-                            return;
-                }
+                if (execute(anfClient, kind, "poll", () -> kind.get(anfClient, params)) == null)
+                    return true;
             }
             catch (Exception e)
             {
+                if (isNotFound(e))
+                    return true;
+
+                retryAfter = getRetryAfter(e);
+                if (retryAfter != null)
+                    continue;
+
                 Utils.writeWarningMessage(e.getMessage());
                 break;
             }
         }
+
+        return false;
+    }
+
+    /**
+     * Waits for a resource to leave the transient provisioning states, e.g. Creating, Updating or Deleting, using the
+     * default adaptive polling
+     * @param anfClient Azure NetApp Files Management Client
+     * @param kind Kind of the resource
+     * @param params Positional parameters of the resource, see ResourceKind
+     * @return The resource as last polled, still in a transient state if polling gave up, or null if it does not exist
+     */
+    public static <T> T waitForProvisioningState(NetAppManagementClient anfClient, ResourceKind<T> kind, String[] params)
+    {
+        return waitForProvisioningState(anfClient, kind, params, new ExponentialBackoffPolling(), PollingClock.SYSTEM);
+    }
+
+    /**
+     * Waits for a resource to leave the transient provisioning states. It breaks the wait if the resource reaches a
+     * terminal state or is not found anymore, if polling reached its maximum attempts or if the strategy deadline
+     * would be exceeded. Throttled polls honor the Retry-After header returned by the service.
+     * @param anfClient Azure NetApp Files Management Client
+     * @param kind Kind of the resource
+     * @param params Positional parameters of the resource, see ResourceKind
+     * @param strategy Decides the delay before each poll
+     * @param clock Clock used to sleep and measure the deadline
+     * @return The resource as last polled, still in a transient state if polling gave up, or null if it does not exist
+     */
+    public static <T> T waitForProvisioningState(NetAppManagementClient anfClient, ResourceKind<T> kind, String[] params, PollingStrategy strategy, PollingClock clock)
+    {
+        Duration deadline = strategy.deadline();
+        long start = clock.nanoTime();
+        Duration retryAfter = null;
+        T resource = null;
+
+        for (int i = 0; i < strategy.maxAttempts(); i++)
+        {
+            Duration delay = strategy.nextDelay(i, retryAfter);
+            if (deadline != null && clock.nanoTime() - start + delay.toNanos() > deadline.toNanos())
+            {
+                Utils.writeWarningMessage("Gave up waiting for " + kind.displayName() + " " + String.join("/", params)
+                        + " to finish provisioning after " + deadline.getSeconds() + "s");
+                return resource;
+            }
+
+            clock.sleep(delay);
+            retryAfter = null;
+            MetricsRegistry.shared().recordPollIteration(kind);
+            try
+            {
+                resource = execute(anfClient, kind, "poll", () -> kind.get(anfClient, params));
+                if (resource == null || isTerminalProvisioningState(kind.provisioningStateOf(resource)))
+                    return resource;
+            }
+            catch (Exception e)
+            {
+                if (isNotFound(e))
+                    return null;
+
+                retryAfter = getRetryAfter(e);
+                if (retryAfter != null)
+                    continue;
+
+                Utils.writeWarningMessage(e.getMessage());
+                break;
+            }
+        }
+
+        return resource;
+    }
+
+    /**
+     * @param provisioningState ARM provisioning state of a resource
+     * @return True if no operation is running on the resource, i.e. the state is Succeeded, Failed, Canceled or unknown
+     */
+    public static boolean isTerminalProvisioningState(String provisioningState)
+    {
+        return provisioningState == null
+                || provisioningState.equalsIgnoreCase("Succeeded")
+                || provisioningState.equalsIgnoreCase("Failed")
+                || provisioningState.equalsIgnoreCase("Canceled");
+    }
+
+    /**
+     * Checks whether an exception thrown by the SDK means the resource does not exist
+     * @param e Exception thrown by an Azure NetApp Files Management Client call
+     * @return True if the service answered with status code 404
+     */
+    public static boolean isNotFound(Throwable e)
+    {
+        if (e instanceof HttpResponseException && ((HttpResponseException) e).getResponse() != null)
+        {
+            return ((HttpResponseException) e).getResponse().getStatusCode() == 404;
+        }
+
+        return e.getMessage() != null && e.getMessage().contains("Status code 404");
+    }
+
+    /**
+     * Reads the delay requested by the service on a throttled (429) or unavailable (503) response
+     * @param e Exception thrown by an Azure NetApp Files Management Client call
+     * @return The Retry-After delay, or null if the response did not ask to retry later
+     */
+    public static Duration getRetryAfter(Throwable e)
+    {
+        if (!(e instanceof HttpResponseException) || ((HttpResponseException) e).getResponse() == null)
+        {
+            return null;
+        }
+
+        HttpResponseException responseException = (HttpResponseException) e;
+        int statusCode = responseException.getResponse().getStatusCode();
+        if (statusCode != 429 && statusCode != 503)
+        {
+            return null;
+        }
+
+        Duration retryAfter = parseRetryAfter(responseException.getResponse().getHeaderValue("retry-after-ms"),
+                responseException.getResponse().getHeaderValue("Retry-After"));
+
+        // Throttled without a usable hint, let the polling strategy back off on its own
+        return retryAfter != null ? retryAfter : Duration.ZERO;
+    }
+
+    // Runs a write within a journal entry, a no-op entry when no journal is configured
+    private static <T> T journaled(NetAppManagementClient anfClient, ResourceKind<?> kind, String operation, String[] params, Function<JournalEntry, T> call)
+    {
+        OperationJournal journal = OperationJournal.shared();
+        JournalEntry entry = journal != null ? journal.begin(operation, kind.resourceIdOf(subscriptionOf(anfClient), params)) : JournalEntry.NONE;
+        try
+        {
+            T result = call.apply(entry);
+            entry.completed();
+            return result;
+        }
+        catch (RuntimeException e)
+        {
+            entry.failed(e.getMessage());
+            throw e;
+        }
+    }
+
+    // Collects the lowercase names of the children of a parent, returns false if listing stopped at the threshold
+    private static <T> boolean listNames(NetAppManagementClient anfClient, ResourceKind<T> kind, String[] parentParams, int listThreshold, Set<String> listed)
+    {
+        for (T resource : kind.list(anfClient, parentParams))
+        {
+            if (listed.size() >= listThreshold)
+            {
+                return false;
+            }
+
+            listed.add(kind.nameOf(resource).toLowerCase(Locale.ROOT));
+        }
+
+        return true;
+    }
+
+    private static String[] withName(String[] parentParams, String name)
+    {
+        String[] params = Arrays.copyOf(parentParams, parentParams.length + 1);
+        params[parentParams.length] = name;
+        return params;
+    }
+
+    private static Duration parseRetryAfter(String retryAfterMs, String retryAfter)
+    {
+        if (retryAfterMs != null)
+        {
+            try
+            {
+                long millis = Long.parseLong(retryAfterMs.trim());
+                if (millis >= 0)
+                {
+                    return Duration.ofMillis(millis);
+                }
+            }
+            catch (NumberFormatException e)
+            {
+                // Malformed, fall back to Retry-After
+            }
+        }
+
+        String value = retryAfter != null ? retryAfter.trim() : "";
+        if (value.isEmpty())
+        {
+            return null;
+        }
+
+        try
+        {
+            if (Character.isDigit(value.charAt(0)))
+            {
+                return Duration.ofSeconds(Long.parseLong(value));
+            }
+
+            // Retry-After may also be an HTTP date
+            Duration untilDate = Duration.between(OffsetDateTime.now(), OffsetDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+            return untilDate.isNegative() ? Duration.ZERO : untilDate;
+        }
+        catch (NumberFormatException | DateTimeParseException e)
+        {
+            return null;
+        }
     }
 }
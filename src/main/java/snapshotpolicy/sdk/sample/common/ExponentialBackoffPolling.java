@@ -0,0 +1,113 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.common;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+// Polls quickly at first, then backs off exponentially up to a cap, with full jitter and an overall deadline
+public class ExponentialBackoffPolling implements PollingStrategy
+{
+    private Duration initialDelay = Duration.ofMillis(500);
+    private Duration maxDelay = Duration.ofSeconds(30);
+    private double multiplier = 2.0;
+    private int maxAttempts = 100;
+    private Duration deadline = Duration.ofMinutes(15);
+    private boolean jitter = true;
+    private DoubleSupplier random = () -> ThreadLocalRandom.current().nextDouble();
+
+    /**
+     * Sets the upper bound of the first delay. With jitter the first probe happens anywhere between zero and
+     * this value, so resources deleted almost instantly are noticed almost instantly.
+     * @param initialDelay Upper bound of the delay before the first poll
+     * @return This strategy
+     */
+    public ExponentialBackoffPolling withInitialDelay(Duration initialDelay)
+    {
+        this.initialDelay = initialDelay;
+        return this;
+    }
+
+    public ExponentialBackoffPolling withMaxDelay(Duration maxDelay)
+    {
+        this.maxDelay = maxDelay;
+        return this;
+    }
+
+    public ExponentialBackoffPolling withMultiplier(double multiplier)
+    {
+        if (multiplier < 1.0)
+        {
+            throw new IllegalArgumentException("multiplier must be at least 1");
+        }
+
+        this.multiplier = multiplier;
+        return this;
+    }
+
+    public ExponentialBackoffPolling withMaxAttempts(int maxAttempts)
+    {
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * @param deadline Overall time budget for polling, or null to only bound polling by the number of attempts
+     * @return This strategy
+     */
+    public ExponentialBackoffPolling withDeadline(Duration deadline)
+    {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * @param jitter Whether delays are drawn uniformly between zero and the exponential bound (full jitter)
+     * @return This strategy
+     */
+    public ExponentialBackoffPolling withJitter(boolean jitter)
+    {
+        this.jitter = jitter;
+        return this;
+    }
+
+    /**
+     * @param random Source of uniformly distributed values in [0, 1) used for jitter
+     * @return This strategy
+     */
+    public ExponentialBackoffPolling withRandom(DoubleSupplier random)
+    {
+        this.random = random;
+        return this;
+    }
+
+    @Override
+    public Duration nextDelay(int attempt, Duration retryAfter)
+    {
+        double bound = Math.min(maxDelay.toNanos(), initialDelay.toNanos() * Math.pow(multiplier, attempt));
+        long delay = (long) (jitter ? bound * random.getAsDouble() : bound);
+        if (retryAfter != null && retryAfter.toNanos() > delay)
+        {
+            // The service knows best, never poll earlier than it asked us to
+            return retryAfter;
+        }
+
+        return Duration.ofNanos(delay);
+    }
+
+    @Override
+    public int maxAttempts()
+    {
+        return maxAttempts;
+    }
+
+    @Override
+    public Duration deadline()
+    {
+        return deadline;
+    }
+}
@@ -0,0 +1,43 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.common;
+
+import java.time.Duration;
+
+// Polls at a constant interval a fixed number of times
+public class FixedIntervalPolling implements PollingStrategy
+{
+    private final Duration interval;
+    private final int retries;
+
+    /**
+     * @param interval Time to wait before each poll
+     * @param retries Number of times polling will be performed
+     */
+    public FixedIntervalPolling(Duration interval, int retries)
+    {
+        this.interval = interval;
+        this.retries = retries;
+    }
+
+    @Override
+    public Duration nextDelay(int attempt, Duration retryAfter)
+    {
+        return retryAfter != null && retryAfter.compareTo(interval) > 0 ? retryAfter : interval;
+    }
+
+    @Override
+    public int maxAttempts()
+    {
+        return retries;
+    }
+
+    @Override
+    public Duration deadline()
+    {
+        return null;
+    }
+}
@@ -0,0 +1,126 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.common;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Copies the writable properties of the fluent SDK models, i.e. those with both a getter x() and a setter withX(value).
+ * Read-only properties set by the service, such as id or provisioningState, are not copied.
+ */
+public final class ModelProperties
+{
+    private static final ClassValue<Map<String, Method[]>> PROPERTIES = new ClassValue<Map<String, Method[]>>()
+    {
+        @Override
+        protected Map<String, Method[]> computeValue(Class<?> type)
+        {
+            Map<String, Method[]> properties = new HashMap<>();
+            for (Method setter : type.getMethods())
+            {
+                String name = setter.getName();
+                if (setter.isBridge() || Modifier.isStatic(setter.getModifiers()) || setter.getParameterCount() != 1
+                        || name.length() <= 4 || !name.startsWith("with"))
+                {
+                    continue;
+                }
+
+                String property = Character.toLowerCase(name.charAt(4)) + name.substring(5);
+                try
+                {
+                    Method getter = type.getMethod(property);
+                    if (setter.getParameterTypes()[0].isAssignableFrom(getter.getReturnType()))
+                    {
+                        properties.put(property, new Method[]{getter, setter});
+                    }
+                }
+                catch (NoSuchMethodException e)
+                {
+                    // Write-only property, nothing to copy
+                }
+            }
+
+            return properties;
+        }
+    };
+
+    private ModelProperties()
+    {
+    }
+
+    /**
+     * Shallow copy of a model: nested models are shared with the original, so replace them rather than mutate them
+     * @param model The model to copy, e.g. a request body supplied by the caller
+     * @return A new model of the same class with the same writable properties
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T copyOf(T model)
+    {
+        T copy = (T) newInstance(model.getClass());
+        copy(model, copy);
+        return copy;
+    }
+
+    /**
+     * Copies every non-null property of source that target can also set. Nested models of a different class, e.g.
+     * VolumePatchPropertiesDataProtection for VolumePropertiesDataProtection, are converted property by property.
+     * @param source Model to read
+     * @param target Model to write
+     */
+    public static void copy(Object source, Object target)
+    {
+        Map<String, Method[]> targetProperties = PROPERTIES.get(target.getClass());
+        for (Map.Entry<String, Method[]> property : PROPERTIES.get(source.getClass()).entrySet())
+        {
+            Method[] targetAccessors = targetProperties.get(property.getKey());
+            if (targetAccessors == null)
+            {
+                continue;
+            }
+
+            try
+            {
+                Object value = property.getValue()[0].invoke(source);
+                if (value != null)
+                {
+                    targetAccessors[1].invoke(target, convert(value, targetAccessors[1].getParameterTypes()[0]));
+                }
+            }
+            catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e)
+            {
+                throw new IllegalStateException("Cannot copy " + property.getKey() + " of " + source.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    private static Object convert(Object value, Class<?> type)
+    {
+        if (type.isPrimitive() || type.isInstance(value))
+        {
+            return value;
+        }
+
+        Object converted = newInstance(type);
+        copy(value, converted);
+        return converted;
+    }
+
+    private static Object newInstance(Class<?> type)
+    {
+        try
+        {
+            return type.getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new IllegalStateException("Cannot instantiate " + type.getSimpleName(), e);
+        }
+    }
+}
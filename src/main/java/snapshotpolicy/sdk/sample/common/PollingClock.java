@@ -0,0 +1,36 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.common;
+
+import java.time.Duration;
+
+// Source of time used while polling, so that polling logic can run against a virtual clock
+public interface PollingClock
+{
+    // Wall clock backed by System.nanoTime and Thread.sleep
+    PollingClock SYSTEM = new PollingClock()
+    {
+        @Override
+        public long nanoTime()
+        {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void sleep(Duration duration)
+        {
+            long millis = duration.toMillis();
+            if (millis > 0)
+            {
+                Utils.threadSleep((int) Math.min(Integer.MAX_VALUE, millis));
+            }
+        }
+    };
+
+    long nanoTime();
+
+    void sleep(Duration duration);
+}
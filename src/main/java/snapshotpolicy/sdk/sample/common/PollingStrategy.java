@@ -0,0 +1,30 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.common;
+
+import java.time.Duration;
+
+// Decides how long to wait between polls of a long-running condition
+public interface PollingStrategy
+{
+    /**
+     * Computes the delay before a given poll
+     * @param attempt Zero-based index of the poll about to be performed
+     * @param retryAfter Delay requested by the service on the previous poll through a Retry-After header, or null
+     * @return Time to wait before performing the poll
+     */
+    Duration nextDelay(int attempt, Duration retryAfter);
+
+    /**
+     * @return Maximum number of polls to perform
+     */
+    int maxAttempts();
+
+    /**
+     * @return Overall time budget for polling, or null for no deadline besides maxAttempts
+     */
+    Duration deadline();
+}
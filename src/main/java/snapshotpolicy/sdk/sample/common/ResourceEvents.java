@@ -0,0 +1,60 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.common;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Notifies interested parties, such as caches and indexes, of writes performed through Creation, Update and Cleanup
+public class ResourceEvents
+{
+    private static final List<ResourceListener> listeners = new CopyOnWriteArrayList<>();
+
+    public static void register(ResourceListener listener)
+    {
+        listeners.add(listener);
+    }
+
+    public static void unregister(ResourceListener listener)
+    {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Publishes that a resource was created or updated
+     * @param kind Kind of the resource
+     * @param params Positional parameters of the resource, see ResourceKind
+     * @param resource The resource as returned by the service
+     */
+    public static <T> void publishUpserted(ResourceKind<T> kind, String[] params, T resource)
+    {
+        for (ResourceListener listener : listeners)
+        {
+            listener.onUpserted(kind, params, resource);
+        }
+    }
+
+    /**
+     * Publishes that a resource was deleted
+     * @param kind Kind of the resource
+     * @param params Positional parameters of the resource, see ResourceKind
+     */
+    public static <T> void publishDeleted(ResourceKind<T> kind, String[] params)
+    {
+        for (ResourceListener listener : listeners)
+        {
+            listener.onDeleted(kind, params);
+        }
+    }
+
+    // Receives write notifications, implementations must be thread-safe and must not block
+    public interface ResourceListener
+    {
+        <T> void onUpserted(ResourceKind<T> kind, String[] params, T resource);
+
+        <T> void onDeleted(ResourceKind<T> kind, String[] params);
+    }
+}
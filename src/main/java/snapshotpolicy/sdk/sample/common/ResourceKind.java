@@ -0,0 +1,384 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.common;
+
+import com.azure.core.http.rest.PagedFlux;
+import com.azure.core.util.polling.SyncPoller;
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import com.azure.resourcemanager.netapp.fluent.models.CapacityPoolInner;
+import com.azure.resourcemanager.netapp.fluent.models.NetAppAccountInner;
+import com.azure.resourcemanager.netapp.fluent.models.SnapshotInner;
+import com.azure.resourcemanager.netapp.fluent.models.SnapshotPolicyInner;
+import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Typed registry of the ANF resource kinds handled by the sample. Each kind knows how to get, list and delete resources
+ * from positional parameters, and how to derive those parameters from a resource id:
+ *   Account         -> ResourceGroupName, AccountName
+ *   Snapshot Policy -> ResourceGroupName, AccountName, SnapshotPolicyName
+ *   Capacity Pool   -> ResourceGroupName, AccountName, PoolName
+ *   Volume          -> ResourceGroupName, AccountName, PoolName, VolumeName
+ *   Snapshot        -> ResourceGroupName, AccountName, PoolName, VolumeName, SnapshotName
+ * @param <T> Resource model returned by the kind
+ */
+public final class ResourceKind<T>
+{
+    public static final ResourceKind<NetAppAccountInner> ACCOUNT = new ResourceKind<>(
+            "Account",
+            NetAppAccountInner.class,
+            (anfClient, p) -> anfClient.getAccounts().getByResourceGroup(p[0], p[1]),
+            (anfClient, p) -> anfClient.getAccounts().beginDelete(p[0], p[1]),
+            (anfClient, p) -> anfClient.getAccounts().deleteAsync(p[0], p[1]),
+            (anfClient, p) -> p.length == 0 ? anfClient.getAccounts().list() : anfClient.getAccounts().listByResourceGroup(p[0]),
+            (anfClient, p) -> p.length == 0 ? anfClient.getAccounts().listAsync() : anfClient.getAccounts().listByResourceGroupAsync(p[0]),
+            NetAppAccountInner::id,
+            NetAppAccountInner::provisioningState,
+            new String[]{"netAppAccounts"},
+            id -> new String[]{id.resourceGroup(), id.accountName()});
+
+    public static final ResourceKind<SnapshotPolicyInner> SNAPSHOT_POLICY = new ResourceKind<>(
+            "Snapshot Policy",
+            SnapshotPolicyInner.class,
+            (anfClient, p) -> anfClient.getSnapshotPolicies().get(p[0], p[1], p[2]),
+            (anfClient, p) -> anfClient.getSnapshotPolicies().beginDelete(p[0], p[1], p[2]),
+            (anfClient, p) -> anfClient.getSnapshotPolicies().deleteAsync(p[0], p[1], p[2]),
+            (anfClient, p) -> anfClient.getSnapshotPolicies().list(p[0], p[1]),
+            (anfClient, p) -> anfClient.getSnapshotPolicies().listAsync(p[0], p[1]),
+            SnapshotPolicyInner::id,
+            SnapshotPolicyInner::provisioningState,
+            new String[]{"netAppAccounts", "snapshotPolicies"},
+            id -> new String[]{id.resourceGroup(), id.accountName(), id.snapshotPolicyName()});
+
+    public static final ResourceKind<CapacityPoolInner> CAPACITY_POOL = new ResourceKind<>(
+            "Capacity Pool",
+            CapacityPoolInner.class,
+            (anfClient, p) -> anfClient.getPools().get(p[0], p[1], p[2]),
+            (anfClient, p) -> anfClient.getPools().beginDelete(p[0], p[1], p[2]),
+            (anfClient, p) -> anfClient.getPools().deleteAsync(p[0], p[1], p[2]),
+            (anfClient, p) -> anfClient.getPools().list(p[0], p[1]),
+            (anfClient, p) -> anfClient.getPools().listAsync(p[0], p[1]),
+            CapacityPoolInner::id,
+            CapacityPoolInner::provisioningState,
+            new String[]{"netAppAccounts", "capacityPools"},
+            id -> new String[]{id.resourceGroup(), id.accountName(), id.poolName()});
+
+    public static final ResourceKind<VolumeInner> VOLUME = new ResourceKind<>(
+            "Volume",
+            VolumeInner.class,
+            (anfClient, p) -> anfClient.getVolumes().get(p[0], p[1], p[2], p[3]),
+            (anfClient, p) -> anfClient.getVolumes().beginDelete(p[0], p[1], p[2], p[3]),
+            (anfClient, p) -> anfClient.getVolumes().deleteAsync(p[0], p[1], p[2], p[3]),
+            (anfClient, p) -> anfClient.getVolumes().list(p[0], p[1], p[2]),
+            (anfClient, p) -> anfClient.getVolumes().listAsync(p[0], p[1], p[2]),
+            VolumeInner::id,
+            VolumeInner::provisioningState,
+            new String[]{"netAppAccounts", "capacityPools", "volumes"},
+            id -> new String[]{id.resourceGroup(), id.accountName(), id.poolName(), id.volumeName()});
+
+    public static final ResourceKind<SnapshotInner> SNAPSHOT = new ResourceKind<>(
+            "Snapshot",
+            SnapshotInner.class,
+            (anfClient, p) -> anfClient.getSnapshots().get(p[0], p[1], p[2], p[3], p[4]),
+            (anfClient, p) -> anfClient.getSnapshots().beginDelete(p[0], p[1], p[2], p[3], p[4]),
+            (anfClient, p) -> anfClient.getSnapshots().deleteAsync(p[0], p[1], p[2], p[3], p[4]),
+            (anfClient, p) -> anfClient.getSnapshots().list(p[0], p[1], p[2], p[3]),
+            (anfClient, p) -> anfClient.getSnapshots().listAsync(p[0], p[1], p[2], p[3]),
+            SnapshotInner::id,
+            SnapshotInner::provisioningState,
+            new String[]{"netAppAccounts", "capacityPools", "volumes", "snapshots"},
+            id -> new String[]{id.resourceGroup(), id.accountName(), id.poolName(), id.volumeName(), id.snapshotName()});
+
+    private static final List<ResourceKind<?>> ALL = Collections.unmodifiableList(Arrays.asList(ACCOUNT, SNAPSHOT_POLICY, CAPACITY_POOL, VOLUME, SNAPSHOT));
+
+    private static final Map<Class<?>, ResourceKind<?>> BY_CLASS = new HashMap<>();
+
+    static
+    {
+        for (ResourceKind<?> kind : ALL)
+        {
+            BY_CLASS.put(kind.resourceClass, kind);
+        }
+    }
+
+    private final String displayName;
+    private final Class<T> resourceClass;
+    private final Getter<T> getter;
+    private final Deleter deleter;
+    private final AsyncDeleter asyncDeleter;
+    private final Lister<T> lister;
+    private final AsyncLister<T> asyncLister;
+    private final Function<T, String> idOf;
+    private final Function<T, String> provisioningStateOf;
+    // Segment names of the resource id after the provider, one per positional parameter but the resource group
+    private final String[] segments;
+    private final ParamsExtractor paramsExtractor;
+
+    private ResourceKind(String displayName, Class<T> resourceClass, Getter<T> getter, Deleter deleter, AsyncDeleter asyncDeleter,
+                         Lister<T> lister, AsyncLister<T> asyncLister, Function<T, String> idOf, Function<T, String> provisioningStateOf,
+                         String[] segments, ParamsExtractor paramsExtractor)
+    {
+        this.displayName = displayName;
+        this.resourceClass = resourceClass;
+        this.getter = getter;
+        this.deleter = deleter;
+        this.asyncDeleter = asyncDeleter;
+        this.lister = lister;
+        this.asyncLister = asyncLister;
+        this.idOf = idOf;
+        this.provisioningStateOf = provisioningStateOf;
+        this.segments = segments;
+        this.paramsExtractor = paramsExtractor;
+    }
+
+    /**
+     * Looks up the kind of a resource model class
+     * @param clazz Valid class types: NetAppAccountInner, SnapshotPolicyInner, CapacityPoolInner, VolumeInner, SnapshotInner
+     * @return The matching kind
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ResourceKind<T> of(Class<T> clazz)
+    {
+        ResourceKind<?> kind = BY_CLASS.get(clazz);
+        if (kind == null)
+        {
+            throw new IllegalArgumentException("Unsupported resource type: " + clazz.getSimpleName());
+        }
+
+        return (ResourceKind<T>) kind;
+    }
+
+    /**
+     * @return Every registered kind, parents before children
+     */
+    public static List<ResourceKind<?>> values()
+    {
+        return ALL;
+    }
+
+    /**
+     * Finds the kind of the resource a resource id points to, i.e. the kind of its innermost segment
+     * @param resourceId Parsed resource id
+     * @return The matching kind
+     */
+    public static ResourceKind<?> ofResourceId(AnfResourceId resourceId)
+    {
+        if (resourceId.snapshotName() != null)
+            return SNAPSHOT;
+        if (resourceId.volumeName() != null)
+            return VOLUME;
+        if (resourceId.poolName() != null)
+            return CAPACITY_POOL;
+        if (resourceId.snapshotPolicyName() != null)
+            return SNAPSHOT_POLICY;
+        if (resourceId.accountName() != null)
+            return ACCOUNT;
+
+        throw new IllegalArgumentException("Not an ANF resource id: " + resourceId);
+    }
+
+    /**
+     * Gets a resource, letting SDK exceptions such as 404s propagate
+     * @param anfClient Azure NetApp Files Management Client
+     * @param params Positional parameters of the kind
+     * @return The resource
+     */
+    public T get(NetAppManagementClient anfClient, String[] params)
+    {
+        return getter.get(anfClient, params);
+    }
+
+    /**
+     * Deletes a resource and waits for the long-running operation to complete
+     * @param anfClient Azure NetApp Files Management Client
+     * @param params Positional parameters of the kind
+     */
+    public void delete(NetAppManagementClient anfClient, String[] params)
+    {
+        deleter.delete(anfClient, params).getFinalResult();
+    }
+
+    /**
+     * Starts deleting a resource, leaving the caller to wait for the long-running operation
+     * @param anfClient Azure NetApp Files Management Client
+     * @param params Positional parameters of the kind
+     * @return Poller of the delete long-running operation
+     */
+    public SyncPoller<?, Void> beginDelete(NetAppManagementClient anfClient, String[] params)
+    {
+        return deleter.delete(anfClient, params);
+    }
+
+    /**
+     * @param anfClient Azure NetApp Files Management Client
+     * @param params Positional parameters of the kind
+     * @return Mono completing once the delete long-running operation completes
+     */
+    public Mono<Void> deleteAsync(NetAppManagementClient anfClient, String[] params)
+    {
+        return asyncDeleter.delete(anfClient, params);
+    }
+
+    /**
+     * Checks whether a resource exists
+     * @param anfClient Azure NetApp Files Management Client
+     * @param params Positional parameters of the kind
+     * @return False if the service answers with status code 404
+     */
+    public boolean exists(NetAppManagementClient anfClient, String[] params)
+    {
+        try
+        {
+            return getter.get(anfClient, params) != null;
+        }
+        catch (RuntimeException e)
+        {
+            if (CommonSdk.isNotFound(e))
+                return false;
+            throw e;
+        }
+    }
+
+    /**
+     * Lists every resource of this kind under a parent, fetching pages lazily while iterating
+     * @param anfClient Azure NetApp Files Management Client
+     * @param parentParams Positional parameters of the kind without the trailing resource name,
+     *                     e.g. ResourceGroupName, AccountName, PoolName for volumes. Accounts can also be listed
+     *                     across the whole subscription with no parameters.
+     * @return The resources of this kind under the parent
+     */
+    public Iterable<T> list(NetAppManagementClient anfClient, String[] parentParams)
+    {
+        return lister.list(anfClient, parentParams);
+    }
+
+    /**
+     * Non-blocking counterpart of list, pages are only requested once subscribers ask for them
+     * @param anfClient Azure NetApp Files Management Client
+     * @param parentParams Positional parameters of the kind without the trailing resource name, see list
+     * @return The resources of this kind under the parent, also available page by page through byPage
+     */
+    public PagedFlux<T> listAsync(NetAppManagementClient anfClient, String[] parentParams)
+    {
+        return asyncLister.list(anfClient, parentParams);
+    }
+
+    /**
+     * @param resource A resource of this kind
+     * @return Its resource id
+     */
+    public String idOf(T resource)
+    {
+        return idOf.apply(resource);
+    }
+
+    /**
+     * @param resource A resource of this kind
+     * @return Its ARM provisioning state, e.g. Creating, Succeeded or Deleting, or null if the service did not report one
+     */
+    public String provisioningStateOf(T resource)
+    {
+        return provisioningStateOf.apply(resource);
+    }
+
+    /**
+     * @param subscriptionId Subscription of the resource
+     * @param params Positional parameters of the kind
+     * @return The ARM resource id, e.g. /subscriptions/.../netAppAccounts/account1/capacityPools/pool1
+     */
+    public String resourceIdOf(String subscriptionId, String[] params)
+    {
+        StringBuilder id = new StringBuilder(160)
+                .append("/subscriptions/").append(subscriptionId)
+                .append("/resourceGroups/").append(params[0])
+                .append("/providers/Microsoft.NetApp");
+        for (int i = 0; i < segments.length; i++)
+        {
+            id.append('/').append(segments[i]).append('/').append(params[i + 1]);
+        }
+
+        return id.toString();
+    }
+
+    /**
+     * @param resource A resource of this kind
+     * @return Its own name, without the names of its parents that ARM prepends to nested resource names
+     */
+    public String nameOf(T resource)
+    {
+        // The last segment of the id, listings would otherwise fill the shared id cache with one-off entries
+        String resourceId = idOf(resource);
+        return resourceId.substring(resourceId.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * @param resourceId Parsed resource id of a resource of this kind
+     * @return Positional parameters of the kind
+     */
+    public String[] paramsOf(AnfResourceId resourceId)
+    {
+        return paramsExtractor.extract(resourceId);
+    }
+
+    public String displayName()
+    {
+        return displayName;
+    }
+
+    public Class<T> resourceClass()
+    {
+        return resourceClass;
+    }
+
+    @Override
+    public String toString()
+    {
+        return displayName;
+    }
+
+    @FunctionalInterface
+    private interface Getter<T>
+    {
+        T get(NetAppManagementClient anfClient, String[] params);
+    }
+
+    @FunctionalInterface
+    private interface Deleter
+    {
+        SyncPoller<?, Void> delete(NetAppManagementClient anfClient, String[] params);
+    }
+
+    @FunctionalInterface
+    private interface AsyncDeleter
+    {
+        Mono<Void> delete(NetAppManagementClient anfClient, String[] params);
+    }
+
+    @FunctionalInterface
+    private interface Lister<T>
+    {
+        Iterable<T> list(NetAppManagementClient anfClient, String[] parentParams);
+    }
+
+    @FunctionalInterface
+    private interface AsyncLister<T>
+    {
+        PagedFlux<T> list(NetAppManagementClient anfClient, String[] parentParams);
+    }
+
+    @FunctionalInterface
+    private interface ParamsExtractor
+    {
+        String[] extract(AnfResourceId resourceId);
+    }
+}
@@ -0,0 +1,385 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.common;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of ANF resource state placed in front of CommonSdk.getResource. Entries expire after a per-kind
+ * TTL, resources that do not exist are cached as well (negative caching), and writes published through
+ * ResourceEvents invalidate the affected entries, including the children of a deleted parent. Beyond maxEntries the
+ * least recently used entry is evicted.
+ *
+ * Invalidating a resource records the sequence number of the invalidation against its path instead of scanning the
+ * entries: an entry is only served while no path at or above its own was invalidated after its load started. The
+ * same check keeps a load still running during an invalidation from storing the value it read before the write.
+ * Invalidations are forgotten once every entry they could hide has expired.
+ */
+public class ResourceStateCache implements ResourceEvents.ResourceListener
+{
+    private static final Object NOT_FOUND = new Object();
+
+    private final Map<ResourceKind<?>, Long> ttlNanos = new HashMap<>();
+    // Guarded by this, entries in access order and invalidations in the order they happened
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Invalidation> invalidatedPaths = new LinkedHashMap<>();
+    private long sequence;
+    private final LongSupplier ticker;
+    private long defaultTtlNanos = Duration.ofSeconds(30).toNanos();
+    private long negativeTtlNanos = Duration.ofSeconds(10).toNanos();
+    private int maxEntries = 100_000;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder staleReadAgeNanos = new LongAdder();
+    private final AtomicLong maxStaleReadAgeNanos = new AtomicLong();
+
+    public ResourceStateCache()
+    {
+        this(System::nanoTime);
+    }
+
+    /**
+     * @param ticker Source of monotonic time in nanoseconds, replaceable to test expiry without waiting
+     */
+    public ResourceStateCache(LongSupplier ticker)
+    {
+        this.ticker = ticker;
+    }
+
+    /**
+     * @param kind Kind of resource
+     * @param ttl Time an existing resource of this kind is served from the cache
+     * @return This cache
+     */
+    public ResourceStateCache withTtl(ResourceKind<?> kind, Duration ttl)
+    {
+        ttlNanos.put(kind, ttl.toNanos());
+        return this;
+    }
+
+    /**
+     * @param ttl Time an existing resource is served from the cache for kinds without a specific TTL
+     * @return This cache
+     */
+    public ResourceStateCache withDefaultTtl(Duration ttl)
+    {
+        defaultTtlNanos = ttl.toNanos();
+        return this;
+    }
+
+    /**
+     * @param ttl Time a 404 is served from the cache, Duration.ZERO disables negative caching
+     * @return This cache
+     */
+    public ResourceStateCache withNegativeTtl(Duration ttl)
+    {
+        negativeTtlNanos = ttl.toNanos();
+        return this;
+    }
+
+    /**
+     * @param maxEntries Number of entries above which the least recently used entry is evicted
+     * @return This cache
+     */
+    public ResourceStateCache withMaxEntries(int maxEntries)
+    {
+        if (maxEntries < 1)
+        {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+
+        this.maxEntries = maxEntries;
+        return this;
+    }
+
+    /**
+     * Returns the cached state of a resource, loading it when absent or expired
+     * @param kind Kind of the resource
+     * @param params Positional parameters of the resource, see ResourceKind
+     * @param loader Fetches the resource from the service, throwing on 404 or any other error
+     * @return The resource, or null if it does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(ResourceKind<T> kind, String[] params, Supplier<T> loader)
+    {
+        String path = pathOf(params);
+        String key = keyOf(kind, path);
+        long loadSequence;
+        synchronized (this)
+        {
+            long now = ticker.getAsLong();
+            Entry entry = entries.get(key);
+            if (entry != null && now < entry.expiresAt && isCurrent(path, entry.sequence))
+            {
+                long age = now - entry.loadedAt;
+                staleReadAgeNanos.add(age);
+                maxStaleReadAgeNanos.accumulateAndGet(age, Math::max);
+                if (entry.value == NOT_FOUND)
+                {
+                    negativeHits.increment();
+                    return null;
+                }
+
+                hits.increment();
+                return (T) entry.value;
+            }
+
+            if (entry != null)
+            {
+                entries.remove(key);
+            }
+
+            loadSequence = ++sequence;
+        }
+
+        misses.increment();
+        Object value;
+        long ttl;
+        try
+        {
+            value = loader.get();
+            ttl = ttlNanos.getOrDefault(kind, defaultTtlNanos);
+        }
+        catch (RuntimeException e)
+        {
+            if (!CommonSdk.isNotFound(e))
+                throw e;
+
+            value = null;
+            ttl = negativeTtlNanos;
+        }
+
+        if (value == null)
+        {
+            value = NOT_FOUND;
+            ttl = negativeTtlNanos;
+        }
+
+        if (ttl > 0)
+        {
+            synchronized (this)
+            {
+                // A write invalidated the resource while it was loading, the value may predate it
+                if (isCurrent(path, loadSequence))
+                {
+                    long loadedAt = ticker.getAsLong();
+                    entries.put(key, new Entry(value, loadSequence, loadedAt, loadedAt + ttl));
+                    evictEldest();
+                }
+            }
+        }
+
+        return value == NOT_FOUND ? null : (T) value;
+    }
+
+    /**
+     * Removes a resource and everything below it, e.g. invalidating an account also invalidates its pools and volumes
+     * @param kind Kind of the resource
+     * @param params Positional parameters of the resource, see ResourceKind
+     */
+    public void invalidate(ResourceKind<?> kind, String[] params)
+    {
+        String path = pathOf(params);
+        synchronized (this)
+        {
+            long now = ticker.getAsLong();
+            purgeInvalidations(now);
+            entries.remove(keyOf(kind, path));
+            // Re-inserted so that the map stays ordered by invalidation time
+            invalidatedPaths.remove(path);
+            invalidatedPaths.put(path, new Invalidation(++sequence, now));
+        }
+
+        invalidations.increment();
+    }
+
+    /**
+     * Removes every entry, loads running meanwhile still honor the invalidations made before
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+    }
+
+    @Override
+    public <T> void onUpserted(ResourceKind<T> kind, String[] params, T resource)
+    {
+        invalidate(kind, params);
+    }
+
+    @Override
+    public <T> void onDeleted(ResourceKind<T> kind, String[] params)
+    {
+        invalidate(kind, params);
+    }
+
+    /**
+     * @return Fraction of lookups served from the cache, negative hits included
+     */
+    public double hitRatio()
+    {
+        long served = hits.sum() + negativeHits.sum();
+        long total = served + misses.sum();
+        return total == 0 ? 0.0 : (double) served / total;
+    }
+
+    public long hitCount()
+    {
+        return hits.sum();
+    }
+
+    public long negativeHitCount()
+    {
+        return negativeHits.sum();
+    }
+
+    public long missCount()
+    {
+        return misses.sum();
+    }
+
+    public long invalidationCount()
+    {
+        return invalidations.sum();
+    }
+
+    /**
+     * @return Number of entries evicted because the cache held maxEntries
+     */
+    public long evictionCount()
+    {
+        return evictions.sum();
+    }
+
+    /**
+     * @return Average age of the entries served from the cache, i.e. how stale reads were on average
+     */
+    public Duration averageStaleReadAge()
+    {
+        long served = hits.sum() + negativeHits.sum();
+        return served == 0 ? Duration.ZERO : Duration.ofNanos(staleReadAgeNanos.sum() / served);
+    }
+
+    /**
+     * @return Age of the stalest entry ever served from the cache
+     */
+    public Duration maxStaleReadAge()
+    {
+        return Duration.ofNanos(maxStaleReadAgeNanos.get());
+    }
+
+    /**
+     * @return Number of entries held, including the expired and invalidated ones not yet evicted
+     */
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    // Guarded by this
+    private void evictEldest()
+    {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries)
+        {
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    // Guarded by this. True if no path at or above the resource was invalidated after the given sequence number.
+    private boolean isCurrent(String path, long loadSequence)
+    {
+        if (invalidatedPaths.isEmpty())
+        {
+            return true;
+        }
+
+        for (int end = path.indexOf('/'); ; end = path.indexOf('/', end + 1))
+        {
+            Invalidation invalidation = invalidatedPaths.get(end < 0 ? path : path.substring(0, end));
+            if (invalidation != null && invalidation.sequence > loadSequence)
+            {
+                return false;
+            }
+
+            if (end < 0)
+            {
+                return true;
+            }
+        }
+    }
+
+    // Guarded by this. An invalidation can be forgotten once the entries stored before it have expired.
+    private void purgeInvalidations(long now)
+    {
+        long maxTtl = Math.max(defaultTtlNanos, negativeTtlNanos);
+        for (long ttl : ttlNanos.values())
+        {
+            maxTtl = Math.max(maxTtl, ttl);
+        }
+
+        Iterator<Invalidation> oldest = invalidatedPaths.values().iterator();
+        while (oldest.hasNext() && now - oldest.next().at >= maxTtl)
+        {
+            oldest.remove();
+        }
+    }
+
+    // Keys look like "Volume|rg/account/pool/volume", the path part is shared across kinds for invalidation
+    private static String keyOf(ResourceKind<?> kind, String path)
+    {
+        return kind.displayName() + "|" + path;
+    }
+
+    private static String pathOf(String[] params)
+    {
+        return String.join("/", params).toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Entry
+    {
+        final Object value;
+        // Sequence number taken when the load started
+        final long sequence;
+        final long loadedAt;
+        final long expiresAt;
+
+        Entry(Object value, long sequence, long loadedAt, long expiresAt)
+        {
+            this.value = value;
+            this.sequence = sequence;
+            this.loadedAt = loadedAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Invalidation
+    {
+        final long sequence;
+        final long at;
+
+        Invalidation(long sequence, long at)
+        {
+            this.sequence = sequence;
+            this.at = at;
+        }
+    }
+}
@@ -5,7 +5,7 @@
 
 package snapshotpolicy.sdk.sample.common;
 
-// Contains public methods to extract name from ANF resources
+// Contains public methods to extract name from ANF resources, backed by the shared AnfResourceIdCache
 public class ResourceUriUtils
 {
     /**
@@ -20,7 +20,7 @@ public class ResourceUriUtils
             return null;
         }
 
-        return getResourceValue(resourceUri, "/netAppAccounts");
+        return AnfResourceIdCache.shared().get(resourceUri).accountName();
     }
 
     /**
@@ -35,7 +35,7 @@ public class ResourceUriUtils
             return null;
         }
 
-        return getResourceValue(resourceUri, "/capacityPools");
+        return AnfResourceIdCache.shared().get(resourceUri).poolName();
     }
 
     /**
@@ -50,7 +50,7 @@ public class ResourceUriUtils
             return null;
         }
 
-        return getResourceValue(resourceUri, "/snapshotPolicies");
+        return AnfResourceIdCache.shared().get(resourceUri).snapshotPolicyName();
     }
 
     /**
@@ -65,7 +65,7 @@ public class ResourceUriUtils
             return null;
         }
 
-        return getResourceValue(resourceUri, "/volumes");
+        return AnfResourceIdCache.shared().get(resourceUri).volumeName();
     }
 
     /**
@@ -80,7 +80,7 @@ public class ResourceUriUtils
             return null;
         }
 
-        return getResourceValue(resourceUri, "/snapshots");
+        return AnfResourceIdCache.shared().get(resourceUri).snapshotName();
     }
 
     /**
@@ -95,7 +95,7 @@ public class ResourceUriUtils
             return null;
         }
 
-        return getResourceValue(resourceUri, "/resourceGroups");
+        return AnfResourceIdCache.shared().get(resourceUri).resourceGroup();
     }
 
     /**
@@ -111,37 +111,6 @@ public class ResourceUriUtils
             return null;
         }
 
-        if (!resourceName.startsWith("/"))
-        {
-            resourceName = "/" + resourceName;
-        }
-
-        if (!resourceUri.startsWith("/"))
-        {
-            resourceUri = "/" + resourceUri;
-        }
-
-        // Checks if the resourceName and resourceGroup is the same name, and if so handles it specially
-        String rgResourceName = "/resourceGroups" + resourceName;
-        int rgIndex = resourceUri.toLowerCase().indexOf(rgResourceName.toLowerCase());
-        if (rgIndex != -1) // resourceGroup name and resourceName passed are the same. Example: resourceGroup is "Snapshot" and so is the resourceName
-        {
-            String[] removedSameRgName = resourceUri.substring(rgIndex+1).split("/");
-            return removedSameRgName[1];
-        }
-
-        int index = resourceUri.toLowerCase().indexOf(resourceName.toLowerCase());
-        if (index != -1)
-        {
-            String res = resourceUri.substring(index + resourceName.length()).split("/")[1];
-
-            // to handle the partial resource uri that doesn't have real resource name
-            if (res.length() > 1)
-            {
-                return res;
-            }
-        }
-
-        return null;
+        return AnfResourceId.findSegmentValue(resourceUri, resourceName);
     }
 }
@@ -5,15 +5,13 @@
 
 package snapshotpolicy.sdk.sample.common;
 
+import snapshotpolicy.sdk.sample.logging.Log;
+
 import java.io.Console;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 
 // Contains public methods to get configuration settings, display app header, conversion of bytes, etc.
 public class Utils
 {
-    static DateTimeFormatter pattern = DateTimeFormatter.ofPattern("HH:mm:ss");
-
     /**
      * Simple function to display this console app basic information
      */
@@ -25,35 +23,38 @@ public class Utils
     }
 
     /**
-     * Display console messages
+     * Display console messages. Messages are handed to the background log writer, see Log.
      * @param message Message to be written in console
+     * @param fields Optional structured fields as alternating keys and values
      */
-    public static void writeConsoleMessage(String message)
+    public static void writeConsoleMessage(String message, Object... fields)
     {
-        System.out.println(LocalTime.now().format(pattern) + " " + message);
+        Log.info(message, fields);
     }
 
     /**
      * Displays errors messages in red
      * @param message Message to be written in console
+     * @param fields Optional structured fields as alternating keys and values
      */
-    public static void writeErrorMessage(String message)
+    public static void writeErrorMessage(String message, Object... fields)
     {
-        System.out.println(LocalTime.now().format(pattern) + " " + ConsoleColors.RED + message + ConsoleColors.RESET);
+        Log.error(message, fields);
     }
 
     /**
      * Display success messages in green
      * @param message Message to be written in console
+     * @param fields Optional structured fields as alternating keys and values
      */
-    public static void writeSuccessMessage(String message)
+    public static void writeSuccessMessage(String message, Object... fields)
     {
-        System.out.println(LocalTime.now().format(pattern) + " " + ConsoleColors.GREEN + message + ConsoleColors.RESET);
+        Log.success(message, fields);
     }
 
-    public static void writeWarningMessage(String message)
+    public static void writeWarningMessage(String message, Object... fields)
     {
-        System.out.println(LocalTime.now().format(pattern) + " " + ConsoleColors.YELLOW + message + ConsoleColors.RESET);
+        Log.warning(message, fields);
     }
 
     /**
@@ -90,13 +91,4 @@ public class Utils
         Console console = System.console();
         return String.valueOf(console.readPassword());
     }
-
-    private static class ConsoleColors
-    {
-        public static final String RESET = "\033[0m";
-
-        public static final String RED = "\033[0;31m";
-        public static final String GREEN = "\033[0;32m";
-        public static final String YELLOW = "\033[0;33m";
-    }
 }
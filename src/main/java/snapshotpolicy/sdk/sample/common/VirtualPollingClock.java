@@ -0,0 +1,46 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.common;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Clock whose time only moves when sleep is called, so polling can be exercised without real waiting
+public class VirtualPollingClock implements PollingClock
+{
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger sleeps = new AtomicInteger();
+
+    @Override
+    public long nanoTime()
+    {
+        return now.get();
+    }
+
+    @Override
+    public void sleep(Duration duration)
+    {
+        sleeps.incrementAndGet();
+        now.addAndGet(duration.toNanos());
+    }
+
+    /**
+     * @return Virtual time elapsed since the clock was created
+     */
+    public Duration elapsed()
+    {
+        return Duration.ofNanos(now.get());
+    }
+
+    /**
+     * @return Number of times sleep was called
+     */
+    public int sleepCount()
+    {
+        return sleeps.get();
+    }
+}
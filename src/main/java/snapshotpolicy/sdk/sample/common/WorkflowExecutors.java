@@ -0,0 +1,189 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.common;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+// Creates the executors used to fan out workflows, on virtual threads when enabled and supported by the JVM
+public class WorkflowExecutors
+{
+    private static final ThreadFactory VIRTUAL_THREAD_FACTORY = lookupVirtualThreadFactory();
+    // Executors.newThreadPerTaskExecutor(ThreadFactory), Java 21 as well
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR = lookupThreadPerTaskExecutor();
+
+    private static volatile boolean virtualThreadsEnabled = false;
+
+    /**
+     * Opts in or out of virtual threads for every executor created afterwards. Virtual threads require Java 21,
+     * see the java21 Maven profile; on older JVMs platform threads keep being used.
+     * @param enabled Whether workflows should run on virtual threads
+     */
+    public static void setVirtualThreadsEnabled(boolean enabled)
+    {
+        if (enabled && (VIRTUAL_THREAD_FACTORY == null || NEW_THREAD_PER_TASK_EXECUTOR == null))
+        {
+            Utils.writeWarningMessage("Virtual threads are not supported by this JVM (" + System.getProperty("java.version") + "), using platform threads");
+        }
+
+        virtualThreadsEnabled = enabled;
+    }
+
+    /**
+     * @return True if executors created now run their tasks on virtual threads
+     */
+    public static boolean isUsingVirtualThreads()
+    {
+        return virtualThreadsEnabled && VIRTUAL_THREAD_FACTORY != null && NEW_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Creates an executor running at most maxConcurrency tasks at once. Virtual threads are never pooled: every task
+     * gets its own, which waits for a permit before running, so queued tasks cost a parked virtual thread rather
+     * than a slot in a pool.
+     * @param maxConcurrency Maximum number of tasks running at the same time
+     * @return A virtual thread per task bounded by a semaphore, or a fixed-size pool of platform threads
+     */
+    public static ExecutorService newBoundedExecutor(int maxConcurrency)
+    {
+        return isUsingVirtualThreads()
+                ? new BoundedExecutor(newVirtualThreadPerTaskExecutor(), maxConcurrency)
+                : Executors.newFixedThreadPool(maxConcurrency);
+    }
+
+    /**
+     * Creates an executor starting a new thread for every task, callers are expected to bound concurrency themselves
+     * @return A virtual thread per task, or a cached pool of platform threads
+     */
+    public static ExecutorService newUnboundedExecutor()
+    {
+        return isUsingVirtualThreads()
+                ? newVirtualThreadPerTaskExecutor()
+                : Executors.newCachedThreadPool();
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor()
+    {
+        try
+        {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, VIRTUAL_THREAD_FACTORY);
+        }
+        catch (IllegalAccessException | InvocationTargetException e)
+        {
+            throw new IllegalStateException("Cannot create a virtual thread executor", e);
+        }
+    }
+
+    // Thread.ofVirtual().factory() looked up reflectively so that the sample still builds for Java 11
+    private static ThreadFactory lookupVirtualThreadFactory()
+    {
+        try
+        {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        }
+        catch (ReflectiveOperationException | LinkageError e)
+        {
+            return null;
+        }
+    }
+
+    private static Method lookupThreadPerTaskExecutor()
+    {
+        try
+        {
+            return Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        }
+        catch (NoSuchMethodException e)
+        {
+            return null;
+        }
+    }
+
+    // Runs tasks on a thread-per-task executor, letting at most maxConcurrency of them run at once. Permits are taken
+    // on the task's own thread rather than on submit, so submitting never blocks, including from a task completing.
+    static final class BoundedExecutor extends AbstractExecutorService
+    {
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+
+        BoundedExecutor(ExecutorService delegate, int maxConcurrency)
+        {
+            if (maxConcurrency < 1)
+            {
+                throw new IllegalArgumentException("maxConcurrency must be positive");
+            }
+
+            this.delegate = delegate;
+            this.permits = new Semaphore(maxConcurrency);
+        }
+
+        @Override
+        public void execute(Runnable task)
+        {
+            delegate.execute(() ->
+            {
+                try
+                {
+                    permits.acquire();
+                }
+                catch (InterruptedException e)
+                {
+                    // Shut down or cancelled while waiting, the task never started
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                try
+                {
+                    task.run();
+                }
+                finally
+                {
+                    permits.release();
+                }
+            });
+        }
+
+        @Override
+        public void shutdown()
+        {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow()
+        {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown()
+        {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated()
+        {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+        {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
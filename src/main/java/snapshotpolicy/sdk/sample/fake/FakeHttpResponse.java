@@ -0,0 +1,116 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.fake;
+
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.management.exception.ManagementException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+// Error response attached to the ManagementExceptions thrown by the fake client, so that status code checks and
+// Retry-After parsing in CommonSdk behave as they do against ARM
+final class FakeHttpResponse extends HttpResponse
+{
+    static final String ENDPOINT = "https://management.azure.com";
+
+    private final int statusCode;
+    private final HttpHeaders headers;
+    private final byte[] body;
+
+    private FakeHttpResponse(HttpMethod method, String path, int statusCode, HttpHeaders headers, String body)
+    {
+        super(request(method, path));
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.body = body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Builds the exception the SDK throws for an ARM error response
+     * @param method Method of the failed request
+     * @param path Path of the failed request, e.g. a resource id
+     * @param statusCode Status code of the response
+     * @param errorCode ARM error code, e.g. ResourceNotFound
+     * @param message Error message
+     * @param retryAfter Value of the Retry-After header, or null to omit it
+     * @return Exception carrying the response
+     */
+    static ManagementException error(HttpMethod method, String path, int statusCode, String errorCode, String message, Duration retryAfter)
+    {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Content-Type", "application/json");
+        headers.set("x-ms-request-id", Long.toHexString(System.nanoTime()));
+        if (retryAfter != null)
+        {
+            // ARM sends whole seconds, round up so that clients never retry too early
+            headers.set("Retry-After", Long.toString((retryAfter.toMillis() + 999) / 1000));
+        }
+
+        String body = "{\"error\":{\"code\":\"" + errorCode + "\",\"message\":\"" + message.replace("\"", "'") + "\"}}";
+        FakeHttpResponse response = new FakeHttpResponse(method, path, statusCode, headers, body);
+        return new ManagementException("Status code " + statusCode + ", " + body, response);
+    }
+
+    /**
+     * @param method Method of the request
+     * @param path Path of the request, e.g. a resource id
+     * @return Request to the ARM endpoint
+     */
+    static HttpRequest request(HttpMethod method, String path)
+    {
+        return new HttpRequest(method, ENDPOINT + path);
+    }
+
+    @Override
+    public int getStatusCode()
+    {
+        return statusCode;
+    }
+
+    @Override
+    public String getHeaderValue(String name)
+    {
+        return headers.getValue(name);
+    }
+
+    @Override
+    public HttpHeaders getHeaders()
+    {
+        return headers;
+    }
+
+    @Override
+    public Flux<ByteBuffer> getBody()
+    {
+        return Flux.just(ByteBuffer.wrap(body));
+    }
+
+    @Override
+    public Mono<byte[]> getBodyAsByteArray()
+    {
+        return Mono.just(body);
+    }
+
+    @Override
+    public Mono<String> getBodyAsString()
+    {
+        return getBodyAsString(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Mono<String> getBodyAsString(Charset charset)
+    {
+        return Mono.just(new String(body, charset));
+    }
+}
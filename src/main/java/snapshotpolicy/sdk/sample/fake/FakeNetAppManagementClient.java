@@ -0,0 +1,649 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.fake;
+
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.rest.PagedFlux;
+import com.azure.core.http.rest.PagedIterable;
+import com.azure.core.http.rest.PagedResponse;
+import com.azure.core.http.rest.PagedResponseBase;
+import com.azure.core.management.polling.PollResult;
+import com.azure.core.util.Context;
+import com.azure.core.util.polling.LongRunningOperationStatus;
+import com.azure.core.util.polling.PollResponse;
+import com.azure.core.util.polling.SyncPoller;
+import com.azure.resourcemanager.netapp.fluent.AccountsClient;
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import com.azure.resourcemanager.netapp.fluent.PoolsClient;
+import com.azure.resourcemanager.netapp.fluent.SnapshotPoliciesClient;
+import com.azure.resourcemanager.netapp.fluent.SnapshotsClient;
+import com.azure.resourcemanager.netapp.fluent.VolumesClient;
+import reactor.core.publisher.Mono;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
+import snapshotpolicy.sdk.sample.common.Utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process stand-in for the Azure NetApp Files management client, for load testing the sample without Azure.
+ * It serves the accounts, snapshot policies, capacity pools, volumes and snapshots operations used by Creation,
+ * Update, Cleanup and CommonSdk from in-memory state, and simulates:
+ *   - request latency and long-running operation durations drawn from a LatencyDistribution
+ *   - the transient provisioning state (Creating, Updating, Deleting) gets return while an operation runs
+ *   - 404s for missing resources and parents, 409s for deleting resources that still have children
+ *   - deleted resources staying visible for a while after their delete completed, like ARM does
+ *   - 429 throttling with Retry-After, either at random or above a per-second request budget
+ *   - transient 500 and 503 errors
+ * Failures are ManagementExceptions carrying an HTTP response, the same type the SDK throws. The state scales to
+ * millions of resources and is safe for concurrent use. Typical use:
+ *   NetAppManagementClient anfClient = new FakeNetAppManagementClient("sub")
+ *           .withRequestLatency(LatencyDistribution.logNormal(Duration.ofMillis(50), 0.5))
+ *           .withLroDuration(LatencyDistribution.logNormal(Duration.ofSeconds(5), 0.5))
+ *           .withThrottling(0.01, Duration.ofSeconds(1))
+ *           .client();
+ * Models returned by the fake are shared between callers and must not be modified.
+ */
+public class FakeNetAppManagementClient
+{
+    private static final Map<Class<?>, ResourceKind<?>> KINDS_BY_CLIENT = new HashMap<>();
+
+    static
+    {
+        KINDS_BY_CLIENT.put(AccountsClient.class, ResourceKind.ACCOUNT);
+        KINDS_BY_CLIENT.put(SnapshotPoliciesClient.class, ResourceKind.SNAPSHOT_POLICY);
+        KINDS_BY_CLIENT.put(PoolsClient.class, ResourceKind.CAPACITY_POOL);
+        KINDS_BY_CLIENT.put(VolumesClient.class, ResourceKind.VOLUME);
+        KINDS_BY_CLIENT.put(SnapshotsClient.class, ResourceKind.SNAPSHOT);
+    }
+
+    // Operations each client runs as long-running operations, i.e. the ones with a begin* variant
+    private static final ClassValue<Set<String>> LONG_RUNNING = new ClassValue<Set<String>>()
+    {
+        @Override
+        protected Set<String> computeValue(Class<?> type)
+        {
+            Set<String> operations = new HashSet<>();
+            for (Method method : type.getMethods())
+            {
+                if (method.getName().startsWith("begin"))
+                {
+                    operations.add(operationName(method.getName()));
+                }
+            }
+
+            return operations;
+        }
+    };
+
+    private final String subscriptionId;
+    private final FakeResourceStore store;
+    private final NetAppManagementClient client;
+    private final Map<Class<?>, Object> operationClients = new HashMap<>();
+
+    private volatile LatencyDistribution requestLatency = LatencyDistribution.none();
+    private volatile LatencyDistribution lroDuration = LatencyDistribution.none();
+    private volatile long deleteVisibilityLagNanos;
+    private volatile double throttleRate;
+    private volatile Duration throttleRetryAfter = Duration.ofSeconds(1);
+    private volatile double transientErrorRate;
+    private volatile RequestWindow readWindow;
+    private volatile RequestWindow writeWindow;
+    private volatile int pageSize = 1000;
+
+    private final Map<ResourceKind<?>, Map<String, LongAdder>> calls = new ConcurrentHashMap<>();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder transientErrors = new LongAdder();
+
+    /**
+     * @param subscriptionId Subscription id used in the resource ids of the fake resources
+     */
+    public FakeNetAppManagementClient(String subscriptionId)
+    {
+        this.subscriptionId = subscriptionId;
+        this.store = new FakeResourceStore(subscriptionId);
+        for (Class<?> clientType : KINDS_BY_CLIENT.keySet())
+        {
+            ResourceKind<?> kind = KINDS_BY_CLIENT.get(clientType);
+            operationClients.put(clientType, proxy(clientType, (proxy, method, args) -> invoke(clientType, kind, method, args)));
+        }
+
+        this.client = proxy(NetAppManagementClient.class, (proxy, method, args) ->
+        {
+            switch (method.getName())
+            {
+                case "getSubscriptionId":
+                    return subscriptionId;
+                case "getEndpoint":
+                    return FakeHttpResponse.ENDPOINT;
+                case "getDefaultPollInterval":
+                    return Duration.ofSeconds(1);
+                case "getHttpPipeline":
+                    return null;
+                default:
+                    Object operationClient = operationClients.get(method.getReturnType());
+                    if (operationClient == null)
+                    {
+                        throw new UnsupportedOperationException(method.getName() + " is not supported by the fake client");
+                    }
+
+                    return operationClient;
+            }
+        });
+    }
+
+    /**
+     * @return Management client backed by this fake, pass it wherever a NetAppManagementClient is expected
+     */
+    public NetAppManagementClient client()
+    {
+        return client;
+    }
+
+    /**
+     * @param latency Time every request takes before the service answers, including each page of a listing
+     * @return This fake
+     */
+    public FakeNetAppManagementClient withRequestLatency(LatencyDistribution latency)
+    {
+        this.requestLatency = latency;
+        return this;
+    }
+
+    /**
+     * @param duration Time between the acceptance of a long-running create, update or delete and its completion
+     * @return This fake
+     */
+    public FakeNetAppManagementClient withLroDuration(LatencyDistribution duration)
+    {
+        this.lroDuration = duration;
+        return this;
+    }
+
+    /**
+     * @param lag Time a deleted resource keeps being returned by gets after its delete operation completed
+     * @return This fake
+     */
+    public FakeNetAppManagementClient withDeleteVisibilityLag(Duration lag)
+    {
+        this.deleteVisibilityLagNanos = lag.toNanos();
+        return this;
+    }
+
+    /**
+     * @param rate Probability between 0 and 1 that a request is throttled with status code 429
+     * @param retryAfter Delay sent in the Retry-After header of throttled responses
+     * @return This fake
+     */
+    public FakeNetAppManagementClient withThrottling(double rate, Duration retryAfter)
+    {
+        this.throttleRate = requireProbability(rate);
+        this.throttleRetryAfter = retryAfter;
+        return this;
+    }
+
+    /**
+     * Throttles requests above a budget per second, like ARM enforces per subscription. Throttled responses ask to
+     * retry once the current second is over.
+     * @param readsPerSecond Gets and listing pages accepted per second, 0 for no limit
+     * @param writesPerSecond Creates, updates and deletes accepted per second, 0 for no limit
+     * @return This fake
+     */
+    public FakeNetAppManagementClient withRequestRateLimit(int readsPerSecond, int writesPerSecond)
+    {
+        this.readWindow = readsPerSecond > 0 ? new RequestWindow(readsPerSecond) : null;
+        this.writeWindow = writesPerSecond > 0 ? new RequestWindow(writesPerSecond) : null;
+        return this;
+    }
+
+    /**
+     * @param rate Probability between 0 and 1 that a request fails with status code 500 or 503
+     * @return This fake
+     */
+    public FakeNetAppManagementClient withTransientErrors(double rate)
+    {
+        this.transientErrorRate = requireProbability(rate);
+        return this;
+    }
+
+    /**
+     * @param pageSize Maximum number of resources per listing page
+     * @return This fake
+     */
+    public FakeNetAppManagementClient withPageSize(int pageSize)
+    {
+        if (pageSize < 1)
+        {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * Stores a resource directly, without latency or injected faults, e.g. to load a large fleet before a test
+     * @param kind Kind of the resource
+     * @param params Positional parameters of the kind, see ResourceKind
+     * @param body The resource
+     * @return The stored resource, with its id set
+     */
+    public <T> T seed(ResourceKind<T> kind, String[] params, T body)
+    {
+        long now = System.nanoTime();
+        return store.put(kind, params, body, now, now);
+    }
+
+    /**
+     * @return Number of resources gets currently return, of every kind
+     */
+    public long size()
+    {
+        return store.size(System.nanoTime());
+    }
+
+    /**
+     * @param kind Kind of the resources
+     * @param operation Operation name without begin prefix or Async suffix: get, list, createOrUpdate, create, update
+     *                  or delete. Each listing page counts as one call.
+     * @return Number of calls received, including the failed ones
+     */
+    public long getCallCount(ResourceKind<?> kind, String operation)
+    {
+        LongAdder count = calls.getOrDefault(kind, new HashMap<>()).get(operation);
+        return count != null ? count.sum() : 0;
+    }
+
+    /**
+     * @return Number of requests answered with status code 429
+     */
+    public long getThrottledCount()
+    {
+        return throttled.sum();
+    }
+
+    /**
+     * @return Number of requests answered with status code 500 or 503
+     */
+    public long getTransientErrorCount()
+    {
+        return transientErrors.sum();
+    }
+
+    /**
+     * Writes the calls received and the faults injected to the console
+     */
+    public void printStatistics()
+    {
+        Utils.writeConsoleMessage("Fake client holds " + size() + " resources, " + throttled.sum() + " requests throttled, "
+                + transientErrors.sum() + " transient errors injected");
+        for (ResourceKind<?> kind : ResourceKind.values())
+        {
+            Map<String, LongAdder> operations = calls.get(kind);
+            if (operations != null)
+            {
+                for (Map.Entry<String, LongAdder> entry : operations.entrySet())
+                {
+                    Utils.writeConsoleMessage("  " + kind.displayName() + " " + entry.getKey() + ": " + entry.getValue().sum() + " calls");
+                }
+            }
+        }
+    }
+
+    private Object invoke(Class<?> clientType, ResourceKind<?> kind, Method method, Object[] args)
+    {
+        String methodName = method.getName();
+        boolean async = methodName.endsWith("Async");
+        boolean poller = methodName.startsWith("begin");
+        String operation = operationName(methodName);
+        String[] params = stringParams(args);
+        Object body = bodyArg(args);
+        if (async && poller)
+        {
+            throw new UnsupportedOperationException(methodName + " is not supported by the fake client, use the Mono variant");
+        }
+
+        long lroNanos = lroNanos(clientType, operation);
+        Step step;
+        boolean write = !operation.startsWith("get");
+        switch (operation)
+        {
+            case "get":
+            case "getByResourceGroup":
+                step = now -> store.get(kind, params, now);
+                break;
+            case "list":
+            case "listByResourceGroup":
+                PagedFlux<?> pagedFlux = pagedFlux(kind, params);
+                return async ? pagedFlux : new PagedIterable<>(pagedFlux);
+            case "createOrUpdate":
+            case "create":
+                step = now -> putUnchecked(kind, params, body, now, now + lroNanos);
+                break;
+            case "update":
+                step = now -> store.patch(kind, params, body, now, now + lroNanos);
+                break;
+            case "delete":
+                // The stored resource keeps being returned while the delete runs, and for the visibility lag after it
+                step = now ->
+                {
+                    store.delete(kind, params, now, now + lroNanos, now + lroNanos + deleteVisibilityLagNanos);
+                    return null;
+                };
+                break;
+            default:
+                throw new UnsupportedOperationException(methodName + " is not supported by the fake client");
+        }
+
+        HttpMethod httpMethod = !write ? HttpMethod.GET : operation.equals("delete") ? HttpMethod.DELETE : operation.equals("update") ? HttpMethod.PATCH : HttpMethod.PUT;
+        if (async)
+        {
+            return delay(requestLatency.sampleNanos())
+                    .map(ignored -> accept(kind, operation, httpMethod, write, params, lroNanos, step))
+                    .flatMap(accepted -> delay(accepted.completesAt - System.nanoTime()).then(Mono.justOrEmpty(accepted.result)));
+        }
+
+        sleepUntil(System.nanoTime() + requestLatency.sampleNanos());
+        Accepted accepted = accept(kind, operation, httpMethod, write, params, lroNanos, step);
+        if (poller)
+        {
+            return new FakeSyncPoller<>(accepted);
+        }
+
+        sleepUntil(accepted.completesAt);
+        return accepted.result;
+    }
+
+    // Runs a request once its latency has elapsed: counts it, injects faults, then applies it to the store
+    private Accepted accept(ResourceKind<?> kind, String operation, HttpMethod httpMethod, boolean write, String[] params, long lroNanos, Step step)
+    {
+        calls.computeIfAbsent(kind, k -> new ConcurrentHashMap<>()).computeIfAbsent(operation, k -> new LongAdder()).increment();
+        injectFaults(kind, httpMethod, write, params);
+
+        long now = System.nanoTime();
+        Accepted accepted = new Accepted();
+        accepted.result = step.run(now);
+        accepted.completesAt = now + lroNanos;
+        return accepted;
+    }
+
+    private void injectFaults(ResourceKind<?> kind, HttpMethod httpMethod, boolean write, String[] params)
+    {
+        RequestWindow window = write ? writeWindow : readWindow;
+        long retryAfterNanos = window != null ? window.tryAcquire(System.nanoTime()) : 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (retryAfterNanos > 0 || throttleRate > 0 && random.nextDouble() < throttleRate)
+        {
+            throttled.increment();
+            throw FakeHttpResponse.error(httpMethod, store.requestPath(kind, params), 429, "SubscriptionRequestsThrottled",
+                    "Number of " + (write ? "write" : "read") + " requests for subscription '" + subscriptionId + "' exceeded the limit.",
+                    retryAfterNanos > 0 ? Duration.ofNanos(retryAfterNanos) : throttleRetryAfter);
+        }
+
+        if (transientErrorRate > 0 && random.nextDouble() < transientErrorRate)
+        {
+            transientErrors.increment();
+            boolean unavailable = random.nextBoolean();
+            throw FakeHttpResponse.error(httpMethod, store.requestPath(kind, params), unavailable ? 503 : 500,
+                    unavailable ? "ServiceUnavailable" : "InternalServerError", "Injected transient failure.",
+                    unavailable ? Duration.ofSeconds(1) : null);
+        }
+    }
+
+    private <T> PagedFlux<T> pagedFlux(ResourceKind<T> kind, String[] parentParams)
+    {
+        return new PagedFlux<>(() -> page(kind, parentParams, null), continuationToken -> page(kind, parentParams, continuationToken));
+    }
+
+    private <T> Mono<PagedResponse<T>> page(ResourceKind<T> kind, String[] parentParams, String continuationToken)
+    {
+        return delay(requestLatency.sampleNanos()).map(ignored ->
+        {
+            List<T> items = new ArrayList<>();
+            Accepted accepted = accept(kind, "list", HttpMethod.GET, false, parentParams, 0,
+                    now -> store.list(kind, parentParams, continuationToken, pageSize, now, items));
+            HttpRequest request = FakeHttpResponse.request(HttpMethod.GET, store.requestPath(kind, parentParams));
+            return new PagedResponseBase<Void, T>(request, 200, new HttpHeaders(), items, (String) accepted.result, null);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T putUnchecked(ResourceKind<T> kind, String[] params, Object body, long now, long settledAt)
+    {
+        return store.put(kind, params, (T) body, now, settledAt);
+    }
+
+    private long lroNanos(Class<?> clientType, String operation)
+    {
+        return LONG_RUNNING.get(clientType).contains(operation) ? lroDuration.sampleNanos() : 0;
+    }
+
+    // beginCreateOrUpdateAsync -> createOrUpdate, getByResourceGroup -> getByResourceGroup
+    private static String operationName(String methodName)
+    {
+        String operation = methodName.endsWith("Async") ? methodName.substring(0, methodName.length() - "Async".length()) : methodName;
+        if (operation.startsWith("begin") && operation.length() > "begin".length())
+        {
+            operation = Character.toLowerCase(operation.charAt(5)) + operation.substring(6);
+        }
+
+        return operation;
+    }
+
+    private static String[] stringParams(Object[] args)
+    {
+        if (args == null)
+        {
+            return new String[0];
+        }
+
+        int count = 0;
+        while (count < args.length && args[count] instanceof String)
+        {
+            count++;
+        }
+
+        return Arrays.copyOf(args, count, String[].class);
+    }
+
+    // Request body, if any: the first argument after the names that is not a Context
+    private static Object bodyArg(Object[] args)
+    {
+        if (args != null)
+        {
+            for (Object arg : args)
+            {
+                if (arg != null && !(arg instanceof String) && !(arg instanceof Context))
+                {
+                    return arg;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static Mono<Long> delay(long nanos)
+    {
+        return nanos > 0 ? Mono.delay(Duration.ofNanos(nanos)) : Mono.just(0L);
+    }
+
+    private static void sleepUntil(long deadlineNanos)
+    {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0)
+        {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted())
+            {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the fake service");
+            }
+        }
+    }
+
+    private static double requireProbability(double rate)
+    {
+        if (rate < 0 || rate > 1)
+        {
+            throw new IllegalArgumentException("Rate must be between 0 and 1: " + rate);
+        }
+
+        return rate;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler)
+    {
+        return (T) Proxy.newProxyInstance(FakeNetAppManagementClient.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+        {
+            if (method.getDeclaringClass() == Object.class)
+            {
+                switch (method.getName())
+                {
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return type.getSimpleName() + "@Fake";
+                }
+            }
+
+            return handler.invoke(proxy, method, args);
+        });
+    }
+
+    @FunctionalInterface
+    private interface Step
+    {
+        Object run(long nowNanos);
+    }
+
+    // Result of an accepted request and when its long-running operation completes
+    private static final class Accepted
+    {
+        Object result;
+        long completesAt;
+    }
+
+    // Poller of a long-running operation that completes at a known time
+    private static final class FakeSyncPoller<U> implements SyncPoller<PollResult<U>, U>
+    {
+        private final Accepted accepted;
+
+        FakeSyncPoller(Accepted accepted)
+        {
+            this.accepted = accepted;
+        }
+
+        @Override
+        public PollResponse<PollResult<U>> poll()
+        {
+            // Like ARM, a running operation tells when to poll again, here the first millisecond after it completes
+            long remaining = accepted.completesAt - System.nanoTime();
+            return remaining <= 0
+                    ? new PollResponse<>(LongRunningOperationStatus.SUCCESSFULLY_COMPLETED, null)
+                    : new PollResponse<>(LongRunningOperationStatus.IN_PROGRESS, null, Duration.ofMillis(remaining / 1_000_000 + 1));
+        }
+
+        @Override
+        public PollResponse<PollResult<U>> waitForCompletion()
+        {
+            sleepUntil(accepted.completesAt);
+            return poll();
+        }
+
+        @Override
+        public PollResponse<PollResult<U>> waitForCompletion(Duration timeout)
+        {
+            sleepUntil(Math.min(accepted.completesAt, System.nanoTime() + timeout.toNanos()));
+            return poll();
+        }
+
+        @Override
+        public PollResponse<PollResult<U>> waitUntil(LongRunningOperationStatus statusToWaitFor)
+        {
+            return waitForCompletion();
+        }
+
+        @Override
+        public PollResponse<PollResult<U>> waitUntil(Duration timeout, LongRunningOperationStatus statusToWaitFor)
+        {
+            return waitForCompletion(timeout);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public U getFinalResult()
+        {
+            sleepUntil(accepted.completesAt);
+            return (U) accepted.result;
+        }
+
+        @Override
+        public void cancelOperation()
+        {
+            throw new UnsupportedOperationException("Cancellation is not supported by the fake client");
+        }
+    }
+
+    // Fixed one-second window counting requests against a budget
+    private static final class RequestWindow
+    {
+        private static final long SECOND = 1_000_000_000L;
+
+        private final int limit;
+        private final long origin = System.nanoTime();
+        // Index of the current second in the high 32 bits, requests counted in it in the low 32 bits
+        private final AtomicLong state = new AtomicLong();
+
+        RequestWindow(int limit)
+        {
+            this.limit = limit;
+        }
+
+        /**
+         * @param nowNanos Current System.nanoTime()
+         * @return 0 if the request fits in the budget, otherwise nanoseconds until the next window
+         */
+        long tryAcquire(long nowNanos)
+        {
+            long elapsed = nowNanos - origin;
+            long second = elapsed / SECOND;
+            while (true)
+            {
+                long current = state.get();
+                long next = (current >>> 32) == second ? current + 1 : second << 32 | 1;
+                if ((next & 0xFFFFFFFFL) > limit)
+                {
+                    return (second + 1) * SECOND - elapsed;
+                }
+
+                if (state.compareAndSet(current, next))
+                {
+                    return 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,628 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.fake;
+
+import com.azure.core.http.HttpMethod;
+import com.azure.core.management.ProxyResource;
+import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import snapshotpolicy.sdk.sample.common.ModelProperties;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory state of the fake client. Resources are kept in one sorted concurrent map per parent and collection,
+ * e.g. all volumes of a pool, so gets are two hash lookups and listings are ordered and resumable from the last name
+ * returned. Stored models are never mutated: writes replace them with a fresh copy, so reads return them without
+ * copying. Like ARM, a resource is returned in a transient provisioning state (Creating, Updating, Deleting) while
+ * the operation that wrote it runs, and as Succeeded once it completed. Also like ARM, the store refuses to create a resource under a missing parent and to delete a resource that
+ * still has children, or a snapshot policy still attached to a volume.
+ */
+final class FakeResourceStore
+{
+    private static final Map<ResourceKind<?>, Level> LEVELS = new HashMap<>();
+
+    static
+    {
+        LEVELS.put(ResourceKind.ACCOUNT, new Level(null, "netAppAccounts", "Microsoft.NetApp/netAppAccounts"));
+        LEVELS.put(ResourceKind.SNAPSHOT_POLICY, new Level(ResourceKind.ACCOUNT, "snapshotPolicies", "Microsoft.NetApp/netAppAccounts/snapshotPolicies"));
+        LEVELS.put(ResourceKind.CAPACITY_POOL, new Level(ResourceKind.ACCOUNT, "capacityPools", "Microsoft.NetApp/netAppAccounts/capacityPools"));
+        LEVELS.put(ResourceKind.VOLUME, new Level(ResourceKind.CAPACITY_POOL, "volumes", "Microsoft.NetApp/netAppAccounts/capacityPools/volumes"));
+        LEVELS.put(ResourceKind.SNAPSHOT, new Level(ResourceKind.VOLUME, "snapshots", "Microsoft.NetApp/netAppAccounts/capacityPools/volumes/snapshots"));
+        for (Map.Entry<ResourceKind<?>, Level> entry : LEVELS.entrySet())
+        {
+            if (entry.getValue().parent != null)
+            {
+                LEVELS.get(entry.getValue().parent).children.add(entry.getKey());
+            }
+        }
+    }
+
+    private static final Field ID = findField(ProxyResource.class, "id");
+    private static final Field NAME = findField(ProxyResource.class, "name");
+    private static final Field TYPE = findField(ProxyResource.class, "type");
+    // Read-only in the service models, only present on some SDK versions
+    private static final Field CREATED = findField(ResourceKind.SNAPSHOT.resourceClass(), "created");
+    // Read-only as well, flattened into every model on this SDK version, null where it is not
+    private static final ClassValue<Field> PROVISIONING_STATE = new ClassValue<Field>()
+    {
+        @Override
+        protected Field computeValue(Class<?> type)
+        {
+            return findField(type, "provisioningState");
+        }
+    };
+
+    private final String subscriptionId;
+    private final ConcurrentHashMap<String, ConcurrentSkipListMap<String, Entry>> collections = new ConcurrentHashMap<>();
+    // Volumes attached to each snapshot policy, keyed by lowercase policy id
+    private final ConcurrentHashMap<String, Set<Entry>> policyVolumes = new ConcurrentHashMap<>();
+
+    FakeResourceStore(String subscriptionId)
+    {
+        this.subscriptionId = subscriptionId;
+    }
+
+    /**
+     * @param kind Kind of the resource
+     * @param params Positional parameters of the kind
+     * @param nowNanos Current System.nanoTime()
+     * @return The resource
+     */
+    <T> T get(ResourceKind<T> kind, String[] params, long nowNanos)
+    {
+        Entry entry = find(kind, params, nowNanos);
+        if (entry == null)
+        {
+            throw notFound(HttpMethod.GET, kind, params);
+        }
+
+        return kind.resourceClass().cast(entry.resourceAt(nowNanos));
+    }
+
+    /**
+     * Lists the children of a parent in name order, starting after a given name
+     * @param kind Kind of the children
+     * @param parentParams Positional parameters of the kind without the trailing name, empty to list accounts of
+     *                     every resource group
+     * @param afterName Lowercase name the previous page ended with, or null for the first page
+     * @param pageSize Maximum number of resources returned
+     * @param nowNanos Current System.nanoTime()
+     * @param page Receives the resources
+     * @return Continuation token for the next page, or null if the listing is complete
+     */
+    <T> String list(ResourceKind<T> kind, String[] parentParams, String afterName, int pageSize, long nowNanos, List<T> page)
+    {
+        if (kind == ResourceKind.ACCOUNT && parentParams.length == 0)
+        {
+            return listAllAccounts(afterName, pageSize, nowNanos, page);
+        }
+
+        Level level = LEVELS.get(kind);
+        if (level.parent != null && find(level.parent, parentParams, nowNanos) == null)
+        {
+            throw notFound(HttpMethod.GET, level.parent, parentParams);
+        }
+
+        ConcurrentSkipListMap<String, Entry> children = collections.get(collectionKey(kind, parentParams));
+        if (children == null)
+        {
+            return null;
+        }
+
+        ConcurrentNavigableMap<String, Entry> remaining = afterName == null ? children : children.tailMap(afterName, false);
+        for (Map.Entry<String, Entry> child : remaining.entrySet())
+        {
+            if (child.getValue().isGone(nowNanos))
+            {
+                remove(kind, children, child.getKey(), child.getValue());
+                continue;
+            }
+
+            if (page.size() == pageSize)
+            {
+                return lastKey(page);
+            }
+
+            page.add(kind.resourceClass().cast(child.getValue().resourceAt(nowNanos)));
+        }
+
+        return null;
+    }
+
+    /**
+     * Creates or replaces a resource
+     * @param kind Kind of the resource
+     * @param params Positional parameters of the kind
+     * @param body Requested resource, copied and never modified
+     * @param nowNanos Current System.nanoTime()
+     * @param settledAtNanos When the create or update completes, until then gets return the resource as Creating or
+     *                       Updating
+     * @return The stored resource as it is once the operation completed, with id, name, type and provisioning state set
+     */
+    <T> T put(ResourceKind<T> kind, String[] params, T body, long nowNanos, long settledAtNanos)
+    {
+        Level level = LEVELS.get(kind);
+        String[] parentParams = Arrays.copyOf(params, params.length - 1);
+        if (level.parent != null && find(level.parent, parentParams, nowNanos) == null)
+        {
+            throw FakeHttpResponse.error(HttpMethod.PUT, resourceId(kind, params), 404, "ParentResourceNotFound",
+                    "Can not perform requested operation on nested resource. Parent resource '" + String.join("/", parentParams) + "' not found.", null);
+        }
+
+        T resource = newInstance(kind.resourceClass());
+        ModelProperties.copy(body, resource);
+        setField(ID, resource, resourceId(kind, params));
+        setField(NAME, resource, String.join("/", Arrays.copyOfRange(params, 1, params.length)));
+        setField(TYPE, resource, level.type);
+
+        ConcurrentSkipListMap<String, Entry> children = collections.computeIfAbsent(collectionKey(kind, parentParams), k -> new ConcurrentSkipListMap<>());
+        String name = lower(params[params.length - 1]);
+        Entry previous = children.get(name);
+        if (kind == ResourceKind.SNAPSHOT && CREATED != null)
+        {
+            // Snapshots keep their creation time when replaced
+            Object created = previous != null && !previous.isGone(nowNanos) ? getField(CREATED, previous.resource) : null;
+            setField(CREATED, resource, created != null ? created : OffsetDateTime.now());
+        }
+
+        setField(PROVISIONING_STATE.get(resource.getClass()), resource, "Succeeded");
+        Object running = settledAtNanos > nowNanos
+                ? withProvisioningState(resource, previous != null && !previous.isGone(nowNanos) ? "Updating" : "Creating")
+                : null;
+        Entry entry = new Entry(resource, running, settledAtNanos);
+        children.put(name, entry);
+        if (kind == ResourceKind.VOLUME)
+        {
+            if (previous != null)
+            {
+                detachPolicy(previous);
+            }
+
+            String policyId = policyIdOf((VolumeInner) resource);
+            if (policyId != null)
+            {
+                policyVolumes.computeIfAbsent(lower(policyId), k -> ConcurrentHashMap.newKeySet()).add(entry);
+            }
+        }
+
+        return resource;
+    }
+
+    /**
+     * Applies the non-null properties of a patch to an existing resource
+     * @param kind Kind of the resource
+     * @param params Positional parameters of the kind
+     * @param patch Patch model, e.g. SnapshotPolicyPatch
+     * @param nowNanos Current System.nanoTime()
+     * @param settledAtNanos When the update completes, until then gets return the resource as Updating
+     * @return The stored resource as it is once the update completed
+     */
+    <T> T patch(ResourceKind<T> kind, String[] params, Object patch, long nowNanos, long settledAtNanos)
+    {
+        T current = get(kind, params, nowNanos);
+        T resource = newInstance(kind.resourceClass());
+        ModelProperties.copy(current, resource);
+        ModelProperties.copy(patch, resource);
+        return put(kind, params, resource, nowNanos, settledAtNanos);
+    }
+
+    /**
+     * Starts deleting a resource, which gets return as Deleting until it is gone. Deleting a missing resource
+     * succeeds, as it does against ARM.
+     * @param kind Kind of the resource
+     * @param params Positional parameters of the kind
+     * @param nowNanos Current System.nanoTime()
+     * @param deletedAtNanos When the delete operation completes, from then on the resource no longer blocks the
+     *                       deletion of its parent
+     * @param goneAtNanos When gets stop returning the resource, at or after deletedAtNanos
+     */
+    void delete(ResourceKind<?> kind, String[] params, long nowNanos, long deletedAtNanos, long goneAtNanos)
+    {
+        Entry entry = find(kind, params, nowNanos);
+        if (entry == null || entry.deletedAt != Long.MAX_VALUE)
+        {
+            return;
+        }
+
+        for (ResourceKind<?> child : LEVELS.get(kind).children)
+        {
+            if (hasLiveChildren(collections.get(collectionKey(child, params)), nowNanos))
+            {
+                throw FakeHttpResponse.error(HttpMethod.DELETE, resourceId(kind, params), 409, "CannotDeleteResource",
+                        "Can not delete resource before nested resources are deleted.", null);
+            }
+        }
+
+        if (kind == ResourceKind.SNAPSHOT_POLICY && hasLiveEntries(policyVolumes.get(lower(resourceId(kind, params))), nowNanos))
+        {
+            throw FakeHttpResponse.error(HttpMethod.DELETE, resourceId(kind, params), 409, "SnapshotPolicyInUse",
+                    "Snapshot policy is in use by one or more volumes.", null);
+        }
+
+        synchronized (entry)
+        {
+            if (entry.deletedAt == Long.MAX_VALUE)
+            {
+                entry.deleting = withProvisioningState(entry.resource, "Deleting");
+                entry.goneAt = goneAtNanos;
+                entry.deletedAt = deletedAtNanos;
+            }
+        }
+    }
+
+    /**
+     * @param nowNanos Current System.nanoTime()
+     * @return Number of resources of every kind that gets still return
+     */
+    long size(long nowNanos)
+    {
+        long size = 0;
+        for (ConcurrentSkipListMap<String, Entry> children : collections.values())
+        {
+            for (Entry entry : children.values())
+            {
+                if (!entry.isGone(nowNanos))
+                {
+                    size++;
+                }
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * @param kind Kind of the resource
+     * @param params Positional parameters of the kind
+     * @return The ARM resource id, e.g. /subscriptions/.../netAppAccounts/account1/capacityPools/pool1
+     */
+    String resourceId(ResourceKind<?> kind, String[] params)
+    {
+        StringBuilder id = new StringBuilder(160)
+                .append("/subscriptions/").append(subscriptionId)
+                .append("/resourceGroups/").append(params[0])
+                .append("/providers/Microsoft.NetApp");
+        appendPath(id, kind, params);
+        return id.toString();
+    }
+
+    /**
+     * @param kind Kind of the resource or of the listed resources
+     * @param params Positional parameters of the kind, or of its parent when listing
+     * @return Path of the request, used in error responses
+     */
+    String requestPath(ResourceKind<?> kind, String[] params)
+    {
+        Level level = LEVELS.get(kind);
+        if (params.length == level.depth() + 1)
+        {
+            return resourceId(kind, params);
+        }
+
+        String parent = params.length == 0
+                ? "/subscriptions/" + subscriptionId + "/providers/Microsoft.NetApp"
+                : level.parent == null
+                ? "/subscriptions/" + subscriptionId + "/resourceGroups/" + params[0] + "/providers/Microsoft.NetApp"
+                : resourceId(level.parent, params);
+        return parent + "/" + level.segment;
+    }
+
+    private RuntimeException notFound(HttpMethod method, ResourceKind<?> kind, String[] params)
+    {
+        return FakeHttpResponse.error(method, resourceId(kind, params), 404, "ResourceNotFound",
+                "The Resource '" + LEVELS.get(kind).type + "/" + String.join("/", Arrays.copyOfRange(params, 1, params.length))
+                        + "' under resource group '" + params[0] + "' was not found.", null);
+    }
+
+    private Entry find(ResourceKind<?> kind, String[] params, long nowNanos)
+    {
+        ConcurrentSkipListMap<String, Entry> children = collections.get(collectionKey(kind, Arrays.copyOf(params, params.length - 1)));
+        if (children == null)
+        {
+            return null;
+        }
+
+        String name = lower(params[params.length - 1]);
+        Entry entry = children.get(name);
+        if (entry != null && entry.isGone(nowNanos))
+        {
+            remove(kind, children, name, entry);
+            return null;
+        }
+
+        return entry;
+    }
+
+    private void remove(ResourceKind<?> kind, ConcurrentSkipListMap<String, Entry> children, String name, Entry entry)
+    {
+        if (children.remove(name, entry) && kind == ResourceKind.VOLUME)
+        {
+            detachPolicy(entry);
+        }
+    }
+
+    private <T> String listAllAccounts(String afterKey, int pageSize, long nowNanos, List<T> page)
+    {
+        // Subscription-wide listing walks every resource group, keys are "<resource group>/<account>"
+        List<String> keys = new ArrayList<>();
+        Map<String, Object> accounts = new HashMap<>();
+        for (Map.Entry<String, ConcurrentSkipListMap<String, Entry>> collection : collections.entrySet())
+        {
+            if (!collection.getKey().endsWith("/netappaccounts"))
+            {
+                continue;
+            }
+
+            String resourceGroup = collection.getKey().split("/")[4];
+            for (Map.Entry<String, Entry> account : collection.getValue().entrySet())
+            {
+                String key = resourceGroup + "/" + account.getKey();
+                if (!account.getValue().isGone(nowNanos) && (afterKey == null || key.compareTo(afterKey) > 0))
+                {
+                    keys.add(key);
+                    accounts.put(key, account.getValue().resourceAt(nowNanos));
+                }
+            }
+        }
+
+        Collections.sort(keys);
+        for (int i = 0; i < keys.size(); i++)
+        {
+            if (page.size() == pageSize)
+            {
+                return keys.get(i - 1);
+            }
+
+            @SuppressWarnings("unchecked")
+            T account = (T) accounts.get(keys.get(i));
+            page.add(account);
+        }
+
+        return null;
+    }
+
+    private static String lastKey(List<?> page)
+    {
+        String name = ((ProxyResource) page.get(page.size() - 1)).name();
+        return lower(name.substring(name.lastIndexOf('/') + 1));
+    }
+
+    private String collectionKey(ResourceKind<?> kind, String[] parentParams)
+    {
+        StringBuilder key = new StringBuilder(160)
+                .append("/subscriptions/").append(subscriptionId)
+                .append("/resourcegroups/").append(parentParams[0])
+                .append("/providers/microsoft.netapp");
+        Level level = LEVELS.get(kind);
+        if (level.parent != null)
+        {
+            appendPath(key, level.parent, parentParams);
+        }
+
+        key.append('/').append(level.segment);
+        return lower(key.toString());
+    }
+
+    private static void appendPath(StringBuilder path, ResourceKind<?> kind, String[] params)
+    {
+        Level level = LEVELS.get(kind);
+        if (level.parent != null)
+        {
+            appendPath(path, level.parent, params);
+        }
+
+        int depth = level.depth();
+        path.append('/').append(level.segment).append('/').append(params[depth]);
+    }
+
+    private void detachPolicy(Entry volume)
+    {
+        String policyId = policyIdOf((VolumeInner) volume.resource);
+        if (policyId != null)
+        {
+            Set<Entry> volumes = policyVolumes.get(lower(policyId));
+            if (volumes != null)
+            {
+                volumes.remove(volume);
+            }
+        }
+    }
+
+    private static String policyIdOf(VolumeInner volume)
+    {
+        if (volume.dataProtection() == null || volume.dataProtection().snapshot() == null)
+        {
+            return null;
+        }
+
+        return volume.dataProtection().snapshot().snapshotPolicyId();
+    }
+
+    private static boolean hasLiveChildren(ConcurrentSkipListMap<String, Entry> children, long nowNanos)
+    {
+        return children != null && hasLiveEntries(children.values(), nowNanos);
+    }
+
+    private static boolean hasLiveEntries(Iterable<Entry> entries, long nowNanos)
+    {
+        if (entries != null)
+        {
+            for (Entry entry : entries)
+            {
+                if (entry.deletedAt > nowNanos)
+                {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static String lower(String value)
+    {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    // Copy of a stored resource in a transient provisioning state, or null if the model has no such field
+    private static Object withProvisioningState(Object resource, String provisioningState)
+    {
+        Field field = PROVISIONING_STATE.get(resource.getClass());
+        if (field == null)
+        {
+            return null;
+        }
+
+        Object copy = newInstance(resource.getClass());
+        for (Class<?> type = resource.getClass(); type != Object.class; type = type.getSuperclass())
+        {
+            for (Field declared : type.getDeclaredFields())
+            {
+                if (!Modifier.isStatic(declared.getModifiers()))
+                {
+                    declared.setAccessible(true);
+                    setField(declared, copy, getField(declared, resource));
+                }
+            }
+        }
+
+        setField(field, copy, provisioningState);
+        return copy;
+    }
+
+    private static <T> T newInstance(Class<T> type)
+    {
+        try
+        {
+            return type.getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new IllegalStateException("Cannot instantiate " + type.getSimpleName(), e);
+        }
+    }
+
+    private static Field findField(Class<?> type, String name)
+    {
+        for (Class<?> current = type; current != null; current = current.getSuperclass())
+        {
+            try
+            {
+                Field field = current.getDeclaredField(name);
+                field.setAccessible(true);
+                return field;
+            }
+            catch (NoSuchFieldException e)
+            {
+                // Keep looking in the superclass
+            }
+        }
+
+        return null;
+    }
+
+    private static void setField(Field field, Object target, Object value)
+    {
+        if (field == null)
+        {
+            return;
+        }
+
+        try
+        {
+            field.set(target, value);
+        }
+        catch (IllegalAccessException e)
+        {
+            throw new IllegalStateException("Cannot set " + field.getName(), e);
+        }
+    }
+
+    private static Object getField(Field field, Object target)
+    {
+        try
+        {
+            return field.get(target);
+        }
+        catch (IllegalAccessException e)
+        {
+            throw new IllegalStateException("Cannot read " + field.getName(), e);
+        }
+    }
+
+    // Position of a kind in the resource hierarchy
+    private static final class Level
+    {
+        final ResourceKind<?> parent;
+        final String segment;
+        final String type;
+        final List<ResourceKind<?>> children = new ArrayList<>();
+
+        Level(ResourceKind<?> parent, String segment, String type)
+        {
+            this.parent = parent;
+            this.segment = segment;
+            this.type = type;
+        }
+
+        // Index of the name of this level in the positional parameters, after the resource group
+        int depth()
+        {
+            return parent == null ? 1 : LEVELS.get(parent).depth() + 1;
+        }
+    }
+
+    // A stored resource. deletedAt and goneAt stay at Long.MAX_VALUE until a delete is accepted.
+    private static final class Entry
+    {
+        // As it is once its create or update completed
+        final Object resource;
+        // Same in the Creating or Updating state, returned until settledAt, null if the write was not long-running
+        final Object running;
+        final long settledAt;
+        // Same in the Deleting state, set when a delete is accepted
+        volatile Object deleting;
+        volatile long deletedAt = Long.MAX_VALUE;
+        volatile long goneAt = Long.MAX_VALUE;
+
+        Entry(Object resource, Object running, long settledAt)
+        {
+            this.resource = resource;
+            this.running = running;
+            this.settledAt = settledAt;
+        }
+
+        Object resourceAt(long nowNanos)
+        {
+            Object deleting = this.deleting;
+            if (deleting != null)
+            {
+                return deleting;
+            }
+
+            return running != null && nowNanos < settledAt ? running : resource;
+        }
+
+        boolean isGone(long nowNanos)
+        {
+            return goneAt <= nowNanos;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.fake;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Distribution the fake client draws request latencies and long-running operation durations from
+ */
+@FunctionalInterface
+public interface LatencyDistribution
+{
+    /**
+     * @return A duration in nanoseconds, never negative
+     */
+    long sampleNanos();
+
+    /**
+     * @return Distribution that never waits
+     */
+    static LatencyDistribution none()
+    {
+        return () -> 0L;
+    }
+
+    /**
+     * @param latency Duration returned by every sample
+     * @return Constant distribution
+     */
+    static LatencyDistribution fixed(Duration latency)
+    {
+        long nanos = requireNonNegative(latency).toNanos();
+        return () -> nanos;
+    }
+
+    /**
+     * @param min Shortest duration
+     * @param max Longest duration
+     * @return Distribution uniform between min and max
+     */
+    static LatencyDistribution uniform(Duration min, Duration max)
+    {
+        long minNanos = requireNonNegative(min).toNanos();
+        long maxNanos = requireNonNegative(max).toNanos();
+        if (maxNanos < minNanos)
+        {
+            throw new IllegalArgumentException("max must not be shorter than min");
+        }
+
+        return () -> minNanos == maxNanos ? minNanos : ThreadLocalRandom.current().nextLong(minNanos, maxNanos + 1);
+    }
+
+    /**
+     * Log-normal distribution, the usual shape of service latencies: most samples close to the median and a long tail
+     * @param median Median duration
+     * @param sigma Standard deviation of the underlying normal distribution, e.g. 0.5 puts p99 at about 3.2x the median
+     * @return Log-normal distribution
+     */
+    static LatencyDistribution logNormal(Duration median, double sigma)
+    {
+        double mu = Math.log(Math.max(1L, requireNonNegative(median).toNanos()));
+        if (sigma < 0)
+        {
+            throw new IllegalArgumentException("sigma must not be negative");
+        }
+
+        return () -> (long) Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian());
+    }
+
+    private static Duration requireNonNegative(Duration duration)
+    {
+        if (duration.isNegative())
+        {
+            throw new IllegalArgumentException("Latency must not be negative: " + duration);
+        }
+
+        return duration;
+    }
+}
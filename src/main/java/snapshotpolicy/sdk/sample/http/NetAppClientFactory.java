@@ -0,0 +1,230 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.http;
+
+import com.azure.core.credential.TokenCredential;
+import com.azure.core.http.HttpClient;
+import com.azure.core.http.netty.NettyAsyncHttpClientBuilder;
+import com.azure.core.management.profile.AzureProfile;
+import com.azure.resourcemanager.netapp.NetAppFilesManager;
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds NetAppFilesManager instances that share a single tuned HTTP client, and so a single connection pool, and
+ * caches them per subscription and credential. Requests to the same ARM endpoint reuse kept-alive connections
+ * whatever the subscription, instead of every manager opening its own pool and repeating TLS handshakes.
+ * The client is built when the first manager is, later configuration changes are rejected.
+ * The shared factory is configured from system properties:
+ *   anf.http.maxConnections    64 (default), connections kept open to ARM across every manager
+ *   anf.http.maxIdleSeconds    60 (default), idle time after which a kept-alive connection is closed
+ *   anf.http.http2             false (default) or true to offer HTTP/2 through ALPN, falling back to HTTP/1.1
+ *   anf.http.maxResponseBytes  33554432 (default), largest response body accepted, see ResponseSizeLimitPolicy
+ */
+public class NetAppClientFactory implements Closeable
+{
+    public static final int DEFAULT_MAX_CONNECTIONS = 64;
+    public static final Duration DEFAULT_MAX_IDLE_TIME = Duration.ofSeconds(60);
+    public static final long DEFAULT_MAX_RESPONSE_BODY_BYTES = 32L * 1024 * 1024;
+
+    private static final NetAppClientFactory SHARED = fromSystemProperties();
+
+    private final Map<ManagerKey, NetAppFilesManager> managers = new ConcurrentHashMap<>();
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+    private Duration maxIdleTime = DEFAULT_MAX_IDLE_TIME;
+    private boolean http2;
+    private long maxResponseBodyBytes = DEFAULT_MAX_RESPONSE_BODY_BYTES;
+    // Built on first use, guarded by this
+    private ConnectionProvider connectionProvider;
+    private HttpClient httpClient;
+
+    /**
+     * @return Factory used by the sample
+     */
+    public static NetAppClientFactory shared()
+    {
+        return SHARED;
+    }
+
+    /**
+     * @param maxConnections Connections kept open to ARM across every manager of the factory
+     * @return This factory
+     */
+    public synchronized NetAppClientFactory withMaxConnections(int maxConnections)
+    {
+        if (maxConnections < 1)
+        {
+            throw new IllegalArgumentException("maxConnections must be positive");
+        }
+
+        checkNotBuilt();
+        this.maxConnections = maxConnections;
+        return this;
+    }
+
+    /**
+     * @param maxIdleTime Idle time after which a kept-alive connection is closed, below the idle timeout of ARM
+     * @return This factory
+     */
+    public synchronized NetAppClientFactory withMaxIdleTime(Duration maxIdleTime)
+    {
+        checkNotBuilt();
+        this.maxIdleTime = maxIdleTime;
+        return this;
+    }
+
+    /**
+     * @param http2 If true, HTTP/2 is offered during the TLS handshake and used when the endpoint accepts it
+     * @return This factory
+     */
+    public synchronized NetAppClientFactory withHttp2(boolean http2)
+    {
+        checkNotBuilt();
+        this.http2 = http2;
+        return this;
+    }
+
+    /**
+     * @param maxResponseBodyBytes Largest response body accepted, in bytes
+     * @return This factory
+     */
+    public synchronized NetAppClientFactory withMaxResponseBodyBytes(long maxResponseBodyBytes)
+    {
+        if (maxResponseBodyBytes < 1)
+        {
+            throw new IllegalArgumentException("maxResponseBodyBytes must be positive");
+        }
+
+        checkNotBuilt();
+        this.maxResponseBodyBytes = maxResponseBodyBytes;
+        return this;
+    }
+
+    /**
+     * Returns the manager of a subscription and credential, authenticating a new one on first use
+     * @param credential Credential the requests are authenticated with
+     * @param profile Environment and subscription the requests are sent to
+     * @return The manager, shared by every caller passing the same credential instance and subscription
+     */
+    public NetAppFilesManager getManager(TokenCredential credential, AzureProfile profile)
+    {
+        return managers.computeIfAbsent(new ManagerKey(profile.getSubscriptionId(), credential), key ->
+        {
+            HttpClient client = httpClient();
+            return NetAppFilesManager.configure()
+                    .withHttpClient(client)
+                    .withPolicy(new ResponseSizeLimitPolicy(maxResponseBodyBytes))
+                    .authenticate(credential, profile);
+        });
+    }
+
+    /**
+     * @param credential Credential the requests are authenticated with
+     * @param profile Environment and subscription the requests are sent to
+     * @return Azure NetApp Files Management Client of the shared manager, see getManager
+     */
+    public NetAppManagementClient getClient(TokenCredential credential, AzureProfile profile)
+    {
+        return getManager(credential, profile).serviceClient();
+    }
+
+    /**
+     * @return Number of managers built so far
+     */
+    public int getManagerCount()
+    {
+        return managers.size();
+    }
+
+    /**
+     * @return The HTTP client shared by the managers of this factory, built on first call
+     */
+    public synchronized HttpClient httpClient()
+    {
+        if (httpClient == null)
+        {
+            connectionProvider = ConnectionProvider.builder("anf-arm")
+                    .maxConnections(maxConnections)
+                    .maxIdleTime(maxIdleTime)
+                    .evictInBackground(maxIdleTime)
+                    .build();
+            reactor.netty.http.client.HttpClient nettyClient = reactor.netty.http.client.HttpClient.create(connectionProvider)
+                    .keepAlive(true)
+                    .option(ChannelOption.SO_KEEPALIVE, true)
+                    .protocol(http2 ? new HttpProtocol[]{HttpProtocol.H2, HttpProtocol.HTTP11} : new HttpProtocol[]{HttpProtocol.HTTP11});
+            httpClient = new NettyAsyncHttpClientBuilder(nettyClient).build();
+        }
+
+        return httpClient;
+    }
+
+    /**
+     * Forgets the managers and closes the pooled connections, managers obtained before must no longer be used
+     */
+    @Override
+    public synchronized void close()
+    {
+        managers.clear();
+        if (connectionProvider != null)
+        {
+            connectionProvider.dispose();
+            connectionProvider = null;
+            httpClient = null;
+        }
+    }
+
+    private void checkNotBuilt()
+    {
+        if (httpClient != null)
+        {
+            throw new IllegalStateException("The HTTP client is already built, configure the factory before getting managers");
+        }
+    }
+
+    private static NetAppClientFactory fromSystemProperties()
+    {
+        return new NetAppClientFactory()
+                .withMaxConnections(Integer.getInteger("anf.http.maxConnections", DEFAULT_MAX_CONNECTIONS))
+                .withMaxIdleTime(Duration.ofSeconds(Integer.getInteger("anf.http.maxIdleSeconds", (int) DEFAULT_MAX_IDLE_TIME.getSeconds())))
+                .withHttp2(Boolean.getBoolean("anf.http.http2"))
+                .withMaxResponseBodyBytes(Long.getLong("anf.http.maxResponseBytes", DEFAULT_MAX_RESPONSE_BODY_BYTES));
+    }
+
+    // Credentials do not implement equals, the same instance is the same credential
+    private static final class ManagerKey
+    {
+        private final String subscriptionId;
+        private final TokenCredential credential;
+
+        ManagerKey(String subscriptionId, TokenCredential credential)
+        {
+            this.subscriptionId = subscriptionId != null ? subscriptionId : "";
+            this.credential = credential;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            return other instanceof ManagerKey
+                    && subscriptionId.equalsIgnoreCase(((ManagerKey) other).subscriptionId)
+                    && credential == ((ManagerKey) other).credential;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * subscriptionId.toLowerCase(Locale.ROOT).hashCode() + System.identityHashCode(credential);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.http;
+
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.http.HttpPipelineCallContext;
+import com.azure.core.http.HttpPipelineNextPolicy;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.http.policy.HttpPipelinePolicy;
+import com.azure.core.util.CoreUtils;
+import com.azure.core.util.FluxUtil;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Fails responses whose body exceeds a size, so that a runaway response cannot exhaust the memory of the process.
+ * A response announcing a larger Content-Length fails before its body is read, other responses fail as soon as
+ * the bytes read exceed the size, with an HttpResponseException carrying the response.
+ */
+public class ResponseSizeLimitPolicy implements HttpPipelinePolicy
+{
+    private final long maxBodyBytes;
+
+    /**
+     * @param maxBodyBytes Largest response body accepted, in bytes
+     */
+    public ResponseSizeLimitPolicy(long maxBodyBytes)
+    {
+        if (maxBodyBytes < 1)
+        {
+            throw new IllegalArgumentException("maxBodyBytes must be positive");
+        }
+
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    public Mono<HttpResponse> process(HttpPipelineCallContext context, HttpPipelineNextPolicy next)
+    {
+        return next.process().map(response ->
+        {
+            String contentLength = response.getHeaderValue("Content-Length");
+            if (contentLength != null && parseLength(contentLength) > maxBodyBytes)
+            {
+                response.close();
+                throw tooLarge(response, maxBodyBytes);
+            }
+
+            return new SizeLimitedResponse(response, maxBodyBytes);
+        });
+    }
+
+    private static long parseLength(String contentLength)
+    {
+        try
+        {
+            return Long.parseLong(contentLength.trim());
+        }
+        catch (NumberFormatException e)
+        {
+            return -1;
+        }
+    }
+
+    private static HttpResponseException tooLarge(HttpResponse response, long maxBodyBytes)
+    {
+        return new HttpResponseException("Response body of " + response.getRequest().getHttpMethod() + " " + response.getRequest().getUrl()
+                + " exceeds the limit of " + maxBodyBytes + " bytes", response);
+    }
+
+    // Response whose body fails once more than maxBodyBytes were read from it
+    private static final class SizeLimitedResponse extends HttpResponse
+    {
+        private final HttpResponse response;
+        private final long maxBodyBytes;
+
+        SizeLimitedResponse(HttpResponse response, long maxBodyBytes)
+        {
+            super(response.getRequest());
+            this.response = response;
+            this.maxBodyBytes = maxBodyBytes;
+        }
+
+        @Override
+        public int getStatusCode()
+        {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public String getHeaderValue(String name)
+        {
+            return response.getHeaderValue(name);
+        }
+
+        @Override
+        public HttpHeaders getHeaders()
+        {
+            return response.getHeaders();
+        }
+
+        @Override
+        public Flux<ByteBuffer> getBody()
+        {
+            return Flux.defer(() ->
+            {
+                long[] read = {0};
+                return response.getBody().map(buffer ->
+                {
+                    read[0] += buffer.remaining();
+                    if (read[0] > maxBodyBytes)
+                    {
+                        throw tooLarge(response, maxBodyBytes);
+                    }
+
+                    return buffer;
+                });
+            });
+        }
+
+        @Override
+        public Mono<byte[]> getBodyAsByteArray()
+        {
+            return FluxUtil.collectBytesInByteBufferStream(getBody());
+        }
+
+        @Override
+        public Mono<String> getBodyAsString()
+        {
+            return getBodyAsByteArray().map(bytes -> CoreUtils.bomAwareToString(bytes, getHeaderValue("Content-Type")));
+        }
+
+        @Override
+        public Mono<String> getBodyAsString(Charset charset)
+        {
+            return getBodyAsByteArray().map(bytes -> new String(bytes, charset));
+        }
+
+        @Override
+        public void close()
+        {
+            response.close();
+        }
+    }
+}
@@ -0,0 +1,300 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.inventory;
+
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import snapshotpolicy.sdk.sample.common.AnfResourceId;
+import snapshotpolicy.sdk.sample.common.ResourceEvents;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index from Snapshot Policy ids to the ids of the volumes using them, so that finding the volumes to
+ * remove before a policy can be deleted, or the volumes affected by a policy change, does not require listing and
+ * scanning every volume. It is built by one listing sweep and then kept current by the volume creations and deletes
+ * published through ResourceEvents. Ids are compared case-insensitively, as ARM does.
+ */
+public class PolicyVolumeIndex implements ResourceEvents.ResourceListener
+{
+    public static final int DEFAULT_CONCURRENCY = 8;
+
+    // Lowercase policy id -> volume ids using it, as listed or created
+    private final Map<String, Set<String>> volumesByPolicy = new ConcurrentHashMap<>();
+    // Lowercase volume path (rg/account/pool/volume) -> its entry, to move or remove a volume without knowing its policy
+    private final Map<String, IndexedVolume> volumes = new ConcurrentHashMap<>();
+    // Lowercase path of the resource group or account indexed, empty when the whole subscription is
+    private final String scopePath;
+    // Volumes deleted while the sweep runs, so that a listing taken before the delete does not index them again
+    private volatile Set<String> deletedDuringSweep;
+
+    /**
+     * Builds the index of a resource group, or of the whole subscription, and registers it with ResourceEvents
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Resource group to index, or null to index every volume of the subscription
+     * @return The index, to be unregistered from ResourceEvents once no longer needed
+     */
+    public static PolicyVolumeIndex build(NetAppManagementClient anfClient, String resourceGroup)
+    {
+        return build(anfClient, resourceGroup, DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * Builds the index of a single account and registers it with ResourceEvents. A policy is only used by volumes of
+     * its own account, so this is enough to find the volumes using the policies of the account.
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Resource group of the account
+     * @param accountName Account to index, an account that does not exist yet gives an empty index
+     * @return The index, to be unregistered from ResourceEvents once no longer needed
+     */
+    public static PolicyVolumeIndex build(NetAppManagementClient anfClient, String resourceGroup, String accountName)
+    {
+        return build(anfClient, new String[]{resourceGroup, accountName}, DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * Builds the index of a resource group, or of the whole subscription, and registers it with ResourceEvents.
+     * The index listens before the sweep starts, so that volumes created or deleted meanwhile are accounted for.
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Resource group to index, or null to index every volume of the subscription
+     * @param concurrency Number of accounts and pools listed at the same time
+     * @return The index, to be unregistered from ResourceEvents once no longer needed
+     */
+    public static PolicyVolumeIndex build(NetAppManagementClient anfClient, String resourceGroup, int concurrency)
+    {
+        return build(anfClient, resourceGroup != null ? new String[]{resourceGroup} : new String[0], concurrency);
+    }
+
+    private static PolicyVolumeIndex build(NetAppManagementClient anfClient, String[] scope, int concurrency)
+    {
+        if (concurrency < 1)
+        {
+            throw new IllegalArgumentException("concurrency must be positive");
+        }
+
+        PolicyVolumeIndex index = new PolicyVolumeIndex(pathOf(scope));
+        index.deletedDuringSweep = ConcurrentHashMap.newKeySet();
+        ResourceEvents.register(index);
+        try
+        {
+            ResourceWalker walker = new ResourceWalker(anfClient, 1);
+            walker.pools(scope, concurrency)
+                    .flatMap(poolParams -> walker.children(ResourceKind.VOLUME, poolParams, volume -> volume), concurrency)
+                    .doOnNext(index::addListed)
+                    .blockLast();
+        }
+        catch (RuntimeException e)
+        {
+            ResourceEvents.unregister(index);
+            throw e;
+        }
+        finally
+        {
+            index.deletedDuringSweep = null;
+        }
+
+        return index;
+    }
+
+    private PolicyVolumeIndex(String scopePath)
+    {
+        this.scopePath = scopePath;
+    }
+
+    /**
+     * Adds a volume, or moves it to the policy it now uses
+     * @param volume Volume as returned by the service
+     */
+    public void add(VolumeInner volume)
+    {
+        String[] params = ResourceKind.VOLUME.paramsOf(AnfResourceId.parse(volume.id()));
+        put(pathOf(params), volume.id(), policyIdOf(volume));
+    }
+
+    /**
+     * @param policyId Resource id of a Snapshot Policy
+     * @return Ids of the volumes using the policy when called, a read-only copy that is empty if none does
+     */
+    public Set<String> volumesOf(String policyId)
+    {
+        Set<String> volumeIds = volumesByPolicy.get(policyId.toLowerCase(Locale.ROOT));
+        return volumeIds != null ? Collections.unmodifiableSet(new HashSet<>(volumeIds)) : Collections.emptySet();
+    }
+
+    /**
+     * @param volumeId Resource id of a volume
+     * @return Id of the policy the volume uses, or null if it uses none or is not indexed
+     */
+    public String policyOf(String volumeId)
+    {
+        IndexedVolume volume = volumes.get(pathOf(ResourceKind.VOLUME.paramsOf(AnfResourceId.parse(volumeId))));
+        return volume != null ? volume.policyId : null;
+    }
+
+    /**
+     * @param volumeId Resource id of a volume
+     * @return True if the volume is indexed, whether it uses a policy or not
+     */
+    public boolean contains(String volumeId)
+    {
+        return volumes.containsKey(pathOf(ResourceKind.VOLUME.paramsOf(AnfResourceId.parse(volumeId))));
+    }
+
+    /**
+     * @return Number of indexed volumes, with or without a policy
+     */
+    public int size()
+    {
+        return volumes.size();
+    }
+
+    @Override
+    public <T> void onUpserted(ResourceKind<T> kind, String[] params, T resource)
+    {
+        if (kind == ResourceKind.VOLUME && resource != null && inScope(pathOf(params)))
+        {
+            VolumeInner volume = (VolumeInner) resource;
+            put(pathOf(params), volume.id(), policyIdOf(volume));
+        }
+    }
+
+    @Override
+    public <T> void onDeleted(ResourceKind<T> kind, String[] params)
+    {
+        if (kind == ResourceKind.SNAPSHOT)
+        {
+            return;
+        }
+
+        if (kind == ResourceKind.SNAPSHOT_POLICY)
+        {
+            // ARM refuses to delete a policy still in use, whatever is left here is stale
+            String suffix = ("/resourceGroups/" + params[0] + "/providers/Microsoft.NetApp/netAppAccounts/" + params[1]
+                    + "/snapshotPolicies/" + params[2]).toLowerCase(Locale.ROOT);
+            volumesByPolicy.keySet().removeIf(policyId -> policyId.endsWith(suffix));
+            return;
+        }
+
+        // Deleting an account or a pool deletes the volumes below it as well
+        String path = pathOf(params);
+        Set<String> deleted = deletedDuringSweep;
+        if (deleted != null)
+        {
+            deleted.add(path);
+        }
+
+        if (kind == ResourceKind.VOLUME)
+        {
+            remove(path);
+            return;
+        }
+
+        for (String volumePath : volumes.keySet())
+        {
+            if (volumePath.startsWith(path + "/"))
+            {
+                remove(volumePath);
+            }
+        }
+    }
+
+    // Indexes a volume found by the sweep, unless it, its pool or its account was deleted after it was listed
+    private synchronized void addListed(VolumeInner volume)
+    {
+        String path = pathOf(ResourceKind.VOLUME.paramsOf(AnfResourceId.parse(volume.id())));
+        Set<String> deleted = deletedDuringSweep;
+        for (String ancestor = path; deleted != null && ancestor.indexOf('/') > 0; ancestor = ancestor.substring(0, ancestor.lastIndexOf('/')))
+        {
+            if (deleted.contains(ancestor))
+            {
+                return;
+            }
+        }
+
+        // A volume created or updated while the sweep runs is indexed from its event, which is at least as recent
+        if (!volumes.containsKey(path))
+        {
+            volumes.put(path, index(volume.id(), policyIdOf(volume)));
+        }
+    }
+
+    private synchronized void put(String path, String volumeId, String policyId)
+    {
+        Set<String> deleted = deletedDuringSweep;
+        if (deleted != null)
+        {
+            deleted.remove(path);
+        }
+
+        remove(path);
+        volumes.put(path, index(volumeId, policyId));
+    }
+
+    private synchronized void remove(String path)
+    {
+        IndexedVolume previous = volumes.remove(path);
+        if (previous != null && previous.policyId != null)
+        {
+            unlink(previous);
+        }
+    }
+
+    // Links the volume to its policy and returns its entry
+    private IndexedVolume index(String volumeId, String policyId)
+    {
+        if (policyId != null)
+        {
+            volumesByPolicy.computeIfAbsent(policyId.toLowerCase(Locale.ROOT), key -> ConcurrentHashMap.newKeySet()).add(volumeId);
+        }
+
+        return new IndexedVolume(volumeId, policyId);
+    }
+
+    private void unlink(IndexedVolume volume)
+    {
+        volumesByPolicy.computeIfPresent(volume.policyId.toLowerCase(Locale.ROOT), (key, volumeIds) ->
+        {
+            volumeIds.remove(volume.volumeId);
+            return volumeIds.isEmpty() ? null : volumeIds;
+        });
+    }
+
+    // Volumes of other resource groups or accounts are created and updated through the same events
+    private boolean inScope(String path)
+    {
+        return scopePath.isEmpty() || path.startsWith(scopePath + "/");
+    }
+
+    private static String policyIdOf(VolumeInner volume)
+    {
+        return volume.dataProtection() != null && volume.dataProtection().snapshot() != null
+                ? volume.dataProtection().snapshot().snapshotPolicyId()
+                : null;
+    }
+
+    private static String pathOf(String[] params)
+    {
+        return String.join("/", params).toLowerCase(Locale.ROOT);
+    }
+
+    private static final class IndexedVolume
+    {
+        final String volumeId;
+        final String policyId;
+
+        IndexedVolume(String volumeId, String policyId)
+        {
+            this.volumeId = volumeId;
+            this.policyId = policyId;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.inventory;
+
+import com.azure.core.http.rest.PagedResponse;
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import snapshotpolicy.sdk.sample.common.AnfResourceId;
+import snapshotpolicy.sdk.sample.common.CommonSdk;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// Lists the children of ANF resources page by page through CommonSdk.listPage. A page is only requested once the
+// subscriber took the previous one, and at most pagePrefetch pages of a listing are buffered ahead of it.
+final class ResourceWalker
+{
+    private final NetAppManagementClient anfClient;
+    private final int pagePrefetch;
+
+    ResourceWalker(NetAppManagementClient anfClient, int pagePrefetch)
+    {
+        this.anfClient = anfClient;
+        this.pagePrefetch = pagePrefetch;
+    }
+
+    /**
+     * @param scope Resource group and account to walk, resource group alone, or no parameter to walk the whole subscription
+     * @param concurrency Number of accounts whose pools are listed at the same time
+     * @return Positional parameters of every capacity pool in scope
+     */
+    Flux<String[]> pools(String[] scope, int concurrency)
+    {
+        if (scope.length == 2)
+        {
+            return childParams(ResourceKind.CAPACITY_POOL, scope);
+        }
+
+        return childParams(ResourceKind.ACCOUNT, scope)
+                .flatMap(accountParams -> childParams(ResourceKind.CAPACITY_POOL, accountParams), concurrency, 1);
+    }
+
+    /**
+     * @param kind Kind of the children
+     * @param parentParams Positional parameters of the parent, see ResourceKind.list
+     * @return Positional parameters of the children, which are in turn the parent parameters of their own children
+     */
+    <T> Flux<String[]> childParams(ResourceKind<T> kind, String[] parentParams)
+    {
+        return children(kind, parentParams, resource -> kind.paramsOf(AnfResourceId.parse(kind.idOf(resource))));
+    }
+
+    /**
+     * @param kind Kind of the children
+     * @param parentParams Positional parameters of the parent, see ResourceKind.list
+     * @param mapper Extracts what the caller keeps of a child, the page it was listed in is dropped once mapped
+     * @return The mapped children
+     */
+    <T, R> Flux<R> children(ResourceKind<T> kind, String[] parentParams, Function<T, R> mapper)
+    {
+        return pages(kind, parentParams).concatMapIterable(page ->
+        {
+            List<R> mapped = new ArrayList<>(page.getValue().size());
+            for (T resource : page.getValue())
+            {
+                mapped.add(mapper.apply(resource));
+            }
+
+            return mapped;
+        }, pagePrefetch);
+    }
+
+    private <T> Flux<PagedResponse<T>> pages(ResourceKind<T> kind, String[] parentParams)
+    {
+        return page(kind, parentParams, null)
+                .expand(page -> page.getContinuationToken() != null ? page(kind, parentParams, page.getContinuationToken()) : Mono.empty())
+                // A parent deleted while it is walked simply has no children left
+                .onErrorResume(CommonSdk::isNotFound, e -> Flux.empty());
+    }
+
+    // CommonSdk.listPage blocks for the rate limiter and the request, hence the bounded elastic scheduler
+    private <T> Mono<PagedResponse<T>> page(ResourceKind<T> kind, String[] parentParams, String continuationToken)
+    {
+        return Mono.fromCallable(() -> CommonSdk.listPage(anfClient, kind, parentParams, continuationToken))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,120 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.inventory;
+
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import reactor.core.publisher.Flux;
+import snapshotpolicy.sdk.sample.common.AnfResourceId;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
+
+import java.util.function.Predicate;
+
+/**
+ * Streams every snapshot of a subscription, or of a resource group, walking accounts, capacity pools, volumes and
+ * their snapshots. Pages are fetched one at a time through CommonSdk.listPage as subscribers ask for more records,
+ * at most pagePrefetch pages ahead per listing, and the snapshots of up to volumeConcurrency volumes are listed at
+ * once. Only the ids of the parents and a SnapshotRecord per snapshot are kept, so memory stays flat however many
+ * snapshots exist.
+ */
+public class SnapshotInventory
+{
+    public static final int DEFAULT_VOLUME_CONCURRENCY = 8;
+    public static final int DEFAULT_PAGE_PREFETCH = 1;
+
+    private final NetAppManagementClient anfClient;
+    private String resourceGroup;
+    private int volumeConcurrency = DEFAULT_VOLUME_CONCURRENCY;
+    private int pagePrefetch = DEFAULT_PAGE_PREFETCH;
+
+    /**
+     * @param anfClient Azure NetApp Files Management Client
+     */
+    public SnapshotInventory(NetAppManagementClient anfClient)
+    {
+        this.anfClient = anfClient;
+    }
+
+    /**
+     * @param resourceGroup Resource group whose accounts are walked, or null to walk every account of the subscription
+     * @return This inventory
+     */
+    public SnapshotInventory withResourceGroup(String resourceGroup)
+    {
+        this.resourceGroup = resourceGroup;
+        return this;
+    }
+
+    /**
+     * @param volumeConcurrency Number of volumes, pools and accounts whose children are listed at the same time
+     * @return This inventory
+     */
+    public SnapshotInventory withVolumeConcurrency(int volumeConcurrency)
+    {
+        if (volumeConcurrency < 1)
+        {
+            throw new IllegalArgumentException("volumeConcurrency must be positive");
+        }
+
+        this.volumeConcurrency = volumeConcurrency;
+        return this;
+    }
+
+    /**
+     * @param pagePrefetch Number of pages a listing requests ahead of the records being consumed
+     * @return This inventory
+     */
+    public SnapshotInventory withPagePrefetch(int pagePrefetch)
+    {
+        if (pagePrefetch < 1)
+        {
+            throw new IllegalArgumentException("pagePrefetch must be positive");
+        }
+
+        this.pagePrefetch = pagePrefetch;
+        return this;
+    }
+
+    /**
+     * Walks the snapshots anew for every subscriber. Records of different volumes interleave, the records of one
+     * volume are in the order the service lists them.
+     * @return Flux of the snapshot records
+     */
+    public Flux<SnapshotRecord> stream()
+    {
+        ResourceWalker walker = new ResourceWalker(anfClient, pagePrefetch);
+        String[] scope = resourceGroup != null ? new String[]{resourceGroup} : new String[0];
+        return walker.pools(scope, volumeConcurrency)
+                .flatMap(poolParams -> walker.childParams(ResourceKind.VOLUME, poolParams), volumeConcurrency, 1)
+                .flatMap(volumeParams -> walker.children(ResourceKind.SNAPSHOT, volumeParams, SnapshotRecord::of), volumeConcurrency);
+    }
+
+    /**
+     * Walks the snapshots volume by volume, for callers applying per-volume rules such as keeping the latest N
+     * snapshots. A volume holds at most 255 snapshots, so each element stays small.
+     * @param volumeFilter Receives the id of each volume, the snapshots of the volumes it rejects are not listed
+     * @return Flux of the snapshots of each accepted volume, volumes without snapshots included
+     */
+    public Flux<VolumeSnapshots> streamByVolume(Predicate<String> volumeFilter)
+    {
+        ResourceWalker walker = new ResourceWalker(anfClient, pagePrefetch);
+        String[] scope = resourceGroup != null ? new String[]{resourceGroup} : new String[0];
+        return walker.pools(scope, volumeConcurrency)
+                .flatMap(poolParams -> walker.children(ResourceKind.VOLUME, poolParams, ResourceKind.VOLUME::idOf), volumeConcurrency, 1)
+                .filter(volumeFilter)
+                .flatMap(volumeId -> walker.children(ResourceKind.SNAPSHOT, ResourceKind.VOLUME.paramsOf(AnfResourceId.parse(volumeId)), SnapshotRecord::of)
+                        .collectList()
+                        .map(snapshots -> new VolumeSnapshots(volumeId, snapshots)), volumeConcurrency);
+    }
+
+    /**
+     * Blocking counterpart of stream for callers iterating on their own thread
+     * @return Iterable of the snapshot records, each iteration walks the snapshots anew
+     */
+    public Iterable<SnapshotRecord> iterate()
+    {
+        return stream().toIterable();
+    }
+}
@@ -0,0 +1,119 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.inventory;
+
+import com.azure.resourcemanager.netapp.fluent.models.SnapshotInner;
+
+import java.time.Instant;
+import java.util.regex.Pattern;
+
+/**
+ * Compact, immutable view of a snapshot as listed by SnapshotInventory: its resource id, its creation time and whether
+ * a snapshot policy took it. It keeps no reference to the SnapshotInner it was read from, so that an inventory of
+ * millions of snapshots only retains what an audit needs.
+ */
+public final class SnapshotRecord
+{
+    // Snapshot policies name their snapshots after the schedule and the UTC time they were taken, e.g. daily.2021-06-01_1530
+    private static final Pattern POLICY_SNAPSHOT_NAME = Pattern.compile("(hourly|daily|weekly|monthly)\\.\\d{4}-\\d{2}-\\d{2}_\\d{4}",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final long UNKNOWN_CREATION_TIME = Long.MIN_VALUE;
+
+    private final String id;
+    private final long createdEpochMillis;
+    private final boolean policyGenerated;
+
+    /**
+     * @param id Resource id of the snapshot
+     * @param created Creation time of the snapshot, or null if the service did not report it
+     * @param policyGenerated True if a snapshot policy took the snapshot
+     */
+    public SnapshotRecord(String id, Instant created, boolean policyGenerated)
+    {
+        if (id == null)
+        {
+            throw new IllegalArgumentException("id must not be null");
+        }
+
+        this.id = id;
+        this.createdEpochMillis = created != null ? created.toEpochMilli() : UNKNOWN_CREATION_TIME;
+        this.policyGenerated = policyGenerated;
+    }
+
+    /**
+     * @param snapshot Snapshot as returned by the service
+     * @return Its record
+     */
+    public static SnapshotRecord of(SnapshotInner snapshot)
+    {
+        String id = snapshot.id();
+        Instant created = snapshot.created() != null ? snapshot.created().toInstant() : null;
+        return new SnapshotRecord(id, created, isPolicySnapshotName(id.substring(id.lastIndexOf('/') + 1)));
+    }
+
+    /**
+     * @param snapshotName Name of a snapshot, without the names of its parents
+     * @return True if the name follows the naming of the snapshots taken by snapshot policies
+     */
+    public static boolean isPolicySnapshotName(String snapshotName)
+    {
+        return POLICY_SNAPSHOT_NAME.matcher(snapshotName).matches();
+    }
+
+    public String id()
+    {
+        return id;
+    }
+
+    /**
+     * @return Name of the snapshot, the last segment of its id
+     */
+    public String name()
+    {
+        return id.substring(id.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * @return Resource id of the volume the snapshot belongs to
+     */
+    public String volumeId()
+    {
+        int nameStart = id.lastIndexOf('/');
+        return id.substring(0, id.lastIndexOf('/', nameStart - 1));
+    }
+
+    /**
+     * @return Creation time of the snapshot, or null if the service did not report it
+     */
+    public Instant created()
+    {
+        return createdEpochMillis != UNKNOWN_CREATION_TIME ? Instant.ofEpochMilli(createdEpochMillis) : null;
+    }
+
+    public boolean isPolicyGenerated()
+    {
+        return policyGenerated;
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+        return other instanceof SnapshotRecord && id.equals(((SnapshotRecord) other).id);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return id.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return id + " created=" + created() + (policyGenerated ? " policy" : " manual");
+    }
+}
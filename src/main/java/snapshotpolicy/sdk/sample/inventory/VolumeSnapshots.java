@@ -0,0 +1,32 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.inventory;
+
+import java.util.Collections;
+import java.util.List;
+
+// Snapshots of a single volume, as listed by SnapshotInventory.streamByVolume
+public final class VolumeSnapshots
+{
+    private final String volumeId;
+    private final List<SnapshotRecord> snapshots;
+
+    VolumeSnapshots(String volumeId, List<SnapshotRecord> snapshots)
+    {
+        this.volumeId = volumeId;
+        this.snapshots = Collections.unmodifiableList(snapshots);
+    }
+
+    public String volumeId()
+    {
+        return volumeId;
+    }
+
+    public List<SnapshotRecord> snapshots()
+    {
+        return snapshots;
+    }
+}
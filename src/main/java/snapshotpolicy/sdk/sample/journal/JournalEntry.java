@@ -0,0 +1,79 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.journal;
+
+import com.azure.core.util.polling.LongRunningOperationStatus;
+
+// Records the progress and the outcome of one journaled operation, NONE records nothing
+public final class JournalEntry
+{
+    public static final JournalEntry NONE = new JournalEntry(null, 0);
+
+    private final OperationJournal journal;
+    private final long id;
+
+    JournalEntry(OperationJournal journal, long id)
+    {
+        this.journal = journal;
+        this.id = id;
+    }
+
+    /**
+     * Records that ARM accepted the long-running operation, and waits until the record is on disk, so that recovery
+     * never mistakes an operation still running for one that was never sent
+     * @param status Status reported by the poller once the operation was accepted
+     */
+    public void accepted(LongRunningOperationStatus status)
+    {
+        if (journal != null)
+        {
+            journal.append("S " + id + " " + singleLine(status.toString()), true);
+        }
+    }
+
+    /**
+     * @param status Latest status reported by the poller of the long-running operation
+     */
+    public void progress(LongRunningOperationStatus status)
+    {
+        progress(status.toString());
+    }
+
+    /**
+     * @param state Latest state of the operation, e.g. a poller status or a provisioning state
+     */
+    public void progress(String state)
+    {
+        if (journal != null)
+        {
+            journal.append("S " + id + " " + singleLine(state), false);
+        }
+    }
+
+    public void completed()
+    {
+        if (journal != null)
+        {
+            journal.append("C " + id, false);
+        }
+    }
+
+    /**
+     * @param reason Why the operation failed, or why it was abandoned
+     */
+    public void failed(String reason)
+    {
+        if (journal != null)
+        {
+            journal.append("F " + id + " " + singleLine(reason), false);
+        }
+    }
+
+    private static String singleLine(String text)
+    {
+        return text == null || text.isEmpty() ? "-" : text.replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,431 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.journal;
+
+import snapshotpolicy.sdk.sample.common.Utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file recording the write operations sent by Creation, Update and Cleanup, so that a run killed while
+ * long-running operations are in flight can resume them instead of starting over. One record per line, prefixed
+ * with the CRC32 of the rest of the line:
+ *   I id startedAtMillis operation resourceId   the operation is about to be sent
+ *   S id status                                 last known state of its poller
+ *   C id                                        the operation completed
+ *   F id message                                the operation failed, or was abandoned on replay
+ * Records are group-committed: a single writer thread writes everything appended since its previous write and forces
+ * it to disk once, so concurrent workflows share one fsync. Intents are durable before the operation is sent and the
+ * status recorded once ARM accepted a long-running operation is durable before it is polled, the other records ride
+ * along with the next commit since replaying them is idempotent.
+ * Opening a journal replays it, keeping the operations that never completed, and compacts the file down to them.
+ */
+public class OperationJournal implements Closeable
+{
+    private static volatile OperationJournal shared;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final List<PendingOperation> pending;
+    private final AtomicLong nextId;
+    private final Thread writer;
+
+    // Guards everything below. Not a monitor, so that a virtual thread waiting for a commit does not pin its carrier.
+    private final ReentrantLock lock = new ReentrantLock();
+    // Signalled when records are queued, when a commit completes, on failure and on close
+    private final Condition changed = lock.newCondition();
+    private List<String> queued = new ArrayList<>();
+    private long appendedRecords;
+    private long durableRecords;
+    private long commits;
+    private IOException failure;
+    private boolean closed;
+
+    private OperationJournal(Path file, FileChannel channel, List<PendingOperation> pending, long nextId)
+    {
+        this.file = file;
+        this.channel = channel;
+        this.pending = pending;
+        this.nextId = new AtomicLong(nextId);
+        this.writer = new Thread(this::writeLoop, "anf-journal-writer");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * @return Journal Creation, Update and Cleanup record their operations in, or null if none is configured
+     */
+    public static OperationJournal shared()
+    {
+        return shared;
+    }
+
+    /**
+     * @param journal Journal Creation, Update and Cleanup record their operations in, or null to stop journaling
+     */
+    public static void setShared(OperationJournal journal)
+    {
+        shared = journal;
+    }
+
+    /**
+     * Replays a journal, creating it if missing, then rewrites it with only the operations that never completed
+     * @param file Journal file
+     * @return Journal appending to the file, whose pending operations are available through getPending
+     */
+    public static OperationJournal open(Path file) throws IOException
+    {
+        Map<Long, PendingOperation> pending = new LinkedHashMap<>();
+        long maxId = 0;
+        if (Files.exists(file))
+        {
+            maxId = replay(file, pending);
+        }
+
+        // Written aside then moved over the journal, so that a kill during compaction leaves either version intact
+        Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            List<String> records = new ArrayList<>();
+            for (PendingOperation operation : pending.values())
+            {
+                records.add(intentRecord(operation.getId(), operation.getStartedAt().toEpochMilli(), operation.getOperation(), operation.getResourceId()));
+                if (operation.getLastStatus() != null)
+                {
+                    records.add("S " + operation.getId() + " " + operation.getLastStatus());
+                }
+            }
+
+            write(out, records);
+            out.force(true);
+        }
+
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        OperationJournal journal = new OperationJournal(file, channel, Collections.unmodifiableList(new ArrayList<>(pending.values())), maxId + 1);
+        journal.writer.start();
+        return journal;
+    }
+
+    /**
+     * @return Operations that had not completed when the journal was opened, in the order they were started
+     */
+    public List<PendingOperation> getPending()
+    {
+        return pending;
+    }
+
+    /**
+     * Records that an operation is about to be sent, and waits until the record is on disk
+     * @param operation Operation name, e.g. create, update or delete
+     * @param resourceId Resource id of the resource the operation targets
+     * @return Entry to record the progress and the outcome of the operation with
+     */
+    public JournalEntry begin(String operation, String resourceId)
+    {
+        long id = nextId.getAndIncrement();
+        append(intentRecord(id, System.currentTimeMillis(), operation, resourceId), true);
+        return new JournalEntry(this, id);
+    }
+
+    /**
+     * @param operation An operation returned by getPending
+     * @return Entry to record the progress and the outcome of the operation with once it is resumed
+     */
+    public JournalEntry resume(PendingOperation operation)
+    {
+        return new JournalEntry(this, operation.getId());
+    }
+
+    /**
+     * @return Number of records appended since the journal was opened
+     */
+    public long getRecordCount()
+    {
+        lock.lock();
+        try
+        {
+            return appendedRecords;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of forced writes since the journal was opened, at most one per record and usually far fewer
+     */
+    public long getCommitCount()
+    {
+        lock.lock();
+        try
+        {
+            return commits;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the records appended so far, then closes the file
+     */
+    @Override
+    public void close() throws IOException
+    {
+        lock.lock();
+        try
+        {
+            closed = true;
+            changed.signalAll();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        try
+        {
+            writer.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            channel.close();
+        }
+
+        if (failure != null)
+        {
+            throw failure;
+        }
+    }
+
+    /**
+     * Queues a record for the next commit
+     * @param record Record without its checksum
+     * @param durable If true, waits until the commit including the record completes
+     */
+    void append(String record, boolean durable)
+    {
+        lock.lock();
+        try
+        {
+            if (failure != null)
+            {
+                throw new UncheckedIOException("Operation journal " + file + " is no longer writable", failure);
+            }
+
+            if (closed)
+            {
+                throw new IllegalStateException("Operation journal " + file + " is closed");
+            }
+
+            queued.add(record);
+            long sequence = ++appendedRecords;
+            changed.signalAll();
+
+            while (durable && durableRecords < sequence)
+            {
+                if (failure != null)
+                {
+                    throw new UncheckedIOException("Failed to write operation journal " + file, failure);
+                }
+
+                try
+                {
+                    changed.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new InterruptedIOException("Interrupted while writing operation journal " + file));
+                }
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // Commits whatever was appended while the previous commit was being forced, until the journal is closed
+    private void writeLoop()
+    {
+        while (true)
+        {
+            List<String> batch;
+            long batchEnd;
+            lock.lock();
+            try
+            {
+                while (queued.isEmpty() && !closed)
+                {
+                    changed.awaitUninterruptibly();
+                }
+
+                // Only close stops the writer, records queued meanwhile must still reach the disk
+                if (queued.isEmpty())
+                {
+                    return;
+                }
+
+                batch = queued;
+                queued = new ArrayList<>();
+                batchEnd = appendedRecords;
+            }
+            finally
+            {
+                lock.unlock();
+            }
+
+            try
+            {
+                write(channel, batch);
+                channel.force(false);
+            }
+            catch (IOException e)
+            {
+                Utils.writeErrorMessage("Failed to write operation journal " + file + ": " + e.getMessage());
+                lock.lock();
+                try
+                {
+                    failure = e;
+                    changed.signalAll();
+                }
+                finally
+                {
+                    lock.unlock();
+                }
+                return;
+            }
+
+            lock.lock();
+            try
+            {
+                durableRecords = batchEnd;
+                commits++;
+                changed.signalAll();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Reads the valid records into pending, stopping at the first torn or corrupt one, and returns the highest id
+    private static long replay(Path file, Map<Long, PendingOperation> pending) throws IOException
+    {
+        String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        long maxId = 0;
+        int start = 0;
+        int end;
+        while ((end = content.indexOf('\n', start)) >= 0)
+        {
+            String line = content.substring(start, end);
+            start = end + 1;
+            String record = checkedRecord(line);
+            if (record == null)
+            {
+                Utils.writeWarningMessage("Ignoring the corrupt end of operation journal " + file);
+                return maxId;
+            }
+
+            String[] fields = record.split(" ", 3);
+            long id = Long.parseLong(fields[1]);
+            maxId = Math.max(maxId, id);
+            switch (fields[0])
+            {
+                case "I":
+                    String[] intent = fields[2].split(" ", 3);
+                    pending.put(id, new PendingOperation(id, Instant.ofEpochMilli(Long.parseLong(intent[0])), intent[1], intent[2], null));
+                    break;
+                case "S":
+                    PendingOperation operation = pending.get(id);
+                    if (operation != null)
+                    {
+                        pending.put(id, operation.withLastStatus(fields[2]));
+                    }
+                    break;
+                default:
+                    pending.remove(id);
+                    break;
+            }
+        }
+
+        if (start < content.length())
+        {
+            Utils.writeWarningMessage("Ignoring the incomplete last record of operation journal " + file);
+        }
+
+        return maxId;
+    }
+
+    // Strips and verifies the checksum of a line, returns null if it does not match
+    private static String checkedRecord(String line)
+    {
+        int separator = line.indexOf(' ');
+        if (separator != 8)
+        {
+            return null;
+        }
+
+        String record = line.substring(separator + 1);
+        return line.substring(0, separator).equals(checksum(record)) ? record : null;
+    }
+
+    private static void write(FileChannel channel, List<String> records) throws IOException
+    {
+        StringBuilder lines = new StringBuilder(records.size() * 160);
+        for (String record : records)
+        {
+            lines.append(checksum(record)).append(' ').append(record).append('\n');
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+    }
+
+    private static String checksum(String record)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(record.getBytes(StandardCharsets.UTF_8));
+        return String.format("%08x", crc.getValue());
+    }
+
+    private static String intentRecord(long id, long startedAtMillis, String operation, String resourceId)
+    {
+        return "I " + id + " " + startedAtMillis + " " + operation + " " + resourceId;
+    }
+}
@@ -0,0 +1,214 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.journal;
+
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import snapshotpolicy.sdk.sample.Cleanup;
+import snapshotpolicy.sdk.sample.common.AnfResourceId;
+import snapshotpolicy.sdk.sample.common.CommonSdk;
+import snapshotpolicy.sdk.sample.common.ResourceEvents;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
+import snapshotpolicy.sdk.sample.common.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resumes the operations a journal found pending when it was opened. The poller of an interrupted long-running
+ * operation cannot be rebuilt, so each operation is resumed from the provisioning state of its resource, which ARM
+ * keeps in a transient state (Creating, Updating, Deleting) while the operation runs:
+ * - a create or update whose resource is provisioning is waited for, whether its acceptance was recorded or not
+ * - a create or update without a recorded status whose resource is idle or missing was never accepted and is
+ *   abandoned, as an existing resource, even Succeeded, does not reflect it
+ * - an accepted create or update whose resource does not exist never took effect and is abandoned
+ * - a delete whose resource is deleting is waited for, one whose resource is still there and idle is sent again
+ * The workflow sends abandoned operations again when it finds the resource missing or outdated.
+ * Operations are resumed one after the other in the order they were started, so that parents are created before
+ * their children and deleted after them. Operations of another subscription are left pending.
+ */
+public class OperationRecovery
+{
+    private final NetAppManagementClient anfClient;
+    private final OperationJournal journal;
+
+    /**
+     * @param anfClient Azure NetApp Files Management Client
+     * @param journal Journal whose pending operations are resumed
+     */
+    public OperationRecovery(NetAppManagementClient anfClient, OperationJournal journal)
+    {
+        this.anfClient = anfClient;
+        this.journal = journal;
+    }
+
+    /**
+     * Resumes every pending operation and waits for them to complete
+     * @return Summary of the recovery
+     */
+    public RecoveryReport resume()
+    {
+        RecoveryReport report = new RecoveryReport();
+        String subscriptionId = CommonSdk.subscriptionOf(anfClient);
+        for (PendingOperation operation : journal.getPending())
+        {
+            AnfResourceId resourceId = AnfResourceId.parse(operation.getResourceId());
+            if (!subscriptionId.equalsIgnoreCase(resourceId.subscriptionId()))
+            {
+                report.leftPending.add(operation);
+                continue;
+            }
+
+            Utils.writeConsoleMessage("Resuming interrupted operation", "resourceId", operation.getResourceId(), "operation", operation.getOperation());
+            JournalEntry entry = journal.resume(operation);
+            try
+            {
+                resume(operation, ResourceKind.ofResourceId(resourceId), resourceId, entry, report);
+            }
+            catch (RuntimeException e)
+            {
+                Utils.writeErrorMessage("Failed to resume " + operation + ": " + e.getMessage());
+                entry.failed(e.getMessage());
+                report.failed.put(operation, e);
+            }
+        }
+
+        return report;
+    }
+
+    private <T> void resume(PendingOperation operation, ResourceKind<T> kind, AnfResourceId resourceId, JournalEntry entry, RecoveryReport report)
+    {
+        String[] params = kind.paramsOf(resourceId);
+        T resource = CommonSdk.getResource(anfClient, kind, params);
+        if (operation.getOperation().equals("delete"))
+        {
+            if (resource != null && !"Deleting".equalsIgnoreCase(kind.provisioningStateOf(resource)))
+            {
+                // The delete never reached ARM, or ARM rejected it, send it again under a new entry
+                Cleanup.runCleanupTask(anfClient, params, kind);
+                resource = null;
+            }
+            else if (resource != null)
+            {
+                resource = CommonSdk.waitForProvisioningState(anfClient, kind, params);
+            }
+
+            if (resource != null)
+            {
+                report.leftPending.add(operation);
+                return;
+            }
+
+            ResourceEvents.publishDeleted(kind, params);
+            entry.completed();
+            report.resumed.add(operation);
+            return;
+        }
+
+        if (operation.getLastStatus() == null && (resource == null || CommonSdk.isTerminalProvisioningState(kind.provisioningStateOf(resource))))
+        {
+            // Interrupted before ARM accepted the request, the idle resource was not left in that state by it
+            entry.failed("Abandoned on replay, the request was never accepted");
+            report.abandoned.add(operation);
+            return;
+        }
+
+        if (resource != null && !CommonSdk.isTerminalProvisioningState(kind.provisioningStateOf(resource)))
+        {
+            resource = CommonSdk.waitForProvisioningState(anfClient, kind, params);
+        }
+
+        if (resource == null)
+        {
+            // Never created, or rolled back by ARM after a failed create
+            entry.failed("Abandoned on replay, the resource does not exist");
+            report.abandoned.add(operation);
+            return;
+        }
+
+        String provisioningState = kind.provisioningStateOf(resource);
+        if (!CommonSdk.isTerminalProvisioningState(provisioningState))
+        {
+            report.leftPending.add(operation);
+            return;
+        }
+
+        entry.progress(provisioningState);
+        if (provisioningState != null && !provisioningState.equalsIgnoreCase("Succeeded"))
+        {
+            entry.failed("Provisioning state " + provisioningState);
+            report.failed.put(operation, new IllegalStateException(kind.displayName() + " provisioning state is " + provisioningState));
+            return;
+        }
+
+        ResourceEvents.publishUpserted(kind, params, resource);
+        entry.completed();
+        report.resumed.add(operation);
+    }
+
+    // Summary of a recovery
+    public static class RecoveryReport
+    {
+        private final List<PendingOperation> resumed = new ArrayList<>();
+        private final List<PendingOperation> abandoned = new ArrayList<>();
+        private final List<PendingOperation> leftPending = new ArrayList<>();
+        private final Map<PendingOperation, Throwable> failed = new LinkedHashMap<>();
+
+        public boolean isSuccessful()
+        {
+            return failed.isEmpty();
+        }
+
+        /**
+         * @return Operations that completed once resumed
+         */
+        public List<PendingOperation> getResumed()
+        {
+            return Collections.unmodifiableList(resumed);
+        }
+
+        /**
+         * @return Creates and updates never accepted or that never took effect, left for the workflow to send again
+         */
+        public List<PendingOperation> getAbandoned()
+        {
+            return Collections.unmodifiableList(abandoned);
+        }
+
+        /**
+         * @return Operations still running when polling gave up, or of another subscription, resumed by the next run
+         */
+        public List<PendingOperation> getLeftPending()
+        {
+            return Collections.unmodifiableList(leftPending);
+        }
+
+        public Map<PendingOperation, Throwable> getFailed()
+        {
+            return Collections.unmodifiableMap(failed);
+        }
+
+        /**
+         * Writes the summary to the console
+         */
+        public void print()
+        {
+            Utils.writeConsoleMessage("Recovered interrupted operations: " + resumed.size() + " resumed, " + abandoned.size()
+                    + " abandoned, " + leftPending.size() + " left pending, " + failed.size() + " failed");
+            for (PendingOperation operation : leftPending)
+            {
+                Utils.writeWarningMessage("Still pending: " + operation);
+            }
+
+            for (Map.Entry<PendingOperation, Throwable> entry : failed.entrySet())
+            {
+                Utils.writeErrorMessage("Failed: " + entry.getKey() + " - " + entry.getValue().getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.journal;
+
+import java.time.Instant;
+
+// Operation found in a journal without a completion record, i.e. interrupted before its outcome was known
+public final class PendingOperation
+{
+    private final long id;
+    private final Instant startedAt;
+    private final String operation;
+    private final String resourceId;
+    private final String lastStatus;
+
+    PendingOperation(long id, Instant startedAt, String operation, String resourceId, String lastStatus)
+    {
+        this.id = id;
+        this.startedAt = startedAt;
+        this.operation = operation;
+        this.resourceId = resourceId;
+        this.lastStatus = lastStatus;
+    }
+
+    PendingOperation withLastStatus(String lastStatus)
+    {
+        return new PendingOperation(id, startedAt, operation, resourceId, lastStatus);
+    }
+
+    public long getId()
+    {
+        return id;
+    }
+
+    public Instant getStartedAt()
+    {
+        return startedAt;
+    }
+
+    /**
+     * @return Operation name, e.g. create, update or delete
+     */
+    public String getOperation()
+    {
+        return operation;
+    }
+
+    public String getResourceId()
+    {
+        return resourceId;
+    }
+
+    /**
+     * @return Last recorded state of the operation, or null if it was interrupted before its request was accepted
+     */
+    public String getLastStatus()
+    {
+        return lastStatus;
+    }
+
+    @Override
+    public String toString()
+    {
+        return operation + " " + resourceId + (lastStatus != null ? " (" + lastStatus + ")" : "");
+    }
+}
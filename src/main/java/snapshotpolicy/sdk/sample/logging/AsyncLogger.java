@@ -0,0 +1,218 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Logger that hands events to a background writer through a lock-free ring buffer, so that logging threads never
+ * contend on the console. Events keep the order in which they were enqueued. When the buffer is full, callers
+ * either wait for the writer to catch up or, if configured so, drop the event and count it.
+ */
+public class AsyncLogger implements AutoCloseable
+{
+    private static final int BATCH_SIZE = 256;
+    private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private final List<LogSink> sinks;
+    private final LogRingBuffer buffer;
+    private final LogLevel minLevel;
+    private final boolean dropWhenFull;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile long written;
+    private volatile boolean closed;
+
+    /**
+     * @param sinks Destinations of the events, written in order by a single writer thread
+     * @param capacity Number of events buffered between callers and the writer
+     * @param minLevel Events below this level are discarded on the calling thread
+     * @param dropWhenFull True to drop events when the buffer is full instead of waiting
+     */
+    public AsyncLogger(List<LogSink> sinks, int capacity, LogLevel minLevel, boolean dropWhenFull)
+    {
+        this.sinks = Collections.unmodifiableList(new ArrayList<>(sinks));
+        this.buffer = new LogRingBuffer(capacity);
+        this.minLevel = minLevel;
+        this.dropWhenFull = dropWhenFull;
+        this.writer = new Thread(this::drainLoop, "anf-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public boolean isEnabled(LogLevel level)
+    {
+        return level.compareTo(minLevel) >= 0;
+    }
+
+    /**
+     * @param level Severity
+     * @param message Human readable message
+     * @param fields Structured fields as alternating keys and values
+     */
+    public void log(LogLevel level, String message, Object... fields)
+    {
+        if (!isEnabled(level))
+        {
+            return;
+        }
+
+        LogEvent event = new LogEvent(System.currentTimeMillis(), level, Thread.currentThread().getName(), message, fields);
+        if (closed)
+        {
+            // The writer is gone, e.g. during shutdown, keep the event rather than losing it
+            writeSynchronously(event);
+            return;
+        }
+
+        while (!buffer.offer(event))
+        {
+            if (dropWhenFull)
+            {
+                dropped.increment();
+                return;
+            }
+
+            LockSupport.parkNanos(10_000);
+        }
+    }
+
+    /**
+     * Waits until every event logged before this call has been written and flushed by the sinks
+     * @param timeoutMillis Maximum time to wait
+     * @return False if the timeout elapsed first
+     */
+    public boolean flush(long timeoutMillis)
+    {
+        long target = buffer.claimed();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (written < target)
+        {
+            if (!writer.isAlive() || System.nanoTime() > deadline)
+            {
+                return false;
+            }
+
+            LockSupport.parkNanos(50_000);
+        }
+
+        return true;
+    }
+
+    /**
+     * @return Number of events dropped because the buffer was full
+     */
+    public long getDroppedCount()
+    {
+        return dropped.sum();
+    }
+
+    /**
+     * Flushes pending events and stops the writer. Events logged afterwards are written on the calling thread.
+     */
+    @Override
+    public void close()
+    {
+        flush(TimeUnit.SECONDS.toMillis(5));
+        closed = true;
+        writer.interrupt();
+        try
+        {
+            writer.join(TimeUnit.SECONDS.toMillis(1));
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        // Events enqueued while closing are written here, the writer has stopped polling
+        synchronized (this)
+        {
+            LogEvent event;
+            while ((event = buffer.poll()) != null)
+            {
+                writeToSinks(event);
+            }
+
+            flushSinks();
+        }
+    }
+
+    private void drainLoop()
+    {
+        long idleNanos = 0;
+        while (!closed)
+        {
+            int count = 0;
+            synchronized (this)
+            {
+                LogEvent event;
+                while (count < BATCH_SIZE && (event = buffer.poll()) != null)
+                {
+                    writeToSinks(event);
+                    count++;
+                }
+
+                if (count > 0)
+                {
+                    flushSinks();
+                    written += count;
+                }
+            }
+
+            if (count > 0)
+            {
+                idleNanos = 0;
+                continue;
+            }
+
+            // Back off progressively while idle instead of having producers signal the writer
+            idleNanos = Math.min(MAX_IDLE_NANOS, Math.max(1_000, idleNanos * 2));
+            LockSupport.parkNanos(idleNanos);
+        }
+    }
+
+    private synchronized void writeSynchronously(LogEvent event)
+    {
+        writeToSinks(event);
+        flushSinks();
+    }
+
+    private void writeToSinks(LogEvent event)
+    {
+        for (LogSink sink : sinks)
+        {
+            try
+            {
+                sink.write(event);
+            }
+            catch (RuntimeException e)
+            {
+                // A failing sink must not stop the others nor the writer thread
+            }
+        }
+    }
+
+    private void flushSinks()
+    {
+        for (LogSink sink : sinks)
+        {
+            try
+            {
+                sink.flush();
+            }
+            catch (RuntimeException e)
+            {
+                // See writeToSinks
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.logging;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes events as "HH:mm:ss message key=value ...", optionally colored with ANSI escape codes:
+ * errors in red, warnings in yellow and successes in green
+ */
+public class ConsoleLogSink implements LogSink
+{
+    private static final DateTimeFormatter PATTERN = DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private static final String RESET = "\033[0m";
+    private static final String RED = "\033[0;31m";
+    private static final String GREEN = "\033[0;32m";
+    private static final String YELLOW = "\033[0;33m";
+
+    private final PrintStream out;
+    private final boolean ansi;
+    private final StringBuilder line = new StringBuilder(256);
+    private long formattedSecond = Long.MIN_VALUE;
+    private String formattedTime;
+
+    /**
+     * @param out Stream to write to, usually System.out
+     * @param ansi True to color messages by level
+     */
+    public ConsoleLogSink(PrintStream out, boolean ansi)
+    {
+        this.out = out;
+        this.ansi = ansi;
+    }
+
+    @Override
+    public void write(LogEvent event)
+    {
+        line.setLength(0);
+        line.append(time(event.getTimestampMillis())).append(' ');
+
+        String color = ansi ? colorOf(event.getLevel()) : null;
+        if (color != null)
+        {
+            line.append(color);
+        }
+
+        line.append(event.getMessage());
+        for (int i = 0; i < event.getFieldCount(); i++)
+        {
+            line.append(' ').append(event.getFieldKey(i)).append('=').append(event.getFieldValue(i));
+        }
+
+        if (color != null)
+        {
+            line.append(RESET);
+        }
+
+        out.println(line);
+    }
+
+    @Override
+    public void flush()
+    {
+        out.flush();
+    }
+
+    // Events arrive in order, so the formatted time only changes once per second
+    private String time(long timestampMillis)
+    {
+        long second = Math.floorDiv(timestampMillis, 1000L);
+        if (second != formattedSecond)
+        {
+            formattedSecond = second;
+            formattedTime = PATTERN.format(Instant.ofEpochSecond(second));
+        }
+
+        return formattedTime;
+    }
+
+    private static String colorOf(LogLevel level)
+    {
+        switch (level)
+        {
+            case ERROR:
+                return RED;
+            case WARNING:
+                return YELLOW;
+            case SUCCESS:
+                return GREEN;
+            default:
+                return null;
+        }
+    }
+}
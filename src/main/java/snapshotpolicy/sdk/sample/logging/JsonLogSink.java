@@ -0,0 +1,107 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.logging;
+
+import java.io.PrintStream;
+import java.time.Instant;
+
+/**
+ * Writes one JSON object per event and line, for log collectors:
+ * {"timestamp":"2021-05-01T10:00:00.123Z","level":"INFO","thread":"main","message":"...","resourceId":"..."}
+ * Numbers and booleans are written as JSON values, every other field as a string.
+ */
+public class JsonLogSink implements LogSink
+{
+    private final PrintStream out;
+    private final StringBuilder line = new StringBuilder(512);
+
+    /**
+     * @param out Stream to write to
+     */
+    public JsonLogSink(PrintStream out)
+    {
+        this.out = out;
+    }
+
+    @Override
+    public void write(LogEvent event)
+    {
+        line.setLength(0);
+        line.append("{\"timestamp\":\"").append(Instant.ofEpochMilli(event.getTimestampMillis())).append('"');
+        line.append(",\"level\":\"").append(event.getLevel()).append('"');
+        appendField("thread", event.getThreadName());
+        appendField("message", event.getMessage());
+        for (int i = 0; i < event.getFieldCount(); i++)
+        {
+            appendField(event.getFieldKey(i), event.getFieldValue(i));
+        }
+
+        line.append('}');
+        out.println(line);
+    }
+
+    @Override
+    public void flush()
+    {
+        out.flush();
+    }
+
+    private void appendField(String key, Object value)
+    {
+        line.append(",\"");
+        escape(key);
+        line.append("\":");
+        if (value instanceof Number || value instanceof Boolean)
+        {
+            line.append(value);
+        }
+        else if (value == null)
+        {
+            line.append("null");
+        }
+        else
+        {
+            line.append('"');
+            escape(String.valueOf(value));
+            line.append('"');
+        }
+    }
+
+    private void escape(String value)
+    {
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            switch (c)
+            {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                    {
+                        line.append(String.format("\\u%04x", (int) c));
+                    }
+                    else
+                    {
+                        line.append(c);
+                    }
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Process-wide logging entry point. The default logger is configured from system properties:
+ *   anf.log.format  console (default), json or both
+ *   anf.log.ansi    true (default) to color console output
+ *   anf.log.level   DEBUG, INFO (default), SUCCESS, WARNING or ERROR
+ * Fields are passed as alternating keys and values:
+ *   Log.info("Volume created", "resourceId", volume.id(), "operation", "create", "latencyMs", 1234);
+ */
+public final class Log
+{
+    private static final int DEFAULT_CAPACITY = 8192;
+
+    private static volatile AsyncLogger logger;
+
+    private Log()
+    {
+    }
+
+    public static void debug(String message, Object... fields)
+    {
+        logger().log(LogLevel.DEBUG, message, fields);
+    }
+
+    public static void info(String message, Object... fields)
+    {
+        logger().log(LogLevel.INFO, message, fields);
+    }
+
+    public static void success(String message, Object... fields)
+    {
+        logger().log(LogLevel.SUCCESS, message, fields);
+    }
+
+    public static void warning(String message, Object... fields)
+    {
+        logger().log(LogLevel.WARNING, message, fields);
+    }
+
+    public static void error(String message, Object... fields)
+    {
+        logger().log(LogLevel.ERROR, message, fields);
+    }
+
+    public static boolean isEnabled(LogLevel level)
+    {
+        return logger().isEnabled(level);
+    }
+
+    /**
+     * Replaces the process-wide logger, closing the previous one after flushing it
+     * @param newLogger The logger to use from now on
+     */
+    public static synchronized void setLogger(AsyncLogger newLogger)
+    {
+        AsyncLogger previous = logger;
+        logger = newLogger;
+        if (previous != null)
+        {
+            previous.close();
+        }
+    }
+
+    /**
+     * Waits for every event logged so far to be written
+     */
+    public static void flush()
+    {
+        AsyncLogger current = logger;
+        if (current != null)
+        {
+            current.flush(5000);
+        }
+    }
+
+    /**
+     * Flushes and stops the background writer, to be called before the process exits
+     */
+    public static void shutdown()
+    {
+        AsyncLogger current = logger;
+        if (current != null)
+        {
+            current.close();
+        }
+    }
+
+    private static AsyncLogger logger()
+    {
+        AsyncLogger current = logger;
+        if (current == null)
+        {
+            synchronized (Log.class)
+            {
+                if (logger == null)
+                {
+                    logger = fromSystemProperties();
+                    AsyncLogger created = logger;
+                    Runtime.getRuntime().addShutdownHook(new Thread(created::close, "anf-log-shutdown"));
+                }
+
+                current = logger;
+            }
+        }
+
+        return current;
+    }
+
+    private static AsyncLogger fromSystemProperties()
+    {
+        String format = System.getProperty("anf.log.format", "console").toLowerCase(Locale.ROOT);
+        boolean ansi = Boolean.parseBoolean(System.getProperty("anf.log.ansi", "true"));
+        LogLevel level = LogLevel.valueOf(System.getProperty("anf.log.level", "INFO").toUpperCase(Locale.ROOT));
+
+        List<LogSink> sinks = new ArrayList<>();
+        if (!format.equals("json"))
+        {
+            sinks.add(new ConsoleLogSink(System.out, ansi));
+        }
+
+        if (format.equals("json") || format.equals("both"))
+        {
+            sinks.add(new JsonLogSink(System.out));
+        }
+
+        return new AsyncLogger(sinks, DEFAULT_CAPACITY, level, false);
+    }
+}
@@ -0,0 +1,75 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.logging;
+
+/**
+ * A single log event. Only the raw values are captured on the calling thread, timestamps and fields are formatted
+ * by the sinks on the writer thread.
+ */
+public final class LogEvent
+{
+    private final long timestampMillis;
+    private final LogLevel level;
+    private final String threadName;
+    private final String message;
+    private final Object[] fields;
+
+    /**
+     * @param timestampMillis Wall-clock time of the event
+     * @param level Severity
+     * @param threadName Name of the thread that logged the event
+     * @param message Human readable message
+     * @param fields Structured fields as alternating keys and values, e.g. "resourceId", id, "latencyMs", 42
+     */
+    public LogEvent(long timestampMillis, LogLevel level, String threadName, String message, Object[] fields)
+    {
+        if (fields != null && fields.length % 2 != 0)
+        {
+            throw new IllegalArgumentException("Log fields must be key/value pairs");
+        }
+
+        this.timestampMillis = timestampMillis;
+        this.level = level;
+        this.threadName = threadName;
+        this.message = message;
+        this.fields = fields != null ? fields : new Object[0];
+    }
+
+    public long getTimestampMillis()
+    {
+        return timestampMillis;
+    }
+
+    public LogLevel getLevel()
+    {
+        return level;
+    }
+
+    public String getThreadName()
+    {
+        return threadName;
+    }
+
+    public String getMessage()
+    {
+        return message;
+    }
+
+    public int getFieldCount()
+    {
+        return fields.length / 2;
+    }
+
+    public String getFieldKey(int index)
+    {
+        return String.valueOf(fields[index * 2]);
+    }
+
+    public Object getFieldValue(int index)
+    {
+        return fields[index * 2 + 1];
+    }
+}
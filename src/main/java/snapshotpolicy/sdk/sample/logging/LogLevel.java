@@ -0,0 +1,16 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.logging;
+
+// Severity of a log event, SUCCESS is an informational event that consoles highlight
+public enum LogLevel
+{
+    DEBUG,
+    INFO,
+    SUCCESS,
+    WARNING,
+    ERROR
+}
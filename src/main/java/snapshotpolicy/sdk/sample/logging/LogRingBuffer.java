@@ -0,0 +1,97 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer. Producers claim a slot with a CAS on the tail
+ * and publish it by advancing the slot sequence, the consumer reads slots in order without any atomic
+ * read-modify-write. Each slot sequence tells whose turn it is: the slot is free for ticket t when it equals t and
+ * readable when it equals t + 1.
+ */
+final class LogRingBuffer
+{
+    private final LogEvent[] events;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    /**
+     * @param capacity Number of slots, rounded up to a power of two
+     */
+    LogRingBuffer(int capacity)
+    {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        events = new LogEvent[size];
+        sequences = new AtomicLongArray(size);
+        mask = size - 1;
+        for (int i = 0; i < size; i++)
+        {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @param event Event to enqueue, called from any thread
+     * @return False if the buffer is full
+     */
+    boolean offer(LogEvent event)
+    {
+        while (true)
+        {
+            long ticket = tail.get();
+            int index = (int) ticket & mask;
+            long available = sequences.get(index) - ticket;
+            if (available == 0)
+            {
+                if (tail.compareAndSet(ticket, ticket + 1))
+                {
+                    events[index] = event;
+                    sequences.lazySet(index, ticket + 1);
+                    return true;
+                }
+            }
+            else if (available < 0)
+            {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return The oldest published event or null if none is available, only called from the consumer thread
+     */
+    LogEvent poll()
+    {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1)
+        {
+            return null;
+        }
+
+        LogEvent event = events[index];
+        events[index] = null;
+        sequences.lazySet(index, head + events.length);
+        head++;
+        return event;
+    }
+
+    /**
+     * @return Number of slots claimed by producers so far
+     */
+    long claimed()
+    {
+        return tail.get();
+    }
+
+    int capacity()
+    {
+        return events.length;
+    }
+}
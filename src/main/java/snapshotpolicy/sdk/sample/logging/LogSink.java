@@ -0,0 +1,15 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.logging;
+
+// Destination of log events, only ever called from the single writer thread of an AsyncLogger
+public interface LogSink
+{
+    void write(LogEvent event);
+
+    // Called once a batch of events has been written
+    void flush();
+}
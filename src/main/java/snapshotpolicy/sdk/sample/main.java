@@ -10,42 +10,318 @@ import com.azure.core.exception.AzureException;
 import com.azure.core.management.AzureEnvironment;
 import com.azure.core.management.profile.AzureProfile;
 import com.azure.identity.DefaultAzureCredentialBuilder;
-import com.azure.resourcemanager.netapp.NetAppFilesManager;
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
 import com.azure.resourcemanager.netapp.fluent.models.CapacityPoolInner;
 import com.azure.resourcemanager.netapp.fluent.models.NetAppAccountInner;
 import com.azure.resourcemanager.netapp.fluent.models.SnapshotPolicyInner;
 import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
 import com.azure.resourcemanager.netapp.models.*;
 import snapshotpolicy.sdk.sample.common.CommonSdk;
+import snapshotpolicy.sdk.sample.common.ResourceEvents;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
 import snapshotpolicy.sdk.sample.common.Utils;
-
+import snapshotpolicy.sdk.sample.common.WorkflowExecutors;
+import snapshotpolicy.sdk.sample.fake.FakeNetAppManagementClient;
+import snapshotpolicy.sdk.sample.fake.LatencyDistribution;
+import snapshotpolicy.sdk.sample.http.NetAppClientFactory;
+import snapshotpolicy.sdk.sample.inventory.PolicyVolumeIndex;
+import snapshotpolicy.sdk.sample.journal.OperationJournal;
+import snapshotpolicy.sdk.sample.journal.OperationRecovery;
+import snapshotpolicy.sdk.sample.logging.Log;
+import snapshotpolicy.sdk.sample.metrics.MetricsRegistry;
+import snapshotpolicy.sdk.sample.metrics.MetricsServer;
+import snapshotpolicy.sdk.sample.reconcile.DesiredState;
+import snapshotpolicy.sdk.sample.reconcile.Reconciler;
+import snapshotpolicy.sdk.sample.sweep.RetentionRule;
+import snapshotpolicy.sdk.sample.sweep.SnapshotSweeper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
 
 public class main
 {
+    // Each stack blocks a thread for the whole workflow, platform threads are too expensive to give one to every stack
+    private static final int MAX_PLATFORM_THREAD_STACKS = 32;
+
     /**
      * Sample console application that executes CRUD management operations on Azure NetApp Files resources
      * Showcases how to create and use ANF Snapshot Policy
-     * @param args
+     * @param args Pass --virtual-threads (or set -Danf.virtualThreads=true) to run the workflow on virtual threads, requires Java 21.
+     *             Pass --desired-state &lt;file&gt; to reconcile the resources described in a JSON file instead of running the
+     *             sample workflow, adding --full-sweep to compare every resource regardless of the recorded subtree hashes.
+     *             Pass --metrics to print ARM call latencies at exit and set -Danf.metrics.port=&lt;port&gt; to serve them to
+     *             Prometheus on http://localhost:&lt;port&gt;/metrics while the sample runs.
+     *             Pass --fake to run against an in-memory fake of the service instead of Azure, e.g. to measure the
+     *             throughput of the workflow itself.
+     *             Pass --sweep-snapshots to delete expired manual and orphaned snapshots instead of running the sample
+     *             workflow, see sweepSnapshots for the retention settings, adding --dry-run to only print what would be
+     *             deleted and --checkpoint &lt;file&gt; to resume a sweep that was interrupted.
+     *             Pass --journal &lt;file&gt; to record every create, update and delete in a journal, so that a run
+     *             started again after being killed first resumes the operations it left in flight.
+     *             Pass --stacks &lt;n&gt; to run n copies of the sample workflow at once through StackLauncher, each on its
+     *             own account and volume; with --virtual-threads every stack gets its own virtual thread.
      */
     public static void main( String[] args )
     {
         Utils.displayConsoleAppHeader();
 
+        List<String> options = Arrays.asList(args);
+        MetricsServer metricsServer = null;
         try
         {
-            run();
+            Integer metricsPort = Integer.getInteger("anf.metrics.port");
+            if (metricsPort != null)
+            {
+                metricsServer = new MetricsServer(MetricsRegistry.shared(), metricsPort);
+                Utils.writeConsoleMessage("Serving metrics on http://localhost:" + metricsServer.getPort() + "/metrics");
+            }
+
+            FakeNetAppManagementClient fake = options.contains("--fake") ? newFakeClient() : null;
+
+            if (Boolean.getBoolean("anf.virtualThreads") || options.contains("--virtual-threads"))
+            {
+                WorkflowExecutors.setVirtualThreadsEnabled(true);
+                // Moves the main thread's work onto a virtual thread too, runStacks then gives each stack its own
+                StackLauncher.launch(Collections.singletonList(() ->
+                {
+                    runWorkflow(options, fake);
+                    return null;
+                }), 1);
+            }
+            else
+            {
+                runWorkflow(options, fake);
+            }
+
+            if (fake != null)
+            {
+                fake.printStatistics();
+            }
+
             Utils.writeConsoleMessage("Sample application successfully completed execution");
         }
         catch (Exception e)
         {
             Utils.writeErrorMessage(e.getMessage());
         }
+        finally
+        {
+            if (metricsServer != null)
+            {
+                metricsServer.close();
+            }
+        }
+
+        if (options.contains("--metrics"))
+        {
+            MetricsRegistry.shared().writeReport();
+        }
 
+        // Messages are written by a background thread, make sure none is lost on exit
+        Log.shutdown();
         System.exit(0);
     }
 
-    private static void run()
+    private static void runWorkflow(List<String> options, FakeNetAppManagementClient fake) throws IOException
+    {
+        NetAppManagementClient anfClient = fake != null ? fake.client() : newClient();
+        String journalFile = optionValue(options, "--journal");
+        OperationJournal journal = journalFile != null ? openJournal(anfClient, Paths.get(journalFile)) : null;
+        try
+        {
+            runWorkflow(anfClient, options);
+        }
+        finally
+        {
+            if (journal != null)
+            {
+                OperationJournal.setShared(null);
+                journal.close();
+            }
+        }
+    }
+
+    private static void runWorkflow(NetAppManagementClient anfClient, List<String> options) throws IOException
+    {
+        String desiredStateFile = optionValue(options, "--desired-state");
+        if (desiredStateFile != null)
+        {
+            reconcile(anfClient, Paths.get(desiredStateFile), options.contains("--full-sweep"));
+        }
+        else if (options.contains("--sweep-snapshots"))
+        {
+            String checkpointFile = optionValue(options, "--checkpoint");
+            sweepSnapshots(anfClient, options.contains("--dry-run"), checkpointFile != null ? Paths.get(checkpointFile) : null);
+        }
+        else
+        {
+            String stacks = optionValue(options, "--stacks");
+            runStacks(anfClient, stacks != null ? Integer.parseInt(stacks) : 1);
+        }
+    }
+
+    /**
+     * Runs the sample workflow once per stack, concurrently. On virtual threads every stack runs at once and the
+     * ARM rate limiter paces their calls; on platform threads at most MAX_PLATFORM_THREAD_STACKS stacks hold a thread.
+     * @param anfClient Azure NetApp Files Management Client
+     * @param stacks Number of stacks, a single stack keeps the names of the sample resources unchanged
+     */
+    private static void runStacks(NetAppManagementClient anfClient, int stacks)
+    {
+        if (stacks < 1)
+        {
+            throw new IllegalArgumentException("--stacks must be positive");
+        }
+
+        List<Callable<Void>> workflows = new ArrayList<>(stacks);
+        for (int stack = 0; stack < stacks; stack++)
+        {
+            String stackSuffix = stacks == 1 ? "" : "-" + stack;
+            workflows.add(() ->
+            {
+                run(anfClient, stackSuffix);
+                return null;
+            });
+        }
+
+        if (stacks > 1)
+        {
+            Utils.writeConsoleMessage("Running " + stacks + " sample workflow stacks concurrently...");
+        }
+
+        StackLauncher.launch(workflows, WorkflowExecutors.isUsingVirtualThreads() ? stacks : Math.min(stacks, MAX_PLATFORM_THREAD_STACKS));
+    }
+
+    /**
+     * Opens the operation journal, resumes the operations a previous run left in flight, then records the
+     * operations of this run in it
+     * @param anfClient Azure NetApp Files Management Client
+     * @param journalFile Journal file, created if missing
+     * @return The journal, shared with Creation, Update and Cleanup
+     */
+    private static OperationJournal openJournal(NetAppManagementClient anfClient, Path journalFile) throws IOException
+    {
+        OperationJournal journal = OperationJournal.open(journalFile);
+        OperationJournal.setShared(journal);
+        if (!journal.getPending().isEmpty())
+        {
+            Utils.writeConsoleMessage("Resuming " + journal.getPending().size() + " interrupted operation(s) from " + journalFile + "...");
+            new OperationRecovery(anfClient, journal).resume().print();
+        }
+
+        return journal;
+    }
+
+    // Value following an option on the command line, or null if the option is absent
+    private static String optionValue(List<String> options, String name)
+    {
+        int index = options.indexOf(name);
+        return index >= 0 && index + 1 < options.size() ? options.get(index + 1) : null;
+    }
+
+    // Instantiating a new ANF management client and authenticate
+    private static NetAppManagementClient newClient()
+    {
+        AzureProfile profile = new AzureProfile(AzureEnvironment.AZURE);
+        TokenCredential credential = new DefaultAzureCredentialBuilder()
+                .authorityHost(profile.getEnvironment().getActiveDirectoryEndpoint())
+                .build();
+        Utils.writeConsoleMessage("Instantiating a new Azure NetApp Files management client...");
+        return NetAppClientFactory.shared().getClient(credential, profile);
+    }
+
+    // In-memory stand-in for the service, with latencies in the range observed against ARM
+    private static FakeNetAppManagementClient newFakeClient()
+    {
+        Utils.writeConsoleMessage("Instantiating an in-memory fake Azure NetApp Files management client...");
+        return new FakeNetAppManagementClient("00000000-0000-0000-0000-000000000000")
+                .withRequestLatency(LatencyDistribution.logNormal(Duration.ofMillis(50), 0.5))
+                .withLroDuration(LatencyDistribution.logNormal(Duration.ofSeconds(2), 0.5))
+                .withDeleteVisibilityLag(Duration.ofSeconds(1));
+    }
+
+    /**
+     * Converges the resources described in a desired-state file, see DesiredState for the format.
+     * Running it again with an unchanged file only lists the accounts of the resource group.
+     * @param anfClient Azure NetApp Files Management Client
+     * @param desiredStateFile JSON desired-state file
+     * @param fullSweep If true, every resource is listed and compared
+     */
+    private static void reconcile(NetAppManagementClient anfClient, Path desiredStateFile, boolean fullSweep) throws IOException
+    {
+        DesiredState desiredState = DesiredState.load(desiredStateFile);
+
+        Utils.writeConsoleMessage("Reconciling resource group " + desiredState.getResourceGroup() + " with " + desiredStateFile + "...");
+        Reconciler.ReconcileReport report = new Reconciler(anfClient)
+                .withFullSweep(fullSweep)
+                .reconcile(desiredState);
+        report.print();
+    }
+
+    /**
+     * Deletes the manual snapshots, and the policy snapshots of volumes that no longer use a policy, expired by the
+     * retention rule set through system properties:
+     *   anf.sweep.resourceGroup  resource group to sweep, the whole subscription if not set
+     *   anf.sweep.maxAgeDays     age in days above which a snapshot expires
+     *   anf.sweep.maxCount       number of snapshots kept per volume, the oldest expire first
+     *   anf.sweep.namePattern    regular expression the names of the swept snapshots must match
+     * @param anfClient Azure NetApp Files Management Client
+     * @param dryRun If true, only prints the snapshots that would be deleted
+     * @param checkpointFile File recording the progress of the sweep, or null
+     */
+    private static void sweepSnapshots(NetAppManagementClient anfClient, boolean dryRun, Path checkpointFile) throws IOException
+    {
+        RetentionRule rule = new RetentionRule();
+        Integer maxAgeDays = Integer.getInteger("anf.sweep.maxAgeDays");
+        if (maxAgeDays != null)
+        {
+            rule.withMaxAge(Duration.ofDays(maxAgeDays));
+        }
+
+        Integer maxCount = Integer.getInteger("anf.sweep.maxCount");
+        if (maxCount != null)
+        {
+            rule.withMaxCount(maxCount);
+        }
+
+        String namePattern = System.getProperty("anf.sweep.namePattern");
+        if (namePattern != null)
+        {
+            rule.withNamePattern(Pattern.compile(namePattern));
+        }
+
+        String resourceGroup = System.getProperty("anf.sweep.resourceGroup");
+        PolicyVolumeIndex policyVolumes = PolicyVolumeIndex.build(anfClient, resourceGroup);
+        try
+        {
+            SnapshotSweeper.SweepReport report = new SnapshotSweeper(anfClient, rule)
+                    .withResourceGroup(resourceGroup)
+                    .withPolicyIndex(policyVolumes)
+                    .withDryRun(dryRun)
+                    .withCheckpointFile(checkpointFile)
+                    .sweep();
+            report.print();
+        }
+        finally
+        {
+            ResourceEvents.unregister(policyVolumes);
+        }
+    }
+
+    /**
+     * Creates the sample resources, updates the snapshot policy and, if enabled, deletes them again
+     * @param anfClient Azure NetApp Files Management Client
+     * @param stackSuffix Appended to the names of the account and volume, so that concurrent stacks do not collide
+     */
+    private static void run(NetAppManagementClient anfClient, String stackSuffix)
     {
         //---------------------------------------------------------------------------------------------------------------------
         // Setting variables necessary for resources creation - change these to appropriate values related to your environment
@@ -57,24 +333,15 @@ public class main
         String resourceGroupName = "<resource-group-name>";
         String vnetName = "<vnet-name>";
         String subnetName = "<subnet-name>";
-        String anfAccountName = "anf-java-example-account";
+        String anfAccountName = "anf-java-example-account" + stackSuffix;
         String snapshotPolicyName = "anf-java-example-snapshotpolicy";
         String capacityPoolName = "anf-java-example-pool";
         String capacityPoolServiceLevel = "Standard"; // Valid service levels are: Ultra, Premium, Standard
-        String volumeName = "anf-java-example-volume";
+        String volumeName = "anf-java-example-volume" + stackSuffix;
 
         long capacityPoolSize = 4398046511104L;  // 4TiB which is minimum size
         long volumeSize = 107374182400L;  // 100GiB - volume minimum size
 
-        // Instantiating a new ANF management client and authenticate
-        AzureProfile profile = new AzureProfile(AzureEnvironment.AZURE);
-        TokenCredential credential = new DefaultAzureCredentialBuilder()
-                .authorityHost(profile.getEnvironment().getActiveDirectoryEndpoint())
-                .build();
-        Utils.writeConsoleMessage("Instantiating a new Azure NetApp Files management client...");
-        NetAppFilesManager manager = NetAppFilesManager
-                .authenticate(credential, profile);
-
         //---------------------------
         // Creating ANF resources
         //---------------------------
@@ -85,7 +352,7 @@ public class main
         Utils.writeConsoleMessage("Creating Azure NetApp Files Account...");
 
         String[] accountParams = {resourceGroupName, anfAccountName};
-        NetAppAccountInner anfAccount = (NetAppAccountInner) CommonSdk.getResource(manager.serviceClient(), accountParams, NetAppAccountInner.class);
+        NetAppAccountInner anfAccount = CommonSdk.getResource(anfClient, ResourceKind.ACCOUNT, accountParams);
         if (anfAccount == null)
         {
             NetAppAccountInner newAccount = new NetAppAccountInner();
@@ -93,7 +360,7 @@ public class main
 
             try
             {
-                anfAccount = Creation.createANFAccount(manager.serviceClient(), resourceGroupName, anfAccountName, newAccount);
+                anfAccount = Creation.createANFAccount(anfClient, resourceGroupName, anfAccountName, newAccount);
             }
             catch (AzureException e)
             {
@@ -112,7 +379,7 @@ public class main
         Utils.writeConsoleMessage("Creating Snapshot Policy...");
 
         String[] policyParams = {resourceGroupName, anfAccountName, snapshotPolicyName};
-        SnapshotPolicyInner snapshotPolicy = (SnapshotPolicyInner) CommonSdk.getResource(manager.serviceClient(), policyParams, SnapshotPolicyInner.class);
+        SnapshotPolicyInner snapshotPolicy = CommonSdk.getResource(anfClient, ResourceKind.SNAPSHOT_POLICY, policyParams);
         if (snapshotPolicy == null)
         {
             HourlySchedule hourlySchedule = new HourlySchedule();
@@ -146,7 +413,7 @@ public class main
 
             try
             {
-                snapshotPolicy = Creation.createSnapshotPolicy(manager.serviceClient(), resourceGroupName, anfAccountName, snapshotPolicyName, newPolicy);
+                snapshotPolicy = Creation.createSnapshotPolicy(anfClient, resourceGroupName, anfAccountName, snapshotPolicyName, newPolicy);
             }
             catch (AzureException e)
             {
@@ -165,7 +432,7 @@ public class main
         Utils.writeConsoleMessage("Creating Capacity Pool...");
 
         String[] poolParams = {resourceGroupName, anfAccountName, capacityPoolName};
-        CapacityPoolInner capacityPool = (CapacityPoolInner) CommonSdk.getResource(manager.serviceClient(), poolParams, CapacityPoolInner.class);
+        CapacityPoolInner capacityPool = CommonSdk.getResource(anfClient, ResourceKind.CAPACITY_POOL, poolParams);
         if (capacityPool == null)
         {
             CapacityPoolInner newCapacityPool = new CapacityPoolInner();
@@ -175,7 +442,7 @@ public class main
 
             try
             {
-                capacityPool = Creation.createCapacityPool(manager.serviceClient(), resourceGroupName, anfAccountName, capacityPoolName, newCapacityPool);
+                capacityPool = Creation.createCapacityPool(anfClient, resourceGroupName, anfAccountName, capacityPoolName, newCapacityPool);
             }
             catch (AzureException e)
             {
@@ -194,7 +461,7 @@ public class main
         Utils.writeConsoleMessage("Creating Volume with attached Snapshot Policy...");
 
         String[] volumeParams = {resourceGroupName, anfAccountName, capacityPoolName, volumeName};
-        VolumeInner volume = (VolumeInner) CommonSdk.getResource(manager.serviceClient(), volumeParams, VolumeInner.class);
+        VolumeInner volume = CommonSdk.getResource(anfClient, ResourceKind.VOLUME, volumeParams);
         if (volume == null)
         {
             String subnetId = "/subscriptions/" + subscriptionId + "/resourceGroups/" + resourceGroupName +
@@ -217,7 +484,7 @@ public class main
 
             try
             {
-                volume = Creation.createVolume(manager.serviceClient(), resourceGroupName, anfAccountName, capacityPoolName, volumeName, newVolume);
+                volume = Creation.createVolume(anfClient, resourceGroupName, anfAccountName, capacityPoolName, volumeName, newVolume);
             }
             catch (AzureException e)
             {
@@ -233,21 +500,19 @@ public class main
         //---------------------------
         // Update Snapshot Policy
         //---------------------------
-        Utils.writeConsoleMessage("Updating Snapshot Policy");
+        Utils.writeConsoleMessage("Checking Snapshot Policy for changes...");
 
         // Updating number of snapshots to keep for hourly schedule
 
-        HourlySchedule hourlySchedule = snapshotPolicy.hourlySchedule();
-        hourlySchedule.withSnapshotsToKeep(10);
-
-        SnapshotPolicyPatch snapshotPolicyPatch = new SnapshotPolicyPatch();
-        snapshotPolicyPatch.withHourlySchedule(hourlySchedule);
-        snapshotPolicyPatch.withLocation(snapshotPolicy.location());
-        snapshotPolicyPatch.withEnabled(true);
+        // Only the fields set on the desired policy are compared, the update is skipped if they already match
+        SnapshotPolicyInner desiredPolicy = new SnapshotPolicyInner();
+        desiredPolicy.withHourlySchedule(new HourlySchedule().withSnapshotsToKeep(10));
+        desiredPolicy.withEnabled(true);
 
+        SnapshotPolicyInner currentPolicy = snapshotPolicy;
         try
         {
-            Update.updateSnapshotPolicy(manager.serviceClient(), resourceGroupName, anfAccountName, snapshotPolicyName, snapshotPolicyPatch);
+            snapshotPolicy = Update.updateSnapshotPolicyIfChanged(anfClient, resourceGroupName, anfAccountName, snapshotPolicyName, snapshotPolicy, desiredPolicy);
         }
         catch (AzureException e)
         {
@@ -255,8 +520,12 @@ public class main
             throw e;
         }
 
-        Utils.writeConsoleMessage("Wait a few seconds for snapshot policy to complete update operation before deleting resources...");
-        Utils.threadSleep(5000);
+        // The current policy is returned as is when it already matched and no update was sent, nothing to wait for
+        if (snapshotPolicy != currentPolicy)
+        {
+            Utils.writeConsoleMessage("Wait a few seconds for snapshot policy to complete update operation before deleting resources...");
+            Utils.threadSleep(5000);
+        }
 
         //---------------------------
         // Cleaning up resources
@@ -274,23 +543,47 @@ public class main
         {
             Utils.writeConsoleMessage("Cleaning up all created resources");
 
+            // Look up every volume using the policy before deleting anything, rather than failing on the policy delete.
+            // The account is only listed when cleaning up, and the volume of this run is added in case the listing
+            // does not show it yet.
+            List<String> otherVolumes;
+            PolicyVolumeIndex policyVolumes = PolicyVolumeIndex.build(anfClient, resourceGroupName, anfAccountName);
+            try
+            {
+                policyVolumes.add(volume);
+                otherVolumes = new ArrayList<>(policyVolumes.volumesOf(snapshotPolicy.id()));
+            }
+            finally
+            {
+                ResourceEvents.unregister(policyVolumes);
+            }
+
+            String sampleVolumeId = volume.id();
+            otherVolumes.removeIf(volumeId -> volumeId.equalsIgnoreCase(sampleVolumeId));
+            if (!otherVolumes.isEmpty())
+            {
+                Utils.writeWarningMessage("Snapshot Policy is still used by " + otherVolumes.size() + " other volume(s), skipping cleanup",
+                        "resourceId", snapshotPolicy.id(), "volumes", String.join(",", otherVolumes));
+                return;
+            }
+
             try
             {
-                Cleanup.runCleanupTask(manager.serviceClient(), volumeParams, VolumeInner.class);
+                Cleanup.runCleanupTask(anfClient, volumeParams, ResourceKind.VOLUME);
                 // ARM workaround to wait for the deletion to complete
-                CommonSdk.waitForNoANFResource(manager.serviceClient(), volume.id(), VolumeInner.class);
+                CommonSdk.waitForNoANFResource(anfClient, volume.id(), ResourceKind.VOLUME);
                 Utils.writeSuccessMessage("Volume successfully deleted: " + volume.id());
 
-                Cleanup.runCleanupTask(manager.serviceClient(), poolParams, CapacityPoolInner.class);
-                CommonSdk.waitForNoANFResource(manager.serviceClient(), capacityPool.id(), CapacityPoolInner.class);
+                Cleanup.runCleanupTask(anfClient, poolParams, ResourceKind.CAPACITY_POOL);
+                CommonSdk.waitForNoANFResource(anfClient, capacityPool.id(), ResourceKind.CAPACITY_POOL);
                 Utils.writeSuccessMessage("Capacity Pool successfully deleted: " + capacityPool.id());
 
-                Cleanup.runCleanupTask(manager.serviceClient(), policyParams, SnapshotPolicyInner.class);
-                CommonSdk.waitForNoANFResource(manager.serviceClient(), snapshotPolicy.id(), SnapshotPolicyInner.class);
+                Cleanup.runCleanupTask(anfClient, policyParams, ResourceKind.SNAPSHOT_POLICY);
+                CommonSdk.waitForNoANFResource(anfClient, snapshotPolicy.id(), ResourceKind.SNAPSHOT_POLICY);
                 Utils.writeSuccessMessage("Snapshot Policy successfully deleted: " + snapshotPolicy.id());
 
-                Cleanup.runCleanupTask(manager.serviceClient(), accountParams, NetAppAccountInner.class);
-                CommonSdk.waitForNoANFResource(manager.serviceClient(), anfAccount.id(), NetAppAccountInner.class);
+                Cleanup.runCleanupTask(anfClient, accountParams, ResourceKind.ACCOUNT);
+                CommonSdk.waitForNoANFResource(anfClient, anfAccount.id(), ResourceKind.ACCOUNT);
                 Utils.writeSuccessMessage("Account successfully deleted: " + anfAccount.id());
             }
             catch (AzureException e)
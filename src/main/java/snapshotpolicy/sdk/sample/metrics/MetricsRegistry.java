@@ -0,0 +1,199 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.metrics;
+
+import snapshotpolicy.sdk.sample.common.CommonSdk;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
+import snapshotpolicy.sdk.sample.common.Utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Records latency, in-flight calls and outcomes of every ARM call made through record. Creation, Update, Cleanup
+ * and CommonSdk route their calls through the shared registry, so it sees every synchronous call of the sample.
+ */
+public class MetricsRegistry
+{
+    private static final MetricsRegistry SHARED = new MetricsRegistry();
+
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> pollIterations = new ConcurrentHashMap<>();
+
+    /**
+     * @return Registry used by the sample
+     */
+    public static MetricsRegistry shared()
+    {
+        return SHARED;
+    }
+
+    /**
+     * Times a call and classifies its outcome: success, 404, throttled (429/503) or error. Exceptions propagate.
+     * @param kind Kind of the resource the call targets
+     * @param operation Operation name, e.g. get, create, update, delete, list or poll
+     * @param call The ARM call
+     * @return The result of the call
+     */
+    public <T> T record(ResourceKind<?> kind, String operation, Supplier<T> call)
+    {
+        OperationStats stats = stats(kind.displayName(), operation);
+        stats.inFlight().increment();
+        long start = System.nanoTime();
+        try
+        {
+            return call.get();
+        }
+        catch (RuntimeException e)
+        {
+            if (CommonSdk.isNotFound(e))
+                stats.notFound().increment();
+            else if (CommonSdk.getRetryAfter(e) != null)
+                stats.throttled().increment();
+            else
+                stats.errors().increment();
+            throw e;
+        }
+        finally
+        {
+            stats.getLatency().recordNanos(System.nanoTime() - start);
+            stats.inFlight().decrement();
+        }
+    }
+
+    /**
+     * Same as record for calls without a result
+     */
+    public void run(ResourceKind<?> kind, String operation, Runnable call)
+    {
+        record(kind, operation, () ->
+        {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Counts one iteration of a polling loop, e.g. waiting for a deleted resource to disappear
+     * @param kind Kind of the polled resource
+     */
+    public void recordPollIteration(ResourceKind<?> kind)
+    {
+        pollIterations.computeIfAbsent(kind.displayName(), k -> new LongAdder()).increment();
+    }
+
+    public long getPollIterations(ResourceKind<?> kind)
+    {
+        LongAdder iterations = pollIterations.get(kind.displayName());
+        return iterations != null ? iterations.sum() : 0;
+    }
+
+    /**
+     * @return Every operation recorded so far, ordered by kind and operation
+     */
+    public List<OperationStats> getOperations()
+    {
+        List<OperationStats> stats = new ArrayList<>(operations.values());
+        stats.sort(Comparator.comparing(OperationStats::getKind).thenComparing(OperationStats::getOperation));
+        return stats;
+    }
+
+    // Resets all recorded values
+    public void clear()
+    {
+        operations.clear();
+        pollIterations.clear();
+    }
+
+    /**
+     * Writes one line per operation with counts and latency percentiles in milliseconds
+     */
+    public void writeReport()
+    {
+        Utils.writeConsoleMessage("ARM call metrics:");
+        Utils.writeConsoleMessage(String.format(Locale.ROOT, "  %-16s %-8s %7s %6s %5s %5s %9s %9s %9s %9s",
+                "kind", "op", "calls", "errors", "404", "429", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        for (OperationStats stats : getOperations())
+        {
+            LatencyHistogram latency = stats.getLatency();
+            Utils.writeConsoleMessage(String.format(Locale.ROOT, "  %-16s %-8s %7d %6d %5d %5d %9.1f %9.1f %9.1f %9.1f",
+                    stats.getKind(), stats.getOperation(), latency.getCount(), stats.getErrors(), stats.getNotFound(), stats.getThrottled(),
+                    latency.getValueAtQuantile(0.5) / 1000d, latency.getValueAtQuantile(0.9) / 1000d,
+                    latency.getValueAtQuantile(0.99) / 1000d, latency.getMaxMicros() / 1000d));
+        }
+
+        pollIterations.forEach((kind, iterations) ->
+                Utils.writeConsoleMessage("  " + kind + " poll iterations: " + iterations.sum()));
+    }
+
+    /**
+     * @return All metrics in the Prometheus text exposition format
+     */
+    public String toPrometheusText()
+    {
+        StringBuilder text = new StringBuilder();
+        List<OperationStats> stats = getOperations();
+
+        text.append("# HELP anf_operation_duration_seconds Latency of ARM calls\n");
+        text.append("# TYPE anf_operation_duration_seconds summary\n");
+        for (OperationStats operation : stats)
+        {
+            LatencyHistogram latency = operation.getLatency();
+            for (double quantile : new double[]{0.5, 0.9, 0.99})
+            {
+                sample(text, "anf_operation_duration_seconds", operation, "quantile=\"" + quantile + "\"", latency.getValueAtQuantile(quantile) / 1e6);
+            }
+
+            sample(text, "anf_operation_duration_seconds_sum", operation, null, latency.getSumMicros() / 1e6);
+            sample(text, "anf_operation_duration_seconds_count", operation, null, latency.getCount());
+        }
+
+        counter(text, "anf_operation_in_flight", "gauge", "ARM calls currently in flight", stats, OperationStats::getInFlight);
+        counter(text, "anf_operation_errors_total", "counter", "Failed ARM calls, excluding 404 and throttling", stats, OperationStats::getErrors);
+        counter(text, "anf_operation_not_found_total", "counter", "ARM calls answered with 404", stats, OperationStats::getNotFound);
+        counter(text, "anf_operation_throttled_total", "counter", "ARM calls answered with 429 or 503", stats, OperationStats::getThrottled);
+
+        text.append("# HELP anf_poll_iterations_total Iterations of polling loops\n");
+        text.append("# TYPE anf_poll_iterations_total counter\n");
+        pollIterations.forEach((kind, iterations) ->
+                text.append("anf_poll_iterations_total{kind=\"").append(kind).append("\"} ").append(iterations.sum()).append('\n'));
+
+        return text.toString();
+    }
+
+    private OperationStats stats(String kind, String operation)
+    {
+        return operations.computeIfAbsent(kind + "|" + operation, k -> new OperationStats(kind, operation));
+    }
+
+    private static void counter(StringBuilder text, String name, String type, String help, List<OperationStats> stats, ToLongFunction<OperationStats> value)
+    {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        for (OperationStats operation : stats)
+        {
+            sample(text, name, operation, null, value.applyAsLong(operation));
+        }
+    }
+
+    private static void sample(StringBuilder text, String name, OperationStats operation, String extraLabel, double value)
+    {
+        text.append(name).append("{kind=\"").append(operation.getKind()).append("\",operation=\"").append(operation.getOperation()).append('"');
+        if (extraLabel != null)
+        {
+            text.append(',').append(extraLabel);
+        }
+
+        text.append("} ").append(value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value)).append('\n');
+    }
+}
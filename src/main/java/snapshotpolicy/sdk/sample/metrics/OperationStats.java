@@ -0,0 +1,90 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters and latency histogram of one operation, e.g. "create" on volumes
+public class OperationStats
+{
+    private final String kind;
+    private final String operation;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder notFound = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+
+    OperationStats(String kind, String operation)
+    {
+        this.kind = kind;
+        this.operation = operation;
+    }
+
+    public String getKind()
+    {
+        return kind;
+    }
+
+    public String getOperation()
+    {
+        return operation;
+    }
+
+    /**
+     * @return Latency of every call, successful or not
+     */
+    public LatencyHistogram getLatency()
+    {
+        return latency;
+    }
+
+    public long getInFlight()
+    {
+        return inFlight.sum();
+    }
+
+    /**
+     * @return Number of failed calls, excluding 404s and throttled calls
+     */
+    public long getErrors()
+    {
+        return errors.sum();
+    }
+
+    public long getNotFound()
+    {
+        return notFound.sum();
+    }
+
+    /**
+     * @return Number of calls answered with 429 or 503
+     */
+    public long getThrottled()
+    {
+        return throttled.sum();
+    }
+
+    LongAdder inFlight()
+    {
+        return inFlight;
+    }
+
+    LongAdder errors()
+    {
+        return errors;
+    }
+
+    LongAdder notFound()
+    {
+        return notFound;
+    }
+
+    LongAdder throttled()
+    {
+        return throttled;
+    }
+}
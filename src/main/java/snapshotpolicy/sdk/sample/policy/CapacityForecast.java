@@ -0,0 +1,113 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.policy;
+
+import snapshotpolicy.sdk.sample.common.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Outcome of a CapacityForecaster run, indexed like the VolumeFleet it was computed from
+public class CapacityForecast
+{
+    private final VolumeFleet fleet;
+    private final int[] peakSnapshots;
+    private final long[] snapshotBytes;
+    private final long[] poolProjectedBytes;
+
+    CapacityForecast(VolumeFleet fleet, int[] peakSnapshots, long[] snapshotBytes, long[] poolProjectedBytes)
+    {
+        this.fleet = fleet;
+        this.peakSnapshots = peakSnapshots;
+        this.snapshotBytes = snapshotBytes;
+        this.poolProjectedBytes = poolProjectedBytes;
+    }
+
+    /**
+     * @param volume Volume index in the fleet
+     * @return Peak number of snapshots the volume holds at the same time
+     */
+    public int peakSnapshots(int volume)
+    {
+        return peakSnapshots[volume];
+    }
+
+    /**
+     * @param volume Volume index in the fleet
+     * @return Approximate bytes held by the snapshots of the volume at their peak
+     */
+    public long snapshotBytes(int volume)
+    {
+        return snapshotBytes[volume];
+    }
+
+    /**
+     * @param pool Pool index in the fleet
+     * @return Approximate bytes consumed by the volumes of the pool and their snapshots
+     */
+    public long poolProjectedBytes(int pool)
+    {
+        return poolProjectedBytes[pool];
+    }
+
+    /**
+     * @return Peak number of snapshots across the whole fleet, assuming every volume peaks at once
+     */
+    public long totalPeakSnapshots()
+    {
+        long total = 0;
+        for (int count : peakSnapshots)
+        {
+            total += count;
+        }
+
+        return total;
+    }
+
+    /**
+     * @return Indexes of the pools whose projected consumption exceeds their provisioned size
+     */
+    public int[] overcommittedPools()
+    {
+        int count = 0;
+        int[] pools = new int[fleet.poolCount()];
+        for (int pool = 0; pool < fleet.poolCount(); pool++)
+        {
+            if (poolProjectedBytes[pool] > fleet.poolSize(pool))
+            {
+                pools[count++] = pool;
+            }
+        }
+
+        return Arrays.copyOf(pools, count);
+    }
+
+    /**
+     * @return Resource ids of the pools whose projected consumption exceeds their provisioned size
+     */
+    public List<String> overcommittedPoolIds()
+    {
+        List<String> poolIds = new ArrayList<>();
+        for (int pool : overcommittedPools())
+        {
+            poolIds.add(fleet.poolId(pool));
+        }
+
+        return poolIds;
+    }
+
+    // Writes one line per pool that is projected to run out of space
+    public void print()
+    {
+        Utils.writeConsoleMessage("Forecast: " + fleet.volumeCount() + " volume(s), up to " + totalPeakSnapshots() + " snapshot(s)");
+        for (int pool : overcommittedPools())
+        {
+            Utils.writeWarningMessage("Capacity Pool " + fleet.poolId(pool) + " is projected to use "
+                    + poolProjectedBytes[pool] + " bytes out of " + fleet.poolSize(pool));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.policy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Projects how many snapshots each volume of a fleet will hold and how much capacity they will consume.
+ *
+ * A snapshot keeps every block overwritten after it was taken, so the space held by the snapshots of a volume is
+ * roughly its daily change rate multiplied by the age of its oldest retained snapshot. Each distinct policy is
+ * simulated once over the horizon to find its peak snapshot count and its longest retention window, then volumes
+ * are projected in parallel from those two numbers.
+ */
+public class CapacityForecaster
+{
+    private static final double SECONDS_PER_DAY = 86400d;
+
+    private final Instant from;
+    private final Duration horizon;
+
+    /**
+     * @param from Start of the forecast, schedules are evaluated in UTC from this instant
+     * @param horizon Length of the forecast, at least a couple of months so that monthly schedules fill up
+     */
+    public CapacityForecaster(Instant from, Duration horizon)
+    {
+        if (horizon.isNegative() || horizon.isZero())
+        {
+            throw new IllegalArgumentException("horizon must be positive");
+        }
+
+        this.from = from;
+        this.horizon = horizon;
+    }
+
+    /**
+     * @param fleet Volumes, pools and policies to forecast
+     * @return Per volume and per pool projections
+     */
+    public CapacityForecast forecast(VolumeFleet fleet)
+    {
+        long start = from.getEpochSecond();
+        long end = from.plus(horizon).getEpochSecond();
+
+        int[] policyPeakSnapshots = new int[fleet.policyCount()];
+        long[] policyRetentionSeconds = new long[fleet.policyCount()];
+        IntStream.range(0, fleet.policyCount()).parallel().forEach(policy ->
+        {
+            RetentionWindow window = new RetentionWindow(end);
+            SnapshotScheduleSimulator.simulate(fleet.policy(policy), start, end, window);
+            policyPeakSnapshots[policy] = window.peakRetained;
+            policyRetentionSeconds[policy] = window.longestRetention();
+        });
+
+        int volumeCount = fleet.volumeCount();
+        int[] peakSnapshots = new int[volumeCount];
+        long[] snapshotBytes = new long[volumeCount];
+        IntStream.range(0, volumeCount).parallel().forEach(volume ->
+        {
+            int policy = fleet.volumePolicy(volume);
+            if (policy == VolumeFleet.NO_POLICY)
+            {
+                return;
+            }
+
+            peakSnapshots[volume] = policyPeakSnapshots[policy];
+            if (policyPeakSnapshots[policy] > 0)
+            {
+                double retainedDays = policyRetentionSeconds[policy] / SECONDS_PER_DAY;
+                snapshotBytes[volume] = (long) Math.min(fleet.volumeDailyChangeBytes(volume) * retainedDays, Long.MAX_VALUE);
+            }
+        });
+
+        // Aggregating into pools is a cheap sequential pass, the parallel work above dominates
+        long[] poolProjectedBytes = new long[fleet.poolCount()];
+        for (int volume = 0; volume < volumeCount; volume++)
+        {
+            poolProjectedBytes[fleet.volumePool(volume)] += fleet.volumeUsedBytes(volume) + snapshotBytes[volume];
+        }
+
+        return new CapacityForecast(fleet, peakSnapshots, snapshotBytes, poolProjectedBytes);
+    }
+
+    // Tracks the peak snapshot count and the longest time a snapshot stays retained during a simulation
+    private static final class RetentionWindow implements SnapshotScheduleSimulator.SnapshotListener
+    {
+        private final long end;
+        private long[] createdAt = new long[64];
+        private boolean[] expired = new boolean[64];
+        private int created;
+        private int retained;
+        private int peakRetained;
+        private long longestExpired;
+
+        RetentionWindow(long end)
+        {
+            this.end = end;
+        }
+
+        @Override
+        public void onCreated(long sequence, int schedule, long created)
+        {
+            if (this.created == createdAt.length)
+            {
+                createdAt = Arrays.copyOf(createdAt, this.created * 2);
+                expired = Arrays.copyOf(expired, this.created * 2);
+            }
+
+            createdAt[this.created++] = created;
+            peakRetained = Math.max(peakRetained, ++retained);
+        }
+
+        @Override
+        public void onExpired(long sequence, long expiresAt)
+        {
+            expired[(int) sequence] = true;
+            retained--;
+            longestExpired = Math.max(longestExpired, expiresAt - createdAt[(int) sequence]);
+        }
+
+        // The oldest retained snapshot at any instant is at most as old as the longest lived snapshot
+        long longestRetention()
+        {
+            long longest = longestExpired;
+            for (int i = 0; i < created; i++)
+            {
+                if (!expired[i])
+                {
+                    longest = Math.max(longest, end - createdAt[i]);
+                    break;
+                }
+            }
+
+            return longest;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.policy;
+
+import com.azure.resourcemanager.netapp.fluent.models.SnapshotPolicyInner;
+import com.azure.resourcemanager.netapp.models.DailySchedule;
+import com.azure.resourcemanager.netapp.models.HourlySchedule;
+import com.azure.resourcemanager.netapp.models.MonthlySchedule;
+import com.azure.resourcemanager.netapp.models.SnapshotPolicyPatch;
+import com.azure.resourcemanager.netapp.models.WeeklySchedule;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Structural diff between the current and the desired state of a Snapshot Policy. Fields left null in the desired
+ * policy are not managed and never produce a change. Read-only fields such as usedBytes are ignored.
+ */
+public final class SnapshotPolicyDiff
+{
+    private SnapshotPolicyDiff()
+    {
+    }
+
+    /**
+     * Computes the smallest patch turning the current policy into the desired one. A changed schedule is sent
+     * whole, with the fields not set in the desired schedule copied from the current one.
+     * @param current Snapshot Policy as returned by the service
+     * @param desired Desired Snapshot Policy
+     * @return The patch to send, or null if the policy is already in the desired state
+     */
+    public static SnapshotPolicyPatch diff(SnapshotPolicyInner current, SnapshotPolicyInner desired)
+    {
+        SnapshotPolicyPatch patch = new SnapshotPolicyPatch();
+        boolean changed = false;
+
+        HourlySchedule hourly = mergeHourly(current.hourlySchedule(), desired.hourlySchedule());
+        if (hourly != null)
+        {
+            patch.withHourlySchedule(hourly);
+            changed = true;
+        }
+
+        DailySchedule daily = mergeDaily(current.dailySchedule(), desired.dailySchedule());
+        if (daily != null)
+        {
+            patch.withDailySchedule(daily);
+            changed = true;
+        }
+
+        WeeklySchedule weekly = mergeWeekly(current.weeklySchedule(), desired.weeklySchedule());
+        if (weekly != null)
+        {
+            patch.withWeeklySchedule(weekly);
+            changed = true;
+        }
+
+        MonthlySchedule monthly = mergeMonthly(current.monthlySchedule(), desired.monthlySchedule());
+        if (monthly != null)
+        {
+            patch.withMonthlySchedule(monthly);
+            changed = true;
+        }
+
+        if (desired.enabled() != null && !desired.enabled().equals(current.enabled()))
+        {
+            patch.withEnabled(desired.enabled());
+            changed = true;
+        }
+
+        if (desired.tags() != null && !desired.tags().equals(current.tags()))
+        {
+            patch.withTags(desired.tags());
+            changed = true;
+        }
+
+        if (!changed)
+        {
+            return null;
+        }
+
+        // Location is not a change but the service expects it on every patch
+        return patch.withLocation(current.location());
+    }
+
+    /**
+     * @param current Snapshot Policy as returned by the service
+     * @param desired Desired Snapshot Policy
+     * @return True if the policy is already in the desired state
+     */
+    public static boolean isUpToDate(SnapshotPolicyInner current, SnapshotPolicyInner desired)
+    {
+        return diff(current, desired) == null;
+    }
+
+    // Each merge returns null when the desired schedule is not managed or already matches the current one
+
+    private static HourlySchedule mergeHourly(HourlySchedule current, HourlySchedule desired)
+    {
+        if (desired == null)
+        {
+            return null;
+        }
+
+        HourlySchedule base = current != null ? current : new HourlySchedule();
+        HourlySchedule merged = new HourlySchedule()
+                .withSnapshotsToKeep(pick(desired.snapshotsToKeep(), base.snapshotsToKeep()))
+                .withMinute(pick(desired.minute(), base.minute()));
+
+        boolean same = current != null
+                && Objects.equals(merged.snapshotsToKeep(), current.snapshotsToKeep())
+                && Objects.equals(merged.minute(), current.minute());
+        return same ? null : merged;
+    }
+
+    private static DailySchedule mergeDaily(DailySchedule current, DailySchedule desired)
+    {
+        if (desired == null)
+        {
+            return null;
+        }
+
+        DailySchedule base = current != null ? current : new DailySchedule();
+        DailySchedule merged = new DailySchedule()
+                .withSnapshotsToKeep(pick(desired.snapshotsToKeep(), base.snapshotsToKeep()))
+                .withHour(pick(desired.hour(), base.hour()))
+                .withMinute(pick(desired.minute(), base.minute()));
+
+        boolean same = current != null
+                && Objects.equals(merged.snapshotsToKeep(), current.snapshotsToKeep())
+                && Objects.equals(merged.hour(), current.hour())
+                && Objects.equals(merged.minute(), current.minute());
+        return same ? null : merged;
+    }
+
+    private static WeeklySchedule mergeWeekly(WeeklySchedule current, WeeklySchedule desired)
+    {
+        if (desired == null)
+        {
+            return null;
+        }
+
+        WeeklySchedule base = current != null ? current : new WeeklySchedule();
+        WeeklySchedule merged = new WeeklySchedule()
+                .withSnapshotsToKeep(pick(desired.snapshotsToKeep(), base.snapshotsToKeep()))
+                .withDay(pick(desired.day(), base.day()))
+                .withHour(pick(desired.hour(), base.hour()))
+                .withMinute(pick(desired.minute(), base.minute()));
+
+        boolean same = current != null
+                && Objects.equals(merged.snapshotsToKeep(), current.snapshotsToKeep())
+                && sameList(merged.day(), current.day())
+                && Objects.equals(merged.hour(), current.hour())
+                && Objects.equals(merged.minute(), current.minute());
+        return same ? null : merged;
+    }
+
+    private static MonthlySchedule mergeMonthly(MonthlySchedule current, MonthlySchedule desired)
+    {
+        if (desired == null)
+        {
+            return null;
+        }
+
+        MonthlySchedule base = current != null ? current : new MonthlySchedule();
+        MonthlySchedule merged = new MonthlySchedule()
+                .withSnapshotsToKeep(pick(desired.snapshotsToKeep(), base.snapshotsToKeep()))
+                .withDaysOfMonth(pick(desired.daysOfMonth(), base.daysOfMonth()))
+                .withHour(pick(desired.hour(), base.hour()))
+                .withMinute(pick(desired.minute(), base.minute()));
+
+        boolean same = current != null
+                && Objects.equals(merged.snapshotsToKeep(), current.snapshotsToKeep())
+                && sameList(merged.daysOfMonth(), current.daysOfMonth())
+                && Objects.equals(merged.hour(), current.hour())
+                && Objects.equals(merged.minute(), current.minute());
+        return same ? null : merged;
+    }
+
+    private static <V> V pick(V desired, V current)
+    {
+        return desired != null ? desired : current;
+    }
+
+    // "Monday,Friday" equals "friday, monday" and "10,11,12" equals "12,10,11"
+    private static boolean sameList(String a, String b)
+    {
+        if (a == null || b == null)
+        {
+            return a == b;
+        }
+
+        return normalize(a).equals(normalize(b));
+    }
+
+    private static TreeSet<String> normalize(String list)
+    {
+        TreeSet<String> items = new TreeSet<>();
+        for (String item : list.split(","))
+        {
+            String trimmed = item.trim().toLowerCase(Locale.ROOT);
+            if (!trimmed.isEmpty())
+            {
+                items.add(trimmed.replaceFirst("^0+(?=\\d)", ""));
+            }
+        }
+
+        return items;
+    }
+}
@@ -0,0 +1,336 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.policy;
+
+import com.azure.resourcemanager.netapp.fluent.models.SnapshotPolicyInner;
+import com.azure.resourcemanager.netapp.models.DailySchedule;
+import com.azure.resourcemanager.netapp.models.HourlySchedule;
+import com.azure.resourcemanager.netapp.models.MonthlySchedule;
+import com.azure.resourcemanager.netapp.models.WeeklySchedule;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Computes, offline, when the snapshots of a Snapshot Policy are created and when they expire. Schedules run in UTC.
+ * Each schedule keeps its last snapshotsToKeep snapshots, so a snapshot expires when the snapshotsToKeep-th newer
+ * snapshot of the same schedule is taken.
+ *
+ * The simulation jumps straight from one occurrence to the next and merges the four schedules like a small time
+ * wheel, so its cost is proportional to the number of snapshots, not to the length of the horizon in minutes.
+ * Occurrences are computed with epoch-second arithmetic and reported through primitive callbacks.
+ */
+public final class SnapshotScheduleSimulator
+{
+    public static final int HOURLY = 0;
+    public static final int DAILY = 1;
+    public static final int WEEKLY = 2;
+    public static final int MONTHLY = 3;
+    public static final int SCHEDULE_COUNT = 4;
+
+    private static final long SECONDS_PER_HOUR = 3600L;
+    private static final long SECONDS_PER_DAY = 86400L;
+
+    private SnapshotScheduleSimulator()
+    {
+    }
+
+    /**
+     * Parses the schedules of a policy once, so that it can be simulated many times cheaply
+     * @param policy The Snapshot Policy
+     * @return The compiled policy
+     */
+    public static CompiledPolicy compile(SnapshotPolicyInner policy)
+    {
+        CompiledPolicy compiled = new CompiledPolicy();
+        if (policy == null || Boolean.FALSE.equals(policy.enabled()))
+        {
+            return compiled;
+        }
+
+        HourlySchedule hourly = policy.hourlySchedule();
+        if (hourly != null)
+        {
+            compiled.set(HOURLY, intOrZero(hourly.snapshotsToKeep()), 0, intOrZero(hourly.minute()), 0);
+        }
+
+        DailySchedule daily = policy.dailySchedule();
+        if (daily != null)
+        {
+            compiled.set(DAILY, intOrZero(daily.snapshotsToKeep()), intOrZero(daily.hour()), intOrZero(daily.minute()), 0);
+        }
+
+        WeeklySchedule weekly = policy.weeklySchedule();
+        if (weekly != null)
+        {
+            compiled.set(WEEKLY, intOrZero(weekly.snapshotsToKeep()), intOrZero(weekly.hour()), intOrZero(weekly.minute()), parseDays(weekly.day()));
+        }
+
+        MonthlySchedule monthly = policy.monthlySchedule();
+        if (monthly != null)
+        {
+            compiled.set(MONTHLY, intOrZero(monthly.snapshotsToKeep()), intOrZero(monthly.hour()), intOrZero(monthly.minute()), parseDaysOfMonth(monthly.daysOfMonth()));
+        }
+
+        return compiled;
+    }
+
+    /**
+     * Simulates a policy and materializes every snapshot taken within the horizon
+     * @param policy The Snapshot Policy
+     * @param from Start of the horizon, inclusive
+     * @param to End of the horizon, exclusive
+     * @return The snapshots, ordered by creation time
+     */
+    public static SnapshotTimeline simulate(SnapshotPolicyInner policy, Instant from, Instant to)
+    {
+        SnapshotTimeline timeline = new SnapshotTimeline();
+        simulate(compile(policy), from.getEpochSecond(), to.getEpochSecond(), timeline);
+        return timeline;
+    }
+
+    /**
+     * Simulates a compiled policy, reporting snapshots in creation order
+     * @param policy The compiled policy
+     * @param fromEpochSecond Start of the horizon, inclusive
+     * @param toEpochSecond End of the horizon, exclusive
+     * @param listener Receives each snapshot at creation time and its expiry once known
+     */
+    public static void simulate(CompiledPolicy policy, long fromEpochSecond, long toEpochSecond, SnapshotListener listener)
+    {
+        long[] next = new long[SCHEDULE_COUNT];
+        // Ring buffers of the sequence numbers of the snapshots currently retained, one per schedule
+        long[][] retained = new long[SCHEDULE_COUNT][];
+        int[] heads = new int[SCHEDULE_COUNT];
+        int[] sizes = new int[SCHEDULE_COUNT];
+
+        for (int schedule = 0; schedule < SCHEDULE_COUNT; schedule++)
+        {
+            int keep = policy.keep[schedule];
+            next[schedule] = keep > 0 ? policy.nextOccurrence(schedule, fromEpochSecond) : Long.MAX_VALUE;
+            retained[schedule] = new long[Math.max(keep, 0)];
+        }
+
+        long sequence = 0;
+        while (true)
+        {
+            int schedule = earliest(next);
+            long createdAt = next[schedule];
+            if (createdAt >= toEpochSecond)
+            {
+                break;
+            }
+
+            long[] ring = retained[schedule];
+            if (sizes[schedule] == ring.length)
+            {
+                // The oldest retained snapshot of this schedule is rotated out by the new one
+                listener.onExpired(ring[heads[schedule]], createdAt);
+                ring[heads[schedule]] = sequence;
+                heads[schedule] = (heads[schedule] + 1) % ring.length;
+            }
+            else
+            {
+                ring[(heads[schedule] + sizes[schedule]) % ring.length] = sequence;
+                sizes[schedule]++;
+            }
+
+            listener.onCreated(sequence, schedule, createdAt);
+            sequence++;
+            next[schedule] = policy.nextOccurrence(schedule, createdAt + 1);
+        }
+    }
+
+    private static int earliest(long[] next)
+    {
+        int earliest = 0;
+        for (int i = 1; i < next.length; i++)
+        {
+            if (next[i] < next[earliest])
+            {
+                earliest = i;
+            }
+        }
+
+        return earliest;
+    }
+
+    private static int intOrZero(Integer value)
+    {
+        return value == null ? 0 : value;
+    }
+
+    // Bit n-1 is set for ISO day-of-week n (Monday = 1)
+    private static int parseDays(String days)
+    {
+        int mask = 0;
+        if (days == null)
+        {
+            return mask;
+        }
+
+        for (String day : days.split(","))
+        {
+            if (!day.isBlank())
+            {
+                mask |= 1 << (DayOfWeek.valueOf(day.trim().toUpperCase(Locale.ROOT)).getValue() - 1);
+            }
+        }
+
+        return mask;
+    }
+
+    // Bit n-1 is set for day-of-month n
+    private static int parseDaysOfMonth(String daysOfMonth)
+    {
+        int mask = 0;
+        if (daysOfMonth == null)
+        {
+            return mask;
+        }
+
+        for (String day : daysOfMonth.split(","))
+        {
+            if (day.isBlank())
+            {
+                continue;
+            }
+
+            int dayOfMonth = Integer.parseInt(day.trim());
+            if (dayOfMonth < 1 || dayOfMonth > 31)
+            {
+                throw new IllegalArgumentException("Invalid day of month: " + dayOfMonth);
+            }
+
+            mask |= 1 << (dayOfMonth - 1);
+        }
+
+        return mask;
+    }
+
+    // Day of month of an epoch day, using the civil-from-days algorithm to avoid allocating LocalDate instances
+    static int dayOfMonth(long epochDay)
+    {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        return (int) (dayOfYear - (153 * monthIndex + 2) / 5 + 1);
+    }
+
+    // ISO day of week of an epoch day, 1970-01-01 was a Thursday
+    static int dayOfWeek(long epochDay)
+    {
+        return (int) Math.floorMod(epochDay + 3, 7L) + 1;
+    }
+
+    // Receives the snapshots of a simulation
+    public interface SnapshotListener
+    {
+        /**
+         * @param sequence Sequence number of the snapshot, in creation order starting at zero
+         * @param schedule HOURLY, DAILY, WEEKLY or MONTHLY
+         * @param createdAt Creation time in epoch seconds
+         */
+        void onCreated(long sequence, int schedule, long createdAt);
+
+        /**
+         * Called when a snapshot is rotated out. Snapshots still retained at the end of the horizon are never expired.
+         * @param sequence Sequence number of the expiring snapshot
+         * @param expiresAt Expiry time in epoch seconds
+         */
+        void onExpired(long sequence, long expiresAt);
+    }
+
+    // Schedules of a policy in primitive form, ready to be simulated
+    public static final class CompiledPolicy
+    {
+        private final int[] keep = new int[SCHEDULE_COUNT];
+        private final long[] timeOfDay = new long[SCHEDULE_COUNT];
+        private final int[] dayMask = new int[SCHEDULE_COUNT];
+
+        private CompiledPolicy()
+        {
+        }
+
+        private void set(int schedule, int snapshotsToKeep, int hour, int minute, int days)
+        {
+            keep[schedule] = snapshotsToKeep;
+            timeOfDay[schedule] = hour * SECONDS_PER_HOUR + minute * 60L;
+            dayMask[schedule] = days;
+            if ((schedule == WEEKLY || schedule == MONTHLY) && days == 0)
+            {
+                keep[schedule] = 0;
+            }
+        }
+
+        /**
+         * @param schedule HOURLY, DAILY, WEEKLY or MONTHLY
+         * @return Number of snapshots kept by the schedule, zero if the schedule is not in use
+         */
+        public int snapshotsToKeep(int schedule)
+        {
+            return keep[schedule];
+        }
+
+        /**
+         * @return Number of snapshots retained once every schedule has filled up
+         */
+        public int maxRetained()
+        {
+            int total = 0;
+            for (int schedule = 0; schedule < SCHEDULE_COUNT; schedule++)
+            {
+                total += keep[schedule];
+            }
+
+            return total;
+        }
+
+        /**
+         * @param schedule HOURLY, DAILY, WEEKLY or MONTHLY
+         * @param epochSecond Lower bound
+         * @return First occurrence of the schedule at or after epochSecond
+         */
+        long nextOccurrence(int schedule, long epochSecond)
+        {
+            switch (schedule)
+            {
+                case HOURLY:
+                {
+                    long candidate = epochSecond - Math.floorMod(epochSecond, SECONDS_PER_HOUR) + timeOfDay[HOURLY];
+                    return candidate >= epochSecond ? candidate : candidate + SECONDS_PER_HOUR;
+                }
+
+                case DAILY:
+                {
+                    long candidate = Math.floorDiv(epochSecond, SECONDS_PER_DAY) * SECONDS_PER_DAY + timeOfDay[DAILY];
+                    return candidate >= epochSecond ? candidate : candidate + SECONDS_PER_DAY;
+                }
+
+                default:
+                {
+                    long day = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+                    // A sparse monthly schedule such as "31" may skip a couple of months
+                    for (int i = 0; i <= 400; i++, day++)
+                    {
+                        int dayOfPeriod = schedule == WEEKLY ? dayOfWeek(day) : dayOfMonth(day);
+                        long candidate = day * SECONDS_PER_DAY + timeOfDay[schedule];
+                        if ((dayMask[schedule] & (1 << (dayOfPeriod - 1))) != 0 && candidate >= epochSecond)
+                        {
+                            return candidate;
+                        }
+                    }
+
+                    return Long.MAX_VALUE;
+                }
+            }
+        }
+    }
+}
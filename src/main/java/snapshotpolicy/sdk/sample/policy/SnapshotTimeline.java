@@ -0,0 +1,137 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.policy;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+// Snapshots produced by a SnapshotScheduleSimulator run, stored in primitive arrays indexed by sequence number
+public final class SnapshotTimeline implements SnapshotScheduleSimulator.SnapshotListener
+{
+    public static final long NEVER = Long.MAX_VALUE;
+
+    private long[] createdAt = new long[64];
+    private long[] expiresAt = new long[64];
+    private byte[] schedules = new byte[64];
+    private int size;
+
+    @Override
+    public void onCreated(long sequence, int schedule, long created)
+    {
+        if (size == createdAt.length)
+        {
+            int capacity = size * 2;
+            createdAt = Arrays.copyOf(createdAt, capacity);
+            expiresAt = Arrays.copyOf(expiresAt, capacity);
+            schedules = Arrays.copyOf(schedules, capacity);
+        }
+
+        createdAt[size] = created;
+        expiresAt[size] = NEVER;
+        schedules[size] = (byte) schedule;
+        size++;
+    }
+
+    @Override
+    public void onExpired(long sequence, long expires)
+    {
+        expiresAt[(int) sequence] = expires;
+    }
+
+    /**
+     * @return Number of snapshots created within the horizon
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @param index Sequence number of the snapshot
+     * @return Creation time in epoch seconds
+     */
+    public long createdAt(int index)
+    {
+        return createdAt[index];
+    }
+
+    /**
+     * @param index Sequence number of the snapshot
+     * @return Expiry time in epoch seconds, or NEVER if the snapshot is still retained at the end of the horizon
+     */
+    public long expiresAt(int index)
+    {
+        return expiresAt[index];
+    }
+
+    /**
+     * @param index Sequence number of the snapshot
+     * @return HOURLY, DAILY, WEEKLY or MONTHLY, see SnapshotScheduleSimulator
+     */
+    public int schedule(int index)
+    {
+        return schedules[index];
+    }
+
+    public Instant createdInstant(int index)
+    {
+        return Instant.ofEpochSecond(createdAt[index]);
+    }
+
+    /**
+     * @param epochSecond Point in time
+     * @return Number of snapshots existing at that time
+     */
+    public int retainedAt(long epochSecond)
+    {
+        int retained = 0;
+        for (int i = 0; i < size && createdAt[i] <= epochSecond; i++)
+        {
+            if (expiresAt[i] > epochSecond)
+            {
+                retained++;
+            }
+        }
+
+        return retained;
+    }
+
+    /**
+     * Retention only ever grows until every schedule has filled up, so the peak is reached at the end of the horizon
+     * @return Maximum number of snapshots existing at the same time within the horizon
+     */
+    public int peakRetained()
+    {
+        int retained = 0;
+        for (int i = 0; i < size; i++)
+        {
+            if (expiresAt[i] == NEVER)
+            {
+                retained++;
+            }
+        }
+
+        return retained;
+    }
+
+    /**
+     * @param schedule HOURLY, DAILY, WEEKLY or MONTHLY
+     * @return Number of snapshots created by the schedule
+     */
+    public int countBySchedule(int schedule)
+    {
+        int count = 0;
+        for (int i = 0; i < size; i++)
+        {
+            if (schedules[i] == schedule)
+            {
+                count++;
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,215 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.policy;
+
+import com.azure.resourcemanager.netapp.fluent.models.CapacityPoolInner;
+import com.azure.resourcemanager.netapp.fluent.models.SnapshotPolicyInner;
+import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import snapshotpolicy.sdk.sample.common.AnfResourceId;
+import snapshotpolicy.sdk.sample.common.AnfResourceIdCache;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Volumes, pools and Snapshot Policies to forecast with CapacityForecaster. Pools and policies are registered once
+ * and referenced by index, volumes are stored column by column in primitive arrays so that hundreds of thousands
+ * of them fit in a few megabytes.
+ */
+public final class VolumeFleet
+{
+    public static final int NO_POLICY = -1;
+
+    private final List<String> poolIds = new ArrayList<>();
+    private final Map<String, Integer> poolIndexes = new HashMap<>();
+    private long[] poolSizes = new long[16];
+
+    private final List<String> policyIds = new ArrayList<>();
+    private final Map<String, Integer> policyIndexes = new HashMap<>();
+    private final List<SnapshotScheduleSimulator.CompiledPolicy> policies = new ArrayList<>();
+
+    private int[] volumePools = new int[256];
+    private int[] volumePolicies = new int[256];
+    private long[] volumeUsedBytes = new long[256];
+    private long[] volumeDailyChangeBytes = new long[256];
+    private int volumeCount;
+
+    /**
+     * Builds a fleet from resources listed from the service. A volume is attached to the policy referenced by its
+     * data protection settings, as set through VolumeSnapshotProperties.withSnapshotPolicyId.
+     * @param pools Capacity Pools of the fleet
+     * @param policies Snapshot Policies referenced by the volumes
+     * @param volumes Volumes of the fleet, their pools must be part of pools
+     * @param dailyChangeRatio Fraction of each volume quota overwritten per day, e.g. 0.02 for 2%
+     * @return The fleet
+     */
+    public static VolumeFleet from(Iterable<CapacityPoolInner> pools, Iterable<SnapshotPolicyInner> policies, Iterable<VolumeInner> volumes, double dailyChangeRatio)
+    {
+        VolumeFleet fleet = new VolumeFleet();
+        for (CapacityPoolInner pool : pools)
+        {
+            fleet.addPool(pool.id(), pool.size());
+        }
+
+        for (SnapshotPolicyInner policy : policies)
+        {
+            fleet.addPolicy(policy.id(), policy);
+        }
+
+        for (VolumeInner volume : volumes)
+        {
+            AnfResourceId volumeId = AnfResourceIdCache.shared().get(volume.id());
+            // Rebuilt from the parsed segments, a resource group or account may itself be named "volumes"
+            String[] poolParams = {volumeId.resourceGroup(), volumeId.accountName(), volumeId.poolName()};
+            String poolId = ResourceKind.CAPACITY_POOL.resourceIdOf(volumeId.subscriptionId(), poolParams);
+            Integer pool = fleet.poolIndexes.get(poolId.toLowerCase(Locale.ROOT));
+            if (pool == null)
+            {
+                throw new IllegalArgumentException("Capacity Pool of volume " + volumeId.volumeName() + " is not part of the fleet");
+            }
+
+            String policyId = volume.dataProtection() != null && volume.dataProtection().snapshot() != null
+                    ? volume.dataProtection().snapshot().snapshotPolicyId()
+                    : null;
+            Integer policy = policyId != null ? fleet.policyIndexes.get(policyId.toLowerCase(Locale.ROOT)) : null;
+
+            fleet.addVolume(pool, policy != null ? policy : NO_POLICY, volume.usageThreshold(), (long) (volume.usageThreshold() * dailyChangeRatio));
+        }
+
+        return fleet;
+    }
+
+    /**
+     * @param poolId Resource id of the Capacity Pool
+     * @param sizeBytes Provisioned size of the pool
+     * @return Index of the pool, to be passed to addVolume
+     */
+    public int addPool(String poolId, long sizeBytes)
+    {
+        int index = poolIds.size();
+        if (poolIndexes.putIfAbsent(poolId.toLowerCase(Locale.ROOT), index) != null)
+        {
+            throw new IllegalArgumentException("Duplicate Capacity Pool: " + poolId);
+        }
+
+        if (index == poolSizes.length)
+        {
+            poolSizes = Arrays.copyOf(poolSizes, index * 2);
+        }
+
+        poolIds.add(poolId);
+        poolSizes[index] = sizeBytes;
+        return index;
+    }
+
+    /**
+     * @param policyId Resource id of the Snapshot Policy
+     * @param policy The Snapshot Policy, its schedules are compiled once and shared by all its volumes
+     * @return Index of the policy, to be passed to addVolume
+     */
+    public int addPolicy(String policyId, SnapshotPolicyInner policy)
+    {
+        int index = policies.size();
+        if (policyIndexes.putIfAbsent(policyId.toLowerCase(Locale.ROOT), index) != null)
+        {
+            throw new IllegalArgumentException("Duplicate Snapshot Policy: " + policyId);
+        }
+
+        policyIds.add(policyId);
+        policies.add(SnapshotScheduleSimulator.compile(policy));
+        return index;
+    }
+
+    /**
+     * @param pool Index returned by addPool
+     * @param policy Index returned by addPolicy, or NO_POLICY
+     * @param usedBytes Bytes currently used by the active file system of the volume
+     * @param dailyChangeBytes Bytes overwritten per day, retained by snapshots until they expire
+     * @return Index of the volume
+     */
+    public int addVolume(int pool, int policy, long usedBytes, long dailyChangeBytes)
+    {
+        if (pool < 0 || pool >= poolIds.size() || policy < NO_POLICY || policy >= policies.size())
+        {
+            throw new IllegalArgumentException("Unknown pool or policy index");
+        }
+
+        if (volumeCount == volumePools.length)
+        {
+            int capacity = volumeCount * 2;
+            volumePools = Arrays.copyOf(volumePools, capacity);
+            volumePolicies = Arrays.copyOf(volumePolicies, capacity);
+            volumeUsedBytes = Arrays.copyOf(volumeUsedBytes, capacity);
+            volumeDailyChangeBytes = Arrays.copyOf(volumeDailyChangeBytes, capacity);
+        }
+
+        volumePools[volumeCount] = pool;
+        volumePolicies[volumeCount] = policy;
+        volumeUsedBytes[volumeCount] = usedBytes;
+        volumeDailyChangeBytes[volumeCount] = dailyChangeBytes;
+        return volumeCount++;
+    }
+
+    public int poolCount()
+    {
+        return poolIds.size();
+    }
+
+    public int policyCount()
+    {
+        return policies.size();
+    }
+
+    public int volumeCount()
+    {
+        return volumeCount;
+    }
+
+    public String poolId(int pool)
+    {
+        return poolIds.get(pool);
+    }
+
+    public long poolSize(int pool)
+    {
+        return poolSizes[pool];
+    }
+
+    public String policyId(int policy)
+    {
+        return policyIds.get(policy);
+    }
+
+    SnapshotScheduleSimulator.CompiledPolicy policy(int policy)
+    {
+        return policies.get(policy);
+    }
+
+    int volumePool(int volume)
+    {
+        return volumePools[volume];
+    }
+
+    int volumePolicy(int volume)
+    {
+        return volumePolicies[volume];
+    }
+
+    long volumeUsedBytes(int volume)
+    {
+        return volumeUsedBytes[volume];
+    }
+
+    long volumeDailyChangeBytes(int volume)
+    {
+        return volumeDailyChangeBytes[volume];
+    }
+}
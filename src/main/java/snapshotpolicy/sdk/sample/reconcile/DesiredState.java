@@ -0,0 +1,362 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.reconcile;
+
+import com.azure.resourcemanager.netapp.fluent.models.CapacityPoolInner;
+import com.azure.resourcemanager.netapp.fluent.models.NetAppAccountInner;
+import com.azure.resourcemanager.netapp.fluent.models.SnapshotPolicyInner;
+import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import com.azure.resourcemanager.netapp.models.DailySchedule;
+import com.azure.resourcemanager.netapp.models.HourlySchedule;
+import com.azure.resourcemanager.netapp.models.MonthlySchedule;
+import com.azure.resourcemanager.netapp.models.ServiceLevel;
+import com.azure.resourcemanager.netapp.models.VolumePropertiesDataProtection;
+import com.azure.resourcemanager.netapp.models.VolumeSnapshotProperties;
+import com.azure.resourcemanager.netapp.models.WeeklySchedule;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Desired state of the ANF resources of a resource group, read from a JSON file such as:
+ * <pre>
+ * {
+ *   "resourceGroup": "my-rg",
+ *   "location": "westus2",
+ *   "prune": false,
+ *   "accounts": [{
+ *     "name": "account1",
+ *     "snapshotPolicies": [{ "name": "policy1", "enabled": true, "hourly": { "snapshotsToKeep": 5, "minute": 50 } }],
+ *     "capacityPools": [{
+ *       "name": "pool1", "serviceLevel": "Standard", "size": 4398046511104,
+ *       "volumes": [{ "name": "volume1", "usageThreshold": 107374182400, "subnetId": "...", "snapshotPolicy": "policy1" }]
+ *     }]
+ *   }]
+ * }
+ * </pre>
+ * Every spec can be hashed, the hash of a resource covers its own settings while the subtree hash of an account or
+ * a pool also covers all of its children.
+ */
+public class DesiredState
+{
+    private static final Gson GSON = new Gson();
+
+    String resourceGroup;
+    String location;
+    boolean prune;
+    List<AccountSpec> accounts = new ArrayList<>();
+
+    /**
+     * @param path JSON desired-state file
+     * @return The parsed desired state
+     * @throws IOException If the file cannot be read
+     */
+    public static DesiredState load(Path path) throws IOException
+    {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8))
+        {
+            DesiredState state = GSON.fromJson(reader, DesiredState.class);
+            if (state == null || state.resourceGroup == null || state.location == null)
+            {
+                throw new IllegalArgumentException("Desired state must define resourceGroup and location: " + path);
+            }
+
+            return state;
+        }
+    }
+
+    public String getResourceGroup()
+    {
+        return resourceGroup;
+    }
+
+    public String getLocation()
+    {
+        return location;
+    }
+
+    /**
+     * @return True if managed resources missing from the file must be deleted
+     */
+    public boolean isPrune()
+    {
+        return prune;
+    }
+
+    public List<AccountSpec> getAccounts()
+    {
+        return accounts != null ? accounts : Collections.emptyList();
+    }
+
+    // Hash of a spec without its children, so that a change to a child does not mark the parent as changed
+    private static String hash(Object spec, String location, String... childFields)
+    {
+        JsonObject json = GSON.toJsonTree(spec).getAsJsonObject();
+        for (String childField : childFields)
+        {
+            json.remove(childField);
+        }
+
+        json.addProperty("location", location);
+        return sha256(json.toString());
+    }
+
+    private static String subtreeHash(String ownHash, List<String> childHashes)
+    {
+        List<String> sorted = new ArrayList<>(childHashes);
+        Collections.sort(sorted);
+        return sha256(ownHash + "|" + String.join(",", sorted));
+    }
+
+    private static String sha256(String value)
+    {
+        try
+        {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            // 128 bits are plenty to detect a change and keep tags short
+            for (int i = 0; i < 16; i++)
+            {
+                hex.append(String.format("%02x", digest[i]));
+            }
+
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, String> tagsOf(Map<String, String> userTags)
+    {
+        return userTags != null ? new HashMap<>(userTags) : new HashMap<>();
+    }
+
+    public static class AccountSpec
+    {
+        String name;
+        Map<String, String> tags;
+        List<SnapshotPolicySpec> snapshotPolicies = new ArrayList<>();
+        List<CapacityPoolSpec> capacityPools = new ArrayList<>();
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public List<SnapshotPolicySpec> getSnapshotPolicies()
+        {
+            return snapshotPolicies != null ? snapshotPolicies : Collections.emptyList();
+        }
+
+        public List<CapacityPoolSpec> getCapacityPools()
+        {
+            return capacityPools != null ? capacityPools : Collections.emptyList();
+        }
+
+        String hash(String location)
+        {
+            return DesiredState.hash(this, location, "snapshotPolicies", "capacityPools");
+        }
+
+        String subtreeHash(String location)
+        {
+            List<String> childHashes = new ArrayList<>();
+            for (SnapshotPolicySpec policy : getSnapshotPolicies())
+            {
+                childHashes.add(policy.hash(location));
+            }
+
+            for (CapacityPoolSpec pool : getCapacityPools())
+            {
+                childHashes.add(pool.subtreeHash(location));
+            }
+
+            return DesiredState.subtreeHash(hash(location), childHashes);
+        }
+
+        NetAppAccountInner toModel(String location)
+        {
+            NetAppAccountInner account = new NetAppAccountInner();
+            account.withLocation(location);
+            account.withTags(tagsOf(tags));
+            return account;
+        }
+    }
+
+    public static class SnapshotPolicySpec
+    {
+        String name;
+        Boolean enabled;
+        Map<String, String> tags;
+        ScheduleSpec hourly;
+        ScheduleSpec daily;
+        ScheduleSpec weekly;
+        ScheduleSpec monthly;
+
+        public String getName()
+        {
+            return name;
+        }
+
+        String hash(String location)
+        {
+            return DesiredState.hash(this, location);
+        }
+
+        SnapshotPolicyInner toModel(String location)
+        {
+            SnapshotPolicyInner policy = new SnapshotPolicyInner();
+            policy.withLocation(location);
+            policy.withTags(tagsOf(tags));
+            policy.withEnabled(enabled != null ? enabled : Boolean.TRUE);
+            if (hourly != null)
+            {
+                policy.withHourlySchedule(new HourlySchedule().withSnapshotsToKeep(hourly.snapshotsToKeep).withMinute(hourly.minute));
+            }
+
+            if (daily != null)
+            {
+                policy.withDailySchedule(new DailySchedule().withSnapshotsToKeep(daily.snapshotsToKeep).withHour(daily.hour).withMinute(daily.minute));
+            }
+
+            if (weekly != null)
+            {
+                policy.withWeeklySchedule(new WeeklySchedule().withSnapshotsToKeep(weekly.snapshotsToKeep).withDay(weekly.day)
+                        .withHour(weekly.hour).withMinute(weekly.minute));
+            }
+
+            if (monthly != null)
+            {
+                policy.withMonthlySchedule(new MonthlySchedule().withSnapshotsToKeep(monthly.snapshotsToKeep).withDaysOfMonth(monthly.daysOfMonth)
+                        .withHour(monthly.hour).withMinute(monthly.minute));
+            }
+
+            return policy;
+        }
+    }
+
+    // Any of the four schedules, unused fields stay null
+    public static class ScheduleSpec
+    {
+        Integer snapshotsToKeep;
+        Integer minute;
+        Integer hour;
+        String day;
+        String daysOfMonth;
+    }
+
+    public static class CapacityPoolSpec
+    {
+        String name;
+        String serviceLevel = "Standard";
+        long size;
+        Map<String, String> tags;
+        List<VolumeSpec> volumes = new ArrayList<>();
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public List<VolumeSpec> getVolumes()
+        {
+            return volumes != null ? volumes : Collections.emptyList();
+        }
+
+        String hash(String location)
+        {
+            return DesiredState.hash(this, location, "volumes");
+        }
+
+        String subtreeHash(String location)
+        {
+            List<String> childHashes = new ArrayList<>();
+            for (VolumeSpec volume : getVolumes())
+            {
+                childHashes.add(volume.hash(location));
+            }
+
+            return DesiredState.subtreeHash(hash(location), childHashes);
+        }
+
+        CapacityPoolInner toModel(String location)
+        {
+            CapacityPoolInner pool = new CapacityPoolInner();
+            pool.withLocation(location);
+            pool.withTags(tagsOf(tags));
+            pool.withServiceLevel(ServiceLevel.fromString(serviceLevel));
+            pool.withSize(size);
+            return pool;
+        }
+    }
+
+    public static class VolumeSpec
+    {
+        String name;
+        String creationToken;
+        String serviceLevel;
+        long usageThreshold;
+        String subnetId;
+        List<String> protocolTypes;
+        String snapshotPolicy;
+        Map<String, String> tags;
+
+        public String getName()
+        {
+            return name;
+        }
+
+        /**
+         * @return Name of a Snapshot Policy of the same account to attach, or null
+         */
+        public String getSnapshotPolicy()
+        {
+            return snapshotPolicy;
+        }
+
+        String hash(String location)
+        {
+            return DesiredState.hash(this, location);
+        }
+
+        VolumeInner toModel(String location, String poolServiceLevel, String snapshotPolicyId)
+        {
+            VolumeInner volume = new VolumeInner();
+            volume.withLocation(location);
+            volume.withTags(tagsOf(tags));
+            volume.withServiceLevel(ServiceLevel.fromString(serviceLevel != null ? serviceLevel : poolServiceLevel));
+            volume.withCreationToken(creationToken != null ? creationToken : name);
+            volume.withUsageThreshold(usageThreshold);
+            volume.withSubnetId(subnetId);
+            volume.withProtocolTypes(protocolTypes != null ? protocolTypes : Collections.singletonList("NFSv3"));
+            if (snapshotPolicyId != null)
+            {
+                VolumeSnapshotProperties snapshotProperties = new VolumeSnapshotProperties();
+                snapshotProperties.withSnapshotPolicyId(snapshotPolicyId);
+
+                VolumePropertiesDataProtection dataProtection = new VolumePropertiesDataProtection();
+                dataProtection.withSnapshot(snapshotProperties);
+                volume.withDataProtection(dataProtection);
+            }
+
+            return volume;
+        }
+    }
+}
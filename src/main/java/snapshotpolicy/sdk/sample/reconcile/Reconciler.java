@@ -0,0 +1,470 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.reconcile;
+
+import com.azure.core.management.Resource;
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import com.azure.resourcemanager.netapp.fluent.models.CapacityPoolInner;
+import com.azure.resourcemanager.netapp.fluent.models.NetAppAccountInner;
+import com.azure.resourcemanager.netapp.fluent.models.SnapshotPolicyInner;
+import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import com.azure.resourcemanager.netapp.models.CapacityPoolPatch;
+import com.azure.resourcemanager.netapp.models.NetAppAccountPatch;
+import com.azure.resourcemanager.netapp.models.VolumePatch;
+import com.azure.resourcemanager.netapp.models.VolumePatchPropertiesDataProtection;
+import snapshotpolicy.sdk.sample.Creation;
+import snapshotpolicy.sdk.sample.TeardownPlanner;
+import snapshotpolicy.sdk.sample.Update;
+import snapshotpolicy.sdk.sample.common.CommonSdk;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
+import snapshotpolicy.sdk.sample.common.Utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Converges the ANF resources of a resource group towards a DesiredState, writing only what differs.
+ *
+ * Every resource written by the reconciler is tagged with the hash of its spec, and accounts and pools also carry
+ * the hash of their whole subtree. Accounts are listed once per run; an account whose subtree hash matches the
+ * file is skipped without listing its children, and so is a pool. Re-running with an unchanged file therefore
+ * costs a single listing and no writes. Changes made outside the reconciler to resources it already converged are
+ * only detected with a full sweep.
+ *
+ * Resources are created with a PUT and changed with a PATCH that only carries the spec fields and the tags, merged
+ * into the existing ones, so that properties the desired state does not manage, such as the Active Directory
+ * connections of an account, are left alone.
+ *
+ * With pruning, the managed resources missing from the desired state are deleted before the subtree hash of their
+ * pool or account is written, and a pool or account whose prune did not fully succeed is left without it, so that
+ * the next run lists it again and retries the deletes.
+ */
+public class Reconciler
+{
+    static final String SPEC_HASH_TAG = "anf-spec-hash";
+    static final String SUBTREE_HASH_TAG = "anf-subtree-hash";
+    static final String MANAGED_TAG = "anf-managed-by";
+    static final String MANAGED_VALUE = "reconciler";
+
+    private final NetAppManagementClient anfClient;
+    private boolean fullSweep;
+
+    /**
+     * @param anfClient Azure NetApp Files Management Client
+     */
+    public Reconciler(NetAppManagementClient anfClient)
+    {
+        this.anfClient = anfClient;
+    }
+
+    /**
+     * @param fullSweep If true, subtree hashes are ignored and every child is listed and compared
+     * @return This reconciler
+     */
+    public Reconciler withFullSweep(boolean fullSweep)
+    {
+        this.fullSweep = fullSweep;
+        return this;
+    }
+
+    /**
+     * Applies the delta between the desired state and the actual resources through Creation, Update and
+     * TeardownPlanner. A failing account is reported and left without a subtree hash so that it is revisited on
+     * the next run, other accounts are still reconciled.
+     * @param state Desired state
+     * @return Counts of listings, writes and skipped subtrees
+     */
+    public ReconcileReport reconcile(DesiredState state)
+    {
+        long start = System.nanoTime();
+        ReconcileReport report = new ReconcileReport();
+        String resourceGroup = state.getResourceGroup();
+        String location = state.getLocation();
+
+        Map<String, NetAppAccountInner> accounts = listByName(ResourceKind.ACCOUNT, new String[]{resourceGroup}, report);
+
+        for (DesiredState.AccountSpec accountSpec : state.getAccounts())
+        {
+            NetAppAccountInner account = accounts.remove(key(accountSpec.getName()));
+            String subtreeHash = accountSpec.subtreeHash(location);
+            if (account != null && !fullSweep && subtreeHash.equals(tag(account, SUBTREE_HASH_TAG)))
+            {
+                report.skippedSubtrees++;
+                continue;
+            }
+
+            try
+            {
+                reconcileAccount(resourceGroup, location, accountSpec, account, subtreeHash, state.isPrune(), report);
+            }
+            catch (RuntimeException e)
+            {
+                report.failures.put(accountSpec.getName(), e);
+                Utils.writeErrorMessage("Reconciliation of account " + accountSpec.getName() + " failed: " + e.getMessage());
+            }
+        }
+
+        if (state.isPrune())
+        {
+            for (NetAppAccountInner account : accounts.values())
+            {
+                if (isManaged(account))
+                {
+                    Utils.writeWarningMessage("Account " + account.name() + " is not in the desired state, pruning accounts is not supported");
+                }
+            }
+        }
+
+        report.elapsed = Duration.ofNanos(System.nanoTime() - start);
+        return report;
+    }
+
+    private void reconcileAccount(String resourceGroup, String location, DesiredState.AccountSpec accountSpec, NetAppAccountInner account,
+                                  String subtreeHash, boolean prune, ReconcileReport report)
+    {
+        String accountName = accountSpec.getName();
+        String accountHash = accountSpec.hash(location);
+        boolean created = account == null;
+        if (created)
+        {
+            account = Creation.createANFAccount(anfClient, resourceGroup, accountName, stamp(accountSpec.toModel(location), accountHash, null));
+            report.writes++;
+        }
+
+        String[] accountParams = {resourceGroup, accountName};
+
+        // Snapshot Policies, volumes need their resource ids
+        Map<String, SnapshotPolicyInner> policies = created ? new HashMap<>() : listByName(ResourceKind.SNAPSHOT_POLICY, accountParams, report);
+        Map<String, String> policyIds = new HashMap<>();
+        for (DesiredState.SnapshotPolicySpec policySpec : accountSpec.getSnapshotPolicies())
+        {
+            String policyHash = policySpec.hash(location);
+            SnapshotPolicyInner policy = policies.remove(key(policySpec.getName()));
+            SnapshotPolicyInner desired = stamp(policySpec.toModel(location), policyHash, null);
+            if (policy == null)
+            {
+                policy = Creation.createSnapshotPolicy(anfClient, resourceGroup, accountName, policySpec.getName(), desired);
+                report.writes++;
+            }
+            else if (!policyHash.equals(tag(policy, SPEC_HASH_TAG)))
+            {
+                SnapshotPolicyInner updated = Update.updateSnapshotPolicyIfChanged(anfClient, resourceGroup, accountName, policySpec.getName(), policy, desired);
+                if (updated != policy)
+                {
+                    report.writes++;
+                }
+
+                policy = updated;
+            }
+            else
+            {
+                report.unchanged++;
+            }
+
+            policyIds.put(key(policySpec.getName()), policy.id());
+        }
+
+        // Capacity Pools and their volumes
+        Map<String, CapacityPoolInner> pools = created ? new HashMap<>() : listByName(ResourceKind.CAPACITY_POOL, accountParams, report);
+        boolean converged = true;
+        for (DesiredState.CapacityPoolSpec poolSpec : accountSpec.getCapacityPools())
+        {
+            CapacityPoolInner pool = pools.remove(key(poolSpec.getName()));
+            converged &= reconcilePool(resourceGroup, location, accountName, poolSpec, pool, policyIds, prune, report);
+        }
+
+        if (prune)
+        {
+            List<String> toPrune = new ArrayList<>();
+            for (CapacityPoolInner pool : pools.values())
+            {
+                if (isManaged(pool))
+                {
+                    // The volumes of a pool missing from the desired state are not listed otherwise, and must go first
+                    String[] poolParams = {resourceGroup, accountName, ResourceKind.CAPACITY_POOL.nameOf(pool)};
+                    addManaged(toPrune, ResourceKind.VOLUME, listByName(ResourceKind.VOLUME, poolParams, report).values());
+                    toPrune.add(pool.id());
+                }
+            }
+
+            addManaged(toPrune, ResourceKind.SNAPSHOT_POLICY, policies.values());
+            converged &= prune(toPrune, report);
+        }
+
+        // Children converged, record it on the account so that the next run can skip the whole subtree
+        if (converged && !subtreeHash.equals(tag(account, SUBTREE_HASH_TAG)))
+        {
+            NetAppAccountPatch accountPatch = new NetAppAccountPatch()
+                    .withTags(mergeTags(account.tags(), accountSpec.toModel(location).tags(), accountHash, subtreeHash));
+            Update.updateANFAccount(anfClient, resourceGroup, accountName, accountPatch);
+            report.writes++;
+        }
+    }
+
+    // Returns true if the pool subtree converged, false if some of its volumes could not be pruned
+    private boolean reconcilePool(String resourceGroup, String location, String accountName, DesiredState.CapacityPoolSpec poolSpec, CapacityPoolInner pool,
+                                  Map<String, String> policyIds, boolean prune, ReconcileReport report)
+    {
+        String poolName = poolSpec.getName();
+        String poolHash = poolSpec.hash(location);
+        String subtreeHash = poolSpec.subtreeHash(location);
+        if (pool != null && !fullSweep && subtreeHash.equals(tag(pool, SUBTREE_HASH_TAG)))
+        {
+            report.skippedSubtrees++;
+            return true;
+        }
+
+        boolean created = pool == null;
+        CapacityPoolInner desiredPool = poolSpec.toModel(location);
+        if (created)
+        {
+            pool = Creation.createCapacityPool(anfClient, resourceGroup, accountName, poolName, stamp(desiredPool, poolHash, null));
+            report.writes++;
+        }
+        else if (!poolHash.equals(tag(pool, SPEC_HASH_TAG)))
+        {
+            if (desiredPool.serviceLevel() != null && !desiredPool.serviceLevel().equals(pool.serviceLevel()))
+            {
+                Utils.writeWarningMessage("Capacity Pool " + poolName + " service level cannot be changed by an update, it stays " + pool.serviceLevel());
+            }
+
+            CapacityPoolPatch poolPatch = new CapacityPoolPatch()
+                    .withSize(desiredPool.size())
+                    .withTags(mergeTags(pool.tags(), desiredPool.tags(), poolHash, null));
+            pool = Update.updateCapacityPool(anfClient, resourceGroup, accountName, poolName, poolPatch);
+            report.writes++;
+        }
+
+        Map<String, VolumeInner> volumes = created ? new HashMap<>() : listByName(ResourceKind.VOLUME, new String[]{resourceGroup, accountName, poolName}, report);
+        for (DesiredState.VolumeSpec volumeSpec : poolSpec.getVolumes())
+        {
+            String volumeHash = volumeSpec.hash(location);
+            VolumeInner volume = volumes.remove(key(volumeSpec.getName()));
+            if (volume != null && volumeHash.equals(tag(volume, SPEC_HASH_TAG)))
+            {
+                report.unchanged++;
+                continue;
+            }
+
+            String policyId = null;
+            if (volumeSpec.getSnapshotPolicy() != null)
+            {
+                policyId = policyIds.get(key(volumeSpec.getSnapshotPolicy()));
+                if (policyId == null)
+                {
+                    throw new IllegalArgumentException("Volume " + volumeSpec.getName() + " references unknown Snapshot Policy " + volumeSpec.getSnapshotPolicy());
+                }
+            }
+
+            VolumeInner desiredVolume = volumeSpec.toModel(location, poolSpec.serviceLevel, policyId);
+            if (volume == null)
+            {
+                Creation.createVolume(anfClient, resourceGroup, accountName, poolName, volumeSpec.getName(), stamp(desiredVolume, volumeHash, null));
+            }
+            else
+            {
+                // Creation token, subnet and protocols are fixed at creation, only the mutable fields are patched
+                Update.updateVolume(anfClient, resourceGroup, accountName, poolName, volumeSpec.getName(), volumePatch(volume, desiredVolume, volumeHash));
+            }
+
+            report.writes++;
+        }
+
+        boolean converged = true;
+        if (prune)
+        {
+            List<String> toPrune = new ArrayList<>();
+            addManaged(toPrune, ResourceKind.VOLUME, volumes.values());
+            converged = prune(toPrune, report);
+        }
+
+        if (converged && !subtreeHash.equals(tag(pool, SUBTREE_HASH_TAG)))
+        {
+            CapacityPoolPatch poolPatch = new CapacityPoolPatch().withTags(mergeTags(pool.tags(), desiredPool.tags(), poolHash, subtreeHash));
+            Update.updateCapacityPool(anfClient, resourceGroup, accountName, poolName, poolPatch);
+            report.writes++;
+        }
+
+        return converged;
+    }
+
+    // Returns true if every resource was deleted
+    private boolean prune(List<String> resourceIds, ReconcileReport report)
+    {
+        if (resourceIds.isEmpty())
+        {
+            return true;
+        }
+
+        Utils.writeConsoleMessage("Pruning " + resourceIds.size() + " resource(s) missing from the desired state...");
+        TeardownPlanner.TeardownReport teardown = new TeardownPlanner(anfClient, 8).execute(resourceIds);
+        report.deletes += teardown.getDeleted().size();
+        report.failures.putAll(teardown.getFailed());
+        return teardown.isSuccessful();
+    }
+
+    private <T> Map<String, T> listByName(ResourceKind<T> kind, String[] parentParams, ReconcileReport report)
+    {
+        report.listings++;
+        return CommonSdk.execute(anfClient, kind, "list", () ->
+        {
+            Map<String, T> resources = new LinkedHashMap<>();
+            for (T resource : kind.list(anfClient, parentParams))
+            {
+                resources.put(key(kind.nameOf(resource)), resource);
+            }
+
+            return resources;
+        });
+    }
+
+    private static <T extends Resource> void addManaged(List<String> toPrune, ResourceKind<T> kind, Iterable<T> resources)
+    {
+        for (T resource : resources)
+        {
+            if (isManaged(resource))
+            {
+                toPrune.add(kind.idOf(resource));
+            }
+        }
+    }
+
+    private static VolumePatch volumePatch(VolumeInner volume, VolumeInner desired, String specHash)
+    {
+        VolumePatch volumePatch = new VolumePatch()
+                .withServiceLevel(desired.serviceLevel())
+                .withUsageThreshold(desired.usageThreshold())
+                .withTags(mergeTags(volume.tags(), desired.tags(), specHash, null));
+        if (desired.dataProtection() != null)
+        {
+            volumePatch.withDataProtection(new VolumePatchPropertiesDataProtection().withSnapshot(desired.dataProtection().snapshot()));
+        }
+
+        return volumePatch;
+    }
+
+    private static <T extends Resource> T stamp(T resource, String specHash, String subtreeHash)
+    {
+        resource.withTags(mergeTags(null, resource.tags(), specHash, subtreeHash));
+        return resource;
+    }
+
+    /**
+     * @param currentTags Tags of the existing resource, kept unless the spec sets them, or null
+     * @param specTags Tags of the spec, or null
+     * @param specHash Hash of the spec
+     * @param subtreeHash Hash of the subtree, or null to keep the current one
+     * @return The tags to write, PUT and PATCH both replace the whole set
+     */
+    private static Map<String, String> mergeTags(Map<String, String> currentTags, Map<String, String> specTags, String specHash, String subtreeHash)
+    {
+        Map<String, String> tags = currentTags != null ? new HashMap<>(currentTags) : new HashMap<>();
+        if (specTags != null)
+        {
+            tags.putAll(specTags);
+        }
+
+        tags.put(MANAGED_TAG, MANAGED_VALUE);
+        tags.put(SPEC_HASH_TAG, specHash);
+        if (subtreeHash != null)
+        {
+            tags.put(SUBTREE_HASH_TAG, subtreeHash);
+        }
+
+        return tags;
+    }
+
+    private static boolean isManaged(Resource resource)
+    {
+        return MANAGED_VALUE.equals(tag(resource, MANAGED_TAG));
+    }
+
+    private static String tag(Resource resource, String name)
+    {
+        return resource.tags() != null ? resource.tags().get(name) : null;
+    }
+
+    private static String key(String name)
+    {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    // Outcome of a reconciliation run
+    public static class ReconcileReport
+    {
+        private int listings;
+        private int writes;
+        private int deletes;
+        private int unchanged;
+        private int skippedSubtrees;
+        private final Map<String, Throwable> failures = new LinkedHashMap<>();
+        private Duration elapsed = Duration.ZERO;
+
+        public boolean isSuccessful()
+        {
+            return failures.isEmpty();
+        }
+
+        /**
+         * @return Number of list calls sent, each may span several pages
+         */
+        public int getListings()
+        {
+            return listings;
+        }
+
+        /**
+         * @return Number of create and update calls sent
+         */
+        public int getWrites()
+        {
+            return writes;
+        }
+
+        public int getDeletes()
+        {
+            return deletes;
+        }
+
+        /**
+         * @return Number of listed resources whose spec hash already matched
+         */
+        public int getUnchanged()
+        {
+            return unchanged;
+        }
+
+        /**
+         * @return Number of accounts and pools skipped because their subtree hash matched
+         */
+        public int getSkippedSubtrees()
+        {
+            return skippedSubtrees;
+        }
+
+        public Map<String, Throwable> getFailures()
+        {
+            return failures;
+        }
+
+        public Duration getElapsed()
+        {
+            return elapsed;
+        }
+
+        public void print()
+        {
+            Utils.writeConsoleMessage("Reconciliation finished in " + elapsed.toMillis() + "ms: " + listings + " listing(s), "
+                    + writes + " write(s), " + deletes + " delete(s), " + unchanged + " unchanged, " + skippedSubtrees + " subtree(s) skipped");
+            failures.forEach((name, e) -> Utils.writeErrorMessage(name + ": " + e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.sweep;
+
+import snapshotpolicy.sdk.sample.inventory.SnapshotRecord;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Decides which snapshots of a volume the SnapshotSweeper deletes. Only snapshots whose name matches the name
+ * pattern, if any, are considered; of those, a snapshot expires when it is older than the maximum age or when more
+ * recent ones already fill the per-volume maximum count. Snapshots without a creation time count as the most recent
+ * ones and never expire by age. A rule without maximum age nor maximum count expires nothing.
+ */
+public class RetentionRule
+{
+    // Most recent first, snapshots of unknown age first of all
+    private static final Comparator<SnapshotRecord> NEWEST_FIRST = Comparator.comparing(SnapshotRecord::created,
+            Comparator.nullsFirst(Comparator.<Instant>reverseOrder()));
+
+    private Duration maxAge;
+    private int maxCount = Integer.MAX_VALUE;
+    private Pattern namePattern;
+
+    /**
+     * @param maxAge Age above which a snapshot expires
+     * @return This rule
+     */
+    public RetentionRule withMaxAge(Duration maxAge)
+    {
+        if (maxAge.isNegative())
+        {
+            throw new IllegalArgumentException("maxAge must not be negative");
+        }
+
+        this.maxAge = maxAge;
+        return this;
+    }
+
+    /**
+     * @param maxCount Number of snapshots kept per volume among those matching the name pattern, the oldest expire first
+     * @return This rule
+     */
+    public RetentionRule withMaxCount(int maxCount)
+    {
+        if (maxCount < 0)
+        {
+            throw new IllegalArgumentException("maxCount must not be negative");
+        }
+
+        this.maxCount = maxCount;
+        return this;
+    }
+
+    /**
+     * @param namePattern Regular expression a snapshot name must fully match for the rule to apply to it
+     * @return This rule
+     */
+    public RetentionRule withNamePattern(Pattern namePattern)
+    {
+        this.namePattern = namePattern;
+        return this;
+    }
+
+    /**
+     * @param snapshotName Name of a snapshot, without the names of its parents
+     * @return True if the rule applies to the snapshot
+     */
+    public boolean matches(String snapshotName)
+    {
+        return namePattern == null || namePattern.matcher(snapshotName).matches();
+    }
+
+    /**
+     * @param candidates Snapshots of a single volume the rule applies to
+     * @param now Time the ages are computed at
+     * @return The expired snapshots with the reason they expired, oldest last
+     */
+    public Map<SnapshotRecord, String> expired(List<SnapshotRecord> candidates, Instant now)
+    {
+        Map<SnapshotRecord, String> expired = new LinkedHashMap<>();
+        if (maxAge == null && maxCount == Integer.MAX_VALUE)
+        {
+            return expired;
+        }
+
+        List<SnapshotRecord> newestFirst = new ArrayList<>(candidates);
+        newestFirst.sort(NEWEST_FIRST);
+        Instant oldestKept = maxAge != null ? now.minus(maxAge) : null;
+        for (int i = 0; i < newestFirst.size(); i++)
+        {
+            SnapshotRecord snapshot = newestFirst.get(i);
+            Instant created = snapshot.created();
+            if (oldestKept != null && created != null && created.isBefore(oldestKept))
+            {
+                expired.put(snapshot, "older than " + maxAge.toHours() + "h");
+            }
+            else if (i >= maxCount)
+            {
+                expired.put(snapshot, "beyond the " + maxCount + " most recent");
+            }
+        }
+
+        return expired;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "maxAge=" + maxAge + " maxCount=" + (maxCount == Integer.MAX_VALUE ? "unlimited" : maxCount)
+                + " namePattern=" + (namePattern != null ? namePattern.pattern() : "any");
+    }
+}
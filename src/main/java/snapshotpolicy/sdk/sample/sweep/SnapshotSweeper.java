@@ -0,0 +1,377 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.sweep;
+
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import snapshotpolicy.sdk.sample.Cleanup;
+import snapshotpolicy.sdk.sample.common.AnfResourceId;
+import snapshotpolicy.sdk.sample.common.CommonSdk;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
+import snapshotpolicy.sdk.sample.common.Utils;
+import snapshotpolicy.sdk.sample.common.WorkflowExecutors;
+import snapshotpolicy.sdk.sample.inventory.PolicyVolumeIndex;
+import snapshotpolicy.sdk.sample.inventory.SnapshotInventory;
+import snapshotpolicy.sdk.sample.inventory.SnapshotRecord;
+import snapshotpolicy.sdk.sample.inventory.VolumeSnapshots;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes the manual and orphaned snapshots a RetentionRule expires, which snapshot policies never reclaim:
+ * - manual snapshots, i.e. not named like the snapshots taken by policies, are subject to the rule
+ * - policy snapshots are only subject to it once orphaned, i.e. when a PolicyVolumeIndex shows that their volume no
+ *   longer uses a snapshot policy; without an index they are always kept
+ * The deletion set is computed volume by volume from a SnapshotInventory stream, then deleted in batches of batchSize
+ * snapshots, up to concurrency at once, through Cleanup and so through the ARM rate limiter. With a checkpoint file
+ * every planned volume and every completed batch is recorded, and a sweep started again with the same file neither
+ * lists the volumes already planned nor deletes the snapshots already deleted.
+ */
+public class SnapshotSweeper
+{
+    public static final int DEFAULT_CONCURRENCY = 8;
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private final NetAppManagementClient anfClient;
+    private final RetentionRule rule;
+    private String resourceGroup;
+    private PolicyVolumeIndex policyIndex;
+    private Path checkpointFile;
+    private boolean dryRun;
+    private int concurrency = DEFAULT_CONCURRENCY;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * @param anfClient Azure NetApp Files Management Client
+     * @param rule Retention rule deciding which snapshots expire
+     */
+    public SnapshotSweeper(NetAppManagementClient anfClient, RetentionRule rule)
+    {
+        this.anfClient = anfClient;
+        this.rule = rule;
+    }
+
+    /**
+     * @param resourceGroup Resource group to sweep, or null to sweep the whole subscription
+     * @return This sweeper
+     */
+    public SnapshotSweeper withResourceGroup(String resourceGroup)
+    {
+        this.resourceGroup = resourceGroup;
+        return this;
+    }
+
+    /**
+     * @param policyIndex Index telling which volumes still use a snapshot policy, enables sweeping orphaned policy snapshots
+     * @return This sweeper
+     */
+    public SnapshotSweeper withPolicyIndex(PolicyVolumeIndex policyIndex)
+    {
+        this.policyIndex = policyIndex;
+        return this;
+    }
+
+    /**
+     * @param checkpointFile File recording the progress of the sweep, created if missing and resumed from otherwise
+     * @return This sweeper
+     */
+    public SnapshotSweeper withCheckpointFile(Path checkpointFile)
+    {
+        this.checkpointFile = checkpointFile;
+        return this;
+    }
+
+    /**
+     * @param dryRun If true, the plan is written to the console and nothing is deleted nor checkpointed
+     * @return This sweeper
+     */
+    public SnapshotSweeper withDryRun(boolean dryRun)
+    {
+        this.dryRun = dryRun;
+        return this;
+    }
+
+    /**
+     * @param concurrency Number of volumes listed, and of snapshots deleted, at the same time
+     * @return This sweeper
+     */
+    public SnapshotSweeper withConcurrency(int concurrency)
+    {
+        if (concurrency < 1)
+        {
+            throw new IllegalArgumentException("concurrency must be positive");
+        }
+
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * @param batchSize Number of snapshots deleted between two checkpoints
+     * @return This sweeper
+     */
+    public SnapshotSweeper withBatchSize(int batchSize)
+    {
+        if (batchSize < 1)
+        {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Plans the sweep, or resumes its plan from the checkpoint file, then deletes the expired snapshots
+     * @return Summary of the sweep
+     */
+    public SweepReport sweep() throws IOException
+    {
+        SweepReport report = new SweepReport(dryRun);
+        long start = System.nanoTime();
+        try (SweepCheckpoint checkpoint = checkpointFile != null && !dryRun ? SweepCheckpoint.open(checkpointFile, scope()) : SweepCheckpoint.inMemory())
+        {
+            if (checkpoint.isPlanComplete())
+            {
+                Utils.writeConsoleMessage("Resuming snapshot sweep from " + checkpointFile + ", plan already complete");
+            }
+            else
+            {
+                plan(checkpoint, report);
+            }
+
+            report.planned = checkpoint.getPlannedCount();
+            if (!dryRun)
+            {
+                delete(checkpoint.getPending(), checkpoint, report);
+            }
+        }
+
+        report.elapsed = Duration.ofNanos(System.nanoTime() - start);
+        return report;
+    }
+
+    // Identifies the sweep in its checkpoint, resuming with another scope or rule would delete by a stale plan
+    private String scope()
+    {
+        return "subscription=" + CommonSdk.subscriptionOf(anfClient) + " resourceGroup=" + (resourceGroup != null ? resourceGroup : "*") + " " + rule;
+    }
+
+    private void plan(SweepCheckpoint checkpoint, SweepReport report)
+    {
+        Utils.writeConsoleMessage("Planning snapshot sweep (" + rule + ")" + (dryRun ? ", dry run" : ""));
+        Instant now = Instant.now();
+        new SnapshotInventory(anfClient)
+                .withResourceGroup(resourceGroup)
+                .withVolumeConcurrency(concurrency)
+                .streamByVolume(volumeId ->
+                {
+                    boolean planned = checkpoint.isVolumePlanned(volumeId);
+                    if (planned)
+                    {
+                        report.resumedVolumes.incrementAndGet();
+                    }
+
+                    return !planned;
+                })
+                .doOnNext(volume -> checkpoint.volumePlanned(volume.volumeId(), expired(volume, now, report)))
+                .blockLast();
+        checkpoint.planCompleted();
+    }
+
+    // Applies the rule to the candidates of a volume, returns the ids of the expired snapshots
+    private List<String> expired(VolumeSnapshots volume, Instant now, SweepReport report)
+    {
+        report.scannedVolumes.incrementAndGet();
+        report.scannedSnapshots.addAndGet(volume.snapshots().size());
+        boolean orphaned = policyIndex != null && policyIndex.contains(volume.volumeId()) && policyIndex.policyOf(volume.volumeId()) == null;
+        List<SnapshotRecord> candidates = new ArrayList<>();
+        for (SnapshotRecord snapshot : volume.snapshots())
+        {
+            if ((!snapshot.isPolicyGenerated() || orphaned) && rule.matches(snapshot.name()))
+            {
+                candidates.add(snapshot);
+            }
+        }
+
+        List<String> expiredIds = new ArrayList<>();
+        for (Map.Entry<SnapshotRecord, String> entry : rule.expired(candidates, now).entrySet())
+        {
+            expiredIds.add(entry.getKey().id());
+            if (dryRun)
+            {
+                Utils.writeConsoleMessage("Would delete snapshot", "resourceId", entry.getKey().id(), "reason", entry.getValue());
+            }
+        }
+
+        return expiredIds;
+    }
+
+    private void delete(List<String> pending, SweepCheckpoint checkpoint, SweepReport report)
+    {
+        if (pending.isEmpty())
+        {
+            return;
+        }
+
+        Utils.writeConsoleMessage("Deleting " + pending.size() + " snapshot(s) in batches of " + batchSize + "...");
+        ExecutorService executor = WorkflowExecutors.newBoundedExecutor(concurrency);
+        try
+        {
+            for (int batchStart = 0; batchStart < pending.size(); batchStart += batchSize)
+            {
+                Map<String, Future<?>> futures = new LinkedHashMap<>();
+                for (String snapshotId : pending.subList(batchStart, Math.min(batchStart + batchSize, pending.size())))
+                {
+                    futures.put(snapshotId, executor.submit(() -> deleteSnapshot(snapshotId)));
+                }
+
+                List<String> done = new ArrayList<>();
+                for (Map.Entry<String, Future<?>> entry : futures.entrySet())
+                {
+                    try
+                    {
+                        entry.getValue().get();
+                        report.deleted.add(entry.getKey());
+                        done.add(entry.getKey());
+                    }
+                    catch (ExecutionException e)
+                    {
+                        if (CommonSdk.isNotFound(e.getCause()))
+                        {
+                            // Deleted meanwhile, e.g. by its policy or by a previous run killed before its checkpoint
+                            report.alreadyGone.incrementAndGet();
+                            done.add(entry.getKey());
+                        }
+                        else
+                        {
+                            Utils.writeErrorMessage("Failed to delete " + entry.getKey() + ": " + e.getCause().getMessage());
+                            report.failed.put(entry.getKey(), e.getCause());
+                        }
+                    }
+                }
+
+                checkpoint.snapshotsDeleted(done);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private void deleteSnapshot(String snapshotId)
+    {
+        Cleanup.runCleanupTask(anfClient, ResourceKind.SNAPSHOT.paramsOf(AnfResourceId.parse(snapshotId)), ResourceKind.SNAPSHOT);
+    }
+
+    // Summary of a sweep
+    public static class SweepReport
+    {
+        private final boolean dryRun;
+        private final AtomicLong scannedVolumes = new AtomicLong();
+        private final AtomicLong resumedVolumes = new AtomicLong();
+        private final AtomicLong scannedSnapshots = new AtomicLong();
+        private final AtomicLong alreadyGone = new AtomicLong();
+        private final List<String> deleted = new ArrayList<>();
+        private final Map<String, Throwable> failed = new ConcurrentHashMap<>();
+        private int planned;
+        private Duration elapsed = Duration.ZERO;
+
+        SweepReport(boolean dryRun)
+        {
+            this.dryRun = dryRun;
+        }
+
+        public boolean isSuccessful()
+        {
+            return failed.isEmpty();
+        }
+
+        /**
+         * @return Number of volumes whose snapshots were listed by this run
+         */
+        public long getScannedVolumes()
+        {
+            return scannedVolumes.get();
+        }
+
+        /**
+         * @return Number of volumes skipped since a previous run already planned them
+         */
+        public long getResumedVolumes()
+        {
+            return resumedVolumes.get();
+        }
+
+        public long getScannedSnapshots()
+        {
+            return scannedSnapshots.get();
+        }
+
+        /**
+         * @return Number of snapshots in the plan, including those deleted by a previous run
+         */
+        public int getPlanned()
+        {
+            return planned;
+        }
+
+        public List<String> getDeleted()
+        {
+            return Collections.unmodifiableList(deleted);
+        }
+
+        /**
+         * @return Number of planned snapshots that no longer existed when their delete was sent
+         */
+        public long getAlreadyGone()
+        {
+            return alreadyGone.get();
+        }
+
+        public Map<String, Throwable> getFailed()
+        {
+            return Collections.unmodifiableMap(failed);
+        }
+
+        public Duration getElapsed()
+        {
+            return elapsed;
+        }
+
+        /**
+         * Writes the summary to the console
+         */
+        public void print()
+        {
+            Utils.writeConsoleMessage("Snapshot sweep " + (dryRun ? "dry run " : "") + "finished in " + elapsed.getSeconds() + "s: "
+                    + scannedSnapshots.get() + " snapshots in " + scannedVolumes.get() + " volumes scanned, "
+                    + resumedVolumes.get() + " volumes resumed, " + planned + " planned, " + deleted.size() + " deleted, "
+                    + alreadyGone.get() + " already gone, " + failed.size() + " failed");
+            for (Map.Entry<String, Throwable> entry : failed.entrySet())
+            {
+                Utils.writeErrorMessage("Failed: " + entry.getKey() + " - " + entry.getValue().getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,285 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.sweep;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Progress of a sweep, appended to a text file so that a killed sweep resumes where it stopped. One entry per line:
+ *   D snapshotId   the snapshot is to be deleted
+ *   V volumeId     every snapshot of the volume to delete was recorded above, the volume is not listed again
+ *   P              the plan is complete, no volume is listed again
+ *   X snapshotId   the snapshot was deleted or was already gone
+ * A line cut short by a kill is discarded when the file is opened again. The header records the scope and the rule
+ * of the sweep, a file written by a different sweep is refused rather than resumed with another plan.
+ */
+final class SweepCheckpoint implements Closeable
+{
+    private static final String HEADER = "# ANF snapshot sweep checkpoint";
+    private static final String SCOPE_PREFIX = "# scope ";
+
+    // Read by the inventory threads while volumes are being recorded
+    private final Set<String> plannedVolumes = ConcurrentHashMap.newKeySet();
+    private final Set<String> planned = new LinkedHashSet<>();
+    private final Set<String> deleted = new HashSet<>();
+    private final BufferedWriter writer;
+    private boolean planComplete;
+
+    private SweepCheckpoint(BufferedWriter writer)
+    {
+        this.writer = writer;
+    }
+
+    /**
+     * @return Checkpoint kept in memory only, for sweeps that are not meant to be resumed
+     */
+    static SweepCheckpoint inMemory()
+    {
+        return new SweepCheckpoint(null);
+    }
+
+    /**
+     * Loads the progress recorded in a file, creating it if missing
+     * @param file Checkpoint file
+     * @param scope Subscription, resource group and rule of the sweep, single line
+     * @return Checkpoint appending to the file
+     * @throws IllegalStateException If the file was written by a sweep of another scope or rule
+     */
+    static SweepCheckpoint open(Path file, String scope) throws IOException
+    {
+        boolean exists = Files.exists(file);
+        if (exists)
+        {
+            discardIncompleteLine(file);
+            String recordedScope = readScope(file);
+            if (!scope.equals(recordedScope))
+            {
+                throw new IllegalStateException("Checkpoint " + file + " belongs to another sweep (" + (recordedScope != null ? recordedScope : "no scope recorded")
+                        + "), not to " + scope + ". Delete it or use another file.");
+            }
+        }
+
+        BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        SweepCheckpoint checkpoint = new SweepCheckpoint(writer);
+        if (exists)
+        {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8))
+            {
+                String line;
+                while ((line = reader.readLine()) != null)
+                {
+                    checkpoint.load(line);
+                }
+            }
+        }
+        else
+        {
+            checkpoint.append(HEADER);
+            checkpoint.append(SCOPE_PREFIX + scope);
+            checkpoint.flush();
+        }
+
+        return checkpoint;
+    }
+
+    boolean isPlanComplete()
+    {
+        return planComplete;
+    }
+
+    boolean isVolumePlanned(String volumeId)
+    {
+        return planComplete || plannedVolumes.contains(volumeId);
+    }
+
+    int getPlannedCount()
+    {
+        return planned.size();
+    }
+
+    /**
+     * @return Snapshots planned for deletion and not deleted yet, in plan order
+     */
+    List<String> getPending()
+    {
+        List<String> pending = new ArrayList<>();
+        for (String snapshotId : planned)
+        {
+            if (!deleted.contains(snapshotId))
+            {
+                pending.add(snapshotId);
+            }
+        }
+
+        return pending;
+    }
+
+    /**
+     * Records the snapshots to delete of a volume, then the volume itself
+     * @param volumeId Resource id of the volume
+     * @param snapshotIds Snapshots of the volume to delete, possibly none
+     */
+    synchronized void volumePlanned(String volumeId, Collection<String> snapshotIds)
+    {
+        for (String snapshotId : snapshotIds)
+        {
+            if (planned.add(snapshotId))
+            {
+                append("D " + snapshotId);
+            }
+        }
+
+        plannedVolumes.add(volumeId);
+        append("V " + volumeId);
+        flush();
+    }
+
+    synchronized void planCompleted()
+    {
+        planComplete = true;
+        append("P");
+        flush();
+    }
+
+    /**
+     * @param snapshotIds Snapshots deleted, or found already gone
+     */
+    synchronized void snapshotsDeleted(Collection<String> snapshotIds)
+    {
+        for (String snapshotId : snapshotIds)
+        {
+            deleted.add(snapshotId);
+            append("X " + snapshotId);
+        }
+
+        flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (writer != null)
+        {
+            writer.close();
+        }
+    }
+
+    private void load(String line)
+    {
+        if (line.equals("P"))
+        {
+            planComplete = true;
+        }
+        else if (line.startsWith("D "))
+        {
+            planned.add(line.substring(2));
+        }
+        else if (line.startsWith("V "))
+        {
+            plannedVolumes.add(line.substring(2));
+        }
+        else if (line.startsWith("X "))
+        {
+            deleted.add(line.substring(2));
+        }
+    }
+
+    private void append(String line)
+    {
+        if (writer == null)
+        {
+            return;
+        }
+
+        try
+        {
+            writer.write(line);
+            writer.newLine();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flush()
+    {
+        if (writer == null)
+        {
+            return;
+        }
+
+        try
+        {
+            writer.flush();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Scope recorded in the header, or null if there is none
+    private static String readScope(Path file) throws IOException
+    {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8))
+        {
+            String line;
+            while ((line = reader.readLine()) != null && line.startsWith("#"))
+            {
+                if (line.startsWith(SCOPE_PREFIX))
+                {
+                    return line.substring(SCOPE_PREFIX.length());
+                }
+            }
+        }
+
+        return null;
+    }
+
+    // Truncates the file after its last complete line
+    private static void discardIncompleteLine(Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            long end = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(1);
+            while (end > 0)
+            {
+                buffer.clear();
+                channel.read(buffer, end - 1);
+                if (buffer.get(0) == '\n')
+                {
+                    break;
+                }
+
+                end--;
+            }
+
+            if (end < channel.size())
+            {
+                channel.truncate(end);
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.throttling;
+
+import java.time.Duration;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket whose refill rate adapts to throttling (AIMD): every throttled response halves the rate, at most once
+ * per second, and pauses the bucket for the Retry-After delay; every successful request raises the rate again by
+ * about one request per second each second, up to the configured rate. Waiting callers are served by priority, then
+ * in arrival order.
+ */
+final class AdaptiveTokenBucket
+{
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long DECREASE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final double maxRate;
+    private final double minRate;
+    private final double burst;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>();
+    private long sequence;
+
+    private double rate;
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+    private long pausedUntil = lastRefill;
+    private long lastDecrease = lastRefill - DECREASE_INTERVAL_NANOS;
+
+    /**
+     * @param ratePerSecond Steady-state number of requests per second
+     * @param burst Number of requests that may be sent at once after an idle period
+     */
+    AdaptiveTokenBucket(double ratePerSecond, int burst)
+    {
+        if (ratePerSecond <= 0 || burst < 1)
+        {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+
+        this.maxRate = ratePerSecond;
+        this.minRate = Math.min(ratePerSecond, 0.1);
+        this.burst = burst;
+        this.rate = ratePerSecond;
+        this.tokens = burst;
+    }
+
+    /**
+     * Takes a token, waiting until one is available and no caller of a lower priority number waits before this one
+     * @param priority Lower values are served first
+     */
+    void acquire(int priority) throws InterruptedException
+    {
+        lock.lockInterruptibly();
+        try
+        {
+            Waiter waiter = new Waiter(priority, sequence++);
+            waiters.add(waiter);
+            try
+            {
+                while (true)
+                {
+                    if (waiters.peek() != waiter)
+                    {
+                        changed.await();
+                        continue;
+                    }
+
+                    long now = System.nanoTime();
+                    refill(now);
+                    long wait = Math.max(pausedUntil - now, tokens >= 1 ? 0 : (long) ((1 - tokens) / rate * NANOS_PER_SECOND));
+                    if (wait <= 0)
+                    {
+                        tokens -= 1;
+                        waiters.poll();
+                        changed.signalAll();
+                        return;
+                    }
+
+                    changed.awaitNanos(wait);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                waiters.remove(waiter);
+                changed.signalAll();
+                throw e;
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Slows down after a throttled response
+     * @param retryAfter Delay requested by the service, nothing is sent from this bucket before it elapses
+     */
+    void onThrottled(Duration retryAfter)
+    {
+        lock.lock();
+        try
+        {
+            long now = System.nanoTime();
+            refill(now);
+            // Responses to requests sent before the previous decrease report the same overload, count it once
+            if (now - lastDecrease >= DECREASE_INTERVAL_NANOS)
+            {
+                rate = Math.max(minRate, rate / 2);
+                lastDecrease = now;
+            }
+
+            tokens = Math.min(tokens, 0);
+            pausedUntil = Math.max(pausedUntil, now + retryAfter.toNanos());
+            // No tokens accrue during the pause, the bucket restarts empty once it is over
+            lastRefill = pausedUntil;
+            changed.signalAll();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Speeds back up after a successful request
+     */
+    void onSuccess()
+    {
+        lock.lock();
+        try
+        {
+            if (rate < maxRate)
+            {
+                rate = Math.min(maxRate, rate + 1 / rate);
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Current refill rate in requests per second
+     */
+    double getRate()
+    {
+        lock.lock();
+        try
+        {
+            return rate;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private void refill(long now)
+    {
+        if (now - lastRefill <= 0)
+        {
+            return;
+        }
+
+        tokens = Math.min(burst, tokens + (now - lastRefill) * rate / NANOS_PER_SECOND);
+        lastRefill = now;
+    }
+
+    private static final class Waiter implements Comparable<Waiter>
+    {
+        final int priority;
+        final long sequence;
+
+        Waiter(int priority, long sequence)
+        {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Waiter other)
+        {
+            return priority != other.priority ? Integer.compare(priority, other.priority) : Long.compare(sequence, other.sequence);
+        }
+    }
+}
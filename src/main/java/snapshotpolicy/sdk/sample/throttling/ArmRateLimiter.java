@@ -0,0 +1,257 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.throttling;
+
+import com.azure.core.exception.HttpResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+import snapshotpolicy.sdk.sample.common.CommonSdk;
+import snapshotpolicy.sdk.sample.common.Utils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Client-side rate limiter for ARM requests. Every subscription gets a read and a write token bucket, mirroring the
+ * budgets ARM enforces, and every request takes a token before it is sent. Throttled (429) responses halve the rate
+ * of the bucket and pause it for the Retry-After delay, unavailable (503) responses only pause it, and the request is
+ * retried up to maxRetries times. Reads never wait behind writes since they have their own budget, and deletes wait
+ * behind creates and updates for write tokens.
+ * The shared limiter is configured from system properties:
+ *   anf.rateLimit.enabled          true (default) or false to send requests unthrottled
+ *   anf.rateLimit.readsPerSecond   25 (default), refill rate of the read bucket
+ *   anf.rateLimit.readBurst        250 (default), size of the read bucket
+ *   anf.rateLimit.writesPerSecond  10 (default), refill rate of the write bucket
+ *   anf.rateLimit.writeBurst       200 (default), size of the write bucket
+ *   anf.rateLimit.maxRetries       5 (default), retries of a throttled request
+ */
+public class ArmRateLimiter
+{
+    private static volatile ArmRateLimiter shared = fromSystemProperties();
+
+    private final double readsPerSecond;
+    private final int readBurst;
+    private final double writesPerSecond;
+    private final int writeBurst;
+    private final int maxRetries;
+    private final boolean enabled;
+    private final Map<String, AdaptiveTokenBucket[]> buckets = new ConcurrentHashMap<>();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    /**
+     * @param readsPerSecond Steady-state reads per second and subscription
+     * @param readBurst Reads that may be sent at once after an idle period
+     * @param writesPerSecond Steady-state writes and deletes per second and subscription
+     * @param writeBurst Writes that may be sent at once after an idle period
+     * @param maxRetries Number of times a throttled request is retried before its exception propagates
+     */
+    public ArmRateLimiter(double readsPerSecond, int readBurst, double writesPerSecond, int writeBurst, int maxRetries)
+    {
+        this(readsPerSecond, readBurst, writesPerSecond, writeBurst, maxRetries, true);
+    }
+
+    private ArmRateLimiter(double readsPerSecond, int readBurst, double writesPerSecond, int writeBurst, int maxRetries, boolean enabled)
+    {
+        if (enabled && (readsPerSecond <= 0 || readBurst < 1 || writesPerSecond <= 0 || writeBurst < 1))
+        {
+            throw new IllegalArgumentException("Rates and bursts must be positive");
+        }
+
+        if (maxRetries < 0)
+        {
+            throw new IllegalArgumentException("maxRetries must not be negative");
+        }
+
+        this.readsPerSecond = readsPerSecond;
+        this.readBurst = readBurst;
+        this.writesPerSecond = writesPerSecond;
+        this.writeBurst = writeBurst;
+        this.maxRetries = maxRetries;
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return Limiter that never waits nor retries, e.g. for benchmarks against in-memory clients
+     */
+    public static ArmRateLimiter unlimited()
+    {
+        return new ArmRateLimiter(0, 0, 0, 0, 0, false);
+    }
+
+    /**
+     * @return Limiter used by CommonSdk.execute, and so by every synchronous ARM call of the sample
+     */
+    public static ArmRateLimiter shared()
+    {
+        return shared;
+    }
+
+    /**
+     * @param limiter Limiter to use from now on
+     */
+    public static void setShared(ArmRateLimiter limiter)
+    {
+        shared = limiter;
+    }
+
+    /**
+     * Sends a request once a token is available, retrying it while it is throttled
+     * @param subscriptionId Subscription the request is sent to
+     * @param type Class of the request
+     * @param call The ARM call
+     * @return The result of the call
+     */
+    public <T> T execute(String subscriptionId, RequestType type, Supplier<T> call)
+    {
+        if (!enabled)
+        {
+            return call.get();
+        }
+
+        AdaptiveTokenBucket bucket = bucket(subscriptionId, type);
+        for (int attempt = 0; ; attempt++)
+        {
+            try
+            {
+                bucket.acquire(type.priority());
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the ARM request budget", e);
+            }
+
+            try
+            {
+                T result = call.get();
+                bucket.onSuccess();
+                return result;
+            }
+            catch (RuntimeException e)
+            {
+                if (!onFailure(bucket, type, e, attempt))
+                {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Non-blocking counterpart of execute. The token is awaited on the bounded elastic scheduler.
+     * @param subscriptionId Subscription the request is sent to
+     * @param type Class of the request
+     * @param call Creates the Mono of the ARM call, invoked again for each retry
+     * @return Mono of the call, subscribed to once a token is available
+     */
+    public <T> Mono<T> executeAsync(String subscriptionId, RequestType type, Supplier<Mono<T>> call)
+    {
+        if (!enabled)
+        {
+            return Mono.defer(call);
+        }
+
+        AdaptiveTokenBucket bucket = bucket(subscriptionId, type);
+        return Mono.fromCallable(() ->
+                {
+                    bucket.acquire(type.priority());
+                    return true;
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(Mono.defer(call))
+                .doOnSuccess(ignored -> bucket.onSuccess())
+                .retryWhen(Retry.from(signals -> signals.concatMap(signal ->
+                        onFailure(bucket, type, signal.failure(), (int) signal.totalRetries())
+                                ? Mono.just(signal)
+                                : Mono.error(signal.failure()))));
+    }
+
+    /**
+     * @param subscriptionId Subscription id
+     * @param type Class of requests
+     * @return Current rate of the bucket the requests draw from, in requests per second
+     */
+    public double getRate(String subscriptionId, RequestType type)
+    {
+        return enabled ? bucket(subscriptionId, type).getRate() : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return Number of throttled responses seen
+     */
+    public long getThrottledCount()
+    {
+        return throttled.sum();
+    }
+
+    /**
+     * @return Number of requests sent again after a throttled or unavailable response
+     */
+    public long getRetryCount()
+    {
+        return retries.sum();
+    }
+
+    // Adapts the bucket to a failed request, returns true if the request should be retried
+    private boolean onFailure(AdaptiveTokenBucket bucket, RequestType type, Throwable e, int attempt)
+    {
+        Duration retryAfter = CommonSdk.getRetryAfter(e);
+        if (retryAfter == null)
+        {
+            return false;
+        }
+
+        if (((HttpResponseException) e).getResponse().getStatusCode() == 429)
+        {
+            throttled.increment();
+            bucket.onThrottled(retryAfter);
+        }
+        else
+        {
+            bucket.onThrottled(Duration.ZERO.equals(retryAfter) ? Duration.ofSeconds(1) : retryAfter);
+        }
+
+        if (attempt >= maxRetries)
+        {
+            return false;
+        }
+
+        retries.increment();
+        Utils.writeWarningMessage("ARM request throttled, retrying", "requestType", type.name(), "retryAfterMs", retryAfter.toMillis(),
+                "attempt", attempt + 1);
+        return true;
+    }
+
+    private AdaptiveTokenBucket bucket(String subscriptionId, RequestType type)
+    {
+        AdaptiveTokenBucket[] subscriptionBuckets = buckets.computeIfAbsent(subscriptionId, id -> new AdaptiveTokenBucket[]
+                {
+                        new AdaptiveTokenBucket(readsPerSecond, readBurst),
+                        new AdaptiveTokenBucket(writesPerSecond, writeBurst)
+                });
+        return subscriptionBuckets[type.isWrite() ? 1 : 0];
+    }
+
+    private static ArmRateLimiter fromSystemProperties()
+    {
+        if (!Boolean.parseBoolean(System.getProperty("anf.rateLimit.enabled", "true")))
+        {
+            return unlimited();
+        }
+
+        return new ArmRateLimiter(
+                Double.parseDouble(System.getProperty("anf.rateLimit.readsPerSecond", "25")),
+                Integer.getInteger("anf.rateLimit.readBurst", 250),
+                Double.parseDouble(System.getProperty("anf.rateLimit.writesPerSecond", "10")),
+                Integer.getInteger("anf.rateLimit.writeBurst", 200),
+                Integer.getInteger("anf.rateLimit.maxRetries", 5));
+    }
+}
@@ -0,0 +1,58 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.throttling;
+
+/**
+ * Class of an ARM request, deciding which budget it draws from and how it is ordered while waiting for a token.
+ * Lower priorities are served first, so deletes queue behind creates and updates.
+ */
+public enum RequestType
+{
+    READ(false, 0),
+    WRITE(true, 1),
+    DELETE(true, 2);
+
+    private final boolean write;
+    private final int priority;
+
+    RequestType(boolean write, int priority)
+    {
+        this.write = write;
+        this.priority = priority;
+    }
+
+    /**
+     * @param operation Operation name as recorded by MetricsRegistry, e.g. get, list, poll, create, update or delete
+     * @return The matching request type
+     */
+    public static RequestType of(String operation)
+    {
+        switch (operation)
+        {
+            case "get":
+            case "list":
+            case "poll":
+                return READ;
+            case "delete":
+                return DELETE;
+            default:
+                return WRITE;
+        }
+    }
+
+    /**
+     * @return True if the request draws from the write budget of the subscription
+     */
+    public boolean isWrite()
+    {
+        return write;
+    }
+
+    public int priority()
+    {
+        return priority;
+    }
+}
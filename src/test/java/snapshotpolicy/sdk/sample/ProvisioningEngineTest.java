@@ -0,0 +1,198 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample;
+
+import com.azure.resourcemanager.netapp.fluent.models.CapacityPoolInner;
+import com.azure.resourcemanager.netapp.fluent.models.NetAppAccountInner;
+import com.azure.resourcemanager.netapp.fluent.models.SnapshotPolicyInner;
+import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
+import snapshotpolicy.sdk.sample.fake.FakeNetAppManagementClient;
+import snapshotpolicy.sdk.sample.fake.LatencyDistribution;
+import snapshotpolicy.sdk.sample.throttling.ArmRateLimiter;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs plans on the fake client with a fixed long-running operation duration. Independent steps must overlap in time,
+// and no plan can finish faster than its critical path: account, then pool, then volume
+public class ProvisioningEngineTest
+{
+    private static final Duration LRO_DURATION = Duration.ofMillis(300);
+    private static final String RESOURCE_GROUP = "rg1";
+    private static final String ACCOUNT = "account1";
+    private static final String POLICY = "policy1";
+
+    private ArmRateLimiter previousLimiter;
+
+    @BeforeEach
+    public void setUp()
+    {
+        previousLimiter = ArmRateLimiter.shared();
+        ArmRateLimiter.setShared(ArmRateLimiter.unlimited());
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        ArmRateLimiter.setShared(previousLimiter);
+    }
+
+    @Test
+    public void runsIndependentStepsInParallel()
+    {
+        FakeNetAppManagementClient fake = new FakeNetAppManagementClient("00000000-0000-0000-0000-000000000000")
+                .withLroDuration(LatencyDistribution.fixed(LRO_DURATION));
+
+        // 1 account, 1 policy, 2 pools and 4 volumes: 8 operations, 3 of them on the critical path
+        ProvisioningPlan plan = new ProvisioningPlan(RESOURCE_GROUP)
+                .withAccount(ACCOUNT, new NetAppAccountInner().withLocation("westus"))
+                .withSnapshotPolicy(ACCOUNT, POLICY, new SnapshotPolicyInner().withLocation("westus").withEnabled(true));
+        for (int pool = 0; pool < 2; pool++)
+        {
+            plan.withCapacityPool(ACCOUNT, "pool" + pool, new CapacityPoolInner().withLocation("westus").withSize(4398046511104L));
+            for (int volume = 0; volume < 2; volume++)
+            {
+                plan.withVolume(ACCOUNT, "pool" + pool, "volume" + volume,
+                        new VolumeInner().withLocation("westus").withCreationToken("volume" + volume).withUsageThreshold(107374182400L), POLICY);
+            }
+        }
+
+        Map<String, long[]> timings = new ConcurrentHashMap<>();
+        ProvisioningEngine.ProvisioningResult result = new ProvisioningEngine(fake.client(), 8).execute(timed(plan, timings));
+
+        assertTrue(result.isSuccessful(), () -> "Failures: " + result.getFailures());
+        assertEquals(8, result.getResources().size());
+        VolumeInner volume = result.getResource(ProvisioningPlan.volumeKey(ACCOUNT, "pool1", "volume1"), VolumeInner.class);
+        assertNotNull(volume);
+        assertTrue(volume.dataProtection().snapshot().snapshotPolicyId().endsWith("/snapshotPolicies/" + POLICY));
+        assertTrue(ResourceKind.VOLUME.exists(fake.client(), new String[]{RESOURCE_GROUP, ACCOUNT, "pool0", "volume0"}));
+
+        // Each step waits for its own operation, so the plan cannot beat its critical path
+        Duration criticalPath = LRO_DURATION.multipliedBy(3);
+        assertTrue(result.getElapsed().compareTo(criticalPath) >= 0, () -> "Elapsed " + result.getElapsed() + " below the critical path " + criticalPath);
+
+        // Rather than bounding the wall-clock time, which a cold or busy machine can stretch, check that the steps of
+        // each level overlapped: all of them started before the first one finished
+        assertOverlap(timings, ProvisioningPlan.snapshotPolicyKey(ACCOUNT, POLICY),
+                ProvisioningPlan.capacityPoolKey(ACCOUNT, "pool0"), ProvisioningPlan.capacityPoolKey(ACCOUNT, "pool1"));
+        assertOverlap(timings, ProvisioningPlan.volumeKey(ACCOUNT, "pool0", "volume0"), ProvisioningPlan.volumeKey(ACCOUNT, "pool0", "volume1"),
+                ProvisioningPlan.volumeKey(ACCOUNT, "pool1", "volume0"), ProvisioningPlan.volumeKey(ACCOUNT, "pool1", "volume1"));
+    }
+
+    @Test
+    public void runsDependentStepsOneAfterTheOther()
+    {
+        FakeNetAppManagementClient fake = new FakeNetAppManagementClient("00000000-0000-0000-0000-000000000000")
+                .withLroDuration(LatencyDistribution.fixed(LRO_DURATION));
+
+        // A single chain is its own critical path, parallelism does not shorten it
+        ProvisioningPlan plan = new ProvisioningPlan(RESOURCE_GROUP)
+                .withAccount(ACCOUNT, new NetAppAccountInner().withLocation("westus"))
+                .withCapacityPool(ACCOUNT, "pool0", new CapacityPoolInner().withLocation("westus").withSize(4398046511104L))
+                .withVolume(ACCOUNT, "pool0", "volume0",
+                        new VolumeInner().withLocation("westus").withCreationToken("volume0").withUsageThreshold(107374182400L), null);
+
+        ProvisioningEngine.ProvisioningResult result = new ProvisioningEngine(fake.client(), 8).execute(plan);
+
+        assertTrue(result.isSuccessful(), () -> "Failures: " + result.getFailures());
+        assertTrue(result.getElapsed().compareTo(LRO_DURATION.multipliedBy(3)) >= 0, () -> "Elapsed " + result.getElapsed());
+    }
+
+    @Test
+    public void doesNotModifyTheVolumeBody()
+    {
+        FakeNetAppManagementClient fake = new FakeNetAppManagementClient("00000000-0000-0000-0000-000000000000");
+
+        // One body shared by both volumes, as a caller building many volumes alike would do
+        VolumeInner volumeBody = new VolumeInner().withLocation("westus").withCreationToken("volume").withUsageThreshold(107374182400L);
+        ProvisioningPlan plan = new ProvisioningPlan(RESOURCE_GROUP)
+                .withAccount(ACCOUNT, new NetAppAccountInner().withLocation("westus"))
+                .withSnapshotPolicy(ACCOUNT, POLICY, new SnapshotPolicyInner().withLocation("westus").withEnabled(true))
+                .withCapacityPool(ACCOUNT, "pool0", new CapacityPoolInner().withLocation("westus").withSize(4398046511104L))
+                .withVolume(ACCOUNT, "pool0", "volume0", volumeBody, POLICY)
+                .withVolume(ACCOUNT, "pool0", "volume1", volumeBody, null);
+
+        ProvisioningEngine.ProvisioningResult result = new ProvisioningEngine(fake.client(), 8).execute(plan);
+
+        assertTrue(result.isSuccessful(), () -> "Failures: " + result.getFailures());
+        assertNull(volumeBody.dataProtection());
+        assertNotNull(result.getResource(ProvisioningPlan.volumeKey(ACCOUNT, "pool0", "volume0"), VolumeInner.class).dataProtection());
+        assertNull(result.getResource(ProvisioningPlan.volumeKey(ACCOUNT, "pool0", "volume1"), VolumeInner.class).dataProtection());
+        assertEquals("volume", result.getResource(ProvisioningPlan.volumeKey(ACCOUNT, "pool0", "volume0"), VolumeInner.class).creationToken());
+    }
+
+    @Test
+    public void reportsAStepThrowingAnErrorAsFailed()
+    {
+        FakeNetAppManagementClient fake = new FakeNetAppManagementClient("00000000-0000-0000-0000-000000000000");
+
+        ProvisioningPlan plan = new ProvisioningPlan(RESOURCE_GROUP)
+                .withStep("broken", Collections.emptyList(), (anfClient, results) ->
+                {
+                    throw new AssertionError("broken step");
+                })
+                .withStep("dependent", Collections.singletonList("broken"), (anfClient, results) -> "never");
+
+        ProvisioningEngine.ProvisioningResult result = new ProvisioningEngine(fake.client(), 2).execute(plan);
+
+        assertFalse(result.isSuccessful());
+        assertTrue(result.getFailures().get("broken") instanceof AssertionError, () -> "Failures: " + result.getFailures());
+        assertEquals(Collections.singletonList("dependent"), result.getSkipped());
+    }
+
+    // Same plan, recording when each step started and finished
+    private static ProvisioningPlan timed(ProvisioningPlan plan, Map<String, long[]> timings)
+    {
+        ProvisioningPlan timed = new ProvisioningPlan(plan.getResourceGroup());
+        for (ProvisioningPlan.Step step : plan.getSteps())
+        {
+            timed.withStep(step.key, step.dependsOn, (anfClient, results) ->
+            {
+                long started = System.nanoTime();
+                try
+                {
+                    return step.action.run(anfClient, results);
+                }
+                finally
+                {
+                    timings.put(step.key, new long[]{started, System.nanoTime()});
+                }
+            });
+        }
+
+        return timed;
+    }
+
+    private static void assertOverlap(Map<String, long[]> timings, String... keys)
+    {
+        long lastStart = Long.MIN_VALUE;
+        long firstFinish = Long.MAX_VALUE;
+        for (String key : keys)
+        {
+            long[] timing = timings.get(key);
+            assertNotNull(timing, () -> "No timing for " + key);
+            lastStart = Math.max(lastStart, timing[0]);
+            firstFinish = Math.min(firstFinish, timing[1]);
+        }
+
+        long gap = lastStart - firstFinish;
+        assertTrue(gap < 0, () -> "Steps " + Arrays.toString(keys) + " ran one after the other, the last started "
+                + Duration.ofNanos(gap) + " after the first finished");
+    }
+}
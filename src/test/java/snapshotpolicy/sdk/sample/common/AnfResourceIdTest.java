@@ -0,0 +1,115 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+// Covers the hand-written tokenizer of AnfResourceId against the ids ARM returns, including its odd casings
+public class AnfResourceIdTest
+{
+    private static final String SNAPSHOT_ID = "/subscriptions/00000000-0000-0000-0000-000000000000/resourceGroups/rg1/providers/"
+            + "Microsoft.NetApp/netAppAccounts/account1/capacityPools/pool1/volumes/volume1/snapshots/snapshot1";
+
+    @Test
+    public void parsesEveryComponentOfASnapshotId()
+    {
+        AnfResourceId id = AnfResourceId.parse(SNAPSHOT_ID);
+
+        assertEquals("00000000-0000-0000-0000-000000000000", id.subscriptionId());
+        assertEquals("rg1", id.resourceGroup());
+        assertEquals("account1", id.accountName());
+        assertEquals("pool1", id.poolName());
+        assertEquals("volume1", id.volumeName());
+        assertEquals("snapshot1", id.snapshotName());
+        assertNull(id.snapshotPolicyName());
+    }
+
+    @Test
+    public void matchesSegmentNamesCaseInsensitively()
+    {
+        // ARM does not keep the casing of segment names consistent, e.g. resourcegroups in ids it generates
+        AnfResourceId id = AnfResourceId.parse("/SUBSCRIPTIONS/sub/resourcegroups/rg1/providers/Microsoft.NetApp/"
+                + "NETAPPACCOUNTS/account1/snapshotpolicies/Policy1");
+
+        assertEquals("sub", id.subscriptionId());
+        assertEquals("rg1", id.resourceGroup());
+        assertEquals("account1", id.accountName());
+        assertEquals("Policy1", id.snapshotPolicyName());
+    }
+
+    @Test
+    public void doesNotMistakeAValueForASegmentName()
+    {
+        AnfResourceId id = AnfResourceId.parse("/subscriptions/sub/resourceGroups/volumes/providers/Microsoft.NetApp/"
+                + "netAppAccounts/capacityPools/capacityPools/snapshots/volumes/volume1");
+
+        assertEquals("volumes", id.resourceGroup());
+        assertEquals("capacityPools", id.accountName());
+        assertEquals("snapshots", id.poolName());
+        assertEquals("volume1", id.volumeName());
+        assertNull(id.snapshotName());
+    }
+
+    @Test
+    public void keepsTheFirstOccurrenceOfASegment()
+    {
+        AnfResourceId id = AnfResourceId.parse("/subscriptions/sub/resourceGroups/rg1/resourceGroups/rg2");
+
+        assertEquals("rg1", id.resourceGroup());
+    }
+
+    @Test
+    public void leavesMissingOrEmptyValuesNull()
+    {
+        AnfResourceId partial = AnfResourceId.parse("/subscriptions/sub/resourceGroups/rg1/providers/Microsoft.NetApp/netAppAccounts/");
+        assertEquals("rg1", partial.resourceGroup());
+        assertNull(partial.accountName());
+
+        AnfResourceId trailing = AnfResourceId.parse("/subscriptions/sub/resourceGroups");
+        assertEquals("sub", trailing.subscriptionId());
+        assertNull(trailing.resourceGroup());
+    }
+
+    @Test
+    public void parsesNullAndBlankIdsToEmptyComponents()
+    {
+        for (String resourceId : new String[]{null, "", "/", "   "})
+        {
+            AnfResourceId id = AnfResourceId.parse(resourceId);
+            assertNull(id.subscriptionId());
+            assertNull(id.resourceGroup());
+            assertNull(id.accountName());
+            assertNull(id.volumeName());
+        }
+    }
+
+    @Test
+    public void returnsTheSameStringOnEveryCall()
+    {
+        AnfResourceId id = AnfResourceId.parse(SNAPSHOT_ID);
+
+        assertSame(id.volumeName(), id.volumeName());
+    }
+
+    @Test
+    public void findsArbitrarySegmentValues()
+    {
+        assertEquals("Microsoft.NetApp", AnfResourceId.findSegmentValue(SNAPSHOT_ID, "providers"));
+        assertEquals("pool1", AnfResourceId.findSegmentValue(SNAPSHOT_ID, "/CAPACITYPOOLS"));
+        assertNull(AnfResourceId.findSegmentValue(SNAPSHOT_ID, "backups"));
+        assertNull(AnfResourceId.findSegmentValue(null, "volumes"));
+        assertNull(AnfResourceId.findSegmentValue(SNAPSHOT_ID, null));
+
+        // A resource group named like a segment is a value, not the segment
+        String id = "/subscriptions/sub/resourceGroups/volumes/providers/Microsoft.NetApp/netAppAccounts/account1";
+        assertNull(AnfResourceId.findSegmentValue(id, "volumes"));
+        assertEquals("account1", AnfResourceId.findSegmentValue(id, "netAppAccounts"));
+    }
+}
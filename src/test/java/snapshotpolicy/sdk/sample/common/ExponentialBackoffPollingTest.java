@@ -0,0 +1,220 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.common;
+
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import com.azure.resourcemanager.netapp.fluent.VolumesClient;
+import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import snapshotpolicy.sdk.sample.throttling.ArmRateLimiter;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Drives waitForNoANFResource with ExponentialBackoffPolling on a VirtualPollingClock, so no test actually sleeps
+public class ExponentialBackoffPollingTest
+{
+    private static final String VOLUME_ID = "/subscriptions/00000000-0000-0000-0000-000000000000/resourceGroups/rg1/providers/"
+            + "Microsoft.NetApp/netAppAccounts/account1/capacityPools/pool1/volumes/volume1";
+
+    private final Deque<Supplier<VolumeInner>> responses = new ArrayDeque<>();
+    private ArmRateLimiter previousLimiter;
+
+    @BeforeEach
+    public void setUp()
+    {
+        previousLimiter = ArmRateLimiter.shared();
+        ArmRateLimiter.setShared(ArmRateLimiter.unlimited());
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        ArmRateLimiter.setShared(previousLimiter);
+    }
+
+    @Test
+    public void honorsRetryAfterLongerThanTheBackoff()
+    {
+        respond(throttled(null, "5"), volume(), notFound());
+        VirtualPollingClock clock = new VirtualPollingClock();
+
+        assertTrue(CommonSdk.waitForNoANFResource(client(), VOLUME_ID, backoff(), clock, ResourceKind.VOLUME));
+        // 500ms, then the 5s asked for instead of 1s, then 2s
+        assertEquals(Duration.ofMillis(7500), clock.elapsed());
+        assertEquals(3, clock.sleepCount());
+    }
+
+    @Test
+    public void backsOffWhenRetryAfterIsBlank()
+    {
+        respond(throttled(null, "   "), notFound());
+        VirtualPollingClock clock = new VirtualPollingClock();
+
+        assertTrue(CommonSdk.waitForNoANFResource(client(), VOLUME_ID, backoff(), clock, ResourceKind.VOLUME));
+        assertEquals(Duration.ofMillis(1500), clock.elapsed());
+    }
+
+    @Test
+    public void givesUpAtTheDeadline()
+    {
+        for (int i = 0; i < 20; i++)
+        {
+            respond(volume());
+        }
+
+        VirtualPollingClock clock = new VirtualPollingClock();
+
+        assertFalse(CommonSdk.waitForNoANFResource(client(), VOLUME_ID, backoff().withDeadline(Duration.ofSeconds(10)), clock, ResourceKind.VOLUME));
+        assertTrue(clock.elapsed().compareTo(Duration.ofSeconds(10)) <= 0, "elapsed " + clock.elapsed());
+    }
+
+    @Test
+    public void fallsBackToRetryAfterWhenRetryAfterMsIsMalformed()
+    {
+        assertEquals(Duration.ofSeconds(3), CommonSdk.getRetryAfter(exception(429, "soon", "3")));
+        assertEquals(Duration.ofMillis(250), CommonSdk.getRetryAfter(exception(429, " 250 ", "3")));
+        assertEquals(Duration.ZERO, CommonSdk.getRetryAfter(exception(503, " ", " ")));
+    }
+
+    @Test
+    public void blankRetryAfterKeepsTheOriginalError()
+    {
+        ArmRateLimiter.setShared(new ArmRateLimiter(100, 10, 100, 10, 0));
+        HttpResponseException throttled = exception(429, null, " ");
+
+        HttpResponseException thrown = assertThrows(HttpResponseException.class,
+                () -> CommonSdk.execute(client(), ResourceKind.VOLUME, "get", () -> { throw throttled; }));
+        assertSame(throttled, thrown);
+    }
+
+    private static ExponentialBackoffPolling backoff()
+    {
+        return new ExponentialBackoffPolling().withInitialDelay(Duration.ofMillis(500)).withJitter(false);
+    }
+
+    @SafeVarargs
+    private final void respond(Supplier<VolumeInner>... outcomes)
+    {
+        responses.addAll(Arrays.asList(outcomes));
+    }
+
+    private static Supplier<VolumeInner> volume()
+    {
+        return VolumeInner::new;
+    }
+
+    private static Supplier<VolumeInner> notFound()
+    {
+        return () -> { throw exception(404, null, null); };
+    }
+
+    private static Supplier<VolumeInner> throttled(String retryAfterMs, String retryAfter)
+    {
+        return () -> { throw exception(429, retryAfterMs, retryAfter); };
+    }
+
+    // Client whose volume gets answer with the queued responses, one per call
+    private NetAppManagementClient client()
+    {
+        VolumesClient volumes = (VolumesClient) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{VolumesClient.class},
+                (proxy, method, args) -> responses.remove().get());
+        return (NetAppManagementClient) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{NetAppManagementClient.class},
+                (proxy, method, args) -> method.getName().equals("getVolumes") ? volumes : null);
+    }
+
+    private static HttpResponseException exception(int statusCode, String retryAfterMs, String retryAfter)
+    {
+        HttpHeaders headers = new HttpHeaders();
+        if (retryAfterMs != null)
+        {
+            headers.set("retry-after-ms", retryAfterMs);
+        }
+
+        if (retryAfter != null)
+        {
+            headers.set("Retry-After", retryAfter);
+        }
+
+        return new HttpResponseException("Status code " + statusCode, new StubResponse(statusCode, headers));
+    }
+
+    private static final class StubResponse extends HttpResponse
+    {
+        private final int statusCode;
+        private final HttpHeaders headers;
+
+        StubResponse(int statusCode, HttpHeaders headers)
+        {
+            super(new HttpRequest(HttpMethod.GET, "https://management.azure.com" + VOLUME_ID));
+            this.statusCode = statusCode;
+            this.headers = headers;
+        }
+
+        @Override
+        public int getStatusCode()
+        {
+            return statusCode;
+        }
+
+        @Override
+        public String getHeaderValue(String name)
+        {
+            return headers.getValue(name);
+        }
+
+        @Override
+        public HttpHeaders getHeaders()
+        {
+            return headers;
+        }
+
+        @Override
+        public Flux<ByteBuffer> getBody()
+        {
+            return Flux.empty();
+        }
+
+        @Override
+        public Mono<byte[]> getBodyAsByteArray()
+        {
+            return Mono.just(new byte[0]);
+        }
+
+        @Override
+        public Mono<String> getBodyAsString()
+        {
+            return Mono.just("");
+        }
+
+        @Override
+        public Mono<String> getBodyAsString(Charset charset)
+        {
+            return Mono.just("");
+        }
+    }
+}
@@ -0,0 +1,110 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.policy;
+
+import com.azure.resourcemanager.netapp.fluent.models.SnapshotPolicyInner;
+import com.azure.resourcemanager.netapp.models.HourlySchedule;
+import com.azure.resourcemanager.netapp.models.MonthlySchedule;
+import com.azure.resourcemanager.netapp.models.WeeklySchedule;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Checks the epoch-day arithmetic of the simulator against java.time, and the occurrences it derives from it
+public class SnapshotScheduleSimulatorTest
+{
+    @Test
+    public void civilDateMathMatchesLocalDate()
+    {
+        // Two full 400-year Gregorian cycles around the epoch: 1700, 1800, 1900 and 2100 are not leap years, 2000 is
+        long from = LocalDate.of(1600, 3, 1).toEpochDay();
+        long to = LocalDate.of(2400, 3, 1).toEpochDay();
+        for (long epochDay = from; epochDay < to; epochDay++)
+        {
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+            assertEquals(date.getDayOfMonth(), SnapshotScheduleSimulator.dayOfMonth(epochDay), () -> "Day of month of " + date);
+            assertEquals(date.getDayOfWeek().getValue(), SnapshotScheduleSimulator.dayOfWeek(epochDay), () -> "Day of week of " + date);
+        }
+    }
+
+    @Test
+    public void monthlyScheduleSkipsMonthsWithoutTheDay()
+    {
+        SnapshotPolicyInner policy = new SnapshotPolicyInner().withEnabled(true)
+                .withMonthlySchedule(new MonthlySchedule().withSnapshotsToKeep(12).withDaysOfMonth("31").withHour(2).withMinute(30));
+
+        assertEquals(Arrays.asList("2024-01-31T02:30:00Z", "2024-03-31T02:30:00Z", "2024-05-31T02:30:00Z", "2024-07-31T02:30:00Z"),
+                createdAt(policy, "2024-01-01T00:00:00Z", "2024-08-01T00:00:00Z"));
+    }
+
+    @Test
+    public void monthlyScheduleOnTheTwentyNinthOnlyRunsInFebruaryOfLeapYears()
+    {
+        SnapshotPolicyInner policy = new SnapshotPolicyInner().withEnabled(true)
+                .withMonthlySchedule(new MonthlySchedule().withSnapshotsToKeep(12).withDaysOfMonth("29"));
+
+        assertEquals(Arrays.asList("2023-01-29T00:00:00Z", "2023-03-29T00:00:00Z"),
+                createdAt(policy, "2023-01-01T00:00:00Z", "2023-04-01T00:00:00Z"));
+        assertEquals(Arrays.asList("2024-01-29T00:00:00Z", "2024-02-29T00:00:00Z", "2024-03-29T00:00:00Z"),
+                createdAt(policy, "2024-01-01T00:00:00Z", "2024-04-01T00:00:00Z"));
+    }
+
+    @Test
+    public void weeklyScheduleRunsOnTheListedDays()
+    {
+        // 2024-01-01 was a Monday
+        SnapshotPolicyInner policy = new SnapshotPolicyInner().withEnabled(true)
+                .withWeeklySchedule(new WeeklySchedule().withSnapshotsToKeep(4).withDay("Monday, friday").withHour(23).withMinute(0));
+
+        assertEquals(Arrays.asList("2024-01-01T23:00:00Z", "2024-01-05T23:00:00Z", "2024-01-08T23:00:00Z"),
+                createdAt(policy, "2024-01-01T00:00:00Z", "2024-01-10T00:00:00Z"));
+    }
+
+    @Test
+    public void snapshotExpiresWhenRotatedOutAndTheHorizonEndIsExclusive()
+    {
+        SnapshotPolicyInner policy = new SnapshotPolicyInner().withEnabled(true)
+                .withHourlySchedule(new HourlySchedule().withSnapshotsToKeep(2).withMinute(15));
+
+        SnapshotTimeline timeline = SnapshotScheduleSimulator.simulate(policy,
+                Instant.parse("2024-01-01T00:15:00Z"), Instant.parse("2024-01-01T03:15:00Z"));
+
+        assertEquals(3, timeline.size());
+        assertEquals(Instant.parse("2024-01-01T00:15:00Z"), timeline.createdInstant(0));
+        // Keeping two, the first snapshot goes when the third is taken
+        assertEquals(Instant.parse("2024-01-01T02:15:00Z").getEpochSecond(), timeline.expiresAt(0));
+        assertEquals(SnapshotTimeline.NEVER, timeline.expiresAt(1));
+        assertEquals(2, timeline.peakRetained());
+    }
+
+    @Test
+    public void rejectsInvalidDaysOfMonth()
+    {
+        SnapshotPolicyInner policy = new SnapshotPolicyInner().withEnabled(true)
+                .withMonthlySchedule(new MonthlySchedule().withSnapshotsToKeep(1).withDaysOfMonth("1,32"));
+
+        assertThrows(IllegalArgumentException.class, () -> SnapshotScheduleSimulator.compile(policy));
+    }
+
+    private static List<String> createdAt(SnapshotPolicyInner policy, String from, String to)
+    {
+        SnapshotTimeline timeline = SnapshotScheduleSimulator.simulate(policy, Instant.parse(from), Instant.parse(to));
+        List<String> created = new ArrayList<>(timeline.size());
+        for (int i = 0; i < timeline.size(); i++)
+        {
+            created.add(timeline.createdInstant(i).toString());
+        }
+
+        return created;
+    }
+}
@@ -0,0 +1,113 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package snapshotpolicy.sdk.sample.reconcile;
+
+import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import snapshotpolicy.sdk.sample.common.ResourceKind;
+import snapshotpolicy.sdk.sample.fake.FakeNetAppManagementClient;
+import snapshotpolicy.sdk.sample.throttling.ArmRateLimiter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Reconciles a desired-state file against the fake client and counts the ARM calls of each run
+public class ReconcilerTest
+{
+    private static final String DESIRED_STATE = "{ \"resourceGroup\": \"rg1\", \"location\": \"westus\", \"accounts\": [{ \"name\": \"account1\","
+            + " \"snapshotPolicies\": [{ \"name\": \"policy1\", \"hourly\": { \"snapshotsToKeep\": 5, \"minute\": 50 } }],"
+            + " \"capacityPools\": [{ \"name\": \"pool1\", \"size\": 4398046511104, \"volumes\": ["
+            + "{ \"name\": \"volume1\", \"usageThreshold\": 107374182400, \"subnetId\": \"subnet1\", \"snapshotPolicy\": \"policy1\" },"
+            + "{ \"name\": \"volume2\", \"usageThreshold\": 107374182400, \"subnetId\": \"subnet1\" }] }] }] }";
+
+    @TempDir
+    Path directory;
+
+    private ArmRateLimiter previousLimiter;
+    private FakeNetAppManagementClient fake;
+
+    @BeforeEach
+    public void setUp()
+    {
+        previousLimiter = ArmRateLimiter.shared();
+        ArmRateLimiter.setShared(ArmRateLimiter.unlimited());
+        fake = new FakeNetAppManagementClient("00000000-0000-0000-0000-000000000000");
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        ArmRateLimiter.setShared(previousLimiter);
+    }
+
+    @Test
+    public void unchangedFileCostsOneListingAndNoWrite() throws IOException
+    {
+        Reconciler.ReconcileReport first = new Reconciler(fake.client()).reconcile(write(DESIRED_STATE));
+        assertTrue(first.isSuccessful(), () -> "Failures: " + first.getFailures());
+        // Account, policy, pool and two volumes, then the subtree hashes of the pool and the account
+        assertEquals(7, first.getWrites());
+
+        // The account carries the hash of its whole subtree, so listing the accounts of the resource group is enough
+        Reconciler.ReconcileReport second = new Reconciler(fake.client()).reconcile(write(DESIRED_STATE));
+
+        assertTrue(second.isSuccessful(), () -> "Failures: " + second.getFailures());
+        assertEquals(1, second.getListings());
+        assertEquals(0, second.getWrites());
+        assertEquals(0, second.getDeletes());
+        assertEquals(1, second.getSkippedSubtrees());
+    }
+
+    @Test
+    public void fullSweepComparesEveryResourceWithoutWriting() throws IOException
+    {
+        new Reconciler(fake.client()).reconcile(write(DESIRED_STATE));
+
+        Reconciler.ReconcileReport sweep = new Reconciler(fake.client()).withFullSweep(true).reconcile(write(DESIRED_STATE));
+
+        assertTrue(sweep.isSuccessful(), () -> "Failures: " + sweep.getFailures());
+        assertTrue(sweep.getListings() > 1, () -> "Listings: " + sweep.getListings());
+        assertEquals(0, sweep.getWrites());
+        assertEquals(0, sweep.getSkippedSubtrees());
+    }
+
+    @Test
+    public void changedVolumeIsTheOnlyWrite() throws IOException
+    {
+        new Reconciler(fake.client()).reconcile(write(DESIRED_STATE));
+
+        String resized = DESIRED_STATE.replace("{ \"name\": \"volume2\", \"usageThreshold\": 107374182400",
+                "{ \"name\": \"volume2\", \"usageThreshold\": 214748364800");
+        Reconciler.ReconcileReport report = new Reconciler(fake.client()).reconcile(write(resized));
+
+        assertTrue(report.isSuccessful(), () -> "Failures: " + report.getFailures());
+        // The volume, then the subtree hashes of its pool and account
+        assertEquals(3, report.getWrites());
+        VolumeInner volume = fake.client().getVolumes().get("rg1", "account1", "pool1", "volume2");
+        assertEquals(214748364800L, volume.usageThreshold());
+        assertTrue(ResourceKind.VOLUME.exists(fake.client(), new String[]{"rg1", "account1", "pool1", "volume1"}));
+
+        // Converged again, back to a single listing
+        Reconciler.ReconcileReport again = new Reconciler(fake.client()).reconcile(write(resized));
+        assertEquals(1, again.getListings());
+        assertEquals(0, again.getWrites());
+    }
+
+    private DesiredState write(String json) throws IOException
+    {
+        Path file = Files.createTempFile(directory, "desired-state", ".json");
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+        return DesiredState.load(file);
+    }
+}